@@ -0,0 +1,82 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.tcpip.nio.MUGRESNIOClient;
+import mugres.ipc.tcpip.nio.MUGRESNIOServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time from a server broadcast until every client got it, on the NIO transport over loopback, at
+ * increasing numbers of clients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastBenchmarks {
+    @Param({ "1", "16", "64", "256" })
+    public int clients;
+
+    private final AtomicLong received = new AtomicLong();
+    private final List<MUGRESNIOClient> connected = new ArrayList<>();
+    private MUGRESNIOServer server;
+    private SignalsMessage message;
+    private long expected;
+
+    @Setup
+    public void setup() throws IOException {
+        final Signals chord = Signals.create();
+        final long time = System.currentTimeMillis();
+        for(int note = 0; note < 4; note++)
+            chord.add(Signal.on(EventIds.next(), time, 1, Played.of(Pitch.of(60 + note * 4), 100)));
+        message = SignalsMessage.timestamped(chord);
+
+        server = MUGRESNIOServer.of(0);
+        server.start();
+        for(int index = 0; index < clients; index++) {
+            final MUGRESNIOClient client = MUGRESNIOClient.of("localhost", server.port());
+            client.setListener(m -> received.incrementAndGet());
+            client.connect();
+            connected.add(client);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        connected.forEach(MUGRESNIOClient::disconnect);
+        server.stop();
+    }
+
+    @Benchmark
+    public void broadcast() throws IOException {
+        server.broadcast(message);
+        expected += clients;
+
+        while(received.get() < expected)
+            Thread.yield();
+    }
+}
@@ -0,0 +1,90 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.Context;
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.core.filter.Filter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static mugres.core.common.Context.basicContext;
+
+/** Throughput of every builtin filter, accepting a three-note chord. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmarks {
+    @Param({"ScaleEnforcer", "Chorder", "Arpeggiate", "Latch", "Randomizer", "Ranges", "Splitter", "Transpose"})
+    public String filter;
+
+    private Context context;
+    private Filter instance;
+    private Signal[] chord;
+
+    @Setup
+    public void setup() {
+        context = basicContext();
+        instance = Filter.of(filter, arguments(filter));
+
+        final long now = System.currentTimeMillis();
+        chord = new Signal[] {
+                Signal.on(EventIds.next(), now, 1, Played.of(Pitch.of(60), 100)),
+                Signal.on(EventIds.next(), now, 1, Played.of(Pitch.of(63), 100)),
+                Signal.on(EventIds.next(), now, 1, Played.of(Pitch.of(67), 100))
+        };
+    }
+
+    @Benchmark
+    public Signals accept() {
+        return instance.accept(context, Signals.of(chord));
+    }
+
+    static Map<String, Object> arguments(final String filter) {
+        final Map<String, Object> arguments = new HashMap<>();
+        switch (filter) {
+            case "ScaleEnforcer":
+                arguments.put("correctionMode", "UP");
+                break;
+            case "Chorder":
+                arguments.put("chordMode", "DIATONIC");
+                break;
+            case "Arpeggiate":
+                arguments.put("pattern", "1e2e3eX");
+                break;
+            case "Randomizer":
+                arguments.put("mode", "DIATONIC");
+                arguments.put("octaves", 2);
+                break;
+            case "Ranges":
+                arguments.put("ranges", "low:0:59,mid:60:71,high:*");
+                break;
+            case "Splitter":
+                arguments.put("tagPrefix", "copy");
+                arguments.put("copies", 2);
+                break;
+            case "Transpose":
+                arguments.put("semitones", 12);
+                break;
+        }
+        return arguments;
+    }
+}
@@ -0,0 +1,125 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.shm.MUGRESSharedMemoryClient;
+import mugres.ipc.shm.MUGRESSharedMemoryServer;
+import mugres.ipc.tcpip.MUGRESTCPIPClient;
+import mugres.ipc.tcpip.MUGRESTCPIPNode;
+import mugres.ipc.tcpip.MUGRESTCPIPServer;
+import mugres.ipc.tcpip.nio.MUGRESNIOClient;
+import mugres.ipc.tcpip.nio.MUGRESNIOServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-to-server message throughput on the same host, for the aquelarre and the NIO transports
+ * over loopback TCP, and for the shared-memory transport.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IPCBenchmarks {
+    @Param({ "aquelarre", "nio", "shm" })
+    public String transport;
+
+    @Param({ "SIGNALS", "SIGNALS_V2" })
+    public String format;
+
+    private final AtomicLong received = new AtomicLong();
+    private Runnable stop;
+    private MUGRESTCPIPNode client;
+    private SignalsMessage message;
+    private long sent;
+
+    @Setup
+    public void setup() throws IOException {
+        final Signals chord = Signals.create();
+        final long time = System.currentTimeMillis();
+        for(int note = 0; note < 4; note++)
+            chord.add(Signal.on(EventIds.next(), time, 1, Played.of(Pitch.of(60 + note * 4), 100)));
+        message = "SIGNALS".equals(format) ? SignalsMessage.of(chord) : SignalsMessage.timestamped(chord);
+
+        if ("shm".equals(transport)) {
+            final Path directory = Files.createTempDirectory("mugres-shm");
+            final MUGRESSharedMemoryServer server = MUGRESSharedMemoryServer.of(directory);
+            server.setListener(m -> received.incrementAndGet());
+            server.start();
+            final MUGRESSharedMemoryClient shmClient = MUGRESSharedMemoryClient.of(directory);
+            shmClient.connect();
+            client = shmClient;
+            stop = () -> {
+                shmClient.disconnect();
+                server.stop();
+                directory.toFile().delete();
+            };
+        } else if ("nio".equals(transport)) {
+            final MUGRESNIOServer server = MUGRESNIOServer.of(0);
+            server.setListener(m -> received.incrementAndGet());
+            server.start();
+            final MUGRESNIOClient nioClient = MUGRESNIOClient.of("localhost", server.port());
+            nioClient.connect();
+            client = nioClient;
+            stop = () -> { nioClient.disconnect(); server.stop(); };
+        } else {
+            final MUGRESTCPIPServer server = MUGRESTCPIPServer.of(PORT);
+            server.setListener(m -> received.incrementAndGet());
+            server.start();
+            final MUGRESTCPIPClient tcpipClient = MUGRESTCPIPClient.of("localhost", PORT);
+            tcpipClient.connect();
+            client = tcpipClient;
+            stop = () -> {
+                try {
+                    tcpipClient.disconnect();
+                } catch (final IOException ignore) {
+                    // Do nothing
+                }
+                server.stop();
+            };
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        stop.run();
+    }
+
+    /** Sends a batch of messages and waits until the server got them all */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void sendToServer() throws IOException {
+        for(int index = 0; index < BATCH; index++)
+            client.sendToServer(message);
+        sent += BATCH;
+
+        while(received.get() < sent)
+            Thread.yield();
+    }
+
+    private static final int BATCH = 100;
+    private static final int PORT = 6478;
+}
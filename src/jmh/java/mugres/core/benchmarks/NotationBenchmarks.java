@@ -0,0 +1,81 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.gridpattern.GridPattern;
+import mugres.core.common.gridpattern.converters.DrumKitHitElementPatternParser;
+import mugres.core.function.Call;
+import mugres.core.notation.Section;
+import mugres.core.notation.Song;
+import mugres.core.notation.performance.Performance;
+import mugres.core.notation.performance.Performer;
+import mugres.core.notation.performance.converters.ToMidiSequenceConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.sound.midi.Sequence;
+import java.util.concurrent.TimeUnit;
+
+import static mugres.core.common.Context.basicContext;
+import static mugres.core.common.Party.WellKnownParties.BASS;
+import static mugres.core.common.Party.WellKnownParties.GUITAR1;
+
+/** Generation paths: performing songs, converting them to MIDI and parsing patterns and calls. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotationBenchmarks {
+    private Song song;
+    private Performance performance;
+
+    @Setup
+    public void setup() {
+        song = Song.of("Benchmark", basicContext());
+        final Section section = song.createSection("A", 8);
+        song.arrangement().append(section, 2);
+        section.addPart(GUITAR1.party(), Call.parse(RANDOM_CALL));
+        section.addPart(BASS.party(), Call.parse(RANDOM_CALL));
+
+        performance = Performer.perform(song);
+    }
+
+    @Benchmark
+    public Performance perform() {
+        return Performer.perform(song);
+    }
+
+    @Benchmark
+    public Sequence convertToMidi() {
+        return ToMidiSequenceConverter.getInstance().convert(performance);
+    }
+
+    @Benchmark
+    public GridPattern<DrumKitHitElementPatternParser.DrumKitHit> parseGridPattern() {
+        return GridPattern.parse(DRUM_PATTERN, DrumKitHitElementPatternParser.getInstance(), basicContext());
+    }
+
+    @Benchmark
+    public Call<?> parseCall() {
+        return Call.parse(RANDOM_CALL);
+    }
+
+    private static final String RANDOM_CALL = "random(len=8,scale='Minor Pentatonic',root=G)";
+    private static final String DRUM_PATTERN =
+            "Name=8ths Basic Rock\n" +
+            "Division=EIGHTH\n" +
+            "Slots=16\n" +
+            "\n" +
+            "BD   x-x-x-x-x-x-x-x-\n" +
+            "SD   -x-x-x-x-x-x-x-x\n" +
+            "OHH  -xxxxxxxxxxxxxxx\n" +
+            "CR1  x---------------";
+}
@@ -0,0 +1,145 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.Context;
+import mugres.core.common.EventIds;
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.core.common.io.Input;
+import mugres.core.common.io.Output;
+import mugres.core.filter.Filter;
+import mugres.core.live.processor.transformer.Transformer;
+import mugres.core.live.processor.transformer.config.Configuration;
+import mugres.core.notation.Song;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static mugres.core.common.Context.basicContext;
+
+/**
+ * Throughput of serial (0 partitions) vs channel-partitioned transformers, with a filter that takes a
+ * fixed amount of CPU time per signal, for a growing number of channels.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PartitionedTransformerBenchmarks {
+    @Param({ "1", "4", "16" })
+    private int channels;
+
+    @Param({ "0", "4" })
+    private int partitions;
+
+    private Input input;
+    private CountingOutput output;
+    private Transformer transformer;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final Context context = basicContext();
+        input = new Input() {};
+        output = new CountingOutput();
+
+        final Configuration config = new Configuration();
+        config.appendFilter(Busy.NAME, "micros", FILTER_MICROS);
+        if (partitions > 0)
+            config.partitionBy(Configuration.Partitioning.CHANNEL, partitions);
+
+        transformer = new Transformer(context, input, output, config);
+        transformer.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        transformer.stop();
+    }
+
+    /** Sends a batch and waits until it's all through the filter chain */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void batch() {
+        final long expected = output.count.get() + BATCH;
+        for(int sent = 0; sent < BATCH; sent++, index++)
+            input.send(Signal.on(EventIds.next(), System.currentTimeMillis(), index % channels,
+                    Played.of(Pitch.of(36 + index % 48), 100)));
+
+        while(output.count.get() < expected)
+            Thread.yield();
+    }
+
+    /** Burns the given CPU time per signal */
+    public static class Busy extends Filter {
+        public static final String NAME = "Busy";
+        private final long nanos;
+
+        public Busy(final Map<String, Object> arguments) {
+            super(arguments);
+
+            this.nanos = TimeUnit.MICROSECONDS.toNanos(Long.parseLong(this.arguments.get("micros").toString()));
+        }
+
+        @Override
+        public String name() {
+            return NAME;
+        }
+
+        @Override
+        protected boolean internalCanHandle(final Context context, final Signals signals) {
+            return true;
+        }
+
+        @Override
+        protected Signals internalHandle(final Context context, final Signals signals) {
+            final long until = System.nanoTime() + nanos;
+            while(System.nanoTime() < until) {
+                // Burn CPU
+            }
+            return signals;
+        }
+    }
+
+    private static class CountingOutput implements Output {
+        private final AtomicLong count = new AtomicLong();
+
+        @Override
+        public void send(final Signal signal) {
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void send(final InstrumentChange instrumentChange) {
+        }
+
+        @Override
+        public void send(final Song song) {
+        }
+    }
+
+    private static final int BATCH = 1_000;
+    private static final long FILTER_MICROS = 20;
+
+    static {
+        Filter.register(Busy.NAME, Busy.class);
+    }
+}
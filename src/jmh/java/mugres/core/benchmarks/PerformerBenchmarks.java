@@ -0,0 +1,89 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.Instrument;
+import mugres.core.common.Party;
+import mugres.core.function.Call;
+import mugres.core.notation.Section;
+import mugres.core.notation.Song;
+import mugres.core.notation.performance.Performance;
+import mugres.core.notation.performance.PerformanceStream;
+import mugres.core.notation.performance.Performer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import static mugres.core.common.Context.basicContext;
+
+/**
+ * Serial vs parallel performance of a song with a regenerated section, for a growing number of parties,
+ * and time to the first event when streaming it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerformerBenchmarks {
+    @Param({ "1", "4", "20" })
+    private int parties;
+
+    private Song song;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        song = Song.of("Benchmark", basicContext());
+        final Section verse = song.createSection("Verse", 16);
+        final Section chorus = song.createSection("Chorus", 8);
+        chorus.setRegenerate(true);
+        song.arrangement().append(verse, 2);
+        song.arrangement().append(chorus, 4);
+        song.arrangement().append(verse, 1);
+
+        for(int index = 0; index < parties; index++) {
+            final Party party = new Party("Party " + index, Instrument.Acoustic_Grand_Piano, index % 16);
+            verse.addPart(party, Call.parse(VERSE_CALL));
+            chorus.addPart(party, Call.parse(CHORUS_CALL));
+        }
+
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Performance serial() {
+        return Performer.perform(song);
+    }
+
+    @Benchmark
+    public Performance parallel() {
+        return Performer.perform(song, pool);
+    }
+
+    @Benchmark
+    public PerformanceStream.Item firstStreamed() {
+        try (PerformanceStream stream = Performer.stream(song)) {
+            return stream.next();
+        }
+    }
+
+    private static final String VERSE_CALL = "random(len=16,scale='Minor Pentatonic',root=G)";
+    private static final String CHORUS_CALL = "random(len=8,scale='Major',root=C)";
+}
@@ -0,0 +1,80 @@
+package mugres.core.benchmarks;
+
+import mugres.core.common.Context;
+import mugres.core.common.EventIds;
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.io.Input;
+import mugres.core.common.io.Output;
+import mugres.core.live.processor.transformer.Transformer;
+import mugres.core.live.processor.transformer.config.Configuration;
+import mugres.core.notation.Song;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static mugres.core.common.Context.basicContext;
+
+/** Throughput of a whole Transformer: input, a typical filter chain and output. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerBenchmarks {
+    private Input input;
+    private Transformer transformer;
+    private int index;
+
+    @Setup
+    public void setup() {
+        final Context context = basicContext();
+        input = new Input() {};
+
+        final Configuration config = new Configuration();
+        config.appendFilter("ScaleEnforcer", FilterBenchmarks.arguments("ScaleEnforcer"));
+        config.appendFilter("Transpose", FilterBenchmarks.arguments("Transpose"));
+        config.appendFilter("Chorder", FilterBenchmarks.arguments("Chorder"));
+
+        transformer = new Transformer(context, input, NULL_OUTPUT, config);
+        transformer.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        transformer.stop();
+    }
+
+    @Benchmark
+    public void send() {
+        final int pitch = 48 + (index++ & 0x1F);
+        input.send(Signal.on(EventIds.next(), System.currentTimeMillis(), 1, Played.of(Pitch.of(pitch), 100)));
+    }
+
+    private static final Output NULL_OUTPUT = new Output() {
+        @Override
+        public void send(final Signal signal) {
+        }
+
+        @Override
+        public void send(final InstrumentChange instrumentChange) {
+        }
+
+        @Override
+        public void send(final Song song) {
+        }
+    };
+}
@@ -1,11 +1,14 @@
 package mugres.core.common;
 
 import mugres.core.common.chords.ChordProgression;
+import mugres.core.common.clock.Clock;
+import mugres.core.utils.Randoms;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import static java.util.Arrays.asList;
 
@@ -19,6 +22,17 @@ public interface Context {
     default Context timeSignature(final TimeSignature timeSignature) { put(TIME_SIGNATURE, timeSignature); return this; }
     default ChordProgression chordProgression() { return get(CHORD_PROGRESSION); }
     default Context chordProgression(final ChordProgression chordProgression) { put(CHORD_PROGRESSION, chordProgression); return this; }
+    default Clock clock() { final Clock clock = get(CLOCK); return clock != null ? clock : Clock.system(); }
+    default Context clock(final Clock clock) { put(CLOCK, clock); return this; }
+    /** Seed to derive random sources from, e.g. for every call performing a song; null if not seeded */
+    default Long seed() { return get(SEED); }
+    default Context seed(final long seed) { put(SEED, seed); return this; }
+    /**
+     * Random source for generators and filters to draw from, or the calling thread's own if there's
+     * none. Not thread-safe: a context with a random source is meant for one thread at a time.
+     */
+    default SplittableRandom random() { final SplittableRandom random = get(RANDOM); return random != null ? random : Randoms.current(); }
+    default Context random(final SplittableRandom random) { put(RANDOM, random); return this; }
 
     void put(final String key, Object value);
     <X> X get(final String key);
@@ -37,6 +51,9 @@ public interface Context {
     String TIME_SIGNATURE = "time-signature";
     String SECTION_LENGTH = "section-length";
     String CHORD_PROGRESSION = "chord-progression";
+    String CLOCK = "clock";
+    String SEED = "seed";
+    String RANDOM = "random";
 
     final class ComposableContext implements Context
     {
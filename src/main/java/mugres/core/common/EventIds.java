@@ -0,0 +1,71 @@
+package mugres.core.common;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 64-bit event ids: a 16-bit node prefix followed by a 48-bit monotonic sequence, so ids minted
+ * by different nodes (see IPC) don't collide.
+ *
+ * The node prefix is taken from the <code>mugres.node-id</code> system property, or picked at
+ * random on startup. Ids are never 0.
+ */
+public final class EventIds {
+    private EventIds() {}
+
+    public static long next() {
+        return PREFIX | (SEQUENCE.incrementAndGet() & SEQUENCE_MASK);
+    }
+
+    public static int node() {
+        return NODE;
+    }
+
+    public static int node(final long eventId) {
+        return (int)(eventId >>> SEQUENCE_BITS);
+    }
+
+    public static long sequence(final long eventId) {
+        return eventId & SEQUENCE_MASK;
+    }
+
+    /** UUID representation of an event id, for compatibility */
+    public static UUID toUUID(final long eventId) {
+        return new UUID(UUID_MOST_SIGNIFICANT_BITS, eventId);
+    }
+
+    /** Event id for a UUID: the original id if the UUID came from {@link #toUUID(long)},
+     * a hash of it otherwise */
+    public static long of(final UUID uuid) {
+        if (uuid == null)
+            throw new IllegalArgumentException("uuid");
+
+        if (uuid.getMostSignificantBits() == UUID_MOST_SIGNIFICANT_BITS)
+            return uuid.getLeastSignificantBits();
+
+        final long hash = uuid.getMostSignificantBits() ^ uuid.getLeastSignificantBits();
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int initialNode() {
+        final String configured = System.getProperty(NODE_ID_PROPERTY);
+        if (configured != null)
+            try {
+                return Integer.parseInt(configured.trim()) & NODE_MASK;
+            } catch (final Throwable ignore) {
+                // Do nothing
+            }
+
+        return ThreadLocalRandom.current().nextInt(NODE_MASK + 1);
+    }
+
+    private static final String NODE_ID_PROPERTY = "mugres.node-id";
+    private static final int SEQUENCE_BITS = 48;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int NODE_MASK = 0xFFFF;
+    private static final int NODE = initialNode();
+    private static final long PREFIX = (long) NODE << SEQUENCE_BITS;
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+    private static final long UUID_MOST_SIGNIFICANT_BITS = 0x6D75677265734944L; // "mugresID"
+}
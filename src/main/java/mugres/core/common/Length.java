@@ -24,7 +24,11 @@ public class Length implements Comparable<Length> {
     }
 
     public long toMillis(final int bpm) {
-        return Math.round((60000.0 / (float)bpm) * n);
+        return Math.round((60000.0 / (float)bpm) * n / PPQN);
+    }
+
+    public long toNanos(final int bpm) {
+        return Math.round((60_000_000_000.0 / bpm) * n / PPQN);
     }
 
     public Length plus(final Value value) {
@@ -4,15 +4,19 @@ import java.util.*;
 
 /** Live signal. Analog to {@link mugres.core.common.Event} in the notated world. */
 public class Signal implements Cloneable {
-    private final UUID eventId;
+    private final long eventId;
     private final long time;
     private final int channel;
     private final Played played;
     private final boolean active;
     private Map<String, Object> attributes;
+    /** Whether attributes is shared with copies, and must be copied before writing to it */
+    private boolean attributesShared;
     private final Object attributesSyncObject = new Object();
+    private volatile long tagBits;
+    private volatile long[] extendedTagBits;
 
-    private Signal(final UUID eventId, final long time, final int channel, final Played played, final boolean active) {
+    private Signal(final long eventId, final long time, final int channel, final Played played, final boolean active) {
         this.eventId = eventId;
         this.time = time;
         this.channel = channel;
@@ -24,22 +28,22 @@ public class Signal implements Cloneable {
         final boolean active = (packed % 10) == 1;
         final int channelAndPlayed = packed / 10;
         final int channel = channelAndPlayed % 100;
-        return Signal.of(UUID.randomUUID(), System.currentTimeMillis(), channel, Played.of(channelAndPlayed / 100), active);
+        return Signal.of(EventIds.next(), System.currentTimeMillis(), channel, Played.of(channelAndPlayed / 100), active);
     }
 
-    public static Signal on(final UUID eventId, final long time, final int channel, final Played played) {
+    public static Signal on(final long eventId, final long time, final int channel, final Played played) {
         return of(eventId, time, channel, played, true);
     }
 
-    public static Signal off(final UUID eventId, final long time, final int channel, final Played played) {
+    public static Signal off(final long eventId, final long time, final int channel, final Played played) {
         return of(eventId, time, channel, played, false);
     }
 
-    public static Signal of(final UUID eventId, final long time, final int channel, final Played played, final boolean active) {
+    public static Signal of(final long eventId, final long time, final int channel, final Played played, final boolean active) {
         return of(eventId, time, channel, played, active, null);
     }
 
-    public static Signal of(final UUID eventId, final long time, final int channel, final Played played, final boolean active,
+    public static Signal of(final long eventId, final long time, final int channel, final Played played, final boolean active,
                             final Map<String, Object> attributes) {
         final Signal signal = new Signal(eventId, time, channel, played, active);
         if (attributes != null)
@@ -48,10 +52,31 @@ public class Signal implements Cloneable {
         return signal;
     }
 
-    public UUID id() {
+    /** Compatibility factory for UUID event ids. See {@link EventIds#of(UUID)} */
+    public static Signal on(final UUID eventId, final long time, final int channel, final Played played) {
+        return on(EventIds.of(eventId), time, channel, played);
+    }
+
+    /** Compatibility factory for UUID event ids. See {@link EventIds#of(UUID)} */
+    public static Signal off(final UUID eventId, final long time, final int channel, final Played played) {
+        return off(EventIds.of(eventId), time, channel, played);
+    }
+
+    /** Compatibility factory for UUID event ids. See {@link EventIds#of(UUID)} */
+    public static Signal of(final UUID eventId, final long time, final int channel, final Played played, final boolean active) {
+        return of(EventIds.of(eventId), time, channel, played, active);
+    }
+
+    /** See {@link EventIds} */
+    public long eventId() {
         return eventId;
     }
 
+    /** Event id as a UUID, for compatibility. Prefer {@link #eventId()} */
+    public UUID id() {
+        return EventIds.toUUID(eventId);
+    }
+
     /** Pitch + Channel identification */
     public int discriminator() {
         return played.pitch().midi() * 100 + channel;
@@ -74,67 +99,82 @@ public class Signal implements Cloneable {
     }
 
     public Signal modifiedPlayed(final Played newPlayed) {
-        synchronized (attributesSyncObject) {
-            return of(eventId, time, channel, newPlayed, active, attributes);
-        }
+        return copy(time, channel, newPlayed, active);
     }
 
     public Signal modifiedTime(final long newTime) {
-        synchronized (attributesSyncObject) {
-            return of(eventId, newTime, channel, played, active, attributes);
-        }
+        return copy(newTime, channel, played, active);
     }
 
     public Signal modifiedChannel(final int newChannel) {
-        synchronized (attributesSyncObject) {
-            return of(eventId, time, newChannel, played, active, attributes);
-        }
+        return copy(time, newChannel, played, active);
     }
 
     public Signal toOn() {
-        if (active)
-            return this;
-        else
-            synchronized (attributesSyncObject) {
-                return of(eventId, time, channel, played, true, attributes);
-            }
+        return active ? this : copy(time, channel, played, true);
     }
 
     public Signal toOff() {
-        if (active)
-            synchronized (attributesSyncObject) {
-                return of(eventId, time, channel, played, false, attributes);
-            }
-        else
-            return this;
+        return active ? copy(time, channel, played, false) : this;
     }
 
     @Override
     public Signal clone() {
-        final Signal clone = of(eventId, time, channel, played.clone(), active);
+        return copy(time, channel, played.clone(), active);
+    }
+
+    private Signal copy(final long newTime, final int newChannel, final Played newPlayed, final boolean newActive) {
+        final Signal copy = new Signal(eventId, newTime, newChannel, newPlayed, newActive);
         synchronized (attributesSyncObject) {
-            if (attributes != null)
-                for(final String key : attributes.keySet())
-                    clone.setAttribute(key, attributes.get(key));
+            if (attributes != null && !attributes.isEmpty()) {
+                // Copied by whichever signal writes to it first
+                attributesShared = true;
+                copy.attributes = attributes;
+                copy.attributesShared = true;
+            }
+            copy.tagBits = tagBits;
+            copy.extendedTagBits = extendedTagBits;
         }
-        return clone;
+        return copy;
     }
 
+    /** Attributes, tags included (as a set of names under {@link #TAGS}) */
     public Map<String, Object> attributes() {
         synchronized (attributesSyncObject) {
-            return  attributes == null ? Collections.emptyMap() : Collections.unmodifiableMap(attributes);
+            if (!hasTags())
+                return attributes == null ? Collections.emptyMap() : Collections.unmodifiableMap(attributes);
+
+            final Map<String, Object> all = attributes == null ? new HashMap<>() : new HashMap<>(attributes);
+            all.put(TAGS, tags());
+            return Collections.unmodifiableMap(all);
+        }
+    }
+
+    /** Whether the signal has attributes other than tags with ids under 64 */
+    public boolean hasExtendedAttributes() {
+        synchronized (attributesSyncObject) {
+            return (attributes != null && !attributes.isEmpty()) || extendedTagBits != null;
         }
     }
 
     public void setAttribute(final String name, final Object value) {
+        if (TAGS.equals(name)) {
+            if (value instanceof Collection)
+                for(final Object tag : (Collection<?>) value)
+                    addTag(String.valueOf(tag));
+            return;
+        }
+
         synchronized (attributesSyncObject) {
-            if (attributes == null)
-                attributes = new HashMap<>();
-            attributes.put(name, value);
+            writableAttributes().put(name, value);
         }
     }
 
+    @SuppressWarnings("unchecked")
     public <X> X getAttribute(final String name) {
+        if (TAGS.equals(name))
+            return hasTags() ? (X)tags() : null;
+
         synchronized (attributesSyncObject) {
             return attributes == null ?
                 null :
@@ -144,22 +184,61 @@ public class Signal implements Cloneable {
 
     public void removeAttribute(final String name) {
         synchronized (attributesSyncObject) {
-            if (attributes != null)
-                attributes.remove(name);
+            if (TAGS.equals(name)) {
+                tagBits = 0;
+                extendedTagBits = null;
+                return;
+            }
+
+            if (attributes != null && attributes.containsKey(name))
+                writableAttributes().remove(name);
+        }
+    }
+
+    /** Must be called while holding the lock on attributesSyncObject */
+    private Map<String, Object> writableAttributes() {
+        if (attributes == null) {
+            attributes = new HashMap<>();
+        } else if (attributesShared) {
+            attributes = new HashMap<>(attributes);
+            attributesShared = false;
         }
+        return attributes;
     }
 
     public void addTag(final String tag) {
         if (tag == null || tag.trim().isEmpty())
             return;
 
+        addTag(Tags.id(tag));
+    }
+
+    /** @param tagId tag id, as given by {@link Tags#id(String)} */
+    public void addTag(final int tagId) {
+        if (tagId < 0)
+            throw new IllegalArgumentException("tagId");
+
         synchronized (attributesSyncObject) {
-            Set<String> tags = getAttribute(TAGS);
-            if (tags == null) {
-                tags = new HashSet<>();
-                setAttribute(TAGS, tags);
+            if (tagId < Long.SIZE) {
+                tagBits |= 1L << tagId;
+            } else {
+                final int word = TagMask.extendedWord(tagId);
+                final long[] current = extendedTagBits;
+                final long[] updated = current == null ? new long[word + 1] :
+                        Arrays.copyOf(current, Math.max(current.length, word + 1));
+                updated[word] |= 1L << tagId;
+                extendedTagBits = updated;
             }
-            tags.add(tag);
+        }
+    }
+
+    /** Adds the tags in the given bitmask of tag ids under 64 */
+    public void addTags(final long tagBits) {
+        if (tagBits == 0)
+            return;
+
+        synchronized (attributesSyncObject) {
+            this.tagBits |= tagBits;
         }
     }
 
@@ -167,8 +246,49 @@ public class Signal implements Cloneable {
         if (tag == null || tag.trim().isEmpty())
             return false;
 
-        final Set<String> tags = getAttribute(TAGS);
-        return tags == null ? false : tags.contains(tag);
+        final int tagId = Tags.find(tag);
+        return tagId >= 0 && hasTag(tagId);
+    }
+
+    public boolean hasTag(final int tagId) {
+        if (tagId < 0)
+            return false;
+        if (tagId < Long.SIZE)
+            return (tagBits & (1L << tagId)) != 0;
+
+        final long[] extended = extendedTagBits;
+        final int word = TagMask.extendedWord(tagId);
+        return extended != null && word < extended.length && (extended[word] & (1L << tagId)) != 0;
+    }
+
+    public boolean hasTags() {
+        return tagBits != 0 || extendedTagBits != null;
+    }
+
+    /** Tag names, in registration order */
+    public Set<String> tags() {
+        final Set<String> tags = new LinkedHashSet<>();
+        final long bits = tagBits;
+        for(long remaining = bits; remaining != 0; remaining &= remaining - 1)
+            tags.add(Tags.name(Long.numberOfTrailingZeros(remaining)));
+
+        final long[] extended = extendedTagBits;
+        if (extended != null)
+            for(int word = 0; word < extended.length; word++)
+                for(long remaining = extended[word]; remaining != 0; remaining &= remaining - 1)
+                    tags.add(Tags.name((word + 1) * Long.SIZE + Long.numberOfTrailingZeros(remaining)));
+
+        return tags;
+    }
+
+    /** Bitmask of the ids (under 64) of this signal's tags */
+    public long tagBits() {
+        return tagBits;
+    }
+
+    /** Bitmask words for tag ids 64 and above, or null if there are none */
+    public long[] extendedTagBits() {
+        return extendedTagBits;
     }
 
     public int pack() {
@@ -177,10 +297,9 @@ public class Signal implements Cloneable {
 
     @Override
     public String toString() {
-        final Object tags = getAttribute(TAGS);
-        return String.format("(%s) %s [%d] [%s] Tags=[%s]",
+        return String.format("(%016x) %s [%d] [%s] Tags=[%s]",
                 eventId, played, channel, active ? "on" : "off",
-                tags == null ? "" : tags);
+                hasTags() ? tags() : "");
     }
 
     /** Tags attribute name */
@@ -0,0 +1,74 @@
+package mugres.core.common;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Immutable set of tags, as a bitmask of their {@link Tags} ids. Matching a signal against a
+ * mask of tags with ids under 64 is a single AND.
+ */
+public final class TagMask {
+    private final long bits;
+    private final long[] extendedBits;
+
+    private TagMask(final long bits, final long[] extendedBits) {
+        this.bits = bits;
+        this.extendedBits = extendedBits;
+    }
+
+    public static TagMask of(final String... tags) {
+        return of(Arrays.asList(tags));
+    }
+
+    public static TagMask of(final Collection<String> tags) {
+        if (tags == null)
+            throw new IllegalArgumentException("tags");
+
+        long bits = 0;
+        long[] extendedBits = null;
+        for(final String tag : tags) {
+            if (tag == null || tag.trim().isEmpty())
+                continue;
+
+            final int id = Tags.id(tag);
+            if (id < Long.SIZE) {
+                bits |= 1L << id;
+            } else {
+                final int word = extendedWord(id);
+                if (extendedBits == null || extendedBits.length <= word)
+                    extendedBits = extendedBits == null ? new long[word + 1] : Arrays.copyOf(extendedBits, word + 1);
+                extendedBits[word] |= 1L << id;
+            }
+        }
+
+        return new TagMask(bits, extendedBits);
+    }
+
+    /** Whether the signal has any of the tags in this mask */
+    public boolean matches(final Signal signal) {
+        if ((signal.tagBits() & bits) != 0)
+            return true;
+        if (extendedBits == null)
+            return false;
+
+        final long[] signalExtendedBits = signal.extendedTagBits();
+        if (signalExtendedBits == null)
+            return false;
+
+        final int words = Math.min(extendedBits.length, signalExtendedBits.length);
+        for(int word = 0; word < words; word++)
+            if ((signalExtendedBits[word] & extendedBits[word]) != 0)
+                return true;
+
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return bits == 0 && extendedBits == null;
+    }
+
+    /** Index, in the extended bits, of the word holding the given tag id (>= 64) */
+    static int extendedWord(final int id) {
+        return (id >>> 6) - 1;
+    }
+}
@@ -0,0 +1,56 @@
+package mugres.core.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Global tag registry. Every tag name is interned to a small, stable integer id so that
+ * signals can carry their tags as a bitmask (see {@link TagMask}).
+ */
+public final class Tags {
+    private Tags() {}
+
+    /** Id of the given tag, registering it if it's the first time it's seen */
+    public static int id(final String tag) {
+        if (tag == null)
+            throw new IllegalArgumentException("tag");
+
+        final Integer id = IDS.get(tag);
+        if (id != null)
+            return id;
+
+        synchronized (NAMES) {
+            return IDS.computeIfAbsent(tag, t -> {
+                NAMES.add(t);
+                return NAMES.size() - 1;
+            });
+        }
+    }
+
+    /** @return the id of the given tag, or -1 if it was never registered */
+    public static int find(final String tag) {
+        if (tag == null)
+            return -1;
+
+        final Integer id = IDS.get(tag);
+        return id == null ? -1 : id;
+    }
+
+    public static String name(final int id) {
+        synchronized (NAMES) {
+            if (id < 0 || id >= NAMES.size())
+                throw new IllegalArgumentException("id");
+            return NAMES.get(id);
+        }
+    }
+
+    /** Number of registered tags */
+    public static int count() {
+        return IDS.size();
+    }
+
+    private static final Map<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final List<String> NAMES = new ArrayList<>();
+}
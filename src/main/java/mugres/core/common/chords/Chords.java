@@ -7,7 +7,6 @@ import mugres.core.common.Scale;
 
 import java.util.List;
 
-import static mugres.core.utils.Randoms.RND;
 import static mugres.core.utils.Randoms.randoms;
 import static mugres.core.utils.Utils.rangeClosed;
 
@@ -18,9 +17,9 @@ public class Chords {
         final Key key = context.key();
         final Scale scale = key.defaultScale();
         final List<Integer> scaleDegrees = rangeClosed(1, scale.degrees());
-        final List<Integer> roots = randoms(scaleDegrees, 4, false);
+        final List<Integer> roots = randoms(context.random(), scaleDegrees, 4, false);
         final ChordProgression progression = ChordProgression.of(context, measures);
-        final boolean alterChords = measures > 4 || RND.nextBoolean();
+        final boolean alterChords = measures > 4 || context.random().nextBoolean();
 
         Length at = Length.ZERO;
 
@@ -49,7 +48,7 @@ public class Chords {
                 at = at.plus(context.timeSignature().measureLength());
             }
 
-            final List<Integer> newRoots = randoms(scaleDegrees, 4,  false);
+            final List<Integer> newRoots = randoms(context.random(), scaleDegrees, 4,  false);
             for (final Integer newRoot : newRoots) {
                 progression.event(scale.chordAtDegree(key.root(), newRoot), at);
                 at = at.plus(context.timeSignature().measureLength());
@@ -0,0 +1,27 @@
+package mugres.core.common.clock;
+
+/**
+ * Source of time for the live components (schedulers, frequencies, inputs).
+ *
+ * {@link #nanos()} is a monotonic timeline used for deadlines; {@link #millis()} is the time used
+ * for {@link mugres.core.common.Signal#time()}s. {@link #toNanos(long)} maps the latter to the
+ * former.
+ */
+public abstract class Clock {
+    /** Current time on this clock's monotonic timeline, in nanoseconds */
+    public abstract long nanos();
+
+    /** Current time, in milliseconds, as used for signal times */
+    public abstract long millis();
+
+    /** Point of the monotonic timeline, in nanoseconds, that corresponds to the given signal time */
+    public abstract long toNanos(final long millis);
+
+    /** Whether time only moves when this clock is explicitly advanced */
+    public abstract boolean isVirtual();
+
+    /** Real-time clock */
+    public static Clock system() {
+        return SystemClock.INSTANCE;
+    }
+}
@@ -0,0 +1,39 @@
+package mugres.core.common.clock;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Real-time clock: {@link System#nanoTime()} for deadlines and {@link System#currentTimeMillis()}
+ * for signal times, so signals timestamped by other sources are scheduled consistently.
+ */
+final class SystemClock extends Clock {
+    static final SystemClock INSTANCE = new SystemClock();
+
+    private SystemClock() {
+    }
+
+    @Override
+    public long nanos() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long millis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long toNanos(final long millis) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(millis - System.currentTimeMillis());
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "System clock";
+    }
+}
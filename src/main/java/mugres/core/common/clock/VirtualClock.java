@@ -0,0 +1,116 @@
+package mugres.core.common.clock;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Clock that only moves when advanced, e.g. to render a live setup against recorded input faster
+ * than real time, or to test it deterministically.
+ *
+ * Components that act at given times (schedulers, frequencies) register a {@link Timeline}
+ * instead of running their own threads. Advancing the clock fires every timeline, in deadline
+ * order, on the calling thread, with the clock set to each deadline in turn.
+ */
+public class VirtualClock extends Clock {
+    private final long originMillis;
+    private final List<Timeline> timelines = new CopyOnWriteArrayList<>();
+    private volatile long nanos;
+
+    private VirtualClock(final long originMillis) {
+        this.originMillis = originMillis;
+    }
+
+    /** Virtual clock that starts at the current wall-clock time */
+    public static VirtualClock of() {
+        return of(System.currentTimeMillis());
+    }
+
+    public static VirtualClock of(final long originMillis) {
+        return new VirtualClock(originMillis);
+    }
+
+    @Override
+    public long nanos() {
+        return nanos;
+    }
+
+    @Override
+    public long millis() {
+        return originMillis + TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public long toNanos(final long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis - originMillis);
+    }
+
+    @Override
+    public boolean isVirtual() {
+        return true;
+    }
+
+    public void advance(final long amount, final TimeUnit unit) {
+        if (amount < 0)
+            throw new IllegalArgumentException("amount");
+
+        advanceTo(nanos + unit.toNanos(amount));
+    }
+
+    /** Moves the clock forward to the given point of its timeline, firing everything due up to it */
+    public synchronized void advanceTo(final long target) {
+        if (target < nanos)
+            throw new IllegalArgumentException("target");
+
+        while(true) {
+            Timeline earliest = null;
+            long earliestDeadline = Long.MAX_VALUE;
+            for(final Timeline timeline : timelines) {
+                final long deadline = timeline.nextDeadline();
+                if (deadline < earliestDeadline) {
+                    earliest = timeline;
+                    earliestDeadline = deadline;
+                }
+            }
+
+            if (earliest == null || earliestDeadline > target)
+                break;
+
+            if (earliestDeadline > nanos)
+                nanos = earliestDeadline;
+            earliest.fire(nanos);
+        }
+
+        nanos = target;
+    }
+
+    /** Fires everything already due, without moving the clock */
+    public void runDue() {
+        advanceTo(nanos);
+    }
+
+    public void register(final Timeline timeline) {
+        if (timeline == null)
+            throw new IllegalArgumentException("timeline");
+
+        timelines.add(timeline);
+    }
+
+    public void unregister(final Timeline timeline) {
+        timelines.remove(timeline);
+    }
+
+    @Override
+    public String toString() {
+        return "Virtual clock at " + millis();
+    }
+
+    /** Something that acts at given points of a virtual clock's timeline */
+    public interface Timeline {
+        /** @return next point, in nanoseconds, this timeline acts at, or Long.MAX_VALUE if none */
+        long nextDeadline();
+
+        /** Performs everything due at or before <code>now</code> */
+        void fire(final long now);
+    }
+}
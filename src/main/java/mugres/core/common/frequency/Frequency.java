@@ -8,7 +8,7 @@ import java.util.Set;
 
 /** Artifact that ticks at certain times (regular or not). */
 public abstract class Frequency {
-    private boolean running;
+    private volatile boolean running;
     private final Set<Listener> listeners = new HashSet<>();
 
     public void addListener(final Listener listener) {
@@ -25,8 +25,14 @@ public abstract class Frequency {
         if (running)
             throw new IllegalStateException("Already running!");
 
-        onStart();
+        // Flagged as running before starting, so workers started by onStart() see it
         running = true;
+        try {
+            onStart();
+        } catch (final RuntimeException e) {
+            running = false;
+            throw e;
+        }
     }
 
     public void stop() {
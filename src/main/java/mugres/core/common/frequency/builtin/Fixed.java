@@ -1,57 +1,46 @@
 package mugres.core.common.frequency.builtin;
 
 import mugres.core.common.Value;
+import mugres.core.common.clock.Clock;
 import mugres.core.common.frequency.Frequency;
 
-/**
- * Fixed interval frequency.
- *
- * @implNote Time drift is still an issue. */
+/** Fixed interval frequency. Ticks at absolute deadlines of its clock (see {@link Synced}). */
 public class Fixed extends Frequency {
     private final long millis;
-    private Thread worker;
+    private final Synced ticker;
 
-    private Fixed(final long millis) {
+    private Fixed(final Clock clock, final long millis) {
         if (millis <= 0)
             throw new IllegalArgumentException("millis");
 
         this.millis = millis;
-        worker = createWorkerThread();
-        worker.setDaemon(true);
+        this.ticker = Synced.of(clock, millis);
+        this.ticker.addListener(this::fireTick);
     }
 
     public static Fixed of(final long millis) {
-        return new Fixed(millis);
+        return of(Clock.system(), millis);
+    }
+
+    public static Fixed of(final Clock clock, final long millis) {
+        return new Fixed(clock, millis);
     }
 
     public static Fixed of(final Value value, final int tempo) {
-        return new Fixed(value.length().toMillis(tempo));
+        return new Fixed(Clock.system(), value.length().toMillis(tempo));
+    }
+
+    public long millis() {
+        return millis;
     }
 
     @Override
     protected void onStart() {
-        worker.start();
+        ticker.start();
     }
 
     @Override
     protected void onStop() {
-        try {
-            worker.interrupt();
-            worker.join();
-        } catch (final Throwable ignore) {
-        }
-    }
-
-    private Thread createWorkerThread() {
-        return new Thread(() -> {
-            while(isRunning())
-                try {
-                    fireTick(System.currentTimeMillis());
-                } catch (final Throwable ignore) {
-                    // Do nothing
-                } finally {
-                    try { Thread.sleep(millis); } catch (final Throwable ignore) { }
-                }
-        });
+        ticker.stop();
     }
 }
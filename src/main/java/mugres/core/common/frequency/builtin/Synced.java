@@ -0,0 +1,238 @@
+package mugres.core.common.frequency.builtin;
+
+import mugres.core.common.Context;
+import mugres.core.common.Value;
+import mugres.core.common.clock.Clock;
+import mugres.core.common.clock.VirtualClock;
+import mugres.core.common.euclides.EuclideanPattern;
+import mugres.core.common.frequency.Frequency;
+import mugres.core.utils.LatenessTracker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Frequency that ticks at absolute deadlines, so the time spent by listeners never accumulates
+ * as drift. Tempo-relative steps follow the context's tempo as it changes.
+ *
+ * Every step lasts a given {@link Value} (or a fixed amount of time), optionally swung or filtered
+ * through an Euclidean pattern.
+ *
+ * Time is read from the context's {@link Clock}: on a {@link VirtualClock}, ticks are fired as the
+ * clock is advanced rather than by a worker thread.
+ */
+public class Synced extends Frequency {
+    private final Context context;
+    private final Clock clock;
+    private final Steps steps;
+    private final LatenessTracker lateness = LatenessTracker.of();
+    private volatile long resyncs;
+    private Thread worker;
+    private VirtualClock.Timeline timeline;
+    private long originNanos;
+    private long originMillis;
+    private long deadline;
+    private int step;
+
+    private Synced(final Context context, final Clock clock, final Steps steps) {
+        if (clock == null)
+            throw new IllegalArgumentException("clock");
+        if (steps == null)
+            throw new IllegalArgumentException("steps");
+
+        this.context = context;
+        this.clock = clock;
+        this.steps = steps;
+    }
+
+    /** Ticks every <code>millis</code> milliseconds, regardless of tempo. */
+    public static Synced of(final long millis) {
+        return of(Clock.system(), millis);
+    }
+
+    /** Ticks every <code>millis</code> milliseconds of the given clock, regardless of tempo. */
+    public static Synced of(final Clock clock, final long millis) {
+        if (millis <= 0)
+            throw new IllegalArgumentException("millis");
+
+        final long nanos = TimeUnit.MILLISECONDS.toNanos(millis);
+        return new Synced(null, clock, new Steps() {
+            @Override
+            public long duration(final int step, final int tempo) {
+                return nanos;
+            }
+        });
+    }
+
+    /** Ticks every <code>value</code> at the context's current tempo. */
+    public static Synced of(final Context context, final Value value) {
+        checkTempoRelative(context, value);
+
+        return new Synced(context, context.clock(), new Steps() {
+            @Override
+            public long duration(final int step, final int tempo) {
+                return value.length().toNanos(tempo);
+            }
+        });
+    }
+
+    /**
+     * Ticks every <code>value</code>, swung: each pair of steps is split according to
+     * <code>ratio</code> (0.5 is straight, ~0.66 is a triplet feel).
+     */
+    public static Synced swing(final Context context, final Value value, final double ratio) {
+        checkTempoRelative(context, value);
+        if (ratio <= 0 || ratio >= 1)
+            throw new IllegalArgumentException("ratio");
+
+        return new Synced(context, context.clock(), new Steps() {
+            @Override
+            public long duration(final int step, final int tempo) {
+                final long pair = 2 * value.length().toNanos(tempo);
+                return Math.round(pair * (step % 2 == 0 ? ratio : 1 - ratio));
+            }
+        });
+    }
+
+    /** Steps every <code>value</code>, but ticks only on the pattern's events. */
+    public static Synced euclidean(final Context context, final Value value, final EuclideanPattern pattern) {
+        checkTempoRelative(context, value);
+        if (pattern == null)
+            throw new IllegalArgumentException("pattern");
+
+        return new Synced(context, context.clock(), new Steps() {
+            @Override
+            public long duration(final int step, final int tempo) {
+                return value.length().toNanos(tempo);
+            }
+
+            @Override
+            public boolean ticks(final int step) {
+                return pattern.eventAt(step);
+            }
+        });
+    }
+
+    /** Lateness of every tick in relation to its deadline */
+    public LatenessTracker.Snapshot lateness() {
+        return lateness.snapshot();
+    }
+
+    /** Number of times the ticking fell behind by a whole step or more and had to be resynchronized */
+    public long resyncs() {
+        return resyncs;
+    }
+
+    @Override
+    protected void onStart() {
+        originNanos = clock.nanos();
+        originMillis = clock.millis();
+        deadline = originNanos;
+        step = 0;
+
+        if (clock.isVirtual()) {
+            timeline = createTimeline();
+            ((VirtualClock) clock).register(timeline);
+        } else {
+            worker = new Thread(this::tickLoop);
+            worker.setName("MUGRES Synced Frequency");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    @Override
+    protected void onStop() {
+        if (timeline != null) {
+            ((VirtualClock) clock).unregister(timeline);
+            timeline = null;
+            return;
+        }
+
+        try {
+            worker.interrupt();
+            worker.join();
+        } catch (final Throwable ignore) {
+        }
+    }
+
+    private void tickLoop() {
+        while(isRunning() && !Thread.currentThread().isInterrupted()) {
+            waitUntil(deadline);
+            step(clock.nanos());
+        }
+    }
+
+    private VirtualClock.Timeline createTimeline() {
+        return new VirtualClock.Timeline() {
+            @Override
+            public long nextDeadline() {
+                return isRunning() ? deadline : Long.MAX_VALUE;
+            }
+
+            @Override
+            public void fire(final long now) {
+                while(isRunning() && deadline <= now)
+                    step(now);
+            }
+        };
+    }
+
+    /** Ticks, if the current step does, and moves on to the next step */
+    private void step(final long now) {
+        if (steps.ticks(step)) {
+            lateness.record(now - deadline);
+            try {
+                fireTick(originMillis + TimeUnit.NANOSECONDS.toMillis(deadline - originNanos));
+            } catch (final Throwable ignore) {
+                // Do nothing
+            }
+        }
+
+        final long duration = steps.duration(step, tempo());
+        step = step == Integer.MAX_VALUE ? 0 : step + 1;
+        deadline += duration;
+
+        // Too far behind (e.g. a long GC pause): don't burst through the missed steps
+        if (clock.nanos() - deadline > duration) {
+            deadline = clock.nanos();
+            resyncs++;
+        }
+    }
+
+    private int tempo() {
+        return context == null ? 0 : context.tempo();
+    }
+
+    private void waitUntil(final long deadline) {
+        long remaining = deadline - clock.nanos();
+        while(remaining > SPIN_WINDOW_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_WINDOW_NANOS);
+            if (Thread.currentThread().isInterrupted())
+                return;
+            remaining = deadline - clock.nanos();
+        }
+
+        while(deadline - clock.nanos() > 0)
+            Thread.yield();
+    }
+
+    private static void checkTempoRelative(final Context context, final Value value) {
+        if (context == null)
+            throw new IllegalArgumentException("context");
+        if (value == null)
+            throw new IllegalArgumentException("value");
+    }
+
+    private abstract static class Steps {
+        /** Duration of the given step, in nanoseconds */
+        public abstract long duration(final int step, final int tempo);
+
+        /** Whether the frequency ticks at the start of the given step */
+        public boolean ticks(final int step) {
+            return true;
+        }
+    }
+
+    private static final long SPIN_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+}
@@ -2,12 +2,13 @@ package mugres.core.common.io;
 
 import mugres.core.common.InstrumentChange;
 import mugres.core.common.Signal;
+import mugres.core.utils.metrics.MetricsRegistry;
 
-import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 public abstract class Input {
-    private final Set<Listener> listeners = new HashSet<>();
+    private final Set<Listener> listeners = new CopyOnWriteArraySet<>();
 
     public final void addListener(final Listener listener) {
         if (listener != null)
@@ -20,13 +21,25 @@ public abstract class Input {
     }
 
     public void send(final Signal signal) {
-        listeners.forEach(listener -> listener.receive(signal));
+        if (!METRICS.isEnabled()) {
+            for(final Listener listener : listeners)
+                listener.receive(signal);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        for(final Listener listener : listeners)
+            listener.receive(signal);
+        METRICS.stage(STAGE).record(System.nanoTime() - start, 1, 1);
     }
 
     public void send(final InstrumentChange instrumentChange) {
         listeners.forEach(listener -> listener.receive(instrumentChange));
     }
 
+    private static final MetricsRegistry METRICS = MetricsRegistry.shared();
+    private static final String STAGE = "Input";
+
     public interface Listener {
         void receive(final Signal signal);
         void receive(final InstrumentChange instrumentChange);
@@ -0,0 +1,72 @@
+package mugres.core.common.io;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Layout of session journals: a directory of fixed-size, memory-mapped segment files.
+ *
+ * Every segment starts with a header (magic, version, record size, sealed flag, committed record
+ * count) followed by fixed-size records: time, event id, tag bits, type, channel, active flag,
+ * velocity and pitch (or instrument id, for instrument changes). Tags with ids of 64 and above
+ * follow their signal in extended tags records, one per non-empty word of tag bits, with the word
+ * index as data. A record is only visible to readers once the committed count covers it; a signal
+ * and its extended tags are committed together, in the same segment. Segments are sealed once
+ * full and never written again; they're ignored until their magic is written.
+ */
+final class JournalFormat {
+    private JournalFormat() {
+    }
+
+    static Path segment(final Path directory, final int index) {
+        return directory.resolve(String.format("%08d%s", index, SEGMENT_EXTENSION));
+    }
+
+    /** Existing segments, in order */
+    static List<Path> segments(final Path directory) throws IOException {
+        final List<Path> segments = new ArrayList<>();
+        if (!Files.isDirectory(directory))
+            return segments;
+
+        try(final DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SEGMENT_EXTENSION)) {
+            for(final Path segment : stream)
+                segments.add(segment);
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    static long segmentSize(final int records) {
+        return HEADER_SIZE + (long) records * RECORD_SIZE;
+    }
+
+    static final String SEGMENT_EXTENSION = ".journal";
+    static final int MAGIC = 0x4D475253; // MGRS
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 32;
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int RECORD_SIZE_OFFSET = 8;
+    static final int SEALED_OFFSET = 12;
+    static final int COUNT_OFFSET = 16;
+
+    static final int RECORD_SIZE = 32;
+    static final int TIME_OFFSET = 0;
+    static final int EVENT_ID_OFFSET = 8;
+    static final int TAG_BITS_OFFSET = 16;
+    static final int TYPE_OFFSET = 24;
+    static final int CHANNEL_OFFSET = 25;
+    static final int ACTIVE_OFFSET = 26;
+    static final int VELOCITY_OFFSET = 27;
+    static final int DATA_OFFSET = 28;
+
+    static final byte SIGNAL = 1;
+    static final byte INSTRUMENT_CHANGE = 2;
+    static final byte EXTENDED_TAGS = 3;
+}
@@ -0,0 +1,125 @@
+package mugres.core.common.io;
+
+import mugres.core.common.clock.Clock;
+import mugres.core.common.clock.VirtualClock;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Input that replays a journal recorded by {@link JournalRecorder}.
+ *
+ * Signals keep their relative timing, scaled by the replay speed, and are re-timed to the replay's
+ * clock. On a {@link VirtualClock}, the clock is advanced to every record instead of waiting, so
+ * the session is rendered as fast as possible and deterministically.
+ */
+public class JournalInput extends Input {
+    public static final double AS_FAST_AS_POSSIBLE = 0;
+
+    private final Path directory;
+    private final Clock clock;
+    private volatile Thread worker;
+
+    private JournalInput(final Path directory, final Clock clock) {
+        if (directory == null)
+            throw new IllegalArgumentException("directory");
+        if (clock == null)
+            throw new IllegalArgumentException("clock");
+
+        this.directory = directory;
+        this.clock = clock;
+    }
+
+    public static JournalInput of(final Path directory) {
+        return of(directory, Clock.system());
+    }
+
+    public static JournalInput of(final Path directory, final Clock clock) {
+        return new JournalInput(directory, clock);
+    }
+
+    /**
+     * Replays the whole journal on the calling thread.
+     *
+     * @param speed 1 for real time, N for N times faster, or {@link #AS_FAST_AS_POSSIBLE}
+     *              (ignored on a virtual clock)
+     * @return number of records replayed
+     */
+    public long replay(final double speed) throws IOException {
+        if (speed < 0)
+            throw new IllegalArgumentException("speed");
+
+        try(final JournalReader reader = JournalReader.of(directory)) {
+            final long originNanos = clock.nanos();
+            final long originMillis = clock.millis();
+            long firstTime = 0;
+
+            while(reader.next()) {
+                if (reader.read() == 1)
+                    firstTime = reader.time();
+
+                final long offsetMillis = reader.time() - firstTime;
+                final long time;
+                if (clock.isVirtual()) {
+                    time = originMillis + offsetMillis;
+                    ((VirtualClock) clock).advanceTo(Math.max(clock.nanos(), clock.toNanos(time)));
+                } else if (speed == AS_FAST_AS_POSSIBLE) {
+                    time = clock.millis();
+                } else {
+                    waitUntil(originNanos + (long) (TimeUnit.MILLISECONDS.toNanos(offsetMillis) / speed));
+                    time = clock.millis();
+                }
+
+                if (reader.isSignal())
+                    send(reader.signal(time));
+                else if (reader.isInstrumentChange())
+                    send(reader.instrumentChange());
+
+                if (Thread.currentThread().isInterrupted())
+                    break;
+            }
+
+            return reader.read();
+        }
+    }
+
+    /** Replays the journal on a background thread. See {@link #replay(double)}. */
+    public synchronized void start(final double speed) {
+        if (worker != null)
+            throw new IllegalStateException("Already replaying");
+
+        worker = new Thread(() -> {
+            try {
+                replay(speed);
+            } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        worker.setName("MUGRES Journal Replay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public synchronized void stop() {
+        final Thread current = worker;
+        if (current == null)
+            return;
+
+        worker = null;
+        current.interrupt();
+        try {
+            current.join();
+        } catch (final InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void waitUntil(final long deadline) {
+        long remaining;
+        while((remaining = deadline - clock.nanos()) > 0 && !Thread.currentThread().isInterrupted())
+            LockSupport.parkNanos(remaining);
+    }
+}
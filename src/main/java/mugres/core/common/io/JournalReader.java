@@ -0,0 +1,186 @@
+package mugres.core.common.io;
+
+import mugres.core.common.Instrument;
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.utils.Fences;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static mugres.core.common.io.JournalFormat.*;
+
+/**
+ * Cursor over the records of a journal written by {@link JournalRecorder}.
+ *
+ * The journal can still be being recorded: {@link #next()} returns false when the reader has
+ * caught up with the recorder, and true again once more records are committed.
+ */
+public class JournalReader implements AutoCloseable {
+    private final Path directory;
+    private int segmentIndex = -1;
+    private MappedByteBuffer segment;
+    private int record = -1;
+    private long read;
+
+    private JournalReader(final Path directory) {
+        if (directory == null)
+            throw new IllegalArgumentException("directory");
+
+        this.directory = directory;
+    }
+
+    public static JournalReader of(final Path directory) {
+        return new JournalReader(directory);
+    }
+
+    /** Moves to the next record. @return false if there are no more records (yet) */
+    public boolean next() throws IOException {
+        while(true) {
+            if (segment == null && !openSegment(segmentIndex + 1))
+                return false;
+
+            final long count = segment.getLong(COUNT_OFFSET);
+            Fences.loadFence();
+            if (record + 1 < count) {
+                record++;
+                // Read along with their signal
+                if (segment.get(position() + TYPE_OFFSET) == EXTENDED_TAGS)
+                    continue;
+                read++;
+                return true;
+            }
+
+            // Move on only once the recorder is done with this segment
+            final boolean sealed = segment.getInt(SEALED_OFFSET) != 0;
+            Fences.loadFence();
+            if (!sealed)
+                return false;
+            // The last records may have been committed between reading the count and the seal
+            if (record + 1 < segment.getLong(COUNT_OFFSET))
+                continue;
+            if (!openSegment(segmentIndex + 1))
+                return false;
+        }
+    }
+
+    /** Number of records read so far */
+    public long read() {
+        return read;
+    }
+
+    public long time() {
+        return segment.getLong(position() + TIME_OFFSET);
+    }
+
+    public boolean isSignal() {
+        return segment.get(position() + TYPE_OFFSET) == SIGNAL;
+    }
+
+    public boolean isInstrumentChange() {
+        return segment.get(position() + TYPE_OFFSET) == INSTRUMENT_CHANGE;
+    }
+
+    public long eventId() {
+        return segment.getLong(position() + EVENT_ID_OFFSET);
+    }
+
+    public int channel() {
+        return segment.get(position() + CHANNEL_OFFSET);
+    }
+
+    public boolean isActive() {
+        return segment.get(position() + ACTIVE_OFFSET) != 0;
+    }
+
+    public int velocity() {
+        return segment.get(position() + VELOCITY_OFFSET);
+    }
+
+    public int pitch() {
+        return segment.getInt(position() + DATA_OFFSET);
+    }
+
+    /** Bitmask of the ids (under 64) of the signal's tags; see {@link #signal()} for the rest */
+    public long tagBits() {
+        return segment.getLong(position() + TAG_BITS_OFFSET);
+    }
+
+    /** The current record as a signal, at the given time */
+    public Signal signal(final long time) {
+        if (!isSignal())
+            throw new IllegalStateException("Not a signal");
+
+        final Signal signal = Signal.of(eventId(), time, channel(),
+                Played.of(Pitch.of(pitch()), velocity()), isActive());
+        signal.addTags(tagBits());
+        // Committed along with the signal, so they're all there
+        final long count = segment.getLong(COUNT_OFFSET);
+        for(int extra = record + 1; extra < count; extra++) {
+            final int position = HEADER_SIZE + extra * RECORD_SIZE;
+            if (segment.get(position + TYPE_OFFSET) != EXTENDED_TAGS)
+                break;
+
+            final int firstId = (segment.getInt(position + DATA_OFFSET) + 1) * Long.SIZE;
+            for(long remaining = segment.getLong(position + TAG_BITS_OFFSET); remaining != 0; remaining &= remaining - 1)
+                signal.addTag(firstId + Long.numberOfTrailingZeros(remaining));
+        }
+        return signal;
+    }
+
+    public Signal signal() {
+        return signal(time());
+    }
+
+    public InstrumentChange instrumentChange() {
+        if (!isInstrumentChange())
+            throw new IllegalStateException("Not an instrument change");
+
+        return InstrumentChange.of(channel(), Instrument.of(segment.getInt(position() + DATA_OFFSET)));
+    }
+
+    @Override
+    public void close() {
+        segment = null;
+    }
+
+    private int position() {
+        if (segment == null || record < 0)
+            throw new IllegalStateException("No current record");
+
+        return HEADER_SIZE + record * RECORD_SIZE;
+    }
+
+    private boolean openSegment(final int index) throws IOException {
+        final Path path = segment(directory, index);
+        if (!Files.exists(path))
+            return false;
+
+        try(final RandomAccessFile file = new RandomAccessFile(path.toFile(), "r");
+            final FileChannel channel = file.getChannel()) {
+            if (channel.size() < HEADER_SIZE)
+                return false;
+
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(MAGIC_OFFSET) == 0)
+                return false; // Still being created
+            if (mapped.getInt(MAGIC_OFFSET) != MAGIC)
+                throw new IOException("Not a journal segment: " + path);
+            if (mapped.getInt(VERSION_OFFSET) != VERSION || mapped.getInt(RECORD_SIZE_OFFSET) != RECORD_SIZE)
+                throw new IOException("Unsupported journal segment: " + path);
+
+            segment = mapped;
+            segmentIndex = index;
+            record = -1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package mugres.core.common.io;
+
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Signal;
+import mugres.core.common.clock.Clock;
+import mugres.core.utils.Fences;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static mugres.core.common.io.JournalFormat.*;
+
+/**
+ * Records every signal and instrument change received from an {@link Input} into an append-only,
+ * memory-mapped journal (see {@link JournalReader} and {@link JournalInput} to read it back).
+ *
+ * Recording a signal only writes primitives into the mapped segment: it doesn't allocate, so it's
+ * safe to do on the MIDI receiver thread. Full segments are sealed and the next one, mapped ahead
+ * of time, takes over; flushing sealed segments to disk and mapping the next ones is done on a
+ * thread of the recorder's own.
+ */
+public class JournalRecorder implements Input.Listener, AutoCloseable {
+    private final Path directory;
+    private final int segmentRecords;
+    private final Clock clock;
+    private final ThreadPoolExecutor mapper;
+    private int segmentIndex;
+    private MappedByteBuffer segment;
+    private Future<MappedByteBuffer> nextSegment;
+    private int records;
+    private long recorded;
+    private boolean closed;
+
+    private JournalRecorder(final Path directory, final int segmentRecords, final Clock clock) throws IOException {
+        if (directory == null)
+            throw new IllegalArgumentException("directory");
+        if (segmentRecords <= 0)
+            throw new IllegalArgumentException("segmentRecords");
+        if (clock == null)
+            throw new IllegalArgumentException("clock");
+
+        this.directory = directory;
+        this.segmentRecords = segmentRecords;
+        this.clock = clock;
+
+        Files.createDirectories(directory);
+        if (!segments(directory).isEmpty())
+            throw new IllegalArgumentException("Journal already exists: " + directory);
+
+        this.mapper = createMapper();
+        this.segment = start(map(0));
+        this.nextSegment = mapper.submit(() -> map(1));
+    }
+
+    public static JournalRecorder of(final Path directory) throws IOException {
+        return of(directory, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    /** @param segmentRecords number of records per segment */
+    public static JournalRecorder of(final Path directory, final int segmentRecords) throws IOException {
+        return of(directory, segmentRecords, Clock.system());
+    }
+
+    /**
+     * @param segmentRecords number of records per segment
+     * @param clock clock the recorded signals are timestamped with (see {@link MidiInput}), to
+     *              timestamp instrument changes, which carry no time of their own
+     */
+    public static JournalRecorder of(final Path directory, final int segmentRecords, final Clock clock)
+            throws IOException {
+        return new JournalRecorder(directory, segmentRecords, clock);
+    }
+    /** Starts recording everything the input receives */
+    public JournalRecorder record(final Input input) {
+        input.addListener(this);
+        return this;
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    /** Number of records written so far */
+    public synchronized long recorded() {
+        return recorded;
+    }
+
+    /** Tags with ids of 64 and above are recorded as extra records following the signal's */
+    @Override
+    public synchronized void receive(final Signal signal) {
+        final long[] extendedTagBits = signal.extendedTagBits();
+        int extraRecords = 0;
+        if (extendedTagBits != null)
+            for(final long bits : extendedTagBits)
+                if (bits != 0)
+                    extraRecords++;
+
+        int position = nextRecord(1 + extraRecords);
+        if (position < 0)
+            return;
+
+        segment.putLong(position + TIME_OFFSET, signal.time());
+        segment.putLong(position + EVENT_ID_OFFSET, signal.eventId());
+        segment.putLong(position + TAG_BITS_OFFSET, signal.tagBits());
+        segment.put(position + TYPE_OFFSET, SIGNAL);
+        segment.put(position + CHANNEL_OFFSET, (byte) signal.channel());
+        segment.put(position + ACTIVE_OFFSET, (byte) (signal.isActive() ? 1 : 0));
+        segment.put(position + VELOCITY_OFFSET, (byte) signal.played().velocity());
+        segment.putInt(position + DATA_OFFSET, signal.played().pitch().midi());
+
+        if (extraRecords > 0)
+            for(int word = 0; word < extendedTagBits.length; word++) {
+                if (extendedTagBits[word] == 0)
+                    continue;
+
+                position += RECORD_SIZE;
+                segment.putLong(position + TIME_OFFSET, signal.time());
+                segment.putLong(position + EVENT_ID_OFFSET, signal.eventId());
+                segment.putLong(position + TAG_BITS_OFFSET, extendedTagBits[word]);
+                segment.put(position + TYPE_OFFSET, EXTENDED_TAGS);
+                segment.put(position + CHANNEL_OFFSET, (byte) 0);
+                segment.put(position + ACTIVE_OFFSET, (byte) 0);
+                segment.put(position + VELOCITY_OFFSET, (byte) 0);
+                segment.putInt(position + DATA_OFFSET, word);
+            }
+
+        commit(1 + extraRecords);
+    }
+
+    @Override
+    public synchronized void receive(final InstrumentChange instrumentChange) {
+        final int position = nextRecord(1);
+        if (position < 0)
+            return;
+
+        segment.putLong(position + TIME_OFFSET, clock.millis());
+        segment.putLong(position + EVENT_ID_OFFSET, 0L);
+        segment.putLong(position + TAG_BITS_OFFSET, 0L);
+        segment.put(position + TYPE_OFFSET, INSTRUMENT_CHANGE);
+        segment.put(position + CHANNEL_OFFSET, (byte) instrumentChange.channel());
+        segment.put(position + ACTIVE_OFFSET, (byte) 0);
+        segment.put(position + VELOCITY_OFFSET, (byte) 0);
+        segment.putInt(position + DATA_OFFSET, instrumentChange.instrument().id());
+        commit(1);
+    }
+
+    /**
+     * Seals the current segment and waits for it to be flushed to disk. Nothing is recorded
+     * afterwards.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed)
+                return;
+
+            closed = true;
+            seal(segment);
+            discard(nextSegment, segmentIndex + 1);
+            nextSegment = null;
+        }
+
+        mapper.shutdown();
+        try {
+            mapper.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (final InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param count number of records to be written together, all in the same segment
+     * @return position of the first of them in the current segment, rolling it if needed
+     */
+    private int nextRecord(final int count) {
+        if (closed)
+            return -1;
+        if (count > segmentRecords)
+            throw new IllegalArgumentException("Needs " + count + " records, segments take " + segmentRecords);
+
+        if (records + count > segmentRecords) {
+            seal(segment);
+            try {
+                segment = start(nextSegment.get());
+            } catch (final ExecutionException | InterruptedException e) {
+                closed = true;
+                if (e instanceof InterruptedException)
+                    Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException("Can't map segment " + (segmentIndex + 1), e));
+            }
+            final int next = ++segmentIndex + 1;
+            records = 0;
+            nextSegment = mapper.submit(() -> map(next));
+        }
+
+        return HEADER_SIZE + records * RECORD_SIZE;
+    }
+
+    /** Publishes the last records written */
+    private void commit(final int count) {
+        records += count;
+        recorded++;
+        // The records before the count that covers them
+        Fences.storeFence();
+        segment.putLong(COUNT_OFFSET, records);
+    }
+
+    /** Seals the segment, then has it flushed to disk in the background */
+    private void seal(final MappedByteBuffer sealed) {
+        // The final count before the seal, so that readers seeing the seal see every record
+        Fences.storeFence();
+        sealed.putInt(SEALED_OFFSET, 1);
+        mapper.execute(sealed::force);
+    }
+
+    /** Writes the header of a mapped segment that becomes the current one */
+    private static MappedByteBuffer start(final MappedByteBuffer mapped) {
+        mapped.putInt(VERSION_OFFSET, VERSION);
+        mapped.putInt(RECORD_SIZE_OFFSET, RECORD_SIZE);
+        mapped.putInt(SEALED_OFFSET, 0);
+        mapped.putLong(COUNT_OFFSET, 0);
+        // The rest of the header before the magic, which readers wait for
+        Fences.storeFence();
+        mapped.putInt(MAGIC_OFFSET, MAGIC);
+        return mapped;
+    }
+
+    /** Maps a new segment; readers ignore it until it's started */
+    private MappedByteBuffer map(final int index) throws IOException {
+        try(final RandomAccessFile file = new RandomAccessFile(segment(directory, index).toFile(), "rw");
+            final FileChannel channel = file.getChannel()) {
+            final MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    segmentSize(segmentRecords));
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            return mapped;
+        }
+    }
+
+    /** Deletes a segment mapped ahead of time that won't be used */
+    private void discard(final Future<MappedByteBuffer> mapped, final int index) {
+        mapper.execute(() -> {
+            try {
+                mapped.get();
+                Files.deleteIfExists(segment(directory, index));
+            } catch (final Exception ignore) {
+                // Left as is: readers ignore segments that weren't started
+            }
+        });
+    }
+
+    /** Single thread, in order, for everything kept off the recording thread */
+    private static ThreadPoolExecutor createMapper() {
+        return new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setName("MUGRES Journal Mapper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static final int DEFAULT_SEGMENT_RECORDS = 1 << 20;
+}
@@ -1,32 +1,42 @@
 package mugres.core.common.io;
 
+import mugres.core.common.EventIds;
 import mugres.core.common.Instrument;
 import mugres.core.common.InstrumentChange;
 import mugres.core.common.Pitch;
 import mugres.core.common.Played;
 import mugres.core.common.Signal;
+import mugres.core.common.clock.Clock;
 
 import javax.sound.midi.MidiMessage;
 import javax.sound.midi.Receiver;
 import javax.sound.midi.ShortMessage;
 import javax.sound.midi.Transmitter;
-import java.util.UUID;
 
-import static java.lang.System.currentTimeMillis;
 import static javax.sound.midi.ShortMessage.NOTE_OFF;
 import static javax.sound.midi.ShortMessage.NOTE_ON;
 import static javax.sound.midi.ShortMessage.PROGRAM_CHANGE;
 
 public class MidiInput extends Input {
     private final Transmitter transmitter;
+    private final Clock clock;
+
+    private MidiInput(final Transmitter transmitter, final Clock clock) {
+        if (clock == null)
+            throw new IllegalArgumentException("clock");
 
-    private MidiInput(final Transmitter transmitter) {
         this.transmitter = transmitter;
+        this.clock = clock;
         this.transmitter.setReceiver(new MidiReceiver());
     }
 
     public static MidiInput of(final Transmitter inputPort) {
-        return new MidiInput(inputPort);
+        return of(inputPort, Clock.system());
+    }
+
+    /** @param clock clock received signals are timestamped with */
+    public static MidiInput of(final Transmitter inputPort, final Clock clock) {
+        return new MidiInput(inputPort, clock);
     }
 
     private class MidiReceiver implements Receiver {
@@ -37,11 +47,11 @@ public class MidiInput extends Input {
             final ShortMessage shortMessage = (ShortMessage) message;
 
             if (shortMessage.getCommand() == NOTE_ON)
-                MidiInput.this.send(Signal.on(UUID.randomUUID(), currentTimeMillis(),
+                MidiInput.this.send(Signal.on(EventIds.next(), clock.millis(),
                         shortMessage.getChannel(),
                         Played.of(Pitch.of(shortMessage.getData1()), shortMessage.getData2())));
             else if (shortMessage.getCommand() == NOTE_OFF)
-                MidiInput.this.send(Signal.off(UUID.randomUUID(), currentTimeMillis(),
+                MidiInput.this.send(Signal.off(EventIds.next(), clock.millis(),
                         shortMessage.getChannel(),
                         Played.of(Pitch.of(shortMessage.getData1()), 0)));
             else if (shortMessage.getCommand() == PROGRAM_CHANGE)
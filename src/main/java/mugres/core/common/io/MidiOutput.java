@@ -2,28 +2,27 @@ package mugres.core.common.io;
 
 import mugres.core.common.InstrumentChange;
 import mugres.core.common.Signal;
+import mugres.core.live.scheduler.SignalScheduler;
 import mugres.core.notation.Song;
+import mugres.core.notation.performance.Performer;
+import mugres.core.notation.performance.Player;
 
 import javax.sound.midi.InvalidMidiDataException;
-import javax.sound.midi.MetaEventListener;
-import javax.sound.midi.MetaMessage;
-import javax.sound.midi.MidiSystem;
 import javax.sound.midi.Receiver;
-import javax.sound.midi.Sequencer;
 import javax.sound.midi.ShortMessage;
 
 import static javax.sound.midi.ShortMessage.NOTE_ON;
 import static javax.sound.midi.ShortMessage.PROGRAM_CHANGE;
-import static mugres.core.common.MIDI.END_OF_TRACK;
 
 public class MidiOutput implements Output {
     private final Receiver midiOutputPort;
+    private volatile Player player;
 
     private MidiOutput(final Receiver midiOutputPort) {
         this.midiOutputPort = midiOutputPort;
     }
 
-    public static Output of(final Receiver midiOutputPort) {
+    public static MidiOutput of(final Receiver midiOutputPort) {
         return new MidiOutput(midiOutputPort);
     }
 
@@ -55,33 +54,29 @@ public class MidiOutput implements Output {
         if (song == null)
             throw new IllegalArgumentException("song");
 
-        try {
-            final Sequencer sequencer = MidiSystem.getSequencer(false);
-            sequencer.setSequence(song.toMidiSequence());
-            sequencer.open();
-            sequencer.getTransmitter().setReceiver(midiOutputPort);
-            sequencer.addMetaEventListener(new CloseSequencerOnSequenceEnd(sequencer));
-            sequencer.start();
-        } catch (final Throwable t) {
-            throw new RuntimeException(t);
-        }
+        // Starts playing as soon as the first section is generated
+        player = Player.play(Performer.stream(song), this, SignalScheduler.forClock(song.context().clock()));
     }
 
-    public Receiver getMidiOutputPort() {
-        return midiOutputPort;
+    /** Player of the last song sent, or null if none was */
+    public Player player() {
+        return player;
     }
 
-    private class CloseSequencerOnSequenceEnd implements MetaEventListener {
-        private final Sequencer sequencer;
+    /** Stops playing the last song sent, if any. See {@link Player#stop()} */
+    public void stop() {
+        final Player current = player;
+        if (current != null)
+            current.stop();
+    }
 
-        public CloseSequencerOnSequenceEnd(Sequencer sequencer) {
-            this.sequencer = sequencer;
-        }
+    /** Why playing the last song sent failed, or null if it didn't (yet). See {@link Player#failure()} */
+    public Throwable failure() {
+        final Player current = player;
+        return current == null ? null : current.failure();
+    }
 
-        @Override
-        public void meta(final MetaMessage meta) {
-            if (meta.getType() == END_OF_TRACK)
-                sequencer.close();
-        }
+    public Receiver getMidiOutputPort() {
+        return midiOutputPort;
     }
 }
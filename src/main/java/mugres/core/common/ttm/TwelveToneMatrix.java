@@ -5,6 +5,7 @@ import mugres.core.common.Note;
 import java.util.*;
 
 import static java.util.Arrays.asList;
+import static mugres.core.utils.Randoms.current;
 
 public class TwelveToneMatrix {
     private final Note[][] matrix = new Note[ROW_SIZE][ROW_SIZE];
@@ -71,7 +72,7 @@ public class TwelveToneMatrix {
         final List<Note> notes = new ArrayList<>();
 
         while(notes.size() != ROW_SIZE) {
-            final Note note = Note.values()[RND.nextInt(ROW_SIZE)];
+            final Note note = Note.values()[current().nextInt(ROW_SIZE)];
             if (!notes.contains(note))
                 notes.add(note);
         }
@@ -137,5 +138,4 @@ public class TwelveToneMatrix {
     }
 
     private static final int ROW_SIZE = 12;
-    private static final Random RND = new Random();
 }
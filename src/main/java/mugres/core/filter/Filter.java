@@ -6,17 +6,32 @@ import mugres.core.filter.builtin.chords.Chorder;
 import mugres.core.filter.builtin.misc.*;
 import mugres.core.filter.builtin.scales.ScaleEnforcer;
 import mugres.core.filter.builtin.system.Monitor;
+import mugres.core.utils.metrics.MetricsRegistry;
+import mugres.core.utils.metrics.StageMetrics;
 
 import java.util.*;
 
-import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
 
 public abstract class Filter {
     protected final Map<String, Object> arguments;
+    private final Integer tempoArgument;
+    private final Key keyArgument;
+    private final TimeSignature timeSignatureArgument;
+    private final TagMask tagFilter;
+    private boolean resolved;
+    private Object resolvedTempo;
+    private Object resolvedKey;
+    private Object resolvedTimeSignature;
+    private StageMetrics metrics;
 
     protected Filter(final Map<String, Object> arguments) {
         this.arguments = arguments == null ? emptyMap() : arguments;
+
+        this.tempoArgument = parseTempo(this.arguments);
+        this.keyArgument = parseKey(this.arguments);
+        this.timeSignatureArgument = parseTimeSignature(this.arguments);
+        this.tagFilter = parseTagFilter(this.arguments);
     }
 
     public abstract String name();
@@ -25,90 +40,80 @@ public abstract class Filter {
 
     protected abstract Signals internalHandle(final Context context, final Signals signals);
 
-    protected int getTempo(final Context context) {
-        try {
-            final Integer tempo = arguments.containsKey("tempo") ?
-                    Integer.valueOf(arguments.get("tempo").toString()) :
-                    context.tempo();
+    /**
+     * Resolves the state that depends on the context (e.g. note durations, scale notes).
+     * Called before handling signals for the first time, and again only when the context's
+     * tempo, key or time signature change.
+     */
+    protected void resolve(final Context context) {
+    }
 
-            return tempo > 0 ?
-                    tempo :
-                    context.tempo();
-        } catch (final Throwable ignore) {
-            return context.tempo();
-        }
+    protected int getTempo(final Context context) {
+        return tempoArgument != null ? tempoArgument : context.tempo();
     }
 
     protected Key getKey(final Context context) {
-        try {
-            return arguments.containsKey("key") ?
-                    Key.fromLabel(arguments.get("key").toString()) :
-                    context.key();
-        } catch (final Throwable ignore) {
-            return context.key();
-        }
+        return keyArgument != null ? keyArgument : context.key();
     }
 
     protected TimeSignature getTimeSignature(final Context context) {
-        try {
-            return arguments.containsKey("timeSignature") ?
-                    TimeSignature.of(arguments.get("timeSignature").toString()) :
-                    context.timeSignature();
-        } catch (final Throwable ignore) {
-            return context.timeSignature();
-        }
+        return timeSignatureArgument != null ? timeSignatureArgument : context.timeSignature();
     }
 
     public boolean canHandle(final Context context, final Signals signals) {
+        resolveIfNeeded(context);
         final boolean tagFilter = checkTagFilter(context, signals);
         return tagFilter && internalCanHandle(context, signals);
     }
 
     public Signals handle(final Context context, final Signals signals) {
+        resolveIfNeeded(context);
+        if (tagFilter == null)
+            return internalHandle(context, signals);
+
         final SplitByTagsResult splitByTagsResult = splitByTags(signals);
         final Signals handledSignals = internalHandle(context, splitByTagsResult.inside());
         handledSignals.addAll(splitByTagsResult.outside());
         return handledSignals;
     }
 
+    private void resolveIfNeeded(final Context context) {
+        final Object tempo = context.get(Context.TEMPO);
+        final Object key = context.get(Context.KEY);
+        final Object timeSignature = context.get(Context.TIME_SIGNATURE);
+        if (resolved && Objects.equals(tempo, resolvedTempo) && Objects.equals(key, resolvedKey) &&
+                Objects.equals(timeSignature, resolvedTimeSignature))
+            return;
+
+        resolve(context);
+
+        resolvedTempo = tempo;
+        resolvedKey = key;
+        resolvedTimeSignature = timeSignature;
+        resolved = true;
+    }
+
     private boolean checkTagFilter(final Context context, final Signals signals) {
-        try {
-            if (!arguments.containsKey(TAG_FILTER))
-                return true;
+        if (tagFilter == null)
+            return true;
 
-            final Set<String> tags = new HashSet<>(asList(arguments.get(TAG_FILTER).toString().split(TAG_FILTER_SEPARATOR)));
-            for(final String tag : tags)
-                if (signals.signals().stream().anyMatch(s -> s.hasTag(tag)))
-                    return true;
+        for(final Signal signal : signals.signals())
+            if (tagFilter.matches(signal))
+                return true;
 
-            return false;
-        } catch (final Throwable ignore) {
-            // TODO: logging
-            return false;
-        }
+        return false;
     }
 
     private SplitByTagsResult splitByTags(final Signals signals) {
         try {
-            if (!arguments.containsKey(TAG_FILTER))
-                return SplitByTagsResult.of(signals, Signals.create());
-
             final Signals inside = Signals.create();
             final Signals outside = Signals.create();
 
-            final Set<String> tags = new HashSet<>(asList(arguments.get(TAG_FILTER).toString().split(TAG_FILTER_SEPARATOR)));
-            for(final Signal in : signals.signals()) {
-                boolean check = false;
-                for (final String tag : tags) {
-                    if (in.hasTag(tag)) {
-                        check = true;
-                        inside.add(in);
-                        break;
-                    }
-                }
-                if (!check)
+            for(final Signal in : signals.signals())
+                if (tagFilter.matches(in))
+                    inside.add(in);
+                else
                     outside.add(in);
-            }
 
             return SplitByTagsResult.of(inside, outside);
         } catch (final Throwable ignore) {
@@ -116,14 +121,82 @@ public abstract class Filter {
         }
     }
 
+    private static Integer parseTempo(final Map<String, Object> arguments) {
+        try {
+            if (!arguments.containsKey("tempo"))
+                return null;
+
+            final int tempo = Integer.valueOf(arguments.get("tempo").toString());
+            return tempo > 0 ? tempo : null;
+        } catch (final Throwable ignore) {
+            return null;
+        }
+    }
+
+    private static Key parseKey(final Map<String, Object> arguments) {
+        try {
+            return arguments.containsKey("key") ? Key.fromLabel(arguments.get("key").toString()) : null;
+        } catch (final Throwable ignore) {
+            return null;
+        }
+    }
+
+    private static TimeSignature parseTimeSignature(final Map<String, Object> arguments) {
+        try {
+            return arguments.containsKey("timeSignature") ?
+                    TimeSignature.of(arguments.get("timeSignature").toString()) : null;
+        } catch (final Throwable ignore) {
+            return null;
+        }
+    }
+
+    private static TagMask parseTagFilter(final Map<String, Object> arguments) {
+        if (!arguments.containsKey(TAG_FILTER))
+            return null;
+
+        return TagMask.of(arguments.get(TAG_FILTER).toString().split(TAG_FILTER_SEPARATOR));
+    }
+
     public final Signals accept(final Context context, final Signals signals) {
-        return canHandle(context, signals) ?
+        if (!METRICS.isEnabled())
+            return canHandle(context, signals) ?
+                    handle(context, signals) : signals;
+
+        final int in = signals.size();
+        final long start = System.nanoTime();
+        final Signals result = canHandle(context, signals) ?
                 handle(context, signals) : signals;
+        final long latency = System.nanoTime() - start;
+
+        final StageMetrics metrics = metrics();
+        final int out = isTerminal() ? 0 : result.size();
+        metrics.record(latency, in, out);
+        if (!isTerminal() && out < in)
+            metrics.dropped(in - out);
+
+        return result;
+    }
+
+    /** Whether this filter consumes the signals instead of passing them along (e.g. an output) */
+    protected boolean isTerminal() {
+        return false;
+    }
+
+    /** Metrics of this filter's stage, shared by every instance with the same name */
+    protected StageMetrics metrics() {
+        StageMetrics metrics = this.metrics;
+        if (metrics == null) {
+            metrics = METRICS.stage(STAGE_PREFIX + name());
+            this.metrics = metrics;
+        }
+        return metrics;
     }
 
     private static final Map<String, Class<? extends Filter>> REGISTRY = new HashMap<>();
     private static final String TAG_FILTER = "onlyForTags";
     private static final String TAG_FILTER_SEPARATOR = ",";
+    private static final MetricsRegistry METRICS = MetricsRegistry.shared();
+    private static final String STAGE_PREFIX = "Filter ";
 
     static {
         register(Monitor.NAME, Monitor.class);
@@ -156,49 +229,6 @@ public abstract class Filter {
         }
     }
 
-    public static void activateSignal(final int channel, final Pitch pitch, final UUID eventId) {
-        SIGNALS[channel][pitch.midi()] = eventId;
-        fireActivatedSignalNotification(eventId, channel, pitch);
-    }
-
-    public static void deactivateSignal(final int channel, final Pitch pitch) {
-        final UUID originalEventId = SIGNALS[channel][pitch.midi()];
-        SIGNALS[channel][pitch.midi()] = null;
-        if (originalEventId != null)
-            fireDeactivatedSignalNotification(originalEventId, channel, pitch);
-    }
-
-    public static void addSignalEventListener(final SignalEventListener listener) {
-        SIGNAL_EVENT_LISTENERS.add(listener);
-    }
-
-    public static boolean isEventActive(final UUID eventId) {
-        return ACTIVE_EVENTS.contains(eventId);
-    }
-
-    public static boolean isSignalActive(final int channel, final Pitch pitch) {
-        return SIGNALS[channel][pitch.midi()] != null;
-    }
-
-    private static void fireActivatedSignalNotification(final UUID eventId, final int channel, final Pitch pitch) {
-        ACTIVE_EVENTS.add(eventId);
-        SIGNAL_EVENT_LISTENERS.forEach(l -> l.activated(eventId, channel, pitch));
-    }
-
-    private static void fireDeactivatedSignalNotification(final UUID eventId, final int channel, final Pitch pitch) {
-        ACTIVE_EVENTS.remove(eventId);
-        SIGNAL_EVENT_LISTENERS.forEach(l -> l.deactivated(eventId, channel, pitch));
-    }
-
-    private static final Set<SignalEventListener> SIGNAL_EVENT_LISTENERS = new HashSet<>();
-    private static final UUID[][] SIGNALS = new UUID[16][128];
-    private static final Set<UUID> ACTIVE_EVENTS = new HashSet<>();
-
-    public interface SignalEventListener {
-        void activated(final UUID activated, final int channel, final Pitch pitch);
-        void deactivated(final UUID deactivated, final int channel, final Pitch pitch);
-    }
-
     public static class SplitByTagsResult {
         private final Signals inside;
         private final Signals outside;
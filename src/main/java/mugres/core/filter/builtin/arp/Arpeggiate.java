@@ -16,9 +16,13 @@ import static mugres.core.utils.Randoms.random;
 
 public class Arpeggiate extends Filter {
     public static final String NAME = "Arpeggiate";
+    private final List<PatternEntry> patternEntries;
+    private List<ArpEntry> pattern;
 
     public Arpeggiate(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.patternEntries = parsePattern(this.arguments);
     }
 
     @Override
@@ -34,7 +38,6 @@ public class Arpeggiate extends Filter {
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
         final Signals result = Signals.create();
-        final List<ArpEntry> pattern = getPattern(context);
         final Signals actives = signals.actives();
 
         long startTime = actives.first().time();
@@ -49,7 +52,7 @@ public class Arpeggiate extends Filter {
                             actives.signals().get(e.noteIndex - 1) : null;
                         break;
                     case RANDOM:
-                        signal = random(actives.signals());
+                        signal = random(context.random(), actives.signals());
                         break;
                     default:
                         signal = null;
@@ -67,24 +70,36 @@ public class Arpeggiate extends Filter {
         return result;
     }
 
-    private List<ArpEntry> getPattern(final Context context) {
-        final List<ArpEntry> pattern = new ArrayList<>();
+    @Override
+    protected void resolve(final Context context) {
+        final List<ArpEntry> resolved = new ArrayList<>(patternEntries.size());
         final Value defaultValue = getTimeSignature(context).denominator();
+        final int bpm = getTempo(context);
+
+        for(final PatternEntry entry : patternEntries) {
+            final long millis = entry.millis != null ? entry.millis :
+                    (entry.value != null ? entry.value : defaultValue).length().toMillis(bpm);
+            resolved.add(ArpEntry.of(entry.type, entry.noteIndex, millis));
+        }
 
+        pattern = resolved;
+    }
+
+    private static List<PatternEntry> parsePattern(final Map<String, Object> arguments) {
+        final List<PatternEntry> entries = new ArrayList<>();
         final Matcher matcher = ARP_PATTERN.matcher(arguments.get("pattern").toString());
 
         while(matcher.find()) {
             final String note = matcher.group(2);
             final String duration = matcher.group(3);
             final ArpEntry.Type type = getArpEntryType(note);
-            pattern.add(ArpEntry.of(type, type == ArpEntry.Type.NOTE ? Integer.valueOf(note) : null,
-                    parseEntryDuration(context, defaultValue, duration)));
+            entries.add(parseEntry(type, type == ArpEntry.Type.NOTE ? Integer.valueOf(note) : null, duration));
         }
 
-        return pattern;
+        return entries;
     }
 
-    private ArpEntry.Type getArpEntryType(final String input) {
+    private static ArpEntry.Type getArpEntryType(final String input) {
         switch (input) {
             case REST: return ArpEntry.Type.REST;
             case RANDOM_NOTE: return ArpEntry.Type.RANDOM;
@@ -92,27 +107,35 @@ public class Arpeggiate extends Filter {
         }
     }
 
-    private long parseEntryDuration(final Context context,
-                                           final Value defaultValue, final String input) {
+    private static PatternEntry parseEntry(final ArpEntry.Type type, final Integer noteIndex, final String input) {
         if (input != null && input.trim().endsWith(MILLIS))
-            return Long.parseLong(input.substring(0, input.length() - MILLIS.length()));
-
-        final int bpm = getTempo(context);
-        final Value value  = parseNoteValue(input, defaultValue);
-
-        return value.length().toMillis(bpm);
-    }
+            return new PatternEntry(type, noteIndex,
+                    Long.parseLong(input.substring(0, input.length() - MILLIS.length())), null);
 
-    private static Value parseNoteValue(final String input, final Value defaultValue) {
-        return input == null || input.trim().isEmpty() ? defaultValue : Value.of(input);
+        return new PatternEntry(type, noteIndex, null,
+                input == null || input.trim().isEmpty() ? null : Value.of(input));
     }
 
-
     private static final String REST = "R";
     private static final String RANDOM_NOTE = "X";
     private static final String MILLIS = "ms";
     private static final Pattern ARP_PATTERN = Pattern.compile("(([1-9]|" + REST + "|" + RANDOM_NOTE + ")\\s?(w|h|q|e|s|t|m|[1-9]\\d*"+ MILLIS + ")?)+?");
 
+    /** Pattern entry as parsed, before resolving its duration against the context */
+    private static class PatternEntry {
+        private final ArpEntry.Type type;
+        private final Integer noteIndex;
+        private final Long millis;
+        private final Value value;
+
+        private PatternEntry(final ArpEntry.Type type, final Integer noteIndex, final Long millis, final Value value) {
+            this.type = type;
+            this.noteIndex = noteIndex;
+            this.millis = millis;
+            this.value = value;
+        }
+    }
+
     private static class ArpEntry {
         private final Type type;
         private final Integer noteIndex;
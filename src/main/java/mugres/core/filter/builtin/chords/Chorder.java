@@ -16,9 +16,16 @@ import static mugres.core.utils.Randoms.random;
 public class Chorder extends Filter {
     public static final String NAME = "Chorder";
     private static final int DEFAULT_NUMBER_OF_NOTES = 3;
+    private final ChordMode chordMode;
+    private final int numberOfNotes;
+    private final Type chordType;
 
     public Chorder(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.chordMode = getChordMode(this.arguments);
+        this.numberOfNotes = getNumberOfNotes(this.arguments);
+        this.chordType = chordMode == ChordMode.FIXED ? getChordType(this.arguments) : null;
     }
 
     @Override
@@ -38,11 +45,10 @@ public class Chorder extends Filter {
         for(final Signal in : signals.signals()) {
             final Chord chord;
             final List<Pitch> chordPitches;
-            switch (getChordMode(arguments)) {
+            switch (chordMode) {
                 case DIATONIC:
                     final Key key = getKey(context);
                     if (key.notes().contains(in.played().pitch().note())) {
-                        final int numberOfNotes = getNumberOfNotes(arguments);
                         chordPitches = key.chord(in.played().pitch(), numberOfNotes);
                     } else {
                         // Discard notes outside the key
@@ -50,12 +56,13 @@ public class Chorder extends Filter {
                     }
                     break;
                 case FIXED:
-                    chordPitches = Chord.of(in.played().pitch().note(), getChordType(arguments))
+                    chordPitches = Chord.of(in.played().pitch().note(), chordType)
                             .pitches(in.played().pitch().octave());
                     ;
                     break;
                 case RANDOM:
-                    chordPitches = Chord.of(in.played().pitch().note(), random(Arrays.asList(Type.values()), CUSTOM))
+                    chordPitches = Chord.of(in.played().pitch().note(),
+                            random(context.random(), Arrays.asList(Type.values()), CUSTOM))
                             .pitches(in.played().pitch().octave());
                     ;
                     break;
@@ -74,7 +81,7 @@ public class Chorder extends Filter {
         return result;
     }
 
-    private int getNumberOfNotes(final Map<String, Object> arguments) {
+    private static int getNumberOfNotes(final Map<String, Object> arguments) {
         try {
             final int notes = arguments.containsKey("notes") ?
                     Integer.valueOf(arguments.get("notes").toString()) :
@@ -85,11 +92,11 @@ public class Chorder extends Filter {
         }
     }
 
-    private ChordMode getChordMode(final Map<String, Object> arguments) {
+    private static ChordMode getChordMode(final Map<String, Object> arguments) {
         return ChordMode.valueOf(arguments.get("chordMode").toString());
     }
 
-    private Type getChordType(final Map<String, Object> arguments) {
+    private static Type getChordType(final Map<String, Object> arguments) {
         return Type.forAbbreviation(arguments.get("chordType").toString());
     }
 
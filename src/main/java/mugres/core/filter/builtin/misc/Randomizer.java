@@ -7,14 +7,29 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static java.util.Collections.unmodifiableList;
 import static mugres.core.common.Note.BASE_OCTAVE;
 import static mugres.core.utils.Randoms.random;
 
 public class Randomizer extends Filter {
     public static final String NAME = "Randomizer";
+    private final int startingOctave;
+    private final int octaves;
+    private final Mode mode;
+    private final boolean deactivationFollows;
+    private final Scale argumentScale;
+    private final Note argumentRoot;
+    private List<Pitch> availablePitches;
 
     public Randomizer(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.startingOctave = getStartingOctave(this.arguments);
+        this.octaves = getOctaves(this.arguments);
+        this.mode = getMode(this.arguments);
+        this.deactivationFollows = getDeactivationFollowsFlag(this.arguments);
+        this.argumentScale = getScale(this.arguments);
+        this.argumentRoot = getRoot(this.arguments);
     }
 
     @Override
@@ -30,20 +45,11 @@ public class Randomizer extends Filter {
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
         final Signals result = Signals.create();
-        final int startingOctave = getStartingOctave(arguments);
-        final int octaves = getOctaves(arguments);
-        final Mode mode = getMode(arguments);
-        final boolean deactivationFollows = getDeactivationFollowsFlag(arguments);
-
-        Scale scale = Scale.CHROMATIC;
-        Note root = getRoot(context, arguments);
-        if (mode != Mode.CHROMATIC)
-            scale = getScale(context, arguments);
+        final List<Pitch> availablePitches = this.availablePitches;
 
-        final List<Pitch> availablePitches = scale.pitches(root, octaves, startingOctave);
         for(final Signal in : signals.signals()) {
             if (in.isActive()) {
-                final Pitch newPitch = random(availablePitches);
+                final Pitch newPitch = random(context.random(), availablePitches);
                 result.add(in.modifiedPlayed(in.played().repitch(newPitch)));
                 if (deactivationFollows)
                     RANDOMIZER_MAP.put(in.discriminator(), newPitch);
@@ -53,9 +59,9 @@ public class Randomizer extends Filter {
                     if (randomizedPitch != null)
                         result.add(in.modifiedPlayed(in.played().repitch(randomizedPitch)));
                     else
-                        result.add(in.modifiedPlayed(in.played().repitch(random(availablePitches))));
+                        result.add(in.modifiedPlayed(in.played().repitch(random(context.random(), availablePitches))));
                 } else {
-                    result.add(in.modifiedPlayed(in.played().repitch(random(availablePitches))));
+                    result.add(in.modifiedPlayed(in.played().repitch(random(context.random(), availablePitches))));
                 }
             }
         }
@@ -63,7 +69,16 @@ public class Randomizer extends Filter {
         return result;
     }
 
-    private boolean getDeactivationFollowsFlag(final Map<String, Object> arguments) {
+    @Override
+    protected void resolve(final Context context) {
+        final Scale scale = mode == Mode.CHROMATIC ? Scale.CHROMATIC :
+                argumentScale != null ? argumentScale : context.key().defaultScale();
+        final Note root = argumentRoot != null ? argumentRoot : context.key().root();
+
+        availablePitches = unmodifiableList(scale.pitches(root, octaves, startingOctave));
+    }
+
+    private static boolean getDeactivationFollowsFlag(final Map<String, Object> arguments) {
         try {
             return arguments.containsKey("deactivationFollows") ?
                     Boolean.parseBoolean(arguments.get("deactivationFollows").toString()) :
@@ -73,27 +88,23 @@ public class Randomizer extends Filter {
         }
     }
 
-    private Scale getScale(final Context context, final Map<String, Object> arguments) {
+    private static Scale getScale(final Map<String, Object> arguments) {
         try {
-            return arguments.containsKey("scale") ?
-                    Scale.of(arguments.get("scale").toString()) :
-                    context.key().defaultScale();
+            return arguments.containsKey("scale") ? Scale.of(arguments.get("scale").toString()) : null;
         }  catch (final Throwable ignore) {
-            return context.key().defaultScale();
+            return null;
         }
     }
 
-    private Note getRoot(final Context context, final Map<String, Object> arguments) {
+    private static Note getRoot(final Map<String, Object> arguments) {
         try {
-            return arguments.containsKey("root") ?
-                Note.of(arguments.get("root").toString()) :
-                context.key().root();
+            return arguments.containsKey("root") ? Note.of(arguments.get("root").toString()) : null;
         } catch (final Throwable ignore) {
-            return context.key().root();
+            return null;
         }
     }
 
-    private int getStartingOctave(final Map<String, Object> arguments) {
+    private static int getStartingOctave(final Map<String, Object> arguments) {
         try {
             return arguments.containsKey("startingOctave") ?
                     Double.valueOf(arguments.get("startingOctave").toString()).intValue() :
@@ -103,7 +114,7 @@ public class Randomizer extends Filter {
         }
     }
 
-    private int getOctaves(final Map<String, Object> arguments) {
+    private static int getOctaves(final Map<String, Object> arguments) {
         try {
             return arguments.containsKey("octaves") ?
                     Double.valueOf(arguments.get("octaves").toString()).intValue() :
@@ -113,7 +124,7 @@ public class Randomizer extends Filter {
         }
     }
 
-    private Mode getMode(final Map<String, Object> arguments) {
+    private static Mode getMode(final Map<String, Object> arguments) {
         return Mode.valueOf(arguments.get("mode").toString());
     }
 
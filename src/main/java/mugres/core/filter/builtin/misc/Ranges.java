@@ -4,6 +4,7 @@ import mugres.core.common.Context;
 import mugres.core.common.Pitch;
 import mugres.core.common.Signal;
 import mugres.core.common.Signals;
+import mugres.core.common.Tags;
 import mugres.core.filter.Filter;
 
 import java.util.ArrayList;
@@ -14,12 +15,16 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableList;
 
 public class Ranges extends Filter {
     public static final String NAME = "Ranges";
+    private final List<Range> ranges;
 
     public Ranges(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.ranges = getRanges(this.arguments);
     }
 
     @Override
@@ -34,14 +39,12 @@ public class Ranges extends Filter {
 
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
-        final List<Range> ranges = getRanges(arguments);
-
         for(final Signal in : signals.signals()) {
             boolean matched = false;
             for(final Range range : ranges) {
                 if (!range.isRemaining() && range.contains(in.played().pitch())) {
                     matched = true;
-                    in.addTag(range.tag());
+                    in.addTag(range.tagId());
                     break;
                 }
             }
@@ -49,14 +52,14 @@ public class Ranges extends Filter {
             if (!matched) {
                 for(final Range range : ranges)
                     if (range.isRemaining())
-                        in.addTag(range.tag());
+                        in.addTag(range.tagId());
             }
         }
 
         return signals;
     }
 
-    private List<Range> getRanges(final Map<String, Object> arguments) {
+    private static List<Range> getRanges(final Map<String, Object> arguments) {
         if (!arguments.containsKey("ranges"))
             return emptyList();
 
@@ -86,10 +89,10 @@ public class Ranges extends Filter {
 
         Collections.sort(ranges);
 
-        return ranges;
+        return unmodifiableList(ranges);
     }
 
-    private void validateNoOverlapping(final List<Range> ranges, final Range toCheck) {
+    private static void validateNoOverlapping(final List<Range> ranges, final Range toCheck) {
         if (toCheck.isRemaining())
             return;
 
@@ -106,11 +109,13 @@ public class Ranges extends Filter {
 
     private static class Range implements Comparable<Range> {
         private String tag;
+        private int tagId;
         private Pitch start;
         private Pitch end;
 
         private Range(final String tag, final Pitch start, final Pitch end) {
             this.tag = tag;
+            this.tagId = Tags.id(tag);
             this.start = start;
             this.end = end;
         }
@@ -136,6 +141,10 @@ public class Ranges extends Filter {
             return tag;
         }
 
+        public int tagId() {
+            return tagId;
+        }
+
         public Pitch start() {
             return start;
         }
@@ -3,15 +3,22 @@ package mugres.core.filter.builtin.misc;
 import mugres.core.common.Context;
 import mugres.core.common.Signal;
 import mugres.core.common.Signals;
+import mugres.core.common.Tags;
 import mugres.core.filter.Filter;
 
 import java.util.Map;
 
 public class Splitter extends Filter {
     public static final String NAME = "Splitter";
+    private final int[] tagIds;
 
     public Splitter(final Map<String, Object> arguments) {
         super(arguments);
+
+        final String tagPrefix = getTagPrefix(this.arguments);
+        this.tagIds = new int[getCopies(this.arguments)];
+        for(int index=1; index<=tagIds.length; index++)
+            tagIds[index - 1] = Tags.id(String.format("%s%d", tagPrefix, index));
     }
 
     @Override
@@ -27,14 +34,11 @@ public class Splitter extends Filter {
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
         final Signals result = Signals.create();
-        final String tagPrefix = getTagPrefix(arguments);
-        final int copies = getCopies(arguments);
 
         for(final Signal in : signals.signals()) {
-            for(int index=1; index<=copies; index++) {
-                final String tag = String.format("%s%d", tagPrefix, index);
+            for(final int tagId : tagIds) {
                 final Signal clone = in.clone();
-                clone.addTag(tag);
+                clone.addTag(tagId);
                 result.add(clone);
             }
         }
@@ -42,11 +46,11 @@ public class Splitter extends Filter {
         return result;
     }
 
-    private String getTagPrefix(final Map<String, Object> arguments) {
+    private static String getTagPrefix(final Map<String, Object> arguments) {
         return arguments.get("tagPrefix").toString();
     }
 
-    private Integer getCopies(final Map<String, Object> arguments) {
+    private static Integer getCopies(final Map<String, Object> arguments) {
         return Double.valueOf(arguments.get("copies").toString()).intValue();
     }
 }
@@ -12,9 +12,12 @@ import static mugres.core.common.Pitch.isValidMidiNoteNumber;
 
 public class Transpose extends Filter {
     public static final String NAME = "Transpose";
+    private final int semitones;
 
     public Transpose(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.semitones = getSemitonesToTranspose(this.arguments);
     }
 
     @Override
@@ -30,7 +33,6 @@ public class Transpose extends Filter {
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
         final Signals result = Signals.create();
-        final int semitones = getSemitonesToTranspose(arguments);
 
         for(final Signal in : signals.signals())
             result.add(in.modifiedPlayed(transpose(in.played(), semitones)));
@@ -38,7 +40,7 @@ public class Transpose extends Filter {
         return result;
     }
 
-    private int getSemitonesToTranspose(final Map<String, Object> arguments) {
+    private static int getSemitonesToTranspose(final Map<String, Object> arguments) {
         try {
             return arguments.containsKey("semitones") ?
                     Double.valueOf(arguments.get("semitones").toString()).intValue() :
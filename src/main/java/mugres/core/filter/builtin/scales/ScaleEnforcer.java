@@ -10,16 +10,23 @@ import mugres.core.common.Signal;
 import mugres.core.common.Signals;
 import mugres.core.filter.Filter;
 
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
-import static mugres.core.utils.Randoms.RND;
 
 public class ScaleEnforcer extends Filter {
     public static final String NAME = "ScaleEnforcer";
+    private final Set<Note> argumentScaleNotes;
+    private final CorrectionMode correctionMode;
+    private Set<Note> scaleNotes;
 
     public ScaleEnforcer(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.argumentScaleNotes = getArgumentScaleNotes(this.arguments);
+        this.correctionMode = getCorrectionMode(this.arguments);
     }
 
     @Override
@@ -35,8 +42,7 @@ public class ScaleEnforcer extends Filter {
     @Override
     protected Signals internalHandle(final Context context, final  Signals signals) {
         final Signals result = Signals.create();
-        final List<Note> scaleNotes = getScaleNotes(context, arguments);
-        final CorrectionMode correctionMode = getCorrectionMode(arguments);
+        final Set<Note> scaleNotes = this.scaleNotes;
 
         for(final Signal in : signals.signals()) {
             if (scaleNotes.contains(in.played().pitch().note()))
@@ -51,7 +57,7 @@ public class ScaleEnforcer extends Filter {
                             correctDown(result, scaleNotes, in);
                             break;
                         case RANDOM:
-                            if (RND.nextBoolean())
+                            if (context.random().nextBoolean())
                                 correctUp(result, scaleNotes, in);
                             else
                                 correctDown(result, scaleNotes, in);
@@ -68,7 +74,7 @@ public class ScaleEnforcer extends Filter {
         return result;
     }
 
-    private void correctUp(final Signals result, final List<Note> scaleNotes, final Signal in) {
+    private void correctUp(final Signals result, final Set<Note> scaleNotes, final Signal in) {
         Pitch newPitch = in.played().pitch();
         while(!scaleNotes.contains(newPitch.note()))
             newPitch = newPitch.up(1);
@@ -77,7 +83,7 @@ public class ScaleEnforcer extends Filter {
         result.add(in.modifiedPlayed(Played.of(newPitch, in.played().velocity())));
     }
 
-    private void correctDown(final Signals result, final List<Note> scaleNotes, final Signal in) {
+    private void correctDown(final Signals result, final Set<Note> scaleNotes, final Signal in) {
         Pitch newPitch = in.played().pitch();
         while(!scaleNotes.contains(newPitch.note()))
             newPitch = newPitch.down(1);
@@ -86,21 +92,30 @@ public class ScaleEnforcer extends Filter {
         result.add(in.modifiedPlayed(Played.of(newPitch, in.played().velocity())));
     }
 
-    private List<Note> getScaleNotes(final Context context, final Map<String, Object> arguments) {
+    @Override
+    protected void resolve(final Context context) {
+        scaleNotes = argumentScaleNotes != null ? argumentScaleNotes : toSet(context.key().notes());
+    }
+
+    private static Set<Note> getArgumentScaleNotes(final Map<String, Object> arguments) {
         try {
             if (arguments.containsKey("scale") && arguments.containsKey("root")) {
                 final Scale scale = Scale.of(arguments.get("scale").toString());
                 final Note root = Note.of(arguments.get("root").toString());
-                return scale.notes(root);
+                return toSet(scale.notes(root));
             } else {
-                return context.key().notes();
+                return null;
             }
         } catch (final Throwable ignore) {
-            return context.key().notes();
+            return null;
         }
     }
 
-    private CorrectionMode getCorrectionMode(final Map<String, Object> arguments) {
+    private static Set<Note> toSet(final List<Note> notes) {
+        return notes.isEmpty() ? EnumSet.noneOf(Note.class) : EnumSet.copyOf(notes);
+    }
+
+    private static CorrectionMode getCorrectionMode(final Map<String, Object> arguments) {
         return CorrectionMode.valueOf(arguments.get("correctionMode").toString());
     }
 
@@ -5,6 +5,7 @@ import mugres.core.common.Signal;
 import mugres.core.common.Signals;
 import mugres.core.common.io.Input;
 import mugres.core.filter.Filter;
+import mugres.core.live.processor.ActiveNoteTable;
 
 import static java.util.Collections.emptyMap;
 
@@ -12,12 +13,17 @@ public final class In extends Filter {
     public static final String NAME = "In";
     private final Context context;
     private final Input input;
+    private final ActiveNoteTable activeNotes;
 
-    public In(final Context context, final Input input) {
+    public In(final Context context, final Input input, final ActiveNoteTable activeNotes) {
         super(emptyMap());
 
+        if (activeNotes == null)
+            throw new IllegalArgumentException("activeNotes");
+
         this.context = context;
         this.input = input;
+        this.activeNotes = activeNotes;
     }
 
     @Override
@@ -43,8 +49,8 @@ public final class In extends Filter {
     private void updateSignalsState(final Signals signals) {
         for(final Signal signal : signals.signals())
             if (signal.isActive())
-                Filter.activateSignal(signal.channel(), signal.played().pitch(), signal.id());
+                activeNotes.activate(signal.channel(), signal.played().pitch(), signal.eventId());
             else
-                Filter.deactivateSignal(signal.channel(), signal.played().pitch());
+                activeNotes.deactivate(signal.channel(), signal.played().pitch());
     }
 }
@@ -10,9 +10,14 @@ import java.util.Map;
 
 public class Monitor extends Filter {
     public static final String NAME = "Monitor";
+    private final boolean onlyActives;
+    private final String label;
 
     public Monitor(final Map<String, Object> arguments) {
         super(arguments);
+
+        this.onlyActives = getOnlyActives(this.arguments);
+        this.label = getLabel(this.arguments);
     }
 
     @Override
@@ -27,19 +32,17 @@ public class Monitor extends Filter {
 
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
-        final boolean onlyActives = getOnlyActives(arguments);
-
         (onlyActives ? signals.actives().signals() : signals.signals()).forEach(e -> System.out.println(String.format("%s %s %s",
-                TIME_FORMAT.format(new Date()), getLabel(arguments), e)));
+                TIME_FORMAT.format(new Date()), label, e)));
         return signals;
     }
 
-    private boolean getOnlyActives(final Map<String, Object> arguments) {
+    private static boolean getOnlyActives(final Map<String, Object> arguments) {
         return arguments.containsKey("onlyActives") ?
                 Boolean.parseBoolean(arguments.get("onlyActives").toString()) : false;
     }
 
-    private String getLabel(final Map<String, Object> arguments) {
+    private static String getLabel(final Map<String, Object> arguments) {
         try {
             return String.format(LABEL_FORMAT, arguments.get("label").toString());
         } catch (final Throwable ignore) {
@@ -6,40 +6,56 @@ import mugres.core.common.Signal;
 import mugres.core.common.Signals;
 import mugres.core.common.io.Output;
 import mugres.core.filter.Filter;
+import mugres.core.live.processor.ActiveNoteTable;
+import mugres.core.live.scheduler.ScheduleIndex;
+import mugres.core.live.scheduler.SignalScheduler;
+import mugres.core.utils.metrics.MetricsRegistry;
 
-import java.util.PriorityQueue;
-import java.util.UUID;
+import java.util.function.Consumer;
 
 import static java.util.Collections.emptyMap;
-import static java.util.Comparator.comparingLong;
 
 public final class Out extends Filter {
     private static final String NAME = "Out";
     private final Context context;
     private final Output output;
-    private final Thread worker;
-    private final PriorityQueue<Signal> queue;
+    private final SignalScheduler scheduler;
+    private final ScheduleIndex<Long> pendingActivations;
+    private final Consumer<Signal> sink;
 
-    public Out(final Context context, final Output output) {
+    public Out(final Context context, final Output output, final ActiveNoteTable activeNotes) {
+        this(context, output, activeNotes, context == null ? SignalScheduler.shared() :
+                SignalScheduler.forClock(context.clock()));
+    }
+
+    public Out(final Context context, final Output output, final ActiveNoteTable activeNotes,
+               final SignalScheduler scheduler) {
         super(emptyMap());
 
+        if (activeNotes == null)
+            throw new IllegalArgumentException("activeNotes");
+        if (scheduler == null)
+            throw new IllegalArgumentException("scheduler");
+
         this.context = context;
         this.output = output;
+        this.scheduler = scheduler;
+        this.pendingActivations = ScheduleIndex.of(scheduler);
+        this.sink = this::dispatch;
 
-        queue = new PriorityQueue<>(comparingLong(Signal::time));
-        worker = createWorkerThread();
-        worker.setDaemon(true);
-        worker.start();
-
-        addSignalEventListener(createSignalEventListener());
+        activeNotes.addListener(createActiveNoteListener());
     }
 
-
     @Override
     public String name() {
         return NAME;
     }
 
+    @Override
+    protected boolean isTerminal() {
+        return true;
+    }
+
     @Override
     protected boolean internalCanHandle(final Context context, final Signals signals) {
         return true;
@@ -47,49 +63,44 @@ public final class Out extends Filter {
 
     @Override
     protected Signals internalHandle(final Context context, final Signals signals) {
-        final long now = System.currentTimeMillis();
-
         for(Signal e : signals.signals())
-            queue.add(e);
+            if (e.isActive())
+                pendingActivations.schedule(e.eventId(), e, sink);
+            else
+                scheduler.schedule(e, sink);
 
         return Signals.create();
     }
 
-    private Thread createWorkerThread() {
-        return new Thread(() -> {
-            while(true)
-                try {
-                    if(!queue.isEmpty()) {
-                        long now = System.currentTimeMillis();
-                        boolean run = true;
-                        while(run) {
-                            if (queue.peek().time() <= now) {
-                                output.send(queue.remove());
-                                run = !queue.isEmpty();
-                            } else {
-                                run = false;
-                            }
-                        }
-                    }
-                } catch (final Throwable ignore) {
-                    // Do nothing!
-                } finally {
-                    try { Thread.sleep(1); } catch (final Throwable ignore) {}
-                }
-        });
+    private void dispatch(final Signal signal) {
+        if (!METRICS.isEnabled()) {
+            output.send(signal);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        output.send(signal);
+        METRICS.stage(DISPATCH_STAGE).record(System.nanoTime() - start, 1, 1);
     }
 
-    private SignalEventListener createSignalEventListener() {
-        return new SignalEventListener() {
+    private ActiveNoteTable.Listener createActiveNoteListener() {
+        return new ActiveNoteTable.Listener() {
             @Override
-            public void activated(final UUID activated, final int channel, final Pitch pitch) {
+            public void activated(final long activated, final int channel, final Pitch pitch) {
                 // Do nothing
             }
 
             @Override
-            public void deactivated(final UUID deactivated, final int channel, final Pitch pitch) {
-                queue.removeIf(s -> { if (s!= null) s.id().equals(deactivated); return true; });
+            public void deactivated(final long deactivated, final int channel, final Pitch pitch) {
+                // Only pending note-ons are cancelled: note-offs still go out so that
+                // notes already sounding for this event don't hang.
+                final int cancelled = pendingActivations.cancel(deactivated);
+                if (cancelled > 0 && METRICS.isEnabled())
+                    metrics().dropped(cancelled);
             }
         };
     }
+
+    private static final MetricsRegistry METRICS = MetricsRegistry.shared();
+    private static final String DISPATCH_STAGE = "Out dispatch";
 }
@@ -15,6 +15,7 @@ import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static mugres.core.common.Context.SECTION_LENGTH;
 import static mugres.core.function.Function.COMPOSED_CALL_RESULT_PARAMETER;
 import static mugres.core.function.Function.LENGTH_PARAMETER;
 
@@ -214,6 +215,25 @@ public class Call<T> {
         return (int)arguments.get(LENGTH_PARAMETER.name());
     }
 
+    /** Length in measures: the call's own, or the section's in the given context */
+    public int getLengthInMeasures(final Context context) {
+        final Object length = arguments.get(LENGTH_PARAMETER.name());
+        return length != null ? (int)length : context.get(SECTION_LENGTH);
+    }
+
+    /**
+     * Appends what the result of the call depends on, besides the context, to its cache key.
+     * @return whether the result doesn't depend on the random source
+     */
+    boolean appendKey(final Context context, final StringBuilder key) {
+        final Map<String, Object> prepared = function.prepareArguments(context, arguments);
+        prepared.remove(COMPOSED_CALL_RESULT_PARAMETER.name());
+
+        key.append(function.name());
+        CallCache.appendValue(key, prepared);
+        return function.isDeterministic(prepared);
+    }
+
     private static final Pattern FUNCTION_CALL = Pattern.compile("([a-z][0-9a-zA-Z_-]+[0-9a-zA-Z])\\((.*)\\)");
     private static final Pattern NAMED_ARGS_LIST = Pattern.compile("([a-z][0-9a-zA-Z_-]*[0-9a-zA-Z])\\=(\\'(?:[#\\[\\]\\{\\}\\|\\s0-9a-zA-Z_-]+)\\'|(?:\\-?\\d+(?:\\.\\d+)?)|true|false|yes|no|y|n|(?:[0-9a-zA-Z_-]+))");
 
@@ -238,5 +258,12 @@ public class Call<T> {
                 return new Result(t);
             }
         }
+
+        @Override
+        boolean appendKey(final Context context, final StringBuilder key) {
+            final boolean wrappedDeterministic = wrapped.appendKey(context, key);
+            key.append(" > ");
+            return super.appendKey(context, key) && wrappedDeterministic;
+        }
     }
 }
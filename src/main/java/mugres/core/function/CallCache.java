@@ -0,0 +1,303 @@
+package mugres.core.function;
+
+import mugres.core.common.Context;
+import mugres.core.common.Event;
+import mugres.core.common.Length;
+import mugres.core.common.Pitch;
+import mugres.core.common.TimeSignature;
+import mugres.core.common.chords.ChordProgression;
+import mugres.core.common.euclides.EuclideanPattern;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Events generated by calls, reused when a call is executed again with the same arguments in the
+ * same context, e.g. performing a song again. Least recently used results are evicted first, when
+ * there are more than the maximum number of them or when they hold more events than the maximum
+ * weight.
+ *
+ * Results are keyed by the function, its prepared arguments, and the tempo, key, time signature,
+ * section length and chord progression of the context; and by the context's seed too, unless the
+ * function is {@link Function#isDeterministic(Map) deterministic}. Calls whose arguments can't be
+ * told apart by value, and calls depending on an unseeded random source, are never cached.
+ */
+public class CallCache {
+    private final int maxEntries;
+    private final long maxWeight;
+    /** In access order: least recently used first */
+    private final LinkedHashMap<String, List<Event>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+    private long hits;
+    private long misses;
+    private long bypassed;
+    private long evictions;
+
+    private CallCache(final int maxEntries, final long maxWeight) {
+        if (maxEntries < 0)
+            throw new IllegalArgumentException("maxEntries");
+        if (maxWeight < 0)
+            throw new IllegalArgumentException("maxWeight");
+
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+    }
+
+    public static CallCache of() {
+        return of(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_WEIGHT);
+    }
+
+    /**
+     * @param maxEntries maximum number of results kept, or 0 not to keep any
+     * @param maxWeight maximum number of events kept, adding up every result
+     */
+    public static CallCache of(final int maxEntries, final long maxWeight) {
+        return new CallCache(maxEntries, maxWeight);
+    }
+
+    /** Cache used when performing songs unless told otherwise */
+    public static CallCache shared() {
+        return SHARED;
+    }
+
+    public int maxEntries() {
+        return maxEntries;
+    }
+
+    public long maxWeight() {
+        return maxWeight;
+    }
+
+    /** Result of the call in the context: the cached one if any, or the call's, which is cached if it succeeded */
+    public Result<List<Event>> execute(final Call<List<Event>> call, final Context context) {
+        final String key = maxEntries == 0 ? null : key(call, context);
+        if (key == null) {
+            synchronized (this) {
+                bypassed++;
+            }
+            return call.execute(context);
+        }
+
+        synchronized (this) {
+            final List<Event> cached = entries.get(key);
+            if (cached != null) {
+                hits++;
+                return new Result<>(cached);
+            }
+            misses++;
+        }
+
+        final Result<List<Event>> result = call.execute(context);
+        if (result.succeeded())
+            put(key, result.data());
+        return result;
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(entries.size(), weight, hits, misses, bypassed, evictions);
+    }
+
+    private synchronized void put(final String key, final List<Event> events) {
+        final long entryWeight = weight(events);
+        if (entryWeight > maxWeight)
+            return;
+
+        final List<Event> previous = entries.put(key, Collections.unmodifiableList(new ArrayList<>(events)));
+        if (previous != null)
+            weight -= weight(previous);
+        weight += entryWeight;
+
+        final Iterator<List<Event>> leastRecentlyUsed = entries.values().iterator();
+        while(entries.size() > maxEntries || weight > maxWeight) {
+            weight -= weight(leastRecentlyUsed.next());
+            leastRecentlyUsed.remove();
+            evictions++;
+        }
+    }
+
+    /**
+     * What the result of the call in the context depends on, besides its random source: the same for
+     * calls that give the same result, in every run.
+     * @return the signature, or null if the call's arguments can't be told apart by value
+     */
+    public static String signature(final Call<List<Event>> call, final Context context) {
+        final StringBuilder signature = new StringBuilder();
+        try {
+            appendSignature(call, context, signature);
+        } catch (final IllegalArgumentException e) {
+            // Invalid arguments, or not told apart by value
+            return null;
+        }
+        return signature.toString();
+    }
+
+    /** @return the key of the call in the context, or null if its result can't be reused */
+    static String key(final Call<List<Event>> call, final Context context) {
+        final StringBuilder key = new StringBuilder();
+        try {
+            if (!appendSignature(call, context, key)) {
+                final Long seed = context.seed();
+                if (seed == null)
+                    return null;
+                key.append(" seed=").append(seed);
+            }
+        } catch (final IllegalArgumentException e) {
+            // Invalid arguments, or not told apart by value
+            return null;
+        }
+        return key.toString();
+    }
+
+    /** @return whether the result doesn't depend on the random source */
+    private static boolean appendSignature(final Call<List<Event>> call, final Context context,
+                                           final StringBuilder key) {
+        final boolean deterministic = call.appendKey(context, key);
+        for(final String name : KEYED_CONTEXT_VALUES) {
+            key.append(' ').append(name).append('=');
+            appendValue(key, context.get(name));
+        }
+        return deterministic;
+    }
+
+    /**
+     * Appends a canonical representation of the value: the same for equal values, in every run.
+     * @throws IllegalArgumentException if values of its type can't be represented
+     */
+    static void appendValue(final StringBuilder key, final Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean ||
+                value instanceof Length || value instanceof TimeSignature) {
+            key.append(value);
+        } else if (value instanceof String) {
+            key.append('\'').append(((String) value).replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+        } else if (value instanceof Enum) {
+            key.append(((Enum<?>) value).getDeclaringClass().getSimpleName()).append('.')
+                    .append(((Enum<?>) value).name());
+        } else if (value instanceof Pitch) {
+            key.append("Pitch.").append(((Pitch) value).midi());
+        } else if (value instanceof EuclideanPattern) {
+            final EuclideanPattern pattern = (EuclideanPattern) value;
+            key.append("E(").append(pattern.steps()).append(',').append(pattern.events()).append(',')
+                    .append(pattern.offset()).append(')');
+        } else if (value instanceof ChordProgression) {
+            final ChordProgression progression = (ChordProgression) value;
+            key.append("Progression(").append(progression.measures()).append(')');
+            appendValue(key, progression.events().values());
+        } else if (value instanceof ChordProgression.ChordEvent) {
+            final ChordProgression.ChordEvent event = (ChordProgression.ChordEvent) value;
+            key.append(event.position()).append(':').append(event.notation());
+        } else if (value instanceof List) {
+            key.append('[');
+            for(final Object element : (List<?>) value) {
+                appendValue(key, element);
+                key.append(',');
+            }
+            key.append(']');
+        } else if (value instanceof Collection) {
+            // No order to rely on
+            final List<String> elements = new ArrayList<>();
+            for(final Object element : (Collection<?>) value) {
+                final StringBuilder elementKey = new StringBuilder();
+                appendValue(elementKey, element);
+                elements.add(elementKey.toString());
+            }
+            Collections.sort(elements);
+            appendValue(key, elements);
+        } else if (value instanceof Map) {
+            final Map<String, Object> sorted = new TreeMap<>();
+            for(final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                final StringBuilder entryKey = new StringBuilder();
+                appendValue(entryKey, entry.getKey());
+                sorted.put(entryKey.toString(), entry.getValue());
+            }
+            key.append('{');
+            for(final Map.Entry<String, Object> entry : sorted.entrySet()) {
+                key.append(entry.getKey()).append('=');
+                appendValue(key, entry.getValue());
+                key.append(',');
+            }
+            key.append('}');
+        } else {
+            throw new IllegalArgumentException("Can't be told apart by value: " + value.getClass().getName());
+        }
+    }
+
+    private static long weight(final List<Event> events) {
+        return Math.max(1, events.size());
+    }
+
+    public static final class Snapshot {
+        private final int entries;
+        private final long weight;
+        private final long hits;
+        private final long misses;
+        private final long bypassed;
+        private final long evictions;
+
+        private Snapshot(final int entries, final long weight, final long hits, final long misses,
+                         final long bypassed, final long evictions) {
+            this.entries = entries;
+            this.weight = weight;
+            this.hits = hits;
+            this.misses = misses;
+            this.bypassed = bypassed;
+            this.evictions = evictions;
+        }
+
+        /** Results kept */
+        public int entries() {
+            return entries;
+        }
+
+        /** Events kept, adding up every result */
+        public long weight() {
+            return weight;
+        }
+
+        public long hits() {
+            return hits;
+        }
+
+        public long misses() {
+            return misses;
+        }
+
+        /** Executions that couldn't be cached */
+        public long bypassed() {
+            return bypassed;
+        }
+
+        /** Results evicted to make room for others */
+        public long evictions() {
+            return evictions;
+        }
+
+        public double hitRatio() {
+            final long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("entries=%d weight=%d hits=%d misses=%d bypassed=%d evictions=%d hit ratio=%.2f",
+                    entries, weight, hits, misses, bypassed, evictions, hitRatio());
+        }
+    }
+
+    private static final String[] KEYED_CONTEXT_VALUES = {
+            Context.TEMPO, Context.KEY, Context.TIME_SIGNATURE, Context.SECTION_LENGTH, Context.CHORD_PROGRESSION
+    };
+    private static final int DEFAULT_MAX_ENTRIES = 1024;
+    private static final long DEFAULT_MAX_WEIGHT = 256 * 1024;
+    private static final CallCache SHARED = of();
+}
@@ -118,6 +118,25 @@ public abstract class Function<T> {
 
     protected abstract T doExecute(final Context context, final Map<String, Object> arguments);
 
+    /**
+     * Whether what the function generates depends on its arguments and context only, and not on
+     * their random source, so that it can be reused whatever the seed (see {@link CallCache}).
+     * @param arguments prepared arguments
+     */
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        return false;
+    }
+
+    /** Arguments as the function would get them in the context, leaving the given ones as they are */
+    Map<String, Object> prepareArguments(final Context context, final Map<String, Object> arguments) {
+        final Map<String, Object> allArguments = new HashMap<>(arguments);
+        if (!allArguments.containsKey(LENGTH_PARAMETER.name()))
+            if (context.has(SECTION_LENGTH))
+                allArguments.put(LENGTH_PARAMETER.name(), context.get(SECTION_LENGTH));
+
+        return prepareArguments(allArguments);
+    }
+
     protected Length lengthFromNumberOfMeasures(final Context context, final Map<String, Object> arguments) {
         final int measures = (Integer) arguments.get(LENGTH_PARAMETER.name());
         final TimeSignature timeSignature = context.timeSignature();
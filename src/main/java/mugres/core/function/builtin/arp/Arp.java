@@ -38,6 +38,12 @@ public class Arp extends EventsFunction {
         );
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        // Octaves are picked at random
+        return (Integer) arguments.get("octavesUp") == 0 && (Integer) arguments.get("octavesDown") == 0;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final Result<List<Event>> composed = getComposedCallResult(arguments);
@@ -54,7 +60,7 @@ public class Arp extends EventsFunction {
         extractPositions(composed.data())
                 .stream()
                 .map(p -> getChordEvents(composed.data(), p))
-                .map(c -> arpeggiate(c, matcher, octavesUp, octavesDown, restart))
+                .map(c -> arpeggiate(context, c, matcher, octavesUp, octavesDown, restart))
                 .forEach(events::addAll);
 
         return events;
@@ -74,7 +80,7 @@ public class Arp extends EventsFunction {
                 .collect(Collectors.toList());
     }
 
-    private static List<Event> arpeggiate(final List<Event> chord, final Matcher matcher,
+    private static List<Event> arpeggiate(final Context context, final List<Event> chord, final Matcher matcher,
                                           final int octavesUp, final int octavesDown,
                                           final boolean restart) {
         final List<Event> arpeggio = new ArrayList<>();
@@ -100,7 +106,9 @@ public class Arp extends EventsFunction {
                 if (!isRest) {
                     final int index = Integer.parseInt(element) - 1;
                     final Event event = index >= 0 && index < chord.size() ? chord.get(index) : chord.get(0);
-                    arpeggio.add(Event.of(position, getActualPitch(event.played().pitch(), octavesUp, octavesDown), actualValue, event.played().velocity()));
+                    arpeggio.add(Event.of(position,
+                            getActualPitch(context, event.played().pitch(), octavesUp, octavesDown),
+                            actualValue, event.played().velocity()));
                 }
 
                 position = position.plus(value.length());
@@ -111,14 +119,15 @@ public class Arp extends EventsFunction {
         return arpeggio;
     }
 
-    private static Pitch getActualPitch(final Pitch pitch, final int octavesUp, final int octavesDown) {
+    private static Pitch getActualPitch(final Context context, final Pitch pitch, final int octavesUp,
+                                        final int octavesDown) {
         try {
             if (octavesUp == 0 && octavesDown == 0) return pitch;
             if (octavesUp < 0 || octavesDown < 0) return pitch;
 
             final int originalOctave = pitch.octave();
             final List<Integer> octaves = rangeClosed(originalOctave - octavesDown, originalOctave + octavesUp);
-            final int newOctave = random(octaves);
+            final int newOctave = random(context.random(), octaves);
             final int octaveDiff = originalOctave - newOctave;
 
             if (octaveDiff > 0)
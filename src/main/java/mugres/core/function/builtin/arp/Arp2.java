@@ -30,6 +30,11 @@ public class Arp2 extends EventsFunction {
         );
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        return true;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final Length length = lengthFromNumberOfMeasures(context, arguments);
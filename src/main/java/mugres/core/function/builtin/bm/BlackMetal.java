@@ -41,27 +41,29 @@ public class BlackMetal extends ByStrategiesFunction {
             final int beatsPerMeasures = context.timeSignature().denominator().denominator();
             final Note root = context.key().root();
 
-            String pattern = random(MEASURE_PATTERNS.get(measures));
+            String pattern = random(context.random(), MEASURE_PATTERNS.get(measures));
             if (pattern != null) {
                 final int howManyChords = countChordPlaceholders(pattern);
-                final List<String> chordTypes = randoms(random(BM_CHORD_TYPES), howManyChords, true);
+                final List<String> chordTypes = randoms(context.random(), random(context.random(), BM_CHORD_TYPES),
+                        howManyChords, true);
                 for(int i=1; i<=howManyChords; i++)
                     pattern = pattern.replaceAll("%"+i,  String.format("%s%s ", root.name(), chordTypes.get(i-1)));
             } else {
-                final int howManyChords = random(asList(2, 5));
-                final List<String> chordTypes = randoms(random(BM_CHORD_TYPES), howManyChords, true);
+                final int howManyChords = random(context.random(), asList(2, 5));
+                final List<String> chordTypes = randoms(context.random(), random(context.random(), BM_CHORD_TYPES),
+                        howManyChords, true);
 
                 int beats = 0;
                 for (int index = 0; index < measures; index++) {
                     beats = 0;
-                    final int chordsPerMeasure = random(asList(1, 2));
+                    final int chordsPerMeasure = random(context.random(), asList(1, 2));
                     while (beats != context.timeSignature().numerator()) {
-                        int beatsPerChord = random(asList(2, 4));
+                        int beatsPerChord = random(context.random(), asList(2, 4));
                         while (beatsPerChord + beats > beatsPerMeasures)
-                            beatsPerChord = random(asList(2, 4));
+                            beatsPerChord = random(context.random(), asList(2, 4));
 
                         for (int i = 0; i < beatsPerChord; i++)
-                            pattern += String.format("%s%s ", root.name(), random(chordTypes));
+                            pattern += String.format("%s%s ", root.name(), random(context.random(), chordTypes));
                         beats += beatsPerChord;
                     }
 
@@ -26,6 +26,11 @@ public class Chords extends EventsFunction {
                         true, WHOLE));
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        return true;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final Length length = lengthFromNumberOfMeasures(context, arguments);
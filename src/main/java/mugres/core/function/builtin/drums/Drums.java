@@ -16,6 +16,11 @@ public class Drums extends EventsFunction {
                 Parameter.of("pattern", "The pattern to play", Parameter.DataType.TEXT));
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        return true;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final Length length = lengthFromNumberOfMeasures(context, arguments);
@@ -30,6 +30,11 @@ public abstract class PreRecordedDrums extends EventsFunction {
                         Parameter.DataType.VARIANT, true, NONE));
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        return arguments.get("variant") != RANDOM;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final int lengthInMeasures = (Integer) arguments.get(LENGTH_PARAMETER.name());
@@ -61,7 +66,7 @@ public abstract class PreRecordedDrums extends EventsFunction {
         // If there's room for the main part of the pattern...
         if (fill == NONE || fillPattern.getLength().length() < length.length()) {
             final String mainVariant = variant == RANDOM ?
-                    pickRandomPatternName() :
+                    pickRandomPatternName(context) :
                     String.format("%s/%s-%s-%s", name(), timeSignatureId, MAIN, variant.name().toLowerCase());
             final GridPattern<DrumKitHitElementPatternParser.DrumKitHit> mainPattern =
                     loadPattern(context, mainVariant);
@@ -131,10 +136,10 @@ public abstract class PreRecordedDrums extends EventsFunction {
         }
     }
 
-    private String pickRandomPatternName()  {
+    private String pickRandomPatternName(final Context context)  {
         try {
             final List<String> files = IOUtils.readLines(new StringReader(IOUtils.resourceToString("/drum-patterns/" + name(), Charset.defaultCharset())));
-            return name() + "/" + random(files);
+            return name() + "/" + random(context.random(), files);
         } catch (final IOException e) {
             throw new RuntimeException(e);
         }
@@ -17,7 +17,6 @@ import static java.util.Collections.emptyList;
 import static mugres.core.common.Note.BASE_OCTAVE;
 import static mugres.core.common.Note.C;
 import static mugres.core.common.Scale.MINOR_PENTATONIC;
-import static mugres.core.utils.Randoms.RND;
 
 public class Euclides extends EventsFunction {
     public Euclides() {
@@ -39,6 +38,12 @@ public class Euclides extends EventsFunction {
         );
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        // Pitches are picked at random unless given
+        return arguments.get(PITCHES) != null;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final List<Event> events = new ArrayList<>();
@@ -65,7 +70,7 @@ public class Euclides extends EventsFunction {
                 if (pattern.eventAt(counter++)) {
                     final Pitch pitch = fixedPitches != null ?
                             fixedPitches.get(patternIndex % fixedPitches.size()) :
-                            pitches.get(RND.nextInt(pitches.size()));
+                            pitches.get(context.random().nextInt(pitches.size()));
                     events.add(Event.of(actualPosition, pitch, stepSize, eventCounter++ % pattern.events() == 0 ? HARD : SOFT));
                 }
                 actualPosition = actualPosition.plus(stepSize);
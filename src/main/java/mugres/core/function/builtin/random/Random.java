@@ -17,7 +17,6 @@ import static mugres.core.common.Note.BASE_OCTAVE;
 import static mugres.core.common.Note.C;
 import static mugres.core.common.Scale.MINOR_PENTATONIC;
 import static mugres.core.common.Value.QUARTER;
-import static mugres.core.utils.Randoms.RND;
 
 public class Random extends EventsFunction {
     public Random() {
@@ -48,7 +47,7 @@ public class Random extends EventsFunction {
 
         Length actualPosition = Length.ZERO;
         while(actualPosition.length() < length.length()) {
-            events.add(Event.of(actualPosition, pitches.get(RND.nextInt(pitches.size())), noteValue, 100));
+            events.add(Event.of(actualPosition, pitches.get(context.random().nextInt(pitches.size())), noteValue, 100));
             actualPosition = actualPosition.plus(noteValue);
         }
 
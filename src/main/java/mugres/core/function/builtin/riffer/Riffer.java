@@ -23,6 +23,11 @@ public class Riffer extends EventsFunction {
                         true, QUARTER));
     }
 
+    @Override
+    public boolean isDeterministic(final Map<String, Object> arguments) {
+        return true;
+    }
+
     @Override
     protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
         final Length length = lengthFromNumberOfMeasures(context, arguments);
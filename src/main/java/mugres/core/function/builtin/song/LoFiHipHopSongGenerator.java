@@ -1,6 +1,7 @@
 package mugres.core.function.builtin.song;
 
 import mugres.core.common.Context;
+import mugres.core.common.Context.ComposableContext;
 import mugres.core.common.Direction;
 import mugres.core.common.Event;
 import mugres.core.common.Instrument;
@@ -24,7 +25,6 @@ import static mugres.core.common.Direction.ASCENDING;
 import static mugres.core.common.Direction.DESCENDING;
 import static mugres.core.common.chords.Chords.improviseChordProgression;
 import static mugres.core.function.Function.Parameter.Variant.RANDOM;
-import static mugres.core.utils.Randoms.RND;
 import static mugres.core.utils.Randoms.random;
 
 public class LoFiHipHopSongGenerator extends Function.SongFunction {
@@ -36,11 +36,12 @@ public class LoFiHipHopSongGenerator extends Function.SongFunction {
     protected Song doExecute(final Context context, final Map<String, Object> arguments) {
         final Song song = Song.of(description() + " song",
                 basicContext()
-                        .tempo(tempo())
-                        .key(key())
+                        .tempo(tempo(context))
+                        .key(key(context))
+                        .seed(context.random().nextLong())
         );
 
-        final Section prototypeSection = createSongSection("A", song);
+        final Section prototypeSection = createSongSection(context, "A", song);
 
         // Alter prototype as a way of making an intro
 
@@ -55,15 +56,15 @@ public class LoFiHipHopSongGenerator extends Function.SongFunction {
         return song;
     }
 
-    private Section createSongSection(final String name, final Song song) {
-        final Section section = song.createSection(name, RND.nextBoolean() ? 4 : 8);
-        final ChordProgression chordProgression = improviseChordProgression(section.context(),
-                section.measures());
+    private Section createSongSection(final Context context, final String name, final Song song) {
+        final Section section = song.createSection(name, context.random().nextBoolean() ? 4 : 8);
+        final ChordProgression chordProgression = improviseChordProgression(
+                ComposableContext.of(section.context()).random(context.random()), section.measures());
         section.context().chordProgression(chordProgression);
 
         createBeat(section);
-        createEPianoChords(section);
-        createLeadMelody(section);
+        createEPianoChords(context, section);
+        createLeadMelody(context, section);
 
         return section;
     }
@@ -74,11 +75,11 @@ public class LoFiHipHopSongGenerator extends Function.SongFunction {
         section.addPart(DRUMS, Call.of("hipHopBeat", args));
     }
 
-    private void createEPianoChords(final Section section) {
-        final int BASE_OCTAVE = random(asList(2, 3));
+    private void createEPianoChords(final Context context, final Section section) {
+        final int BASE_OCTAVE = random(context.random(), asList(2, 3));
 
-        final boolean arpeggiate = RND.nextBoolean();
-        final Direction[] directions = directionsSequence();
+        final boolean arpeggiate = context.random().nextBoolean();
+        final Direction[] directions = directionsSequence(context);
         int octave = BASE_OCTAVE;
         final StringBuilder progression = new StringBuilder();
         final Map<Length, ChordProgression.ChordEvent> events = section.context().chordProgression().events();
@@ -117,7 +118,7 @@ public class LoFiHipHopSongGenerator extends Function.SongFunction {
         section.addPart(E_PIANO, call);
     }
 
-    private void createLeadMelody(final Section section) {
+    private void createLeadMelody(final Context context, final Section section) {
         final StringBuilder progression = new StringBuilder();
 
         boolean first = true;
@@ -135,24 +136,24 @@ public class LoFiHipHopSongGenerator extends Function.SongFunction {
         final Map<String, Object> arpArgs = new HashMap<>();
         arpArgs.put("pattern", "4e3e4e3eRh 1h3h");
         arpArgs.put("restart", false);
-        arpArgs.put("octavesUp", random(asList(0, 1, 2)));
-        arpArgs.put("octavesDown", random(asList(0, 1, 2)));
+        arpArgs.put("octavesUp", random(context.random(), asList(0, 1, 2)));
+        arpArgs.put("octavesDown", random(context.random(), asList(0, 1, 2)));
         call = call.compose("arp", arpArgs);
         section.addPart(MELODY, call);
     }
 
-    private static int tempo() {
-        return RND.nextInt((MAX_TEMPO - MIN_TEMPO) + 1) + MIN_TEMPO;
+    private static int tempo(final Context context) {
+        return context.random().nextInt((MAX_TEMPO - MIN_TEMPO) + 1) + MIN_TEMPO;
     }
 
-    private static Key key() {
-        return Key.values()[RND.nextInt(Key.values().length)];
+    private static Key key(final Context context) {
+        return Key.values()[context.random().nextInt(Key.values().length)];
     }
 
-    private static Direction[] directionsSequence() {
+    private static Direction[] directionsSequence(final Context context) {
         final Direction[] directions = new Direction[3];
 
-        switch(RND.nextInt(6)) {
+        switch(context.random().nextInt(6)) {
             case 1: // Always descending
                 directions[0] = DESCENDING;
                 directions[1] = DESCENDING;
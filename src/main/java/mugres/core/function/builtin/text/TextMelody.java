@@ -79,7 +79,8 @@ public class TextMelody extends EventsFunction {
                     break;
                 default:
                     noteValue = values.get(((int)next) % values.size());
-                    velocity = Character.isUpperCase(next) ? randomBetween(100, 110) : randomBetween(80, 99);
+                    velocity = Character.isUpperCase(next) ? randomBetween(context.random(), 100, 110) :
+                            randomBetween(context.random(), 80, 99);
                     rest = false;
             }
 
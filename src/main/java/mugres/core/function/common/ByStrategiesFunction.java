@@ -24,7 +24,7 @@ public abstract class ByStrategiesFunction extends EventsFunction {
         int repetitions = 1;
         Strategy strategy = null;
         if (STRATEGIES.containsKey(totalMeasures)) {
-            strategy = random(STRATEGIES.get(totalMeasures));
+            strategy = random(context.random(), STRATEGIES.get(totalMeasures));
         } else {
             if (totalMeasures > 1 && totalMeasures % 2 != 0)
                 throw new RuntimeException("Generating riffs by repetition only supported por even " +
@@ -32,7 +32,7 @@ public abstract class ByStrategiesFunction extends EventsFunction {
             int tryThis = totalMeasures / 2;
             do {
                 if (STRATEGIES.containsKey(tryThis))
-                    strategy = random(STRATEGIES.get(tryThis));
+                    strategy = random(context.random(), STRATEGIES.get(tryThis));
                 tryThis /= 2;
                 repetitions *= 2;
                 if (strategy != null)
@@ -0,0 +1,115 @@
+package mugres.core.live.processor;
+
+import mugres.core.common.Pitch;
+import mugres.core.utils.LongHashSet;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Notes currently sounding within a processing session, indexed by channel and pitch, along with
+ * the event that activated each of them.
+ *
+ * Checking whether a note is active is a single atomic read. Activating and deactivating a note
+ * update its slot and the set of active events as one step, so that concurrent updates of the same
+ * note can't leave an event active without a slot.
+ */
+public class ActiveNoteTable {
+    private final AtomicLongArray events = new AtomicLongArray(CHANNELS * PITCHES);
+    private final AtomicIntegerArray soundingByChannel = new AtomicIntegerArray(CHANNELS);
+    private final AtomicInteger sounding = new AtomicInteger();
+    private final LongHashSet activeEvents = LongHashSet.of();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    private ActiveNoteTable() {
+    }
+
+    public static ActiveNoteTable of() {
+        return new ActiveNoteTable();
+    }
+
+    public void activate(final int channel, final Pitch pitch, final long eventId) {
+        if (eventId == NO_EVENT)
+            throw new IllegalArgumentException("eventId");
+
+        final long replaced;
+        synchronized (activeEvents) {
+            replaced = events.getAndSet(index(channel, pitch), eventId);
+            if (replaced != NO_EVENT)
+                activeEvents.remove(replaced);
+            activeEvents.add(eventId);
+        }
+        if (replaced == NO_EVENT) {
+            sounding.incrementAndGet();
+            soundingByChannel.incrementAndGet(channel);
+        }
+
+        for(final Listener listener : listeners)
+            listener.activated(eventId, channel, pitch);
+    }
+
+    public void deactivate(final int channel, final Pitch pitch) {
+        final long eventId;
+        synchronized (activeEvents) {
+            eventId = events.getAndSet(index(channel, pitch), NO_EVENT);
+            if (eventId == NO_EVENT)
+                return;
+            activeEvents.remove(eventId);
+        }
+        sounding.decrementAndGet();
+        soundingByChannel.decrementAndGet(channel);
+
+        for(final Listener listener : listeners)
+            listener.deactivated(eventId, channel, pitch);
+    }
+
+    public boolean isSignalActive(final int channel, final Pitch pitch) {
+        return events.get(index(channel, pitch)) != NO_EVENT;
+    }
+
+    /** @return the id of the event sounding at the given channel and pitch, or 0 if none */
+    public long activeEvent(final int channel, final Pitch pitch) {
+        return events.get(index(channel, pitch));
+    }
+
+    public boolean isEventActive(final long eventId) {
+        synchronized (activeEvents) {
+            return activeEvents.contains(eventId);
+        }
+    }
+
+    /** Number of notes currently sounding */
+    public int sounding() {
+        return sounding.get();
+    }
+
+    /** Number of notes currently sounding on the given channel */
+    public int sounding(final int channel) {
+        return soundingByChannel.get(channel);
+    }
+
+    public void addListener(final Listener listener) {
+        if (listener != null)
+            listeners.add(listener);
+    }
+
+    public void removeListener(final Listener listener) {
+        listeners.remove(listener);
+    }
+
+    private static int index(final int channel, final Pitch pitch) {
+        return channel * PITCHES + pitch.midi();
+    }
+
+    private static final long NO_EVENT = 0L;
+    private static final int CHANNELS = 16;
+    private static final int PITCHES = 128;
+
+    public interface Listener {
+        void activated(final long activated, final int channel, final Pitch pitch);
+        void deactivated(final long deactivated, final int channel, final Pitch pitch);
+    }
+}
@@ -10,6 +10,7 @@ import mugres.core.live.signaler.Signaler;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
 
 /** Live events/signals processor */
 public abstract class Processor<S> {
@@ -18,7 +19,12 @@ public abstract class Processor<S> {
     private final List<StatusListener> statusListeners = new ArrayList<>();
     private final Context context;
     private final List<Signaler> signalers;
+    private final ActiveNoteTable activeNotes = ActiveNoteTable.of();
     private Input.Listener inputListener;
+    private SignalRingBuffer inputBuffer;
+    private WaitStrategy waitStrategy;
+    private volatile Thread inputWorker;
+    private volatile boolean inputWorkerIdle;
 
     protected Processor(final Context context,
                         final Input input,
@@ -34,6 +40,11 @@ public abstract class Processor<S> {
         return context;
     }
 
+    /** Notes currently sounding in this processor's session */
+    public ActiveNoteTable activeNotes() {
+        return activeNotes;
+    }
+
     protected Input input() {
         return input;
     }
@@ -46,9 +57,47 @@ public abstract class Processor<S> {
         return Collections.unmodifiableList(signalers);
     }
 
+    /**
+     * Decouples signal processing from the input: received signals are queued in a ring buffer
+     * and processed on a dedicated thread, so slow filters don't block the input (e.g. a MIDI
+     * device's receiver thread). Must be called before {@link #start()}.
+     *
+     * @param capacity ring buffer capacity, a power of 2
+     */
+    public void decoupleInput(final int capacity, final WaitStrategy waitStrategy) {
+        if (waitStrategy == null)
+            throw new IllegalArgumentException("waitStrategy");
+        if (inputListener != null)
+            throw new IllegalStateException("Processor already started");
+
+        this.inputBuffer = SignalRingBuffer.of(capacity);
+        this.waitStrategy = waitStrategy;
+    }
+
+    public boolean isInputDecoupled() {
+        return inputBuffer != null;
+    }
+
+    /** Number of signals received while decoupled */
+    public long inputOffered() {
+        return inputBuffer == null ? 0 : inputBuffer.offered();
+    }
+
+    /** Number of signals dropped because the input ring buffer was full */
+    public long inputOverflows() {
+        return inputBuffer == null ? 0 : inputBuffer.overflows();
+    }
+
     public void start() {
         onStart();
 
+        if (inputBuffer != null) {
+            inputWorker = new Thread(this::drainInput);
+            inputWorker.setName("MUGRES Processor Input");
+            inputWorker.setDaemon(true);
+            inputWorker.start();
+        }
+
         inputListener = createSignalListener();
         input.addListener(inputListener);
 
@@ -59,6 +108,18 @@ public abstract class Processor<S> {
         if (signalers != null) signalers.forEach(signaler -> signaler.stop(context));
 
         input.removeListener(inputListener);
+        inputListener = null;
+
+        final Thread worker = inputWorker;
+        if (worker != null) {
+            inputWorker = null;
+            LockSupport.unpark(worker);
+            try {
+                worker.join();
+            } catch (final InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
 
         onStop();
     }
@@ -81,7 +142,10 @@ public abstract class Processor<S> {
         return new Input.Listener() {
             @Override
             public void receive(final Signal signal) {
-                doProcess(signal);
+                if (inputBuffer == null)
+                    doProcess(signal);
+                else
+                    enqueue(signal);
             }
 
             @Override
@@ -91,14 +155,53 @@ public abstract class Processor<S> {
         };
     }
 
+    private void enqueue(final Signal signal) {
+        if (inputBuffer.offer(signal) && inputWorkerIdle) {
+            final Thread worker = inputWorker;
+            if (worker != null)
+                LockSupport.unpark(worker);
+        }
+    }
+
+    private void drainInput() {
+        final Thread self = Thread.currentThread();
+        int idleCount = 0;
+        while(inputWorker == self) {
+            final Signal signal = inputBuffer.poll();
+            if (signal != null) {
+                process(signal);
+                idleCount = 0;
+                continue;
+            }
+
+            if (waitStrategy.parks()) {
+                inputWorkerIdle = true;
+                if (inputBuffer.isEmpty() && inputWorker == self)
+                    waitStrategy.idle(idleCount++);
+                inputWorkerIdle = false;
+            } else {
+                waitStrategy.idle(idleCount++);
+            }
+        }
+
+        // Don't leave signals (e.g. note-offs) behind
+        for(Signal signal = inputBuffer.poll(); signal != null; signal = inputBuffer.poll())
+            process(signal);
+    }
+
     private void process(final Signal signal) {
         try {
             doProcess(signal);
         } catch (final Throwable t) {
-            t.printStackTrace();
+            processingFailed(signal, t);
         }
     }
 
+    /** Called when processing a signal off the input's thread failed */
+    protected void processingFailed(final Signal signal, final Throwable error) {
+        error.printStackTrace();
+    }
+
     public interface StatusListener {
         void report(final Status status);
     }
@@ -0,0 +1,143 @@
+package mugres.core.live.processor;
+
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, preallocated, lock-free queue of signals for a single consumer.
+ *
+ * Slots are primitive records (time, event id, channel, pitch, velocity, on/off) allocated once
+ * up front, tags included as their bitmask. Other attributes (and tags with ids over 63) are kept
+ * by reference only for the signals that have them.
+ *
+ * Producers claim slots through a CAS on the tail, since an input can be fed both by a device
+ * and by {@link mugres.core.live.signaler.Signaler}s. Signals offered while the buffer is full are
+ * dropped and counted.
+ */
+public class SignalRingBuffer {
+    private final int capacity;
+    private final int mask;
+    private final AtomicLongArray sequences;
+    private final long[] times;
+    private final long[] eventIds;
+    private final int[] notes;
+    private final long[] tagBits;
+    private final Object[] attributes;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0;
+    private final LongAdder offered = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    private SignalRingBuffer(final int capacity) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of 2");
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+
+        sequences = new AtomicLongArray(capacity);
+        for(int index = 0; index < capacity; index++)
+            sequences.set(index, index);
+
+        times = new long[capacity];
+        eventIds = new long[capacity];
+        notes = new int[capacity];
+        tagBits = new long[capacity];
+        attributes = new Object[capacity];
+    }
+
+    public static SignalRingBuffer of(final int capacity) {
+        return new SignalRingBuffer(capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /** @return false if the buffer was full and the signal was dropped */
+    public boolean offer(final Signal signal) {
+        offered.increment();
+
+        long position;
+        int slot;
+        while(true) {
+            position = tail.get();
+            slot = (int)(position & mask);
+            final long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1))
+                    break;
+            } else if (difference < 0) {
+                overflows.increment();
+                return false;
+            }
+        }
+
+        times[slot] = signal.time();
+        eventIds[slot] = signal.eventId();
+        notes[slot] = packNote(signal);
+        tagBits[slot] = signal.tagBits();
+        attributes[slot] = signal.hasExtendedAttributes() ? signal.attributes() : null;
+
+        sequences.lazySet(slot, position + 1);
+        return true;
+    }
+
+    /** Consumer side only.
+     * @return the next signal, or null if the buffer is empty */
+    public Signal poll() {
+        final int slot = (int)(head & mask);
+        if (sequences.get(slot) != head + 1)
+            return null;
+
+        final int note = notes[slot];
+        @SuppressWarnings("unchecked")
+        final Map<String, Object> signalAttributes = (Map<String, Object>) attributes[slot];
+        final Signal signal = Signal.of(eventIds[slot], times[slot],
+                (note >>> CHANNEL_SHIFT) & 0xFF,
+                Played.of(Pitch.of((note >>> PITCH_SHIFT) & 0xFF), note & 0xFF),
+                (note & ACTIVE_FLAG) != 0,
+                signalAttributes);
+        signal.addTags(tagBits[slot]);
+        attributes[slot] = null;
+
+        sequences.lazySet(slot, head + capacity);
+        head++;
+        return signal;
+    }
+
+    public boolean isEmpty() {
+        return sequences.get((int)(head & mask)) != head + 1;
+    }
+
+    /** Approximate number of signals waiting to be consumed */
+    public int size() {
+        return (int)Math.max(0, Math.min(capacity, tail.get() - head));
+    }
+
+    public long offered() {
+        return offered.sum();
+    }
+
+    /** Number of signals dropped because the buffer was full */
+    public long overflows() {
+        return overflows.sum();
+    }
+
+    private static int packNote(final Signal signal) {
+        return (signal.isActive() ? ACTIVE_FLAG : 0) |
+                (signal.channel() & 0xFF) << CHANNEL_SHIFT |
+                (signal.played().pitch().midi() & 0xFF) << PITCH_SHIFT |
+                (signal.played().velocity() & 0xFF);
+    }
+
+    private static final int ACTIVE_FLAG = 1 << 24;
+    private static final int CHANNEL_SHIFT = 16;
+    private static final int PITCH_SHIFT = 8;
+}
@@ -0,0 +1,42 @@
+package mugres.core.live.processor;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/** How a processing thread waits for new input signals. */
+public enum WaitStrategy {
+    /** Parks the thread until a producer wakes it up. Lowest CPU usage, highest wake-up latency. */
+    PARK {
+        @Override
+        public void idle(final int idleCount) {
+            if (idleCount >= SPINS)
+                LockSupport.parkNanos(PARK_NANOS);
+        }
+    },
+    /** Yields the CPU between polls. */
+    YIELD {
+        @Override
+        public void idle(final int idleCount) {
+            Thread.yield();
+        }
+    },
+    /** Polls continuously, keeping a core busy. Lowest latency. */
+    BUSY_SPIN {
+        @Override
+        public void idle(final int idleCount) {
+            // Keep polling
+        }
+    };
+
+    /** Called every time the consumer finds nothing to process.
+     * @param idleCount number of consecutive empty polls so far */
+    public abstract void idle(final int idleCount);
+
+    /** Whether producers need to wake the consumer up */
+    public boolean parks() {
+        return this == PARK;
+    }
+
+    private static final int SPINS = 100;
+    private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+}
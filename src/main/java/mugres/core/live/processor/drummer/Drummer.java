@@ -2,6 +2,7 @@ package mugres.core.live.processor.drummer;
 
 import mugres.core.common.Context;
 import mugres.core.common.DrumKit;
+import mugres.core.common.EventIds;
 import mugres.core.common.Played;
 import mugres.core.common.Signal;
 import mugres.core.common.io.Input;
@@ -18,9 +19,7 @@ import javax.sound.midi.MidiSystem;
 import javax.sound.midi.Receiver;
 import javax.sound.midi.Sequence;
 import javax.sound.midi.Sequencer;
-import java.util.UUID;
 
-import static java.lang.System.currentTimeMillis;
 import static mugres.core.common.MIDI.END_OF_TRACK;
 import static mugres.core.common.Party.WellKnownParties.DRUMS;
 
@@ -190,7 +189,7 @@ public class Drummer extends Processor {
 
     public void hit(final DrumKit piece, final int velocity) {
         if (velocity > 0)
-            output().send(Signal.on(UUID.randomUUID(), currentTimeMillis(),
+            output().send(Signal.on(EventIds.next(), context().clock().millis(),
                     DRUMS.party().channel(),
                     Played.of(piece.pitch(), velocity)));
     }
@@ -7,7 +7,6 @@ import mugres.core.live.processor.drummer.Drummer;
 import java.util.List;
 import java.util.Map;
 
-import static mugres.core.utils.Randoms.RND;
 
 public class Hit implements Command {
     private Hit() {}
@@ -24,7 +23,7 @@ public class Hit implements Command {
         final int velocity = (int) parameters.get("velocity");
         final List<DrumKit> pieces = (List<DrumKit>)parameters.get("options");
         if (!pieces.isEmpty())
-            drummer.hit(pieces.get(RND.nextInt(pieces.size())), velocity);
+            drummer.hit(pieces.get(context.random().nextInt(pieces.size())), velocity);
     }
 
     public static final Hit INSTANCE = new Hit();
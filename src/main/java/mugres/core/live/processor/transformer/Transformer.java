@@ -11,10 +11,15 @@ import mugres.core.filter.builtin.system.Out;
 import mugres.core.live.processor.Processor;
 import mugres.core.live.processor.transformer.config.Configuration;
 
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
 public class Transformer extends Processor {
     private final Configuration config;
     private final In in;
     private final Out out;
+    private volatile Partition[] partitions;
 
     public Transformer(final Context context,
                        final Input input,
@@ -24,30 +29,107 @@ public class Transformer extends Processor {
 
         this.config = config;
 
-        this.in = new In(context, input);
-        this.out = new Out(context, output);
+        this.in = new In(context, input, activeNotes());
+        this.out = new Out(context, output, activeNotes());
+
+        if (config.isInputDecoupled())
+            decoupleInput(config.inputBufferCapacity(), config.inputWaitStrategy());
     }
 
     @Override
     protected void onStart() {
+        if (config.isPartitioned()) {
+            final Partition[] created = new Partition[config.partitions()];
+            for(int index = 0; index < created.length; index++)
+                created[index] = new Partition(index, config.createFilters());
+            partitions = created;
+        }
     }
 
     @Override
     protected void onStop() {
+        final Partition[] current = partitions;
+        if (current != null) {
+            partitions = null;
+            for(final Partition partition : current)
+                partition.stop();
+        }
     }
 
     @Override
     protected void doProcess(final Signal signal) {
+        final Partition[] current = partitions;
+        if (current == null)
+            transform(config.filters(), signal);
+        else
+            current[Math.floorMod(config.partitioning().key(signal), current.length)].submit(signal);
+    }
+
+    private void transform(final List<Filter> filters, final Signal signal) {
         Signals signals = Signals.of(signal);
 
         // Pass through input filter
         signals = in.accept(context(), signals);
 
         // Pass through every user-defined filter
-        for(final Filter filter : config.filters())
+        for(final Filter filter : filters)
             signals = filter.accept(context(), signals);
 
         // Pass through output filter
         out.accept(context(), signals);
     }
+
+    /**
+     * Processes, in order, the signals of a partition with its own filter instances. Stopping it
+     * processes the signals already submitted first.
+     */
+    private class Partition {
+        private final List<Filter> filters;
+        private final BlockingQueue<Signal> queue = new LinkedBlockingQueue<>();
+        private final Thread worker;
+
+        private Partition(final int index, final List<Filter> filters) {
+            this.filters = filters;
+
+            worker = new Thread(this::run);
+            worker.setName("MUGRES Transformer Partition " + index);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        private void submit(final Signal signal) {
+            queue.add(signal);
+        }
+
+        private void run() {
+            while(true) {
+                final Signal signal;
+                try {
+                    signal = queue.take();
+                } catch (final InterruptedException e) {
+                    return;
+                }
+                if (signal == STOP)
+                    return;
+
+                try {
+                    transform(filters, signal);
+                } catch (final Throwable t) {
+                    processingFailed(signal, t);
+                }
+            }
+        }
+
+        private void stop() {
+            queue.add(STOP);
+            try {
+                worker.join();
+            } catch (final InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Poison pill: stops a partition once the signals submitted before it are processed */
+    private static final Signal STOP = Signal.of(0);
 }
@@ -1,9 +1,12 @@
 package mugres.core.live.processor.transformer.config;
 
+import mugres.core.common.Signal;
 import mugres.core.filter.Filter;
+import mugres.core.live.processor.WaitStrategy;
 import mugres.core.live.signaler.Signaler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -13,6 +16,11 @@ import static java.util.Collections.unmodifiableList;
 public class Configuration {
     private final List<Signaler> signalers = new ArrayList<>();
     private final List<Filter> filters = new ArrayList<>();
+    private final List<FilterSpec> filterSpecs = new ArrayList<>();
+    private Partitioning partitioning;
+    private int partitions;
+    private int inputBufferCapacity;
+    private WaitStrategy inputWaitStrategy;
 
     public List<Signaler> signalers() {
         return unmodifiableList(signalers);
@@ -22,6 +30,65 @@ public class Configuration {
         return unmodifiableList(filters);
     }
 
+    /** Creates a new, independent instance of every configured filter */
+    public List<Filter> createFilters() {
+        final List<Filter> created = new ArrayList<>(filterSpecs.size());
+        for(final FilterSpec spec : filterSpecs)
+            created.add(Filter.of(spec.name, spec.arguments));
+        return created;
+    }
+
+    /** Whether signals are to be processed in parallel, partitioned by channel or tags */
+    public boolean isPartitioned() {
+        return partitioning != null;
+    }
+
+    public Partitioning partitioning() {
+        return partitioning;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    /**
+     * Processes signals on <code>partitions</code> threads, each one with its own instance of every
+     * filter. Signals go to a partition according to their channel or tags, so signals of the
+     * same partition are processed in order.
+     */
+    public void partitionBy(final Partitioning partitioning, final int partitions) {
+        if (partitioning == null)
+            throw new IllegalArgumentException("partitioning");
+        if (partitions <= 0)
+            throw new IllegalArgumentException("partitions");
+
+        this.partitioning = partitioning;
+        this.partitions = partitions;
+    }
+
+    /** Whether input signals are to be processed on a dedicated thread */
+    public boolean isInputDecoupled() {
+        return inputWaitStrategy != null;
+    }
+
+    public int inputBufferCapacity() {
+        return inputBufferCapacity;
+    }
+
+    public WaitStrategy inputWaitStrategy() {
+        return inputWaitStrategy;
+    }
+
+    public void decoupleInput(final int capacity, final WaitStrategy waitStrategy) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity");
+        if (waitStrategy == null)
+            throw new IllegalArgumentException("waitStrategy");
+
+        this.inputBufferCapacity = capacity;
+        this.inputWaitStrategy = waitStrategy;
+    }
+
     public void addSignaler(final Signaler signaler) {
         signalers.add(signaler);
     }
@@ -64,5 +131,41 @@ public class Configuration {
 
     public void appendFilter(final String filter, final Map<String, Object> args) {
         filters.add(Filter.of(filter, args));
+        filterSpecs.add(new FilterSpec(filter, args));
+    }
+
+    public enum Partitioning {
+        /** Every MIDI channel is processed in order */
+        CHANNEL {
+            @Override
+            public int key(final Signal signal) {
+                return signal.channel();
+            }
+        },
+        /**
+         * Signals with the same channel and tags are processed in order. Only the tags signals
+         * arrive with count, not those added by the transformer's own filters: untagged inputs,
+         * such as MIDI ones, are partitioned by channel alone.
+         */
+        TAG {
+            @Override
+            public int key(final Signal signal) {
+                final long[] extendedTagBits = signal.extendedTagBits();
+                return (signal.channel() * 31 + Long.hashCode(signal.tagBits())) * 31 +
+                        (extendedTagBits == null ? 0 : Arrays.hashCode(extendedTagBits));
+            }
+        };
+
+        public abstract int key(final Signal signal);
+    }
+
+    private static class FilterSpec {
+        private final String name;
+        private final Map<String, Object> arguments;
+
+        private FilterSpec(final String name, final Map<String, Object> arguments) {
+            this.name = name;
+            this.arguments = arguments;
+        }
     }
 }
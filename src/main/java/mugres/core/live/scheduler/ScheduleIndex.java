@@ -0,0 +1,87 @@
+package mugres.core.live.scheduler;
+
+import mugres.core.common.Signal;
+import mugres.core.live.scheduler.SignalScheduler.Scheduled;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Keeps track of the signals scheduled under a given key (e.g. an event id), so all of them can
+ * be cancelled at once without scanning the scheduler's queue.
+ *
+ * Keys are forgotten as soon as all of their signals are either dispatched or cancelled.
+ */
+public class ScheduleIndex<K> {
+    private final SignalScheduler scheduler;
+    private final Map<K, Entry> entries = new ConcurrentHashMap<>();
+
+    private ScheduleIndex(final SignalScheduler scheduler) {
+        if (scheduler == null)
+            throw new IllegalArgumentException("scheduler");
+
+        this.scheduler = scheduler;
+    }
+
+    public static <X> ScheduleIndex<X> of(final SignalScheduler scheduler) {
+        return new ScheduleIndex<>(scheduler);
+    }
+
+    public SignalScheduler scheduler() {
+        return scheduler;
+    }
+
+    public void schedule(final K key, final Signal signal, final Consumer<Signal> target) {
+        if (key == null)
+            throw new IllegalArgumentException("key");
+        if (target == null)
+            throw new IllegalArgumentException("target");
+
+        entries.compute(key, (k, entry) -> {
+            final Entry theEntry = entry == null ? new Entry() : entry;
+            theEntry.handles.add(scheduler.schedule(signal, s -> {
+                try {
+                    target.accept(s);
+                } finally {
+                    release(k, theEntry);
+                }
+            }));
+            return theEntry;
+        });
+    }
+
+    /** Cancels every pending signal scheduled under the given key.
+     * @return number of signals actually cancelled */
+    public int cancel(final K key) {
+        if (key == null)
+            return 0;
+
+        final Entry entry = entries.remove(key);
+        if (entry == null)
+            return 0;
+
+        int count = 0;
+        for(final Scheduled handle : entry.handles)
+            if (handle.cancel())
+                count++;
+        return count;
+    }
+
+    /** Number of keys with pending signals */
+    public int size() {
+        return entries.size();
+    }
+
+    private void release(final K key, final Entry entry) {
+        entries.computeIfPresent(key, (k, current) ->
+                current != entry || ++current.released < current.handles.size() ? current : null);
+    }
+
+    private static class Entry {
+        private final List<Scheduled> handles = new ArrayList<>(2);
+        private int released;
+    }
+}
@@ -0,0 +1,429 @@
+package mugres.core.live.scheduler;
+
+import mugres.core.common.Signal;
+import mugres.core.common.clock.Clock;
+import mugres.core.common.clock.VirtualClock;
+import mugres.core.utils.LatenessTracker;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static java.util.Comparator.comparingLong;
+
+/**
+ * Dispatches signals to their targets at the time each signal is due.
+ *
+ * Pending signals are kept in a deadline queue. The worker thread parks until the earliest deadline
+ * (minus a configurable spin window) and then busy-waits for the remaining time, so signals are
+ * dispatched with sub-millisecond precision without keeping a core busy while idle.
+ *
+ * Cancelling a {@link Scheduled} signal is constant time: the entry is only marked as cancelled
+ * (tombstoned) and skipped when it reaches the head of the queue. Tombstones are purged from the
+ * queue once they make up most of it.
+ *
+ * On a {@link VirtualClock} there's no worker thread: signals are dispatched as the clock is
+ * advanced, on the advancing thread.
+ */
+public class SignalScheduler {
+    private final String name;
+    private final long spinWindowNanos;
+    private final Clock clock;
+    private final PriorityQueue<Task> queue = new PriorityQueue<>(TASK_COMPARATOR);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final Thread worker;
+    private final AtomicInteger tombstones = new AtomicInteger();
+    private long sequence = 0;
+
+    private final LatenessTracker lateness = LatenessTracker.of();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder compactions = new LongAdder();
+
+    private SignalScheduler(final String name, final long spinWindowNanos, final Clock clock) {
+        if (name == null || name.trim().isEmpty())
+            throw new IllegalArgumentException("name");
+        if (spinWindowNanos < 0)
+            throw new IllegalArgumentException("spinWindowNanos");
+        if (clock == null)
+            throw new IllegalArgumentException("clock");
+
+        this.name = name;
+        this.spinWindowNanos = spinWindowNanos;
+        this.clock = clock;
+
+        if (clock.isVirtual()) {
+            worker = null;
+            ((VirtualClock) clock).register(createTimeline());
+        } else {
+            worker = new Thread(this::dispatchLoop);
+            worker.setName(name);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    public static SignalScheduler of(final String name) {
+        return of(name, DEFAULT_SPIN_WINDOW_NANOS);
+    }
+
+    public static SignalScheduler of(final String name, final long spinWindowNanos) {
+        return new SignalScheduler(name, spinWindowNanos, Clock.system());
+    }
+
+    public static SignalScheduler of(final String name, final Clock clock) {
+        return new SignalScheduler(name, DEFAULT_SPIN_WINDOW_NANOS, clock);
+    }
+
+    /** Scheduler shared by every live component of this JVM. */
+    public static SignalScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * The {@link #shared()} scheduler for the real-time clock; for any other, one scheduler per
+     * clock, kept for as long as the clock is.
+     */
+    public static SignalScheduler forClock(final Clock clock) {
+        if (clock == null)
+            throw new IllegalArgumentException("clock");
+        if (!clock.isVirtual())
+            return SHARED;
+
+        synchronized (VIRTUAL_SCHEDULERS) {
+            // Weakly held: the clock itself holds the scheduler, through its timeline
+            final WeakReference<SignalScheduler> cached = VIRTUAL_SCHEDULERS.get(clock);
+            SignalScheduler scheduler = cached == null ? null : cached.get();
+            if (scheduler == null) {
+                scheduler = of("MUGRES Virtual Signal Scheduler", clock);
+                VIRTUAL_SCHEDULERS.put(clock, new WeakReference<>(scheduler));
+            }
+            return scheduler;
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public long spinWindowNanos() {
+        return spinWindowNanos;
+    }
+
+    public Clock clock() {
+        return clock;
+    }
+
+    /** Schedules the signal to be sent to the target at {@link Signal#time()}. */
+    public Scheduled schedule(final Signal signal, final Consumer<Signal> target) {
+        if (signal == null)
+            throw new IllegalArgumentException("signal");
+        if (target == null)
+            throw new IllegalArgumentException("target");
+
+        final long deadline = clock.toNanos(signal.time());
+
+        lock.lock();
+        try {
+            final Task task = new Task(deadline, sequence++, signal, target);
+            queue.add(task);
+            if (queue.peek() == task)
+                changed.signal();
+            return task;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Cancels every pending signal that matches the given condition. This is O(n): prefer
+     * cancelling through the {@link Scheduled} handles when possible. */
+    public void cancel(final Predicate<Signal> condition) {
+        if (condition == null)
+            throw new IllegalArgumentException("condition");
+
+        lock.lock();
+        try {
+            for(final Task task : queue)
+                if (condition.test(task.signal))
+                    task.cancel();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Number of signals waiting to be dispatched (cancelled ones excluded) */
+    public int pending() {
+        lock.lock();
+        try {
+            return Math.max(0, queue.size() - tombstones.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Stats stats() {
+        return new Stats(lateness.snapshot(), errors.sum(), cancelled.sum(), compactions.sum());
+    }
+
+    public void resetStats() {
+        lateness.reset();
+        errors.reset();
+        cancelled.reset();
+        compactions.reset();
+    }
+
+    private void dispatchLoop() {
+        while(true)
+            try {
+                final Task task = takeNextDue();
+                dispatch(task);
+            } catch (final InterruptedException e) {
+                return;
+            } catch (final Throwable ignore) {
+                // Do nothing!
+            }
+    }
+
+    private Task takeNextDue() throws InterruptedException {
+        while(true) {
+            final Task next;
+            lock.lock();
+            try {
+                compactIfNeeded();
+                discardCancelledHead();
+                while(queue.isEmpty()) {
+                    changed.await();
+                    discardCancelledHead();
+                }
+
+                next = queue.peek();
+                final long remaining = next.deadline - clock.nanos();
+                if (remaining <= 0) {
+                    queue.poll();
+                    if (next.isCancelled()) {
+                        tombstones.decrementAndGet();
+                        continue;
+                    }
+                    return next;
+                }
+
+                if (remaining > spinWindowNanos) {
+                    changed.awaitNanos(remaining - spinWindowNanos);
+                    continue;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // Final stretch: spin without holding the lock so producers are not blocked
+            while(next.deadline - clock.nanos() > 0)
+                Thread.yield();
+        }
+    }
+
+    private VirtualClock.Timeline createTimeline() {
+        return new VirtualClock.Timeline() {
+            @Override
+            public long nextDeadline() {
+                lock.lock();
+                try {
+                    discardCancelledHead();
+                    return queue.isEmpty() ? Long.MAX_VALUE : queue.peek().deadline;
+                } finally {
+                    lock.unlock();
+                }
+            }
+
+            @Override
+            public void fire(final long now) {
+                while(true) {
+                    final Task next;
+                    lock.lock();
+                    try {
+                        discardCancelledHead();
+                        if (queue.isEmpty() || queue.peek().deadline > now)
+                            return;
+                        next = queue.poll();
+                    } finally {
+                        lock.unlock();
+                    }
+                    dispatch(next);
+                }
+            }
+        };
+    }
+
+    private void discardCancelledHead() {
+        while(!queue.isEmpty() && queue.peek().isCancelled()) {
+            queue.poll();
+            tombstones.decrementAndGet();
+        }
+    }
+
+    /** Must be called while holding the lock */
+    private void compactIfNeeded() {
+        final int dead = tombstones.get();
+        if (dead < COMPACTION_THRESHOLD || dead * 2 < queue.size())
+            return;
+
+        int removed = 0;
+        for(final Iterator<Task> iterator = queue.iterator(); iterator.hasNext(); )
+            if (iterator.next().isCancelled()) {
+                iterator.remove();
+                removed++;
+            }
+        tombstones.addAndGet(-removed);
+        compactions.increment();
+    }
+
+    private void onCancelled() {
+        cancelled.increment();
+        if (tombstones.get() >= COMPACTION_THRESHOLD && lock.tryLock()) {
+            try {
+                compactIfNeeded();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private void dispatch(final Task task) {
+        if (!task.markDispatched()) {
+            // Cancelled while the worker was spinning: it's no longer in the queue
+            tombstones.decrementAndGet();
+            return;
+        }
+
+        lateness.record(clock.nanos() - task.deadline);
+        try {
+            task.target.accept(task.signal);
+        } catch (final Throwable ignore) {
+            errors.increment();
+        }
+    }
+
+    /** Handle for a scheduled signal */
+    public interface Scheduled {
+        Signal signal();
+
+        /** @return true if the signal was still pending and won't be dispatched */
+        boolean cancel();
+
+        boolean isCancelled();
+
+        boolean isDispatched();
+    }
+
+    private final class Task implements Scheduled {
+        private final long deadline;
+        private final long sequence;
+        private final Signal signal;
+        private final Consumer<Signal> target;
+        volatile int state = PENDING;
+
+        private Task(final long deadline, final long sequence, final Signal signal, final Consumer<Signal> target) {
+            this.deadline = deadline;
+            this.sequence = sequence;
+            this.signal = signal;
+            this.target = target;
+        }
+
+        @Override
+        public Signal signal() {
+            return signal;
+        }
+
+        @Override
+        public boolean cancel() {
+            // Count the tombstone before it becomes visible, so the queue never purges it uncounted
+            tombstones.incrementAndGet();
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) {
+                tombstones.decrementAndGet();
+                return false;
+            }
+
+            onCancelled();
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        @Override
+        public boolean isDispatched() {
+            return state == DISPATCHED;
+        }
+
+        private boolean markDispatched() {
+            return STATE.compareAndSet(this, PENDING, DISPATCHED);
+        }
+    }
+
+    /** Dispatch statistics. Lateness is measured from each signal's deadline to its actual dispatch. */
+    public static class Stats {
+        private final LatenessTracker.Snapshot lateness;
+        private final long errors;
+        private final long cancelled;
+        private final long compactions;
+
+        private Stats(final LatenessTracker.Snapshot lateness, final long errors, final long cancelled,
+                      final long compactions) {
+            this.lateness = lateness;
+            this.errors = errors;
+            this.cancelled = cancelled;
+            this.compactions = compactions;
+        }
+
+        public long dispatched() {
+            return lateness.count();
+        }
+
+        public LatenessTracker.Snapshot lateness() {
+            return lateness;
+        }
+
+        public long errors() {
+            return errors;
+        }
+
+        public long cancelled() {
+            return cancelled;
+        }
+
+        public long compactions() {
+            return compactions;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s errors=%d cancelled=%d compactions=%d",
+                    lateness, errors, cancelled, compactions);
+        }
+    }
+
+    private static final long DEFAULT_SPIN_WINDOW_NANOS = TimeUnit.MICROSECONDS.toNanos(
+            Long.getLong("mugres.scheduler.spin-window-micros", 200));
+    private static final int COMPACTION_THRESHOLD = 64;
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int DISPATCHED = 2;
+    private static final AtomicIntegerFieldUpdater<Task> STATE =
+            AtomicIntegerFieldUpdater.newUpdater(Task.class, "state");
+    private static final java.util.Comparator<Task> TASK_COMPARATOR =
+            comparingLong((Task t) -> t.deadline).thenComparingLong(t -> t.sequence);
+    private static final SignalScheduler SHARED = of("MUGRES Signal Scheduler");
+    private static final Map<Clock, WeakReference<SignalScheduler>> VIRTUAL_SCHEDULERS = new WeakHashMap<>();
+}
@@ -1,38 +1,52 @@
 package mugres.core.live.signaler;
 
 import mugres.core.common.*;
+import mugres.core.common.euclides.EuclideanPattern;
 import mugres.core.common.frequency.Frequency;
-import mugres.core.common.frequency.builtin.Fixed;
+import mugres.core.common.frequency.builtin.Synced;
 import mugres.core.common.io.Input;
+import mugres.core.live.scheduler.SignalScheduler;
 import mugres.core.live.signaler.config.Configuration;
 
-import java.util.PriorityQueue;
-import java.util.UUID;
-
-import static java.util.Comparator.comparingLong;
-
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends signals to an input at a frequency. Signals are scheduled on a {@link SignalScheduler},
+ * usually shared by every live component, so they are handed off to a thread of the signaler's own
+ * to be sent to the input: the input's listeners (e.g. a processor's filters) don't run on the
+ * scheduler's dispatch thread. On a virtual clock they are sent right away, on the thread advancing
+ * the clock.
+ */
 public class Signaler {
     private final Configuration config;
     private Input target;
+    private Executor sender;
     private Frequency frequency;
     private long duration;
-    private final Thread worker;
-    private final PriorityQueue<Signal> queue;
+    private final SignalScheduler fixedScheduler;
+    private SignalScheduler scheduler;
 
-    private Signaler(final Configuration config) {
+    private Signaler(final Configuration config, final SignalScheduler scheduler) {
         if (config == null)
             throw new IllegalArgumentException("config");
 
         this.config = config;
-
-        queue = new PriorityQueue<>(comparingLong(Signal::time));
-        worker = createWorkerThread();
-        worker.setDaemon(true);
-        worker.start();
+        this.fixedScheduler = scheduler;
     }
 
+    /** Signaler that schedules its signals on the scheduler for the context's clock */
     public static Signaler forConfig(final Configuration config) {
-        return new Signaler(config);
+        return new Signaler(config, null);
+    }
+
+    public static Signaler forConfig(final Configuration config, final SignalScheduler scheduler) {
+        if (scheduler == null)
+            throw new IllegalArgumentException("scheduler");
+
+        return new Signaler(config, scheduler);
     }
 
     public void start(final Context context, final Input target) {
@@ -43,6 +57,8 @@ public class Signaler {
             throw new IllegalArgumentException("target");
 
         this.target = target;
+        this.scheduler = fixedScheduler != null ? fixedScheduler : SignalScheduler.forClock(context.clock());
+        this.sender = scheduler.clock().isVirtual() ? Runnable::run : createSender();
 
         frequency = createFrequency(context);
         frequency.addListener(createFrequencyListener());
@@ -52,16 +68,58 @@ public class Signaler {
         this.frequency.start();
     }
 
-    private Fixed createFrequency(final Context context) {
+    public Frequency frequency() {
+        return frequency;
+    }
+
+    /** @throws IllegalArgumentException if the frequency spec is malformed */
+    private Synced createFrequency(final Context context) {
+        final Configuration.Frequency.Mode mode = config.frequency().mode() == null ?
+                Configuration.Frequency.Mode.FIXED : config.frequency().mode();
+        final String spec = config.frequency().value().toString().trim();
+
         try {
-            final long millis = Long.parseLong(config.frequency().value());
-            return Frequency.fixed(millis);
-        } catch(final NumberFormatException e) {
-            final Value value = Value.of(config.frequency().value().toString());
-            return Frequency.fixed(value, context.tempo());
+            switch (mode) {
+                case VALUE:
+                    return Synced.of(context, Value.of(spec));
+                case SWING: {
+                    final String[] parts = split(spec, FREQUENCY_PARTS_SEPARATOR, 2, 2);
+                    return Synced.swing(context, Value.of(parts[0]), Double.parseDouble(parts[1]));
+                }
+                case EUCLIDEAN: {
+                    final String[] parts = split(spec, FREQUENCY_PARTS_SEPARATOR, 2, 2);
+                    final String[] pattern = split(parts[1], EUCLIDEAN_PATTERN_SEPARATOR, 2, 3);
+                    return Synced.euclidean(context, Value.of(parts[0]), EuclideanPattern.of(
+                            Integer.parseInt(pattern[1]),
+                            Integer.parseInt(pattern[0]),
+                            pattern.length > 2 ? Integer.parseInt(pattern[2]) : 0));
+                }
+                case FIXED:
+                default:
+                    try {
+                        return Synced.of(context.clock(), Long.parseLong(spec));
+                    } catch(final NumberFormatException e) {
+                        return Synced.of(context.clock(), Value.of(spec).length().toMillis(context.tempo()));
+                    }
+            }
+        } catch (final IllegalArgumentException e) {
+            // NumberFormatException included
+            throw new IllegalArgumentException(String.format("Invalid %s frequency: '%s'", mode, spec), e);
         }
     }
 
+    /** Trimmed parts of the spec, which must be at least min and at most max */
+    private static String[] split(final String spec, final String separator, final int min, final int max) {
+        final String[] parts = spec.split(separator, -1);
+        if (parts.length < min || parts.length > max)
+            throw new IllegalArgumentException(String.format("Expected %d to %d parts separated by '%s'",
+                    min, max, separator));
+
+        for(int index = 0; index < parts.length; index++)
+            parts[index] = parts[index].trim();
+        return parts;
+    }
+
     private long getDuration(final Context context) {
         try {
             return Long.parseLong(config.duration());
@@ -79,43 +137,44 @@ public class Signaler {
         frequency.stop();
     }
 
-    private Thread createWorkerThread() {
-        return new Thread(() -> {
-            while(true)
-                try {
-                    if(!queue.isEmpty()) {
-                        long now = System.currentTimeMillis();
-                        boolean run = true;
-                        while(run) {
-                            if (queue.peek().time() <= now) {
-                                target.send(queue.remove());
-                                run = !queue.isEmpty();
-                            } else {
-                                run = false;
-                            }
-                        }
-                    }
-                } catch (final Throwable ignore) {
-                    // Do nothing!
-                } finally {
-                    try { Thread.sleep(1); } catch (final Throwable ignore) {}
-                }
-        });
-    }
-
     private Frequency.Listener createFrequencyListener() {
         return now -> {
-            final Signal on = Signal.on(UUID.randomUUID(), now, DEFAULT_CHANNEL,
+            final Signal on = Signal.on(EventIds.next(), now, DEFAULT_CHANNEL,
                     Played.of(Pitch.MIDDLE_C, 100));
             config.tags().forEach(on::addTag);
-            queue.add(on);
+            scheduler.schedule(on, this::send);
 
-            final Signal off = Signal.off(UUID.randomUUID(), now + duration, DEFAULT_CHANNEL,
+            final Signal off = Signal.off(EventIds.next(), now + duration, DEFAULT_CHANNEL,
                     Played.of(Pitch.MIDDLE_C, 100));
             config.tags().forEach(off::addTag);
-            queue.add(off);
+            scheduler.schedule(off, this::send);
         };
     }
 
+    /** Called on the scheduler's dispatch thread: only hands the signal off */
+    private void send(final Signal signal) {
+        final Input input = target;
+        sender.execute(() -> input.send(signal));
+    }
+
+    /**
+     * Single thread, in order, that goes away when idle: pending note-offs are still sent after the
+     * signaler is stopped, and nothing needs to be shut down
+     */
+    private static Executor createSender() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, SENDER_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setName("MUGRES Signaler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     private static final int DEFAULT_CHANNEL = 1;
+    private static final long SENDER_KEEP_ALIVE_SECONDS = 5;
+    private static final String FREQUENCY_PARTS_SEPARATOR = ":";
+    private static final String EUCLIDEAN_PATTERN_SEPARATOR = "/";
 }
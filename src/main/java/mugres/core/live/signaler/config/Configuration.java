@@ -53,7 +53,14 @@ public class Configuration {
         }
 
         public enum Mode {
-            FIXED;
+            /** Fixed interval, either in milliseconds or as a note value at the tempo when started. E.g.: 250, q */
+            FIXED,
+            /** Note value that follows tempo changes. E.g.: e */
+            VALUE,
+            /** Swung note value: value and ratio of each pair of steps given to the first one. E.g.: e:0.66 */
+            SWING,
+            /** Note value steps filtered through an Euclidean pattern: value, events/steps[/offset]. E.g.: s:3/8 */
+            EUCLIDEAN;
         }
     }
 }
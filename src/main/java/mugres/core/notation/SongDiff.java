@@ -0,0 +1,98 @@
+package mugres.core.notation;
+
+import mugres.core.common.Event;
+import mugres.core.common.Party;
+import mugres.core.function.Call;
+import mugres.core.function.CallCache;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Parts of a song that changed from a previous version of it, e.g. after editing its source file.
+ * A part, the calls of a party for a section, is unchanged if the section is still regenerated or
+ * not, and its calls have the same {@link CallCache#signature(Call, mugres.core.common.Context)
+ * signatures} as before in the section's context, which covers the section's length, tempo, key and
+ * time signature. Every part is changed if the song's seed changed.
+ *
+ * Changes to the arrangement don't change any part: unchanged parts can be laid out again.
+ */
+public class SongDiff {
+    /** Party names by section name */
+    private final Map<String, Set<String>> unchanged;
+    private final int parts;
+    private final int changedParts;
+
+    private SongDiff(final Map<String, Set<String>> unchanged, final int parts, final int changedParts) {
+        this.unchanged = unchanged;
+        this.parts = parts;
+        this.changedParts = changedParts;
+    }
+
+    /**
+     * @param before previous version of the song; every part is changed if null
+     * @param after current version of the song
+     */
+    public static SongDiff of(final Song before, final Song after) {
+        if (after == null)
+            throw new IllegalArgumentException("after");
+
+        final Map<String, Set<String>> unchanged = new HashMap<>();
+        int parts = 0;
+        int changedParts = 0;
+        final boolean sameSeed = before != null && Objects.equals(before.context().seed(), after.context().seed());
+        for(Section section : after.sections()) {
+            final Section previous = sameSeed ? before.section(section.name()) : null;
+            for(Map.Entry<Party, List<Call<List<Event>>>> part : section.matrix().entrySet()) {
+                parts++;
+                if (previous != null && previous.isRegenerate() == section.isRegenerate() &&
+                        sameCalls(previous, section, part.getKey()))
+                    unchanged.computeIfAbsent(section.name(), name -> new HashSet<>()).add(part.getKey().name());
+                else
+                    changedParts++;
+            }
+        }
+
+        return new SongDiff(unchanged, parts, changedParts);
+    }
+
+    /** Whether the party's part for the section changed, or is new */
+    public boolean isChanged(final String section, final Party party) {
+        final Set<String> parties = unchanged.get(section);
+        return parties == null || !parties.contains(party.name());
+    }
+
+    /** Parts of the current version of the song */
+    public int parts() {
+        return parts;
+    }
+
+    public int changedParts() {
+        return changedParts;
+    }
+
+    private static boolean sameCalls(final Section previous, final Section section, final Party party) {
+        final List<Call<List<Event>>> previousCalls = previous.matrix().get(party);
+        final List<Call<List<Event>>> calls = section.matrix().get(party);
+        if (previousCalls == null || previousCalls.size() != calls.size())
+            return false;
+
+        for(int index = 0; index < calls.size(); index++) {
+            final String signature = CallCache.signature(calls.get(index), section.context());
+            if (signature == null ||
+                    !signature.equals(CallCache.signature(previousCalls.get(index), previous.context())))
+                return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d of %d parts changed", changedParts, parts);
+    }
+}
@@ -1,5 +1,6 @@
 package mugres.core.notation.performance;
 
+import mugres.core.common.Event;
 import mugres.core.common.Key;
 import mugres.core.common.Length;
 import mugres.core.common.TimeSignature;
@@ -12,6 +13,9 @@ public class Performance {
     private final List<Control.ControlEvent> controlEvents = new ArrayList<>();
     private final Set<Track> tracks = new HashSet<>();
     private Length length = Length.ZERO;
+    private long seed;
+    /** Events generated for every section and party, by section name and party name */
+    private final Map<String, Map<String, List<List<Event>>>> generations = new HashMap<>();
 
     public Performance(String song) {
         this.song = song;
@@ -55,6 +59,28 @@ public class Performance {
         this.length = length;
     }
 
+    /** Seed the calls' random sources were derived from; seed the song with it to perform it again */
+    public long seed() {
+        return seed;
+    }
+
+    public void seed(final long seed) {
+        this.seed = seed;
+    }
+
+    /** Events generated for the party's part of the section so far, in order of generation */
+    List<List<Event>> generations(final String section, final Party party) {
+        final Map<String, List<List<Event>>> sectionGenerations = generations.get(section);
+        final List<List<Event>> partyGenerations = sectionGenerations == null ? null :
+                sectionGenerations.get(party.name());
+        return partyGenerations == null ? Collections.emptyList() : partyGenerations;
+    }
+
+    void addGeneration(final String section, final Party party, final List<Event> events) {
+        generations.computeIfAbsent(section, name -> new HashMap<>())
+                .computeIfAbsent(party.name(), name -> new ArrayList<>()).add(events);
+    }
+
     @Override
     public String toString() {
         final StringBuilder sb  = new StringBuilder();
@@ -0,0 +1,250 @@
+package mugres.core.notation.performance;
+
+import mugres.core.common.Context;
+import mugres.core.common.Event;
+import mugres.core.common.Length;
+import mugres.core.common.Party;
+import mugres.core.function.CallCache;
+import mugres.core.notation.Arrangement;
+import mugres.core.notation.Section;
+import mugres.core.notation.Song;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Performance of a song as a stream of control changes and events, in order of position. A thread
+ * of the stream's own generates the arrangement one section repetition at a time, up to
+ * {@code lookahead} repetitions ahead of the reader, so the first events can be read as soon as the
+ * first section is generated, and only the repetitions within that window are kept, besides the
+ * events of sections that aren't regenerated, which are reused every time they are repeated.
+ *
+ * Events are generated as {@link Performer#perform(Song)} does: the same seed gives the same events.
+ * Close the stream when done reading it before its end.
+ */
+public class PerformanceStream implements Iterator<PerformanceStream.Item>, AutoCloseable {
+    private final Song song;
+    private final long seed;
+    private final CallCache cache;
+    private final BlockingQueue<Chunk> chunks;
+    private final Thread generator;
+    private volatile boolean closed;
+    private Iterator<Item> current = Collections.emptyIterator();
+    private boolean finished;
+
+    private PerformanceStream(final Song song, final long seed, final int lookahead, final CallCache cache) {
+        this.song = song;
+        this.seed = seed;
+        this.cache = cache;
+        this.chunks = new ArrayBlockingQueue<>(lookahead);
+
+        generator = new Thread(this::generate);
+        generator.setName("MUGRES Performance Stream");
+        generator.setDaemon(true);
+        generator.start();
+    }
+
+    static PerformanceStream of(final Song song, final long seed, final int lookahead, final CallCache cache) {
+        if (song == null)
+            throw new IllegalArgumentException("song");
+        if (lookahead < 1)
+            throw new IllegalArgumentException("lookahead");
+        if (cache == null)
+            throw new IllegalArgumentException("cache");
+
+        return new PerformanceStream(song, seed, lookahead, cache);
+    }
+
+    public String song() {
+        return song.title();
+    }
+
+    public Set<Party> parties() {
+        return song.parties();
+    }
+
+    /** Seed the calls' random sources are derived from; seed the song with it to perform it again */
+    public long seed() {
+        return seed;
+    }
+
+    /** Length of the whole performance, known before any section is generated */
+    public Length length() {
+        Length length = Length.ZERO;
+        for(Arrangement.Entry arrangementEntry : song.arrangement().entries())
+            length = length.plus(arrangementEntry.section().length().multiply(arrangementEntry.repetitions()));
+        return length;
+    }
+
+    /**
+     * Waits for the next section to be generated if needed
+     * @throws IllegalStateException if generating it failed, or waiting was interrupted
+     */
+    @Override
+    public boolean hasNext() {
+        while(!current.hasNext() && !finished) {
+            final Chunk chunk;
+            try {
+                chunk = chunks.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted waiting for " + song.title(), e);
+            }
+
+            if (chunk.items == null) {
+                finished = true;
+                if (chunk.error != null)
+                    throw new IllegalStateException("Generating " + song.title() + " failed", chunk.error);
+            } else {
+                current = chunk.items.iterator();
+            }
+        }
+
+        return current.hasNext();
+    }
+
+    @Override
+    public Item next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        return current.next();
+    }
+
+    /** Stops generating */
+    @Override
+    public void close() {
+        closed = true;
+        finished = true;
+        generator.interrupt();
+        chunks.clear();
+    }
+
+    private void generate() {
+        try {
+            // Events of the sections that aren't regenerated, by section name, to be reused
+            final Map<String, Map<Party, List<Event>>> generated = new HashMap<>();
+            final Map<String, Integer> generations = new HashMap<>();
+            Control lastControl = null;
+            Length offset = Length.ZERO;
+
+            for(Arrangement.Entry arrangementEntry : song.arrangement().entries()) {
+                final Section section = arrangementEntry.section();
+                for(int arrangementEntryIndex = 1; arrangementEntryIndex <= arrangementEntry.repetitions();
+                    arrangementEntryIndex++) {
+                    if (closed)
+                        return;
+
+                    final List<Item> items = new ArrayList<>();
+                    final Context context = section.context();
+                    final Control control = Control.of(context.tempo(), context.key(), context.timeSignature());
+                    if (lastControl == null || !lastControl.equals(control))
+                        items.add(new Item(offset, null, null, control));
+                    lastControl = control;
+
+                    final Map<Party, List<Event>> sectionEvents = section.isRegenerate() ? new HashMap<>() :
+                            generated.computeIfAbsent(section.name(), name -> new HashMap<>());
+                    final int generation = section.isRegenerate() ?
+                            generations.merge(section.name(), 1, Integer::sum) - 1 : 0;
+                    final List<Item> events = new ArrayList<>();
+                    for(Party party : song.parties()) {
+                        if (!section.hasPartsFor(party))
+                            continue;
+
+                        List<Event> partyEvents = sectionEvents.get(party);
+                        if (partyEvents == null) {
+                            partyEvents = Performer.generate(section, party, seed, generation, cache);
+                            sectionEvents.put(party, partyEvents);
+                        }
+                        for(Event event : partyEvents) {
+                            final Event positioned = event.offset(offset);
+                            events.add(new Item(positioned.position(), party, positioned, null));
+                        }
+                    }
+                    events.sort(Comparator.comparing(Item::position));
+                    items.addAll(events);
+
+                    chunks.put(new Chunk(items, null));
+                    offset = offset.plus(section.length());
+                }
+            }
+
+            chunks.put(new Chunk(null, null));
+        } catch (final InterruptedException e) {
+            // Closed
+        } catch (final Throwable t) {
+            try {
+                if (!closed)
+                    chunks.put(new Chunk(null, t));
+            } catch (final InterruptedException e) {
+                // Closed
+            }
+        }
+    }
+
+    /** Control change, or event of a party */
+    public static final class Item {
+        private final Length position;
+        private final Party party;
+        private final Event event;
+        private final Control control;
+
+        private Item(final Length position, final Party party, final Event event, final Control control) {
+            this.position = position;
+            this.party = party;
+            this.event = event;
+            this.control = control;
+        }
+
+        /** Position from the start of the performance */
+        public Length position() {
+            return position;
+        }
+
+        public boolean isControl() {
+            return control != null;
+        }
+
+        /** Party playing the event; null for control changes */
+        public Party party() {
+            return party;
+        }
+
+        /** Event, positioned from the start of the performance; null for control changes */
+        public Event event() {
+            return event;
+        }
+
+        /** Tempo, key and time signature from the position on; null for events */
+        public Control control() {
+            return control;
+        }
+
+        @Override
+        public String toString() {
+            return isControl() ?
+                    String.format("%s %d %s %s", position, control.tempo(), control.key(), control.timeSignature()) :
+                    String.format("%s %s %s", position, party.name(), event);
+        }
+    }
+
+    /** Items of a section repetition; no items once all were generated, or generation failed */
+    private static final class Chunk {
+        private final List<Item> items;
+        private final Throwable error;
+
+        private Chunk(final List<Item> items, final Throwable error) {
+            this.items = items;
+            this.error = error;
+        }
+    }
+}
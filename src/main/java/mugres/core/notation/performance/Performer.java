@@ -1,28 +1,57 @@
 package mugres.core.notation.performance;
 
 import mugres.core.common.Context;
+import mugres.core.common.Context.ComposableContext;
 import mugres.core.common.Event;
 import mugres.core.common.Length;
 import mugres.core.common.Party;
 import mugres.core.function.Call;
+import mugres.core.function.CallCache;
 import mugres.core.function.Result;
 import mugres.core.notation.Arrangement;
+import mugres.core.notation.Section;
 import mugres.core.notation.Song;
+import mugres.core.notation.SongDiff;
+import mugres.core.utils.Randoms;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
+/**
+ * Performs songs, executing the calls of every section for every party.
+ *
+ * Every call draws from a random source of its own, derived from the song's seed (see
+ * {@link Context#seed()}), or from a new one if the song isn't seeded, and from the section, party,
+ * generation and position of the call. Performing a seeded song again gives the same performance,
+ * whether serially or in parallel.
+ *
+ * Calls are executed through a {@link CallCache}, the shared one unless told otherwise, so that
+ * performing a song again only executes the calls whose results weren't kept. A new version of a
+ * song can also be performed from the performance of the previous one, generating again only the
+ * parts that changed (see {@link SongDiff}).
+ */
 public class Performer {
     private Performer() {}
 
     public static Performance perform(final Song song) {
+        return perform(song, CallCache.shared());
+    }
+
+    public static Performance perform(final Song song, final CallCache cache) {
+        if (cache == null)
+            throw new IllegalArgumentException("cache");
+
         final Map<String, Map<String, List<Event>>> generatedMatrix = new HashMap<>();
         final Performance performance = new Performance(song.title());
+        final long seed = seed(song, performance);
 
         addControlEvents(song, performance);
 
         Length offset = Length.ZERO;
         for(Party party : song.parties()) {
             final Track track = performance.createTrack(party);
+            final Map<String, Integer> generations = new HashMap<>();
             offset = Length.ZERO;
             for(Arrangement.Entry arrangementEntry : song.arrangement().entries()) {
                 for(int arrangementEntryIndex = 1; arrangementEntryIndex <= arrangementEntry.repetitions();
@@ -39,25 +68,14 @@ public class Performer {
                             if (!generatedMatrix.containsKey(arrangementEntry.section().name()))
                                 generatedMatrix.put(arrangementEntry.section().name(), new HashMap<>());
 
-                            final List<Event> partyEvents = new ArrayList<>();
-                            Length previousCallsOffset = Length.ZERO;
-                            for (Call<List<Event>> call : arrangementEntry.section().matrix().get(party)) {
-                                final Context callContext = arrangementEntry.section().context();
-                                final Result<List<Event>> functionResult = call.execute(callContext);
-                                if (functionResult.succeeded()) {
-                                    final List<Event> events = sortEventList(functionResult.data());
-                                    for (Event event : events) {
-                                        track.addEvent(event.offset(offset.plus(previousCallsOffset)));
-                                        partyEvents.add(event.offset(previousCallsOffset));
-                                    }
-                                    previousCallsOffset = previousCallsOffset.plus(callContext.timeSignature()
-                                            .measuresLength(call.getLengthInMeasures()));
-                                } else {
-                                    // TODO: better error handling
-                                    throw new RuntimeException(functionResult.error());
-                                }
-                            }
+                            final int generation = generations.merge(arrangementEntry.section().name(), 1,
+                                    Integer::sum) - 1;
+                            final List<Event> partyEvents = generate(arrangementEntry.section(), party, seed,
+                                    generation, cache);
+                            for (Event event : partyEvents)
+                                track.addEvent(event.offset(offset));
 
+                            performance.addGeneration(arrangementEntry.section().name(), party, partyEvents);
                             generatedMatrix.get(arrangementEntry.section().name())
                                     .put(party.name(), partyEvents);
                         }
@@ -72,6 +90,218 @@ public class Performer {
         return performance;
     }
 
+    /**
+     * Same as {@link #perform(Song)}, but the calls are executed on the given pool: one task per
+     * party and section, which generates the section once, or once per repetition if it's
+     * regenerated. Tracks get their events in the same order as when performing serially.
+     *
+     * Repetitions of a regenerated section are generated one after the other, within the same
+     * task, as they share the section's calls.
+     */
+    public static Performance perform(final Song song, final ForkJoinPool pool) {
+        return perform(song, pool, CallCache.shared());
+    }
+
+    public static Performance perform(final Song song, final ForkJoinPool pool, final CallCache cache) {
+        if (pool == null)
+            throw new IllegalArgumentException("pool");
+        if (cache == null)
+            throw new IllegalArgumentException("cache");
+
+        final Performance performance = new Performance(song.title());
+        final long seed = seed(song, performance);
+
+        final Map<Party, Map<String, ForkJoinTask<List<List<Event>>>>> generations = new LinkedHashMap<>();
+        for(Party party : song.parties()) {
+            final Map<String, ForkJoinTask<List<List<Event>>>> partyGenerations = new HashMap<>();
+            for(Map.Entry<Section, Integer> entry : generationsFor(song, party).entrySet()) {
+                final Section section = entry.getKey();
+                final int count = entry.getValue();
+                partyGenerations.put(section.name(), pool.submit(() -> {
+                    final List<List<Event>> sectionGenerations = new ArrayList<>(count);
+                    for(int generation = 0; generation < count; generation++)
+                        sectionGenerations.add(generate(section, party, seed, generation, cache));
+                    return sectionGenerations;
+                }));
+            }
+            generations.put(party, partyGenerations);
+        }
+
+        final Map<Party, Map<String, List<List<Event>>>> generated = new LinkedHashMap<>();
+        for(Map.Entry<Party, Map<String, ForkJoinTask<List<List<Event>>>>> partyGenerations :
+                generations.entrySet()) {
+            final Map<String, List<List<Event>>> partyGenerated = new HashMap<>();
+            for(Map.Entry<String, ForkJoinTask<List<List<Event>>>> task : partyGenerations.getValue().entrySet())
+                partyGenerated.put(task.getKey(), task.getValue().join());
+            generated.put(partyGenerations.getKey(), partyGenerated);
+        }
+
+        addControlEvents(song, performance);
+        assemble(song, performance, generated);
+
+        return performance;
+    }
+
+    /**
+     * Performs a new version of a song, generating again only the parts the diff tells changed, and
+     * reusing the previous performance's events for the rest. Unless the song is seeded, the calls'
+     * random sources are derived from the previous performance's seed.
+     * @param previous performance of the previous version of the song
+     * @param diff from the previous version of the song to this one
+     */
+    public static Performance perform(final Song song, final Performance previous, final SongDiff diff) {
+        return perform(song, previous, diff, CallCache.shared());
+    }
+
+    public static Performance perform(final Song song, final Performance previous, final SongDiff diff,
+                                      final CallCache cache) {
+        if (previous == null)
+            throw new IllegalArgumentException("previous");
+        if (diff == null)
+            throw new IllegalArgumentException("diff");
+        if (cache == null)
+            throw new IllegalArgumentException("cache");
+
+        final Performance performance = new Performance(song.title());
+        final Long songSeed = song.context().seed();
+        final long seed = songSeed != null ? songSeed : previous.seed();
+        performance.seed(seed);
+
+        final Map<Party, Map<String, List<List<Event>>>> generated = new LinkedHashMap<>();
+        for(Party party : song.parties()) {
+            final Map<String, List<List<Event>>> partyGenerated = new HashMap<>();
+            for(Map.Entry<Section, Integer> entry : generationsFor(song, party).entrySet()) {
+                final Section section = entry.getKey();
+                final int count = entry.getValue();
+                final List<List<Event>> sectionGenerations = new ArrayList<>(count);
+                if (!diff.isChanged(section.name(), party)) {
+                    final List<List<Event>> previousGenerations = previous.generations(section.name(), party);
+                    sectionGenerations.addAll(previousGenerations.subList(0,
+                            Math.min(count, previousGenerations.size())));
+                }
+                // Regenerated sections may be repeated more times than before
+                for(int generation = sectionGenerations.size(); generation < count; generation++)
+                    sectionGenerations.add(generate(section, party, seed, generation, cache));
+                partyGenerated.put(section.name(), sectionGenerations);
+            }
+            generated.put(party, partyGenerated);
+        }
+
+        addControlEvents(song, performance);
+        assemble(song, performance, generated);
+
+        return performance;
+    }
+
+    /**
+     * Performs the song as a stream of events, generated a few section repetitions ahead of the reader
+     * instead of all at once, so that reading, e.g. playing, can start as soon as the first one is
+     * generated.
+     */
+    public static PerformanceStream stream(final Song song) {
+        return stream(song, DEFAULT_STREAM_LOOKAHEAD, CallCache.shared());
+    }
+
+    /** @param lookahead how many section repetitions can be generated ahead of the reader */
+    public static PerformanceStream stream(final Song song, final int lookahead, final CallCache cache) {
+        return PerformanceStream.of(song, seed(song), lookahead, cache);
+    }
+
+    /** Lays out the generated events of every party, by section name, following the arrangement */
+    private static void assemble(final Song song, final Performance performance,
+                                 final Map<Party, Map<String, List<List<Event>>>> generated) {
+        Length offset = Length.ZERO;
+        for(Map.Entry<Party, Map<String, List<List<Event>>>> partyGenerated : generated.entrySet()) {
+            final Party party = partyGenerated.getKey();
+            final Track track = performance.createTrack(party);
+            final Map<String, Integer> used = new HashMap<>();
+            offset = Length.ZERO;
+            for(Arrangement.Entry arrangementEntry : song.arrangement().entries()) {
+                for(int arrangementEntryIndex = 1; arrangementEntryIndex <= arrangementEntry.repetitions();
+                    arrangementEntryIndex++) {
+                    final Section section = arrangementEntry.section();
+                    final List<List<Event>> sectionGenerations = partyGenerated.getValue().get(section.name());
+                    if (sectionGenerations != null) {
+                        final int generation = section.isRegenerate() ?
+                                used.merge(section.name(), 1, Integer::sum) - 1 : 0;
+                        for (Event event : sectionGenerations.get(generation))
+                            track.addEvent(event.offset(offset));
+                    }
+                    offset = offset.plus(section.length());
+                }
+            }
+
+            for(Map.Entry<String, List<List<Event>>> sectionGenerations : partyGenerated.getValue().entrySet())
+                for(List<Event> events : sectionGenerations.getValue())
+                    performance.addGeneration(sectionGenerations.getKey(), party, events);
+        }
+
+        performance.length(offset);
+    }
+
+    /** How many times each section with parts for the party has to be generated, in order of appearance */
+    private static Map<Section, Integer> generationsFor(final Song song, final Party party) {
+        final Map<String, Section> sections = new HashMap<>();
+        final Map<Section, Integer> generations = new LinkedHashMap<>();
+        for(Arrangement.Entry arrangementEntry : song.arrangement().entries()) {
+            final Section section = arrangementEntry.section();
+            if (!section.hasPartsFor(party))
+                continue;
+
+            // Sections are told apart by name, as when performing serially
+            final Section first = sections.computeIfAbsent(section.name(), name -> section);
+            if (section.isRegenerate())
+                generations.merge(first, arrangementEntry.repetitions(), Integer::sum);
+            else
+                generations.putIfAbsent(first, 1);
+        }
+        return generations;
+    }
+
+    /** The song's seed, or a new one if it isn't seeded */
+    private static long seed(final Song song, final Performance performance) {
+        final long seed = seed(song);
+        performance.seed(seed);
+        return seed;
+    }
+
+    static long seed(final Song song) {
+        final Long songSeed = song.context().seed();
+        return songSeed != null ? songSeed : Randoms.seed();
+    }
+
+    /**
+     * Executes the party's calls for the section, one after the other, from the start of the section
+     * @param generation how many times the section was generated for the party before
+     */
+    static List<Event> generate(final Section section, final Party party, final long seed,
+                                        final int generation, final CallCache cache) {
+        final List<Event> partyEvents = new ArrayList<>();
+        // Random results are only worth caching if the song can be performed the same way again
+        final boolean seeded = section.song().context().seed() != null;
+        Length previousCallsOffset = Length.ZERO;
+        int callIndex = 0;
+        for (Call<List<Event>> call : section.matrix().get(party)) {
+            final long callSeed = Randoms.derive(seed, section.name(), party.name(), generation, callIndex++);
+            final Context callContext = ComposableContext.of(section.context())
+                    .random(new SplittableRandom(callSeed));
+            if (seeded)
+                callContext.seed(callSeed);
+            final Result<List<Event>> functionResult = cache.execute(call, callContext);
+            if (functionResult.succeeded()) {
+                final List<Event> events = sortEventList(functionResult.data());
+                for (Event event : events)
+                    partyEvents.add(event.offset(previousCallsOffset));
+                previousCallsOffset = previousCallsOffset.plus(callContext.timeSignature()
+                        .measuresLength(call.getLengthInMeasures(callContext)));
+            } else {
+                // TODO: better error handling
+                throw new RuntimeException(functionResult.error());
+            }
+        }
+        return partyEvents;
+    }
+
     private static void addControlEvents(final Song song, final Performance performance) {
         Length offset = Length.ZERO;
         for(Arrangement.Entry arrangementEntry : song.arrangement().entries()) {
@@ -100,4 +330,6 @@ public class Performer {
         sortedEventList.sort(Comparator.comparing(Event::position));
         return sortedEventList;
     }
+
+    private static final int DEFAULT_STREAM_LOOKAHEAD = 2;
 }
@@ -0,0 +1,154 @@
+package mugres.core.notation.performance;
+
+import mugres.core.common.Event;
+import mugres.core.common.EventIds;
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Length;
+import mugres.core.common.Party;
+import mugres.core.common.Signal;
+import mugres.core.common.clock.Clock;
+import mugres.core.common.io.Output;
+import mugres.core.live.scheduler.SignalScheduler;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Plays a performance stream on an output, as it's read: every event is scheduled as signals a
+ * little before its time, so that only the stream's lookahead is kept in memory. Playback starts
+ * as soon as the first section is generated.
+ *
+ * On a virtual clock the stream is read, and scheduled, all at once.
+ *
+ * If reading the stream or scheduling fails, playback ends there: see {@link #failure()}.
+ */
+public class Player {
+    private final PerformanceStream stream;
+    private final Output output;
+    private final SignalScheduler scheduler;
+    /** Scheduled and not dispatched yet, give or take */
+    private final ConcurrentLinkedQueue<SignalScheduler.Scheduled> scheduled = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean stopped;
+    private volatile boolean finished;
+    private volatile Throwable failure;
+
+    private Player(final PerformanceStream stream, final Output output, final SignalScheduler scheduler) {
+        this.stream = stream;
+        this.output = output;
+        this.scheduler = scheduler;
+
+        worker = new Thread(this::play);
+        worker.setName("MUGRES Player");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    public static Player play(final PerformanceStream stream, final Output output, final SignalScheduler scheduler) {
+        if (stream == null)
+            throw new IllegalArgumentException("stream");
+        if (output == null)
+            throw new IllegalArgumentException("output");
+        if (scheduler == null)
+            throw new IllegalArgumentException("scheduler");
+
+        return new Player(stream, output, scheduler);
+    }
+
+    /** Whether every event was scheduled, playback was stopped, or it failed */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /** Why playback ended before every event was scheduled, or null if it didn't fail (yet) */
+    public Throwable failure() {
+        return failure;
+    }
+
+    /** Stops reading the stream and cancels the signals not sent yet, but for those ending notes already started */
+    public void stop() {
+        stopped = true;
+        stream.close();
+        worker.interrupt();
+        // Nothing gets scheduled after the cancelling below
+        if (Thread.currentThread() != worker)
+            try {
+                worker.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+        for(SignalScheduler.Scheduled next : scheduled)
+            if (next.signal().isActive())
+                next.cancel();
+    }
+
+    private void play() {
+        try {
+            final Clock clock = scheduler.clock();
+            for(Party party : stream.parties())
+                output.send(InstrumentChange.of(party.channel(), party.instrument()));
+
+            // Times are computed from the last control change, as the tempo may change
+            long controlMillis = clock.millis() + START_DELAY_MILLIS;
+            Length controlPosition = Length.ZERO;
+            int tempo = 0;
+            while(!stopped && stream.hasNext()) {
+                final PerformanceStream.Item item = stream.next();
+                if (item.isControl()) {
+                    // The stream starts with one
+                    if (tempo > 0)
+                        controlMillis += item.position().minus(controlPosition).toMillis(tempo);
+                    controlPosition = item.position();
+                    tempo = item.control().tempo();
+                    continue;
+                }
+
+                final long millis = controlMillis + item.position().minus(controlPosition).toMillis(tempo);
+                waitUntil(clock, millis - SCHEDULE_AHEAD_MILLIS);
+
+                pruneScheduled();
+                final Event event = item.event();
+                final int channel = item.party().channel();
+                schedule(Signal.on(EventIds.next(), millis, channel, event.played()));
+                schedule(Signal.off(EventIds.next(), millis + event.length().toMillis(tempo), channel,
+                        event.played()));
+            }
+        } catch (final InterruptedException e) {
+            // Stopped
+        } catch (final Throwable t) {
+            if (!stopped)
+                failure = t;
+        } finally {
+            stream.close();
+            finished = true;
+        }
+    }
+
+    private void schedule(final Signal signal) {
+        scheduled.add(scheduler.schedule(signal, output::send));
+    }
+
+    /**
+     * Forgets the oldest signals once dispatched. Signals are scheduled roughly in time order, so
+     * only those within the scheduling window, and notes still playing, are left.
+     */
+    private void pruneScheduled() {
+        SignalScheduler.Scheduled oldest;
+        while((oldest = scheduled.peek()) != null && (oldest.isDispatched() || oldest.isCancelled()))
+            scheduled.poll();
+    }
+
+    private static void waitUntil(final Clock clock, final long millis) throws InterruptedException {
+        if (clock.isVirtual())
+            return;
+
+        final long delay = millis - clock.millis();
+        if (delay > 0)
+            Thread.sleep(delay);
+    }
+
+    /** Time to read the first events before the first is due */
+    private static final long START_DELAY_MILLIS = 100;
+    /** How long before its time every event is scheduled */
+    private static final long SCHEDULE_AHEAD_MILLIS = 250;
+}
@@ -0,0 +1,64 @@
+package mugres.core.utils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Field;
+
+/**
+ * Memory fences, to order plain accesses to memory shared with other threads or processes
+ * (e.g. mapped files), where volatile fields can't be used.
+ *
+ * The fences are sun.misc.Unsafe's, looked up reflectively so that nothing depends on that
+ * internal API at compile time; static final method handles are inlined by the JIT.
+ */
+public final class Fences {
+    private Fences() {
+    }
+
+    /** Loads before the fence are not reordered with loads and stores after it */
+    public static void loadFence() {
+        try {
+            LOAD_FENCE.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /** Loads and stores before the fence are not reordered with stores after it */
+    public static void storeFence() {
+        try {
+            STORE_FENCE.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    /** Loads and stores before the fence are not reordered with loads and stores after it */
+    public static void fullFence() {
+        try {
+            FULL_FENCE.invokeExact();
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    private static final MethodHandle LOAD_FENCE;
+    private static final MethodHandle STORE_FENCE;
+    private static final MethodHandle FULL_FENCE;
+
+    static {
+        try {
+            final Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            final Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            final Object unsafe = field.get(null);
+
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            LOAD_FENCE = lookup.unreflect(unsafeClass.getMethod("loadFence")).bindTo(unsafe);
+            STORE_FENCE = lookup.unreflect(unsafeClass.getMethod("storeFence")).bindTo(unsafe);
+            FULL_FENCE = lookup.unreflect(unsafeClass.getMethod("fullFence")).bindTo(unsafe);
+        } catch (final ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+}
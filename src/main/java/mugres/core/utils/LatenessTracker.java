@@ -0,0 +1,113 @@
+package mugres.core.utils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/** Accumulates how late things happened in relation to when they were due. */
+public class LatenessTracker {
+    private final long lateThresholdNanos;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder late = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final DoubleAdder squaredNanos = new DoubleAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    private LatenessTracker(final long lateThresholdNanos) {
+        if (lateThresholdNanos < 0)
+            throw new IllegalArgumentException("lateThresholdNanos");
+
+        this.lateThresholdNanos = lateThresholdNanos;
+    }
+
+    public static LatenessTracker of() {
+        return of(DEFAULT_LATE_THRESHOLD_NANOS);
+    }
+
+    public static LatenessTracker of(final long lateThresholdNanos) {
+        return new LatenessTracker(lateThresholdNanos);
+    }
+
+    public void record(final long latenessNanos) {
+        final long lateness = Math.max(0, latenessNanos);
+
+        count.increment();
+        totalNanos.add(lateness);
+        squaredNanos.add((double) lateness * lateness);
+        maxNanos.accumulateAndGet(lateness, Math::max);
+        if (lateness > lateThresholdNanos)
+            late.increment();
+    }
+
+    public void reset() {
+        count.reset();
+        late.reset();
+        totalNanos.reset();
+        squaredNanos.reset();
+        maxNanos.set(0);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(count.sum(), late.sum(), totalNanos.sum(), squaredNanos.sum(), maxNanos.get(),
+                lateThresholdNanos);
+    }
+
+    public static class Snapshot {
+        private final long count;
+        private final long late;
+        private final long totalNanos;
+        private final double squaredNanos;
+        private final long maxNanos;
+        private final long lateThresholdNanos;
+
+        private Snapshot(final long count, final long late, final long totalNanos, final double squaredNanos,
+                         final long maxNanos, final long lateThresholdNanos) {
+            this.count = count;
+            this.late = late;
+            this.totalNanos = totalNanos;
+            this.squaredNanos = squaredNanos;
+            this.maxNanos = maxNanos;
+            this.lateThresholdNanos = lateThresholdNanos;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        /** Number of samples over the late threshold */
+        public long late() {
+            return late;
+        }
+
+        public long lateThresholdNanos() {
+            return lateThresholdNanos;
+        }
+
+        public long meanNanos() {
+            return count == 0 ? 0 : totalNanos / count;
+        }
+
+        public long maxNanos() {
+            return maxNanos;
+        }
+
+        /** Standard deviation of the lateness */
+        public long jitterNanos() {
+            if (count == 0)
+                return 0;
+
+            final double mean = (double) totalNanos / count;
+            final double variance = squaredNanos / count - mean * mean;
+            return variance <= 0 ? 0 : Math.round(Math.sqrt(variance));
+        }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d late=%d mean=%.3fms max=%.3fms jitter=%.3fms",
+                    count, late, meanNanos() / 1e6, maxNanos / 1e6, jitterNanos() / 1e6);
+        }
+    }
+
+    private static final long DEFAULT_LATE_THRESHOLD_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+}
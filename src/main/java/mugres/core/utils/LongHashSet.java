@@ -0,0 +1,134 @@
+package mugres.core.utils;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash set of non-zero longs, without boxing. Not thread-safe.
+ */
+public class LongHashSet {
+    private long[] slots;
+    private int size;
+
+    private LongHashSet(final int expectedSize) {
+        slots = new long[tableSizeFor(expectedSize)];
+    }
+
+    public static LongHashSet of() {
+        return of(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public static LongHashSet of(final int expectedSize) {
+        if (expectedSize <= 0)
+            throw new IllegalArgumentException("expectedSize");
+
+        return new LongHashSet(expectedSize);
+    }
+
+    /** @return true if the value wasn't already in the set */
+    public boolean add(final long value) {
+        checkValue(value);
+
+        final int mask = slots.length - 1;
+        int index = index(value, mask);
+        while(slots[index] != EMPTY) {
+            if (slots[index] == value)
+                return false;
+            index = (index + 1) & mask;
+        }
+
+        slots[index] = value;
+        if (++size > slots.length * MAX_LOAD_FACTOR)
+            rehash(slots.length * 2);
+        return true;
+    }
+
+    public boolean contains(final long value) {
+        if (value == EMPTY)
+            return false;
+
+        final int mask = slots.length - 1;
+        int index = index(value, mask);
+        while(slots[index] != EMPTY) {
+            if (slots[index] == value)
+                return true;
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /** @return true if the value was in the set */
+    public boolean remove(final long value) {
+        if (value == EMPTY)
+            return false;
+
+        final int mask = slots.length - 1;
+        int index = index(value, mask);
+        while(slots[index] != value) {
+            if (slots[index] == EMPTY)
+                return false;
+            index = (index + 1) & mask;
+        }
+
+        // Backward shift deletion: keep every remaining probe chain unbroken
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while(slots[next] != EMPTY) {
+            final int home = index(slots[next], mask);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                slots[gap] = slots[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[gap] = EMPTY;
+
+        size--;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(slots, EMPTY);
+        size = 0;
+    }
+
+    private void rehash(final int capacity) {
+        final long[] old = slots;
+        slots = new long[capacity];
+        final int mask = capacity - 1;
+        for(final long value : old)
+            if (value != EMPTY) {
+                int index = index(value, mask);
+                while(slots[index] != EMPTY)
+                    index = (index + 1) & mask;
+                slots[index] = value;
+            }
+    }
+
+    private static int index(final long value, final int mask) {
+        final long hash = value * 0x9E3779B97F4A7C15L;
+        return (int)(hash ^ (hash >>> 32)) & mask;
+    }
+
+    private static void checkValue(final long value) {
+        if (value == EMPTY)
+            throw new IllegalArgumentException("value");
+    }
+
+    private static int tableSizeFor(final int expectedSize) {
+        final int minimum = (int) Math.ceil(expectedSize / MAX_LOAD_FACTOR) + 1;
+        return Math.max(MINIMUM_CAPACITY, Integer.highestOneBit(minimum - 1) << 1);
+    }
+
+    private static final long EMPTY = 0L;
+    private static final float MAX_LOAD_FACTOR = 0.5f;
+    private static final int MINIMUM_CAPACITY = 8;
+    private static final int DEFAULT_EXPECTED_SIZE = 64;
+}
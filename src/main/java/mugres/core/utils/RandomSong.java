@@ -24,13 +24,13 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
 import static java.lang.Math.min;
 import static java.util.Arrays.asList;
 import static mugres.core.common.MIDI.PERCUSSION;
-import static mugres.core.utils.Randoms.RND;
 import static mugres.core.utils.Randoms.random;
 import static mugres.core.utils.Randoms.randomBetween;
 import static mugres.core.utils.Utils.toMap;
@@ -39,47 +39,56 @@ public class RandomSong {
     private RandomSong() {}
 
     public static Song randomSong() {
-        final Song song = Song.of("Song " + UUID.randomUUID(),
-                Context.basicContext().tempo(RND.nextInt(RANDOM_MAX_TEMPO - RANDOM_MIN_TEMPO) + RANDOM_MIN_TEMPO ));
+        return randomSong(Randoms.seed());
+    }
+
+    /** Same seed, same song. The song is seeded with it too, so it's performed the same way every time. */
+    public static Song randomSong(final long seed) {
+        final SplittableRandom rnd = new SplittableRandom(seed);
+        final Song song = Song.of("Song " + new UUID(rnd.nextLong(), rnd.nextLong()),
+                Context.basicContext().tempo(rnd.nextInt(RANDOM_MAX_TEMPO - RANDOM_MIN_TEMPO) + RANDOM_MIN_TEMPO )
+                        .seed(seed));
 
         final List<Party> parties = new ArrayList<>();
-        final int numberOfParties = RND.nextInt(RANDOM_MAX_PARTIES) + 1;
+        final int numberOfParties = rnd.nextInt(RANDOM_MAX_PARTIES) + 1;
         for(int i = 0; i < numberOfParties; i++)
-            parties.add(new Party("Party " + i, random(Instrument.values(), Instrument.DrumKit), i));
+            parties.add(new Party("Party " + i, random(rnd, Instrument.values(), Instrument.DrumKit), i));
 
-        final boolean hasPercussion = RND.nextBoolean();
-        final boolean percussionAlwaysPresent = RND.nextBoolean();
-        final boolean alwaysSamePercussionStyle = RND.nextBoolean();
+        final boolean hasPercussion = rnd.nextBoolean();
+        final boolean percussionAlwaysPresent = rnd.nextBoolean();
+        final boolean alwaysSamePercussionStyle = rnd.nextBoolean();
         final PercussionStyle percussionStyle = alwaysSamePercussionStyle ?
-                random(asList(PercussionStyle.values())) : null;
+                random(rnd, asList(PercussionStyle.values())) : null;
         final Party percussionParty = hasPercussion ?
                 new Party("Percussion", Instrument.DrumKit, PERCUSSION) : null;
 
         final List<Section> sections = new ArrayList<>();
-        final int numberOfSections = RND.nextInt(RANDOM_MAX_SECTIONS) + 1;
+        final int numberOfSections = rnd.nextInt(RANDOM_MAX_SECTIONS) + 1;
         for(int i = 0; i < numberOfSections; i++) {
-            final Section section = song.createSection("Section " + i, random(RANDOM_SECTIONS_LENGTHS));
-            section.context().tempo(RND.nextBoolean() ? section.context().tempo() :
-                    RND.nextBoolean() ? section.context().tempo() / 2 : section.context().tempo() * 2);
+            final Section section = song.createSection("Section " + i, random(rnd, RANDOM_SECTIONS_LENGTHS));
+            section.context().tempo(rnd.nextBoolean() ? section.context().tempo() :
+                    rnd.nextBoolean() ? section.context().tempo() / 2 : section.context().tempo() * 2);
             sections.add(section);
         }
 
-        final boolean useSameRoot = RND.nextBoolean();
-        final boolean useSameTonality = RND.nextBoolean();
-        final boolean useSameScale = RND.nextBoolean();
-        final Tonality tonality = useSameTonality ? random(Tonality.values()) : null;
-        final Set<Scale> scales = useSameTonality ? Scale.byTonality(tonality) :
-                Arrays.stream(Scale.values()).collect(Collectors.toSet());
-        final Scale scale = random(scales);
-        final Note root = random(Note.values());
+        final boolean useSameRoot = rnd.nextBoolean();
+        final boolean useSameTonality = rnd.nextBoolean();
+        final boolean useSameScale = rnd.nextBoolean();
+        final Tonality tonality = useSameTonality ? random(rnd, Tonality.values()) : null;
+        // In declaration order, as the order of a set of them may change from one run to another
+        final List<Scale> scales = Arrays.stream(Scale.values())
+                .filter(s -> !useSameTonality || s.tonality() == tonality)
+                .collect(Collectors.toList());
+        final Scale scale = random(rnd, scales);
+        final Note root = random(rnd, Note.values());
 
         for(final Section section : sections) {
             for (final Party party : parties) {
-                final Note actualRoot = useSameRoot ? root : random(Note.values());
-                final Scale actualScale = useSameScale ? scale : random(scales);
-                final int startingOctave = random(RANDOM_STARTING_OCTAVE_OPTIONS);
-                final int octavesToGenerate = startingOctave < 4 ? random(RANDOM_OCTAVE_TO_GENERATE_OPTIONS) : 1;
-                switch(RND.nextInt(4)) {
+                final Note actualRoot = useSameRoot ? root : random(rnd, Note.values());
+                final Scale actualScale = useSameScale ? scale : random(rnd, scales);
+                final int startingOctave = random(rnd, RANDOM_STARTING_OCTAVE_OPTIONS);
+                final int octavesToGenerate = startingOctave < 4 ? random(rnd, RANDOM_OCTAVE_TO_GENERATE_OPTIONS) : 1;
+                switch(rnd.nextInt(4)) {
                     case 0: // Random
                         final Map<String, Object> randomArguments = toMap(
                                 Random.SCALE, actualScale,
@@ -95,12 +104,12 @@ public class RandomSong {
                                 TextMelody.STARTING_OCTAVE, startingOctave,
                                 TextMelody.OCTAVES_TO_GENERATE, octavesToGenerate,
                                 TextMelody.ROOT, actualRoot,
-                                TextMelody.SOURCE_TEXT, random(asList(
-                                        UUID.randomUUID().toString(),
-                                        UUID.randomUUID().toString(),
-                                        UUID.randomUUID().toString(),
-                                        UUID.randomUUID().toString(),
-                                        UUID.randomUUID().toString()))
+                                TextMelody.SOURCE_TEXT, random(rnd, asList(
+                                        new UUID(rnd.nextLong(), rnd.nextLong()).toString(),
+                                        new UUID(rnd.nextLong(), rnd.nextLong()).toString(),
+                                        new UUID(rnd.nextLong(), rnd.nextLong()).toString(),
+                                        new UUID(rnd.nextLong(), rnd.nextLong()).toString(),
+                                        new UUID(rnd.nextLong(), rnd.nextLong()).toString()))
                         );
                         section.addPart(party, Call.of("textMelody", section.measures(), textMelodyArguments));
                         break;
@@ -108,7 +117,7 @@ public class RandomSong {
                         final Map<String, Object> arpArguments = toMap(
                                 Arp2.PITCHES, actualScale.harmonize(actualRoot, actualRoot, Interval.Type.THIRD,
                                         RANDOM_MAX_ARP_PITCHES, startingOctave),
-                                Arp2.PATTERN, randomArpPattern()
+                                Arp2.PATTERN, randomArpPattern(rnd)
                         );
                         section.addPart(party, Call.of("arp2", section.measures(), arpArguments));
                         break;
@@ -116,7 +125,7 @@ public class RandomSong {
                         final List<EuclideanPattern> patterns = new ArrayList<>();
                         for(int i = MIN_EUCLIDES_PATTERNS; i <= MAX_EUCLIDES_PATTERNS; i++)
                             patterns.add(EuclideanPattern.of(EUCLIDES_STEPS,
-                                    randomBetween(MIN_EUCLIDES_PATTERN_EVENTS, MAX_EUCLIDES_PATTERN_EVENTS)));
+                                    randomBetween(rnd, MIN_EUCLIDES_PATTERN_EVENTS, MAX_EUCLIDES_PATTERN_EVENTS)));
 
                         final Map<String, Object> euclidesArguments = toMap(
                                 Euclides.PATTERNS, patterns,
@@ -124,7 +133,7 @@ public class RandomSong {
                                 Euclides.STARTING_OCTAVE, startingOctave,
                                 Euclides.OCTAVES_TO_GENERATE, octavesToGenerate,
                                 Euclides.ROOT, actualRoot,
-                                Euclides.CYCLE, section.context().timeSignature().measuresLength(RND.nextBoolean() ? 1 : 2)
+                                Euclides.CYCLE, section.context().timeSignature().measuresLength(rnd.nextBoolean() ? 1 : 2)
                         );
                         section.addPart(party, Call.of("euclides", section.measures(), euclidesArguments));
                         break;
@@ -132,9 +141,9 @@ public class RandomSong {
             }
 
             if (hasPercussion) {
-                if (percussionAlwaysPresent || RND.nextBoolean()) {
+                if (percussionAlwaysPresent || rnd.nextBoolean()) {
                     final PercussionStyle style = alwaysSamePercussionStyle ?
-                            percussionStyle : random(asList(PercussionStyle.values()));
+                            percussionStyle : random(rnd, asList(PercussionStyle.values()));
 
                     switch (style) {
                         case EUCLIDEAN:
@@ -142,14 +151,14 @@ public class RandomSong {
                             final List<DrumKit> kitPieces = new ArrayList<>();
                             for(int i = MIN_EUCLIDES_PATTERNS; i <= MAX_EUCLIDES_PATTERNS; i++) {
                                 patterns.add(EuclideanPattern.of(EUCLIDES_STEPS,
-                                        randomBetween(MIN_EUCLIDES_PERCUSSION_PATTERN_EVENTS, MAX_EUCLIDES_PERCUSSION_PATTERN_EVENTS)));
-                                kitPieces.add(random(asList(DrumKit.values()), kitPieces));
+                                        randomBetween(rnd, MIN_EUCLIDES_PERCUSSION_PATTERN_EVENTS, MAX_EUCLIDES_PERCUSSION_PATTERN_EVENTS)));
+                                kitPieces.add(random(rnd, asList(DrumKit.values()), kitPieces));
                             }
 
                             final Map<String, Object> euclidesArguments = toMap(
                                     Euclides.PATTERNS, patterns,
                                     Euclides.PITCHES, kitPieces.stream().map(DrumKit::pitch).collect(Collectors.toList()),
-                                    Euclides.CYCLE, section.context().timeSignature().measuresLength(min((RND.nextBoolean() ? 1 : 2), section.measures()))
+                                    Euclides.CYCLE, section.context().timeSignature().measuresLength(min((rnd.nextBoolean() ? 1 : 2), section.measures()))
                             );
                             section.addPart(percussionParty, Call.of("euclides", section.measures(), euclidesArguments));
                             break;
@@ -160,42 +169,42 @@ public class RandomSong {
 
         switch(numberOfSections) {
             case 1:
-                song.arrangement().append(sections.get(0), random(RANDOM_SINGLE_SECTION_REPETITIONS));
+                song.arrangement().append(sections.get(0), random(rnd, RANDOM_SINGLE_SECTION_REPETITIONS));
                 break;
             case 2:
                 for(int i = 0; i < RANDOM_BASIC_ARRANGEMENT_ENTRIES; i++)
-                    song.arrangement().append(sections.get(i % 2), random(RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
+                    song.arrangement().append(sections.get(i % 2), random(rnd, RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
                 break;
             case 3:
-                final boolean thirdAsMiddle8 = RND.nextBoolean();
+                final boolean thirdAsMiddle8 = rnd.nextBoolean();
                 if (thirdAsMiddle8) {
                     for(int i = 0; i < RANDOM_BASIC_ARRANGEMENT_ENTRIES -2; i++)
-                        song.arrangement().append(sections.get(i % 2), random(RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
-                    song.arrangement().append(sections.get(2), random(RANDOM_MIDDLE8_REPETITIONS));
-                    song.arrangement().append(sections.get(0), random(RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
+                        song.arrangement().append(sections.get(i % 2), random(rnd, RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
+                    song.arrangement().append(sections.get(2), random(rnd, RANDOM_MIDDLE8_REPETITIONS));
+                    song.arrangement().append(sections.get(0), random(rnd, RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
                 } else {
                     for(int i = 0; i < RANDOM_BASIC_ARRANGEMENT_ENTRIES; i++)
-                        song.arrangement().append(sections.get(i % 3), random(RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
+                        song.arrangement().append(sections.get(i % 3), random(rnd, RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
                 }
                 for(int i = 0; i < RANDOM_BASIC_ARRANGEMENT_ENTRIES; i++)
-                    song.arrangement().append(sections.get(i % 2), random(RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
+                    song.arrangement().append(sections.get(i % 2), random(rnd, RANDOM_BASIC_ARRANGEMENT_SECTION_REPETITIONS));
                 break;
         }
 
         return song;
     }
 
-    private static String randomArpPattern() {
-        if (RND.nextBoolean())
-            return random(asList(
+    private static String randomArpPattern(final SplittableRandom rnd) {
+        if (rnd.nextBoolean())
+            return random(rnd, asList(
                     "12", "13", "123", "1232", "1234", "123432",
                     "1e2e", "1e3e", "1e2e3e", "1e2e3e2", "1e2e3e4e", "1e2e3e4e3e2e"
             ));
 
         final List<String> steps = new ArrayList<>();
         for(int i=0; i<RANDOM_MAX_ARP_PITCHES; i++) {
-            final int index = i == 0 ? 1 : RND.nextInt(RANDOM_MAX_ARP_PITCHES) + 1;
-            final String duration = random(Value.values()).id();
+            final int index = i == 0 ? 1 : rnd.nextInt(RANDOM_MAX_ARP_PITCHES) + 1;
+            final String duration = random(rnd, Value.values()).id();
         }
 
         return String.join("", steps);
@@ -5,41 +5,96 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.SplittableRandom;
 
 import static java.util.Arrays.asList;
 
+/**
+ * Random picks. Every method takes the random source to draw from, usually the context's
+ * ({@link mugres.core.common.Context#random()}), so that output can be reproduced from a seed;
+ * the ones that don't draw from the calling thread's own source.
+ */
 public class Randoms {
     private Randoms() {}
 
+    /** Unseeded source of the calling thread, for when there's no context to get one from */
+    public static SplittableRandom current() {
+        return CURRENT.get();
+    }
+
+    /** Seed for a new, unseeded, source */
+    public static long seed() {
+        synchronized (SEEDS) {
+            return SEEDS.nextLong();
+        }
+    }
+
+    /**
+     * Seed derived from the given one and a path, e.g. section, party and call, so that every path
+     * gets a stream of its own regardless of the order streams are created in. Path elements must
+     * have stable hash codes, like strings and numbers.
+     */
+    public static long derive(final long seed, final Object... path) {
+        long derived = mix(seed);
+        for(final Object element : path)
+            derived = mix(derived + GOLDEN_GAMMA * (element == null ? 0 : element.hashCode()));
+        return derived;
+    }
+
     public static int randomBetween(final int lower, final int upper) {
+        return randomBetween(current(), lower, upper);
+    }
+
+    public static int randomBetween(final SplittableRandom random, final int lower, final int upper) {
         if (lower > upper)
             throw new IllegalArgumentException("upper");
         if (lower == upper)
             return lower;
 
-        return lower + RND.nextInt((upper - lower) + 1);
+        return lower + random.nextInt((upper - lower) + 1);
     }
 
+    @SafeVarargs
     public static <X> X random(final X[] items, final X... avoid) {
-        return random(new ArrayList<X>(Arrays.asList(items)), avoid);
+        return random(current(), items, avoid);
     }
 
+    @SafeVarargs
+    public static <X> X random(final SplittableRandom random, final X[] items, final X... avoid) {
+        return random(random, new ArrayList<X>(Arrays.asList(items)), avoid);
+    }
+
+    @SafeVarargs
     public static <X> X random(final Set<X> items, final X... avoid) {
-        return random(new ArrayList<>(items), avoid);
+        return random(current(), items, avoid);
     }
 
+    @SafeVarargs
+    public static <X> X random(final SplittableRandom random, final Set<X> items, final X... avoid) {
+        return random(random, new ArrayList<>(items), avoid);
+    }
 
+    @SafeVarargs
     public static <X> X random(final List<X> items, final X... avoid) {
-        return random(items, asList(avoid));
+        return random(current(), items, avoid);
+    }
+
+    @SafeVarargs
+    public static <X> X random(final SplittableRandom random, final List<X> items, final X... avoid) {
+        return random(random, items, asList(avoid));
     }
 
     public static <X> X random(final List<X> items, final List<X> avoid) {
+        return random(current(), items, avoid);
+    }
+
+    public static <X> X random(final SplittableRandom random, final List<X> items, final List<X> avoid) {
         if (items.isEmpty())
             return null;
 
         final Set<X> avoidSet = new HashSet<>(avoid);
         for(int i=0; i<10_000; i++) { // safety loop
-            final X item = items.get(RND.nextInt(items.size()));
+            final X item = items.get(random.nextInt(items.size()));
             if (!avoidSet.contains(item))
                 return item;
         }
@@ -49,15 +104,25 @@ public class Randoms {
     }
 
     public static <X> List<X> randoms(final Set<X> items, final int count, final boolean allowDuplicates) {
-        return randoms(new ArrayList<>(items), count, allowDuplicates);
+        return randoms(current(), items, count, allowDuplicates);
+    }
+
+    public static <X> List<X> randoms(final SplittableRandom random, final Set<X> items, final int count,
+                                      final boolean allowDuplicates) {
+        return randoms(random, new ArrayList<>(items), count, allowDuplicates);
     }
 
     public static <X> List<X> randoms(final List<X> items, final int count, final boolean allowDuplicates) {
+        return randoms(current(), items, count, allowDuplicates);
+    }
+
+    public static <X> List<X> randoms(final SplittableRandom random, final List<X> items, final int count,
+                                      final boolean allowDuplicates) {
         final List<X> result = new ArrayList<>();
 
         int safetyCounter = 0;
         while(safetyCounter++ < 10_000 && result.size() < count) {
-            final X item = random(items);
+            final X item = random(random, items);
             if (allowDuplicates || !result.contains(item))
                 result.add(item);
         }
@@ -69,5 +134,18 @@ public class Randoms {
                 items, count));
     }
 
-    public static final java.util.Random RND = new java.util.Random();
+    /** SplitMix64 finalizer */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final SplittableRandom SEEDS = new SplittableRandom();
+    private static final ThreadLocal<SplittableRandom> CURRENT = ThreadLocal.withInitial(() -> {
+        synchronized (SEEDS) {
+            return SEEDS.split();
+        }
+    });
 }
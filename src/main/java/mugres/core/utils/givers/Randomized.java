@@ -3,7 +3,7 @@ package mugres.core.utils.givers;
 import java.util.List;
 
 import static java.util.Arrays.asList;
-import static mugres.core.utils.Randoms.RND;
+import static mugres.core.utils.Randoms.current;
 
 public class Randomized<T> extends AbstractGiver<T> {
     private final List<T> source;
@@ -25,6 +25,6 @@ public class Randomized<T> extends AbstractGiver<T> {
 
     @Override
     public T get() {
-        return source.isEmpty() ? null : source.get(RND.nextInt(source.size()));
+        return source.isEmpty() ? null : source.get(current().nextInt(source.size()));
     }
 }
@@ -0,0 +1,116 @@
+package mugres.core.utils.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Log-bucketed histogram of non-negative values (e.g. latencies in nanoseconds).
+ *
+ * Every power of two is split into 32 linear sub-buckets, so recorded values are kept with
+ * ~3% precision. Recording doesn't allocate nor lock.
+ */
+public class Histogram {
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    private Histogram() {
+    }
+
+    public static Histogram of() {
+        return new Histogram();
+    }
+
+    public void record(final long value) {
+        final long theValue = Math.max(0, value);
+
+        counts.incrementAndGet(bucket(theValue));
+        total.add(theValue);
+        if (theValue > max.get())
+            max.accumulateAndGet(theValue, Math::max);
+    }
+
+    public void reset() {
+        for(int bucket = 0; bucket < BUCKETS; bucket++)
+            counts.set(bucket, 0);
+        total.reset();
+        max.set(0);
+    }
+
+    public Snapshot snapshot() {
+        final long[] snapshotCounts = new long[BUCKETS];
+        long count = 0;
+        for(int bucket = 0; bucket < BUCKETS; bucket++) {
+            snapshotCounts[bucket] = counts.get(bucket);
+            count += snapshotCounts[bucket];
+        }
+        return new Snapshot(snapshotCounts, count, total.sum(), max.get());
+    }
+
+    static int bucket(final long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+
+        final int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + subBucket;
+    }
+
+    /** Value in the middle of the given bucket */
+    static long value(final int bucket) {
+        if (bucket < SUB_BUCKETS)
+            return bucket;
+
+        final int shift = (bucket - SUB_BUCKETS) / SUB_BUCKETS;
+        final long lowest = (long) (SUB_BUCKETS + (bucket - SUB_BUCKETS) % SUB_BUCKETS) << shift;
+        return lowest + ((1L << shift) >>> 1);
+    }
+
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        private Snapshot(final long[] counts, final long count, final long total, final long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public long mean() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        public long max() {
+            return max;
+        }
+
+        /** @param percentile between 0 and 100 */
+        public long percentile(final double percentile) {
+            if (percentile < 0 || percentile > 100)
+                throw new IllegalArgumentException("percentile");
+            if (count == 0)
+                return 0;
+
+            final long rank = Math.max(1, (long) Math.ceil(count * percentile / 100));
+            long seen = 0;
+            for(int bucket = 0; bucket < counts.length; bucket++) {
+                seen += counts[bucket];
+                if (seen >= rank)
+                    return Math.min(value(bucket), max);
+            }
+            return max;
+        }
+    }
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = SUB_BUCKETS + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+}
@@ -0,0 +1,65 @@
+package mugres.core.utils.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.Comparator.comparing;
+
+/**
+ * Metrics of the live processing stages. Disabled by default (set the <code>mugres.metrics</code>
+ * system property to enable it from startup): instrumented code only checks {@link #isEnabled()}
+ * before doing any measurement.
+ */
+public class MetricsRegistry {
+    private final Map<String, StageMetrics> stages = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+
+    private MetricsRegistry(final boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static MetricsRegistry of() {
+        return new MetricsRegistry(false);
+    }
+
+    public static MetricsRegistry shared() {
+        return SHARED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enable() {
+        enabled = true;
+    }
+
+    public void disable() {
+        enabled = false;
+    }
+
+    public StageMetrics stage(final String name) {
+        if (name == null)
+            throw new IllegalArgumentException("name");
+
+        final StageMetrics existing = stages.get(name);
+        return existing != null ? existing : stages.computeIfAbsent(name, StageMetrics::of);
+    }
+
+    public void reset() {
+        stages.values().forEach(StageMetrics::reset);
+    }
+
+    /** Snapshots of every stage, sorted by name */
+    public List<StageMetrics.Snapshot> snapshot() {
+        final List<StageMetrics.Snapshot> snapshots = new ArrayList<>();
+        for(final StageMetrics stage : stages.values())
+            snapshots.add(stage.snapshot());
+        snapshots.sort(comparing(StageMetrics.Snapshot::name));
+        return snapshots;
+    }
+
+    private static final MetricsRegistry SHARED = new MetricsRegistry(Boolean.getBoolean("mugres.metrics"));
+}
@@ -0,0 +1,84 @@
+package mugres.core.utils.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Latency and signal counters of a processing stage (e.g. a filter). */
+public class StageMetrics {
+    private final String name;
+    private final Histogram latency = Histogram.of();
+    private final LongAdder in = new LongAdder();
+    private final LongAdder out = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private StageMetrics(final String name) {
+        this.name = name;
+    }
+
+    static StageMetrics of(final String name) {
+        return new StageMetrics(name);
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /** Records a pass through the stage */
+    public void record(final long latencyNanos, final int in, final int out) {
+        latency.record(latencyNanos);
+        this.in.add(in);
+        this.out.add(out);
+    }
+
+    public void dropped(final int dropped) {
+        this.dropped.add(dropped);
+    }
+
+    public void reset() {
+        latency.reset();
+        in.reset();
+        out.reset();
+        dropped.reset();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(name, latency.snapshot(), in.sum(), out.sum(), dropped.sum());
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private final Histogram.Snapshot latency;
+        private final long in;
+        private final long out;
+        private final long dropped;
+
+        private Snapshot(final String name, final Histogram.Snapshot latency,
+                         final long in, final long out, final long dropped) {
+            this.name = name;
+            this.latency = latency;
+            this.in = in;
+            this.out = out;
+            this.dropped = dropped;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /** Latency of every pass through the stage, in nanoseconds */
+        public Histogram.Snapshot latency() {
+            return latency;
+        }
+
+        public long in() {
+            return in;
+        }
+
+        public long out() {
+            return out;
+        }
+
+        public long dropped() {
+            return dropped;
+        }
+    }
+}
@@ -9,11 +9,14 @@ import mugres.core.function.Call;
 import mugres.core.function.Function;
 import mugres.core.notation.Section;
 import mugres.core.notation.Song;
+import mugres.core.notation.SongDiff;
 import mugres.core.notation.performance.Performance;
 import mugres.core.notation.performance.Performer;
 import mugres.core.notation.performance.converters.ToMidiSequenceConverter;
 import mugres.core.notation.readers.JSONReader;
 import mugres.core.utils.RandomSong;
+import mugres.core.utils.metrics.MetricsRegistry;
+import mugres.core.utils.metrics.StageMetrics;
 
 import javax.sound.midi.InvalidMidiDataException;
 import javax.sound.midi.MidiSystem;
@@ -39,6 +42,7 @@ public class REPL {
     private static Context functionCallsContext = Context.basicContext();
     private static Party functionCallsParty = Party.WellKnownParties.PIANO.party();
     private static String loopingSection = null;
+    private static Performance loopingSectionPerformance = null;
     private static Sequence loopingSectionMidiSequence = null;
     private static final Map<String, java.util.function.Function<String[], Boolean>> HANDLERS = new HashMap<>();
     private static final JSONReader SONG_JSON_READER = new JSONReader();
@@ -80,6 +84,7 @@ public class REPL {
         HANDLERS.put("calls-show-functions", REPL::callsShowFunctions);
         HANDLERS.put("calls-show-parties", REPL::callsShowAvailableParties);
         HANDLERS.put("call", REPL::callsExecute);
+        HANDLERS.put("metrics", REPL::metrics);
         HANDLERS.put("stop", REPL::stop);
         HANDLERS.put("quit", REPL::quit);
     }
@@ -198,15 +203,25 @@ public class REPL {
         }
     }
 
+    /**
+     * Reloads the song and, if a section is looping, performs again only the parts of it that changed,
+     * then swaps the looping sequence for the new one without stopping.
+     */
     private static void onSongFileChanged(final File changed) {
         try {
+            final Song previousSong = song;
+            final Performance previousPerformance = loopingSectionPerformance;
             final String loopedSection = loopingSection;
 
             doLoadSong(changed.getAbsolutePath(), true);
-            if (loopedSection != null && song.section(loopingSection) != null) {
-                loopingSectionMidiSequence = createSectionSongMidiSequence(loopedSection);
+            if (loopedSection != null && song != null && song.section(loopedSection) != null) {
+                final Song sectionSong = song.createSectionSong(loopedSection);
+                final Performance performance = previousPerformance == null ? Performer.perform(sectionSong) :
+                        Performer.perform(sectionSong, previousPerformance, SongDiff.of(previousSong, song));
+                loopingSectionPerformance = performance;
+                loopingSectionMidiSequence = ToMidiSequenceConverter.getInstance().convert(performance);
                 try {
-                    sequencer.setSequence(loopingSectionMidiSequence);
+                    swapMidiSequence(loopingSectionMidiSequence);
                 } catch (InvalidMidiDataException e) {
                     e.printStackTrace();
                 }
@@ -280,19 +295,17 @@ public class REPL {
     }
 
     private static void doPlaySection(final String sectionName, final boolean loop) {
-        final Sequence sequence = createSectionSongMidiSequence(sectionName);
+        final Performance performance = Performer.perform(song.createSectionSong(sectionName));
+        final Sequence sequence = ToMidiSequenceConverter.getInstance().convert(performance);
         playMidiSequence(sequence, loop);
 
         if (loop) {
             loopingSection = sectionName;
+            loopingSectionPerformance = performance;
             loopingSectionMidiSequence = sequence;
         }
     }
 
-    private static Sequence createSectionSongMidiSequence(final String sectionName) {
-        return song.createSectionSong(sectionName).toMidiSequence();
-    }
-
     private static boolean sections(final String[] args) {
         if (args.length != 1) {
             System.out.println(args[0] + ": no arguments expected");
@@ -413,6 +426,31 @@ public class REPL {
         return true;
     }
 
+    private static boolean metrics(final String[] args) {
+        final MetricsRegistry registry = MetricsRegistry.shared();
+        if (args.length > 2) {
+            System.out.println(args[0] + ": optional single argument expected: on | off | reset");
+        } else if (args.length == 2) {
+            switch (args[1]) {
+                case "on": registry.enable(); break;
+                case "off": registry.disable(); break;
+                case "reset": registry.reset(); break;
+                default: System.out.println("Invalid argument: " + args[1]);
+            }
+        } else {
+            System.out.println(String.format("Metrics enabled = %s", registry.isEnabled() ? "Yes" : "No"));
+            System.out.println(String.format("%-25s %10s %10s %10s %10s %10s %10s %10s %10s",
+                    "Stage", "Count", "In", "Out", "Dropped", "p50 (us)", "p99 (us)", "p99.9 (us)", "Max (us)"));
+            for(final StageMetrics.Snapshot stage : registry.snapshot())
+                System.out.println(String.format("%-25s %10d %10d %10d %10d %10.1f %10.1f %10.1f %10.1f",
+                        stage.name(), stage.latency().count(), stage.in(), stage.out(), stage.dropped(),
+                        stage.latency().percentile(50) / 1e3, stage.latency().percentile(99) / 1e3,
+                        stage.latency().percentile(99.9) / 1e3, stage.latency().max() / 1e3));
+        }
+
+        return true;
+    }
+
     private static void playMidiSequence(final Sequence midiSequence, final boolean loop) {
         doStop();
 
@@ -425,6 +463,19 @@ public class REPL {
         }
     }
 
+    /** Plays the sequence instead of the current one, from the same position, without stopping */
+    private static void swapMidiSequence(final Sequence midiSequence) throws InvalidMidiDataException {
+        final boolean running = sequencer.isRunning();
+        final long position = sequencer.getTickPosition();
+
+        sequencer.setSequence(midiSequence);
+        if (midiSequence.getTickLength() > 0)
+            sequencer.setTickPosition(position % midiSequence.getTickLength());
+        sequencer.setLoopCount(Integer.MAX_VALUE);
+        if (running && !sequencer.isRunning())
+            sequencer.start();
+    }
+
     private static boolean stop(final String[] args) {
         if (args.length != 1) {
             System.out.println(args[0] + ": no arguments expected");
@@ -441,6 +492,7 @@ public class REPL {
 
     private static void doStop() {
         loopingSection = null;
+        loopingSectionPerformance = null;
         loopingSectionMidiSequence = null;
 
         if (sequencer.isRunning())
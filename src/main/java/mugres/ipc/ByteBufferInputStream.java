@@ -0,0 +1,39 @@
+package mugres.ipc;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Input stream over the remaining bytes of a buffer, which can be replaced, so that the same
+ * stream (and any stream wrapping it) is reused for every frame or record read.
+ */
+public final class ByteBufferInputStream extends InputStream {
+    private ByteBuffer buffer;
+
+    /** Reads from the buffer's position to its limit from now on */
+    public void buffer(final ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+        return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int offset, final int length) {
+        if (length == 0)
+            return 0;
+        if (!buffer.hasRemaining())
+            return -1;
+
+        final int read = Math.min(length, buffer.remaining());
+        buffer.get(bytes, offset, read);
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
@@ -0,0 +1,69 @@
+package mugres.ipc.multicast;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.messages.NackMessage;
+import mugres.ipc.protocol.messages.RepairMessage;
+import mugres.ipc.tcpip.MUGRESTCPIPNode;
+
+import java.io.IOException;
+
+/**
+ * MUGRES client that gets the signals broadcast by a {@link MUGRESMulticastServer} over
+ * multicast, and everything else over another client node, of any transport. Datagrams the
+ * subscriber misses are asked for, and resent, over that node.
+ */
+public class MUGRESMulticastClient extends MUGRESTCPIPNode {
+    private final MUGRESTCPIPNode client;
+    private final MulticastSubscriber subscriber;
+
+    private MUGRESMulticastClient(final MUGRESTCPIPNode client, final MulticastSubscriber subscriber) {
+        if (client == null)
+            throw new IllegalArgumentException("client");
+        if (subscriber == null)
+            throw new IllegalArgumentException("subscriber");
+
+        this.client = client;
+        this.subscriber = subscriber;
+        client.setListener(this::onMessage);
+        subscriber.setListener(this::deliver);
+        subscriber.setRepairChannel((session, from, to) ->
+                client.sendToServer(NackMessage.of(session, from, to)));
+    }
+
+    /** Neither the client nor the subscriber are started or stopped by the returned node */
+    public static MUGRESMulticastClient of(final MUGRESTCPIPNode client, final MulticastSubscriber subscriber) {
+        return new MUGRESMulticastClient(client, subscriber);
+    }
+
+    public MUGRESTCPIPNode client() {
+        return client;
+    }
+
+    public MulticastSubscriber subscriber() {
+        return subscriber;
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        client.send(to, message);
+    }
+
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        client.broadcast(message);
+    }
+
+    @Override
+    public String serverName() {
+        return client.serverName();
+    }
+
+    private void onMessage(final Envelope<Message> envelope) {
+        if (envelope.payload().type() == MessageType.REPAIR)
+            subscriber.repair(((RepairMessage) envelope.payload()).datagram());
+        else
+            deliver(envelope);
+    }
+}
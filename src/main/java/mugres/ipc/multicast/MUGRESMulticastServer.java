@@ -0,0 +1,117 @@
+package mugres.ipc.multicast;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.messages.NackMessage;
+import mugres.ipc.protocol.messages.RepairMessage;
+import mugres.ipc.tcpip.MUGRESTCPIPNode;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MUGRES server that broadcasts signals over multicast, and everything else over another server
+ * node, of any transport. Clients get datagrams they missed resent over that node, on request,
+ * from a thread of its own so that the server node's thread is never held up by repairs.
+ */
+public class MUGRESMulticastServer extends MUGRESTCPIPNode {
+    private final MUGRESTCPIPNode server;
+    private final MulticastPublisher publisher;
+    private final Executor repairer = createRepairer();
+
+    private MUGRESMulticastServer(final MUGRESTCPIPNode server, final MulticastPublisher publisher) {
+        if (server == null)
+            throw new IllegalArgumentException("server");
+        if (publisher == null)
+            throw new IllegalArgumentException("publisher");
+
+        this.server = server;
+        this.publisher = publisher;
+        server.setListener(this::onMessage);
+    }
+
+    /** Neither the server nor the publisher are started or stopped by the returned node */
+    public static MUGRESMulticastServer of(final MUGRESTCPIPNode server, final MulticastPublisher publisher) {
+        return new MUGRESMulticastServer(server, publisher);
+    }
+
+    public MUGRESTCPIPNode server() {
+        return server;
+    }
+
+    public MulticastPublisher publisher() {
+        return publisher;
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        server.send(to, message);
+    }
+
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        if (isMulticast(message.type()))
+            publisher.publish(Envelope.of(Header.of(serverName(), BROADCAST), message));
+        else
+            server.broadcast(message);
+    }
+
+    @Override
+    public String serverName() {
+        return server.serverName();
+    }
+
+    private void onMessage(final Envelope<Message> envelope) {
+        if (envelope.payload().type() == MessageType.NACK) {
+            final String client = envelope.header().from();
+            final NackMessage nack = (NackMessage) envelope.payload();
+            repairer.execute(() -> repair(client, nack));
+            return;
+        }
+
+        deliver(envelope);
+    }
+
+    /** Resends the requested datagrams that are still kept, and only those */
+    private void repair(final String client, final NackMessage nack) {
+        if (nack.session() != publisher.session())
+            return;
+
+        final long published = publisher.published();
+        final long from = Math.max(nack.from(), published - MulticastPublisher.HISTORY);
+        final long to = Math.min(nack.to(), published);
+        try {
+            for(long sequence = from; sequence < to; sequence++) {
+                final byte[] datagram = publisher.datagram(sequence);
+                if (datagram != null)
+                    server.send(client, RepairMessage.of(datagram));
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Single thread, in order, that goes away when idle, so that nothing needs to be shut down */
+    private static Executor createRepairer() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, REPAIRER_KEEP_ALIVE_SECONDS,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable);
+            thread.setName("MUGRES Multicast Repairer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    private static boolean isMulticast(final MessageType type) {
+        return type == MessageType.SIGNALS || type == MessageType.SIGNALS_V2;
+    }
+
+    private static final long REPAIRER_KEEP_ALIVE_SECONDS = 5;
+}
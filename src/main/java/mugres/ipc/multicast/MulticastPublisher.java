@@ -0,0 +1,140 @@
+package mugres.ipc.multicast;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.Writer;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.stream.DataOutputStreamWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sends envelopes to a multicast group, one datagram each, so that sending to any number of
+ * subscribers costs the same.
+ *
+ * Every datagram is numbered, so subscribers can detect lost ones. The last datagrams sent are
+ * kept to resend them on request. Sequences start from 0 for every publisher, which is told apart
+ * from previous ones by a random session id.
+ *
+ * Datagram format: 1 int (magic), 1 long (session), 1 long (sequence), then the envelope.
+ */
+public class MulticastPublisher implements AutoCloseable {
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final int timeToLive;
+    private final long session = ThreadLocalRandom.current().nextLong();
+    private final Writer writer = new DataOutputStreamWriter();
+    private final ByteArrayOutputStream bytes = new ByteArrayOutputStream(INITIAL_DATAGRAM_SIZE);
+    private final DataOutputStream data = new DataOutputStream(bytes);
+    private final byte[][] history = new byte[HISTORY][];
+    private final DatagramPacket packet = new DatagramPacket(new byte[0], 0);
+    private MulticastSocket socket;
+    private long sequence;
+
+    private MulticastPublisher(final InetSocketAddress group, final NetworkInterface networkInterface,
+                               final int timeToLive) {
+        if (group == null || !group.getAddress().isMulticastAddress())
+            throw new IllegalArgumentException("group");
+        if (timeToLive < 0 || timeToLive > 255)
+            throw new IllegalArgumentException("timeToLive");
+
+        this.group = group;
+        this.networkInterface = networkInterface;
+        this.timeToLive = timeToLive;
+    }
+
+    public static MulticastPublisher of(final InetSocketAddress group) {
+        return of(group, null, DEFAULT_TIME_TO_LIVE);
+    }
+
+    /**
+     * @param networkInterface interface to send from, or null for the system's default
+     * @param timeToLive how many routers datagrams may go through: 0 for this host only
+     */
+    public static MulticastPublisher of(final InetSocketAddress group, final NetworkInterface networkInterface,
+                                        final int timeToLive) {
+        return new MulticastPublisher(group, networkInterface, timeToLive);
+    }
+
+    public InetSocketAddress group() {
+        return group;
+    }
+
+    public long session() {
+        return session;
+    }
+
+    /** Number of datagrams sent so far */
+    public synchronized long published() {
+        return sequence;
+    }
+
+    public synchronized void open() throws IOException {
+        if (socket != null)
+            throw new IllegalStateException("Already open!");
+
+        final MulticastSocket multicastSocket = new MulticastSocket();
+        try {
+            if (networkInterface != null)
+                multicastSocket.setNetworkInterface(networkInterface);
+            multicastSocket.setTimeToLive(timeToLive);
+        } catch (final IOException e) {
+            multicastSocket.close();
+            throw e;
+        }
+        socket = multicastSocket;
+    }
+
+    /** @return the envelope's sequence */
+    public synchronized long publish(final Envelope<Message> envelope) throws IOException {
+        if (socket == null)
+            throw new IOException("Not open");
+
+        bytes.reset();
+        data.writeInt(MAGIC);
+        data.writeLong(session);
+        data.writeLong(sequence);
+        writer.write(envelope, data);
+        data.flush();
+        if (bytes.size() > MAX_DATAGRAM_SIZE)
+            throw new IOException("Too big for a datagram: " + bytes.size() + " bytes");
+
+        final byte[] datagram = bytes.toByteArray();
+        history[(int) (sequence % HISTORY)] = datagram;
+        packet.setData(datagram);
+        packet.setSocketAddress(group);
+        socket.send(packet);
+
+        return sequence++;
+    }
+
+    /** @return a copy of the datagram with the given sequence, or null if it's no longer kept */
+    public synchronized byte[] datagram(final long sequence) {
+        if (sequence < 0 || sequence >= this.sequence || this.sequence - sequence > HISTORY)
+            return null;
+
+        return history[(int) (sequence % HISTORY)].clone();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (socket != null)
+            socket.close();
+        socket = null;
+    }
+
+    static final int MAGIC = 0x4D474D43;
+    static final int HEADER_SIZE = Integer.BYTES + 2 * Long.BYTES;
+    static final int MAX_DATAGRAM_SIZE = 65507;
+    /** Number of datagrams kept to be resent */
+    static final int HISTORY = 4096;
+
+    private static final int DEFAULT_TIME_TO_LIVE = 1;
+    private static final int INITIAL_DATAGRAM_SIZE = 512;
+}
@@ -0,0 +1,333 @@
+package mugres.ipc.multicast;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.Listener;
+import mugres.ipc.Reader;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.stream.DataInputStreamReader;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+import java.net.NetworkInterface;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the envelopes sent by a {@link MulticastPublisher}, and delivers them in order.
+ *
+ * Datagrams that arrive after a gap in the sequence are held back, and the missing ones are
+ * requested through the {@link RepairChannel}, if any. If they don't show up within the gap
+ * timeout, they're given up on and counted as lost. Gaps are only noticed when a later datagram
+ * arrives.
+ *
+ * Sequencing happens under the subscriber's lock; the listener is called, and repairs are
+ * requested, outside of it, by one thread at a time.
+ */
+public class MulticastSubscriber {
+    private final InetSocketAddress group;
+    private final NetworkInterface networkInterface;
+    private final long gapTimeoutNanos;
+    private final Reader reader = new DataInputStreamReader();
+    /** Datagrams received after a gap, by sequence */
+    private final TreeMap<Long, byte[]> pending = new TreeMap<>();
+    /** In order, waiting to be handed to the listener */
+    private final ArrayDeque<Envelope<Message>> deliveries = new ArrayDeque<>();
+    /** Guards starting and stopping, which wait for the receiving thread */
+    private final Object lifecycle = new Object();
+    private volatile Listener listener;
+    private volatile RepairChannel repairChannel;
+    private volatile MulticastSocket socket;
+    private volatile Thread worker;
+    private boolean hasSession;
+    private long session;
+    private long expected;
+    private long highest;
+    private long gapSince;
+    private long received;
+    private long lost;
+    private boolean delivering;
+
+    private MulticastSubscriber(final InetSocketAddress group, final NetworkInterface networkInterface,
+                                final long gapTimeoutMillis) {
+        if (group == null || !group.getAddress().isMulticastAddress())
+            throw new IllegalArgumentException("group");
+        if (gapTimeoutMillis <= 0)
+            throw new IllegalArgumentException("gapTimeoutMillis");
+
+        this.group = group;
+        this.networkInterface = networkInterface;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMillis);
+    }
+
+    public static MulticastSubscriber of(final InetSocketAddress group) {
+        return of(group, null, DEFAULT_GAP_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * @param networkInterface interface to receive on, or null for the system's default
+     * @param gapTimeoutMillis how long to wait for missing datagrams before skipping them
+     */
+    public static MulticastSubscriber of(final InetSocketAddress group, final NetworkInterface networkInterface,
+                                         final long gapTimeoutMillis) {
+        return new MulticastSubscriber(group, networkInterface, gapTimeoutMillis);
+    }
+
+    public InetSocketAddress group() {
+        return group;
+    }
+
+    public Listener getListener() {
+        return listener;
+    }
+
+    public void setListener(final Listener listener) {
+        this.listener = listener;
+    }
+
+    public RepairChannel getRepairChannel() {
+        return repairChannel;
+    }
+
+    public void setRepairChannel(final RepairChannel repairChannel) {
+        this.repairChannel = repairChannel;
+    }
+
+    public boolean isRunning() {
+        return worker != null;
+    }
+
+    /** Number of datagrams let through, in order, so far */
+    public synchronized long received() {
+        return received;
+    }
+
+    /** Number of datagrams given up on so far */
+    public synchronized long lost() {
+        return lost;
+    }
+
+    /** Joins the group. Datagrams missed while stopped are treated as lost on the way. */
+    public void start() throws IOException {
+        synchronized (lifecycle) {
+            if (worker != null)
+                throw new IllegalStateException("Already running!");
+
+            final MulticastSocket multicastSocket = new MulticastSocket(group.getPort());
+            try {
+                multicastSocket.setSoTimeout((int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(gapTimeoutNanos) / 2));
+                multicastSocket.joinGroup(group, networkInterface);
+            } catch (final IOException e) {
+                multicastSocket.close();
+                throw e;
+            }
+            socket = multicastSocket;
+
+            final Thread thread = new Thread(() -> receiveLoop(multicastSocket));
+            thread.setName("MUGRES Multicast Subscriber");
+            thread.setDaemon(true);
+            worker = thread;
+            thread.start();
+        }
+    }
+
+    public void stop() {
+        synchronized (lifecycle) {
+            final Thread thread = worker;
+            if (thread == null)
+                return;
+
+            worker = null;
+            socket.close();
+            socket = null;
+            try {
+                thread.join();
+            } catch (final InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Takes a datagram resent in answer to a repair request */
+    void repair(final byte[] datagram) {
+        onDatagram(datagram, 0, datagram.length);
+    }
+
+    private void receiveLoop(final MulticastSocket multicastSocket) {
+        final byte[] buffer = new byte[MulticastPublisher.MAX_DATAGRAM_SIZE];
+        final DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        final Thread self = Thread.currentThread();
+        while(worker == self) {
+            try {
+                packet.setLength(buffer.length);
+                multicastSocket.receive(packet);
+                onDatagram(packet.getData(), packet.getOffset(), packet.getLength());
+            } catch (final SocketTimeoutException e) {
+                checkGap();
+                deliverQueued();
+            } catch (final IOException e) {
+                if (worker == self)
+                    e.printStackTrace();
+            }
+        }
+    }
+
+    private void onDatagram(final byte[] datagram, final int offset, final int length) {
+        final Repair repair = sequence(datagram, offset, length);
+        if (repair != null)
+            requestRepair(repair);
+        deliverQueued();
+    }
+
+    /**
+     * Queues the datagram, and whatever it lets through, for delivery, or holds it back.
+     * @return the missing datagrams to ask for, if any
+     */
+    private synchronized Repair sequence(final byte[] datagram, final int offset, final int length) {
+        if (length < MulticastPublisher.HEADER_SIZE)
+            return null;
+
+        final ByteBuffer header = ByteBuffer.wrap(datagram, offset, length);
+        if (header.getInt() != MulticastPublisher.MAGIC)
+            return null;
+        final long datagramSession = header.getLong();
+        final long sequence = header.getLong();
+
+        if (!hasSession || datagramSession != session) {
+            // New publisher: start from whatever it's sending now
+            hasSession = true;
+            session = datagramSession;
+            expected = sequence;
+            highest = sequence - 1;
+            pending.clear();
+        }
+
+        Repair repair = null;
+        if (sequence < expected || pending.containsKey(sequence)) {
+            // Duplicate
+        } else if (sequence == expected) {
+            queue(datagram, offset, length);
+            expected++;
+            queuePending();
+        } else {
+            if (pending.isEmpty())
+                gapSince = System.nanoTime();
+            pending.put(sequence, Arrays.copyOfRange(datagram, offset, offset + length));
+            if (sequence > highest + 1) {
+                final long from = Math.max(highest + 1, expected);
+                repair = new Repair(session, from, Math.min(sequence, from + MulticastPublisher.HISTORY));
+            }
+            if (pending.size() > MAX_PENDING)
+                skipGap();
+        }
+        highest = Math.max(highest, sequence);
+
+        checkGap();
+        return repair;
+    }
+
+    private synchronized void checkGap() {
+        if (!pending.isEmpty() && System.nanoTime() - gapSince >= gapTimeoutNanos)
+            skipGap();
+    }
+
+    /** Gives up on the datagrams missing before the first one held back */
+    private void skipGap() {
+        final long next = pending.firstKey();
+        lost += next - expected;
+        expected = next;
+        queuePending();
+        gapSince = System.nanoTime();
+    }
+
+    private void queuePending() {
+        while(!pending.isEmpty() && pending.firstKey() == expected) {
+            final Map.Entry<Long, byte[]> next = pending.pollFirstEntry();
+            queue(next.getValue(), 0, next.getValue().length);
+            expected++;
+        }
+    }
+
+    private void queue(final byte[] datagram, final int offset, final int length) {
+        received++;
+
+        try {
+            deliveries.add(reader.read(new DataInputStream(new ByteArrayInputStream(datagram,
+                    offset + MulticastPublisher.HEADER_SIZE, length - MulticastPublisher.HEADER_SIZE))));
+        } catch (final IOException | RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Hands the queued envelopes to the listener, unless another thread is at it already */
+    private void deliverQueued() {
+        synchronized (this) {
+            if (delivering || deliveries.isEmpty())
+                return;
+            delivering = true;
+        }
+
+        while(true) {
+            final Envelope<Message> next;
+            synchronized (this) {
+                next = deliveries.poll();
+                if (next == null) {
+                    delivering = false;
+                    return;
+                }
+            }
+
+            final Listener current = listener;
+            if (current != null)
+                try {
+                    current.onMessage(next);
+                } catch (final Throwable t) {
+                    t.printStackTrace();
+                }
+        }
+    }
+
+    private void requestRepair(final Repair repair) {
+        final RepairChannel channel = repairChannel;
+        if (channel == null)
+            return;
+
+        try {
+            channel.requestRepair(repair.session, repair.from, repair.to);
+        } catch (final Throwable t) {
+            t.printStackTrace();
+        }
+    }
+
+    /** Way to ask the publisher's side to resend missing datagrams */
+    public interface RepairChannel {
+        /**
+         * @param from first missing sequence
+         * @param to sequence after the last missing one
+         */
+        void requestRepair(final long session, final long from, final long to) throws IOException;
+    }
+
+    private static final class Repair {
+        private final long session;
+        private final long from;
+        private final long to;
+
+        private Repair(final long session, final long from, final long to) {
+            this.session = session;
+            this.from = from;
+            this.to = to;
+        }
+    }
+
+    private static final long DEFAULT_GAP_TIMEOUT_MILLIS = 100;
+    private static final int MAX_PENDING = 1024;
+}
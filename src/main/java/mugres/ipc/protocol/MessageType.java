@@ -5,7 +5,13 @@ public enum MessageType {
     BYE(1, true, false),
     TEXT(2, false, false),
     SET_PARTY(3, true, false),
-    PARTY_LIST(4, false, true);
+    PARTY_LIST(4, false, true),
+    /** Signals with their times, event ids and tags. See {@link SignalsCodec} */
+    SIGNALS_V2(5, false, false),
+    /** Request to resend lost multicast datagrams */
+    NACK(6, true, false),
+    /** Lost multicast datagram, resent over the client's own link */
+    REPAIR(7, false, true);
 
     private final int identifier;
     private final boolean toServerOnly;
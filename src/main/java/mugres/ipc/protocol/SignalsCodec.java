@@ -0,0 +1,216 @@
+package mugres.ipc.protocol;
+
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.core.common.Tags;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact, lossless binary encoding of {@link Signals} (used by {@link MessageType#SIGNALS_V2}).
+ *
+ * Format:
+ * <pre>
+ * varint            number of signals
+ * varint            number of tags, followed by every tag name (varint length + UTF-8)
+ * per signal:
+ *   byte            flags (see below)
+ *   zigzag varlong  time delta from the previous signal     (unless SAME_TIME)
+ *   zigzag varlong  event id delta from the previous signal (unless NEXT_EVENT)
+ *   byte            channel                                 (unless SAME_CHANNEL)
+ *   byte            velocity                                (unless SAME_VELOCITY)
+ *   varint + varint number of tags + indexes in the table   (unless SAME_TAGS)
+ *   byte            pitch
+ * </pre>
+ * Tags travel by name, once per message, so tag ids don't need to match between processes.
+ * A chord's notes (same time, consecutive event ids) take two bytes each.
+ */
+public final class SignalsCodec {
+    private SignalsCodec() {
+    }
+
+    /** @throws BufferOverflowException if the buffer is too small */
+    public static void encode(final Signals signals, final ByteBuffer buffer) {
+        final List<Signal> list = signals.signals();
+
+        // Tag table: local tag id -> index in the message
+        final Map<Integer, Integer> tagIndexes = new HashMap<>();
+        final List<String> tagNames = new ArrayList<>();
+        for(final Signal signal : list)
+            if (signal.hasTags())
+                for(final String tag : signal.tags())
+                    if (tagIndexes.putIfAbsent(Tags.id(tag), tagNames.size()) == null)
+                        tagNames.add(tag);
+
+        writeVarLong(buffer, list.size());
+        writeVarLong(buffer, tagNames.size());
+        for(final String name : tagNames) {
+            final byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(buffer, bytes.length);
+            buffer.put(bytes);
+        }
+
+        long previousTime = 0;
+        long previousEventId = 0;
+        int previousChannel = -1;
+        int previousVelocity = -1;
+        Signal previous = null;
+        for(final Signal signal : list) {
+            final int velocity = signal.played().velocity();
+            int flags = signal.isActive() ? ACTIVE : 0;
+            if (previous != null && signal.time() == previousTime)
+                flags |= SAME_TIME;
+            if (previous != null && signal.eventId() == previousEventId + 1)
+                flags |= NEXT_EVENT;
+            if (signal.channel() == previousChannel)
+                flags |= SAME_CHANNEL;
+            if (velocity == previousVelocity)
+                flags |= SAME_VELOCITY;
+            if (previous != null && sameTags(signal, previous))
+                flags |= SAME_TAGS;
+
+            buffer.put((byte) flags);
+            if ((flags & SAME_TIME) == 0)
+                writeVarLong(buffer, zigzag(signal.time() - previousTime));
+            if ((flags & NEXT_EVENT) == 0)
+                writeVarLong(buffer, zigzag(signal.eventId() - previousEventId));
+            if ((flags & SAME_CHANNEL) == 0)
+                buffer.put((byte) signal.channel());
+            if ((flags & SAME_VELOCITY) == 0)
+                buffer.put((byte) velocity);
+            if ((flags & SAME_TAGS) == 0)
+                writeTags(buffer, signal, tagIndexes);
+            buffer.put((byte) signal.played().pitch().midi());
+
+            previousTime = signal.time();
+            previousEventId = signal.eventId();
+            previousChannel = signal.channel();
+            previousVelocity = velocity;
+            previous = signal;
+        }
+    }
+
+    /** @throws IllegalArgumentException or {@link java.nio.BufferUnderflowException} if the input is malformed */
+    public static Signals decode(final ByteBuffer buffer) {
+        final int count = readCount(buffer);
+        final int[] tagIds = new int[readCount(buffer)];
+        for(int index = 0; index < tagIds.length; index++) {
+            final byte[] bytes = new byte[readCount(buffer)];
+            buffer.get(bytes);
+            tagIds[index] = Tags.id(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        final Signals signals = Signals.create();
+        long time = 0;
+        long eventId = 0;
+        int channel = 0;
+        int velocity = 0;
+        int[] tags = new int[0];
+        for(int index = 0; index < count; index++) {
+            final int flags = buffer.get();
+            time = (flags & SAME_TIME) != 0 ? time : time + unzigzag(readVarLong(buffer));
+            eventId = (flags & NEXT_EVENT) != 0 ? eventId + 1 : eventId + unzigzag(readVarLong(buffer));
+            if ((flags & SAME_CHANNEL) == 0)
+                channel = buffer.get();
+            if ((flags & SAME_VELOCITY) == 0)
+                velocity = buffer.get();
+            if ((flags & SAME_TAGS) == 0) {
+                tags = new int[readCount(buffer)];
+                for(int tag = 0; tag < tags.length; tag++) {
+                    final long tagIndex = readVarLong(buffer);
+                    if (tagIndex < 0 || tagIndex >= tagIds.length)
+                        throw new IllegalArgumentException("Malformed tag index: " + tagIndex);
+                    tags[tag] = tagIds[(int) tagIndex];
+                }
+            }
+            final int pitch = buffer.get();
+
+            final Signal signal = Signal.of(eventId, time, channel, Played.of(Pitch.of(pitch), velocity),
+                    (flags & ACTIVE) != 0);
+            for(final int tag : tags)
+                signal.addTag(tag);
+            signals.add(signal);
+        }
+
+        return signals;
+    }
+
+    static void writeVarLong(final ByteBuffer buffer, final long value) {
+        long remaining = value;
+        while((remaining & ~0x7FL) != 0) {
+            buffer.put((byte) ((remaining & 0x7F) | 0x80));
+            remaining >>>= 7;
+        }
+        buffer.put((byte) remaining);
+    }
+
+    static long readVarLong(final ByteBuffer buffer) {
+        long value = 0;
+        for(int shift = 0; shift < Long.SIZE; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+
+    /** A count of items that take at least a byte each, so it can't exceed the bytes left */
+    private static int readCount(final ByteBuffer buffer) {
+        final long count = readVarLong(buffer);
+        if (count < 0 || count > buffer.remaining())
+            throw new IllegalArgumentException("Malformed count: " + count);
+        return (int) count;
+    }
+
+    private static long zigzag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static boolean sameTags(final Signal signal, final Signal previous) {
+        if (signal.tagBits() != previous.tagBits())
+            return false;
+
+        final long[] extended = signal.extendedTagBits();
+        final long[] previousExtended = previous.extendedTagBits();
+        return extended == null ? previousExtended == null : Arrays.equals(extended, previousExtended);
+    }
+
+    private static void writeTags(final ByteBuffer buffer, final Signal signal, final Map<Integer, Integer> tagIndexes) {
+        final long bits = signal.tagBits();
+        final long[] extended = signal.extendedTagBits();
+
+        int count = Long.bitCount(bits);
+        if (extended != null)
+            for(final long word : extended)
+                count += Long.bitCount(word);
+
+        writeVarLong(buffer, count);
+        for(long remaining = bits; remaining != 0; remaining &= remaining - 1)
+            writeVarLong(buffer, tagIndexes.get(Long.numberOfTrailingZeros(remaining)));
+        if (extended != null)
+            for(int word = 0; word < extended.length; word++)
+                for(long remaining = extended[word]; remaining != 0; remaining &= remaining - 1)
+                    writeVarLong(buffer, tagIndexes.get((word + 1) * Long.SIZE + Long.numberOfTrailingZeros(remaining)));
+    }
+
+    private static final int ACTIVE = 0x01;
+    private static final int SAME_TIME = 0x02;
+    private static final int NEXT_EVENT = 0x04;
+    private static final int SAME_CHANNEL = 0x08;
+    private static final int SAME_VELOCITY = 0x10;
+    private static final int SAME_TAGS = 0x20;
+}
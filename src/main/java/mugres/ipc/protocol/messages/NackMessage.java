@@ -0,0 +1,50 @@
+package mugres.ipc.protocol.messages;
+
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+
+/** Asks the server to resend multicast datagrams that didn't make it to the client */
+public class NackMessage extends Message {
+    private final long session;
+    private final long from;
+    private final long to;
+
+    private NackMessage(final long session, final long from, final long to) {
+        super(MessageType.NACK);
+
+        if (from < 0)
+            throw new IllegalArgumentException("from");
+        if (to <= from)
+            throw new IllegalArgumentException("to");
+
+        this.session = session;
+        this.from = from;
+        this.to = to;
+    }
+
+    /**
+     * @param session session of the multicast publisher
+     * @param from first missing sequence
+     * @param to sequence after the last missing one
+     */
+    public static NackMessage of(final long session, final long from, final long to) {
+        return new NackMessage(session, from, to);
+    }
+
+    public long session() {
+        return session;
+    }
+
+    public long from() {
+        return from;
+    }
+
+    public long to() {
+        return to;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " - " + from + ".." + to;
+    }
+}
@@ -0,0 +1,31 @@
+package mugres.ipc.protocol.messages;
+
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+
+/** A multicast datagram, resent to a client that asked for it with a {@link NackMessage} */
+public class RepairMessage extends Message {
+    private final byte[] datagram;
+
+    private RepairMessage(final byte[] datagram) {
+        super(MessageType.REPAIR);
+
+        if (datagram == null)
+            throw new IllegalArgumentException("datagram");
+
+        this.datagram = datagram;
+    }
+
+    public static RepairMessage of(final byte[] datagram) {
+        return new RepairMessage(datagram);
+    }
+
+    public byte[] datagram() {
+        return datagram;
+    }
+
+    @Override
+    public String toString() {
+        return super.toString() + " - " + datagram.length + " bytes";
+    }
+}
@@ -7,8 +7,8 @@ import mugres.ipc.protocol.MessageType;
 public class SignalsMessage extends Message {
     private final Signals signals;
 
-    private SignalsMessage(final Signals signals) {
-        super(MessageType.SIGNALS);
+    private SignalsMessage(final MessageType type, final Signals signals) {
+        super(type);
 
         if (signals == null)
             throw new IllegalArgumentException("signals");
@@ -16,8 +16,14 @@ public class SignalsMessage extends Message {
         this.signals = signals;
     }
 
+    /** Legacy format: signals are re-timed and get new event ids at the receiving end */
     public static SignalsMessage of(final Signals signals) {
-        return new SignalsMessage(signals);
+        return new SignalsMessage(MessageType.SIGNALS, signals);
+    }
+
+    /** Keeps every signal's time, event id and tags */
+    public static SignalsMessage timestamped(final Signals signals) {
+        return new SignalsMessage(MessageType.SIGNALS_V2, signals);
     }
 
     public Signals signals() {
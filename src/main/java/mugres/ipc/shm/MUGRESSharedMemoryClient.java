@@ -0,0 +1,144 @@
+package mugres.ipc.shm;
+
+import mugres.core.live.processor.WaitStrategy;
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.protocol.Message;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** MUGRES client on the shared-memory transport */
+public class MUGRESSharedMemoryClient extends MUGRESSharedMemoryNode {
+    private final int ringCapacity;
+    private final MappedRing.Handler handler = this::onRecord;
+    private Path clientDirectory;
+    private volatile String name;
+    private volatile MappedRing toServer;
+    private volatile MappedRing toClient;
+
+    private MUGRESSharedMemoryClient(final Path directory, final int ringCapacity,
+                                     final WaitStrategy waitStrategy) {
+        super(directory, waitStrategy);
+
+        if (ringCapacity <= 0 || Integer.bitCount(ringCapacity) != 1)
+            throw new IllegalArgumentException("ringCapacity");
+
+        this.ringCapacity = ringCapacity;
+    }
+
+    public static MUGRESSharedMemoryClient of() {
+        return of(defaultDirectory());
+    }
+
+    public static MUGRESSharedMemoryClient of(final Path directory) {
+        return of(directory, DEFAULT_RING_CAPACITY, WaitStrategy.YIELD);
+    }
+
+    /** @param ringCapacity bytes per direction: a power of two */
+    public static MUGRESSharedMemoryClient of(final Path directory, final int ringCapacity,
+                                              final WaitStrategy waitStrategy) {
+        return new MUGRESSharedMemoryClient(directory, ringCapacity, waitStrategy);
+    }
+
+    /** Name of this client, as addressed by other nodes */
+    public String name() {
+        return name;
+    }
+
+    /** Whether connected and the server didn't stop in the meantime */
+    public boolean isConnected() {
+        final MappedRing current = toClient;
+        return current != null && !current.isClosed();
+    }
+
+    /**
+     * Creates the client's rings under the shared directory. The server picks them up as soon as
+     * it's running; until then, messages are kept in the rings.
+     */
+    public synchronized void connect() throws IOException {
+        if (toServer != null)
+            throw new IllegalStateException("Already connected!");
+
+        Files.createDirectories(directory());
+        clientDirectory = Files.createTempDirectory(directory(), CLIENT_PREFIX);
+        try {
+            toServer = MappedRing.create(clientDirectory.resolve(TO_SERVER), ringCapacity);
+            toClient = MappedRing.create(clientDirectory.resolve(TO_CLIENT), ringCapacity);
+            Files.createFile(clientDirectory.resolve(READY));
+        } catch (final IOException e) {
+            toServer = null;
+            toClient = null;
+            delete(clientDirectory);
+            throw e;
+        }
+        name = clientDirectory.getFileName().toString();
+
+        startWorker("MUGRES SHM Client");
+    }
+
+    public synchronized void disconnect() {
+        if (toServer == null)
+            return;
+
+        stopWorker();
+        toServer.close();
+        // Otherwise the server removes the directory once it sees the ring closed
+        if (toClient.isClosed())
+            delete(clientDirectory);
+
+        toServer = null;
+        toClient = null;
+        name = null;
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        final MappedRing ring = toServer;
+        final MappedRing incoming = toClient;
+        if (ring == null || incoming == null)
+            throw new IOException("Not connected");
+        if (incoming.isClosed())
+            throw new IOException("Server stopped");
+
+        offer(ring, encode(Envelope.of(Header.of(name, to), message)));
+    }
+
+    /** Sends the message to the server and every other client */
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        send(BROADCAST, message);
+    }
+
+    @Override
+    boolean poll() throws IOException {
+        final MappedRing ring = toClient;
+        return ring != null && ring.poll(handler);
+    }
+
+    private void onRecord(final ByteBuffer record) throws IOException {
+        deliver(decode(record));
+    }
+
+    /** Writes the record, waiting a while for the consumer to make room for it if needed */
+    private static void offer(final MappedRing ring, final ByteBuffer record) throws IOException {
+        if (ring.offer(record))
+            return;
+
+        final long deadline = System.nanoTime() + OFFER_TIMEOUT_NANOS;
+        while(!ring.offer(record)) {
+            if (ring.isClosed())
+                throw new IOException("Ring closed");
+            if (System.nanoTime() - deadline > 0)
+                throw new IOException("Ring full: the other end is not reading");
+            Thread.yield();
+        }
+    }
+
+    public static final int DEFAULT_RING_CAPACITY = 1024 * 1024;
+
+    private static final long OFFER_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
+}
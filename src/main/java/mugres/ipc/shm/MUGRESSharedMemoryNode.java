@@ -0,0 +1,162 @@
+package mugres.ipc.shm;
+
+import mugres.core.live.processor.WaitStrategy;
+import mugres.ipc.ByteBufferInputStream;
+import mugres.ipc.Envelope;
+import mugres.ipc.Reader;
+import mugres.ipc.Writer;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.stream.DataInputStreamReader;
+import mugres.ipc.stream.DataOutputStreamWriter;
+import mugres.ipc.tcpip.MUGRESTCPIPNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Stream;
+
+/**
+ * Node for MUGRES processes on the same host, exchanging envelopes through memory-mapped rings,
+ * one per direction per client, instead of sockets.
+ *
+ * Every client creates its rings in a directory of its own, under a directory shared with the
+ * server; the directory's name is the client's name. Envelopes are encoded by the IPC
+ * {@link Writer}/{@link Reader}, one per ring record. A single thread polls every ring of the node
+ * and calls the listener, so listeners should return quickly. How that thread waits for new
+ * records is up to the {@link WaitStrategy}: the default, {@link WaitStrategy#YIELD}, trades CPU
+ * time for latency.
+ */
+public abstract class MUGRESSharedMemoryNode extends MUGRESTCPIPNode {
+    private final Path directory;
+    private final WaitStrategy waitStrategy;
+    private final Reader reader;
+    private final Writer writer;
+    private final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+    private final ByteBufferInputStream recordInput = new ByteBufferInputStream();
+    private final DataInputStream dataInput = new DataInputStream(recordInput);
+
+    protected MUGRESSharedMemoryNode(final Path directory, final WaitStrategy waitStrategy) {
+        if (directory == null)
+            throw new IllegalArgumentException("directory");
+        if (waitStrategy == null)
+            throw new IllegalArgumentException("waitStrategy");
+
+        this.directory = directory;
+        this.waitStrategy = waitStrategy;
+        this.reader = new DataInputStreamReader();
+        this.writer = new DataOutputStreamWriter();
+    }
+
+    /** Shared directory: /dev/shm/mugres where available, so rings are never written to disk */
+    public static Path defaultDirectory() {
+        final Path shm = Paths.get("/dev/shm");
+        return (Files.isDirectory(shm) ? shm : Paths.get(System.getProperty("java.io.tmpdir")))
+                .resolve("mugres");
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public WaitStrategy waitStrategy() {
+        return waitStrategy;
+    }
+
+    @Override
+    public String serverName() {
+        return SERVER;
+    }
+
+    void startWorker(final String name) {
+        startWorker(name, this::pollLoop);
+    }
+
+    /**
+     * Polls the node's rings once. Called from the worker thread only.
+     * @return whether there was anything to do
+     */
+    abstract boolean poll() throws IOException;
+
+    /** Encodes the envelope into a buffer owned by the calling thread */
+    ByteBuffer encode(final Envelope<Message> envelope) throws IOException {
+        final Encoder encoder = encoders.get();
+        encoder.output.reset();
+        writer.write(envelope, encoder.data);
+        encoder.data.flush();
+        return encoder.output.record();
+    }
+
+    /** Decodes a ring record. Called from the worker thread only. */
+    Envelope<Message> decode(final ByteBuffer record) throws IOException {
+        recordInput.buffer(record);
+        try {
+            return reader.read(dataInput);
+        } catch (final RuntimeException e) {
+            throw new IOException("Malformed record", e);
+        }
+    }
+
+    static void delete(final Path directory) {
+        try(final Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (final IOException ignore) {
+                    // Do nothing
+                }
+            });
+            Files.deleteIfExists(directory);
+        } catch (final IOException ignore) {
+            // Do nothing
+        }
+    }
+
+    private void pollLoop() {
+        int idleCount = 0;
+        while(isWorker()) {
+            try {
+                if (poll())
+                    idleCount = 0;
+                else
+                    waitStrategy.idle(idleCount++);
+            } catch (final Throwable t) {
+                t.printStackTrace();
+            }
+        }
+    }
+
+    /** Per-thread envelope encoding state */
+    private static final class Encoder {
+        private final RecordOutputStream output = new RecordOutputStream();
+        private final DataOutputStream data = new DataOutputStream(output);
+    }
+
+    /** Growable byte array, readable as a buffer without copying */
+    private static final class RecordOutputStream extends ByteArrayOutputStream {
+        private ByteBuffer record;
+
+        private RecordOutputStream() {
+            super(INITIAL_RECORD_SIZE);
+        }
+
+        private ByteBuffer record() {
+            if (record == null || record.array() != buf)
+                record = ByteBuffer.wrap(buf);
+            record.limit(count).position(0);
+            return record;
+        }
+    }
+
+    static final String TO_SERVER = "to-server.ring";
+    static final String TO_CLIENT = "to-client.ring";
+    /** Created by the client once its rings are ready to be opened */
+    static final String READY = "ready";
+    static final String CLIENT_PREFIX = "client-";
+
+    private static final int INITIAL_RECORD_SIZE = 256;
+}
@@ -0,0 +1,264 @@
+package mugres.ipc.shm;
+
+import mugres.core.live.processor.WaitStrategy;
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.protocol.Message;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MUGRES server on the shared-memory transport. Looks for new clients under the shared directory
+ * every now and then; messages between clients are relayed as they were received, without
+ * encoding them again.
+ *
+ * Writing to a client never waits for it to read: while its ring is full, records are kept in a
+ * backlog of its own, bounded by the backlog capacity, and dropped once that's full too. So a
+ * client that doesn't keep up only affects itself.
+ */
+public class MUGRESSharedMemoryServer extends MUGRESSharedMemoryNode {
+    private final int backlogCapacity;
+    private final Map<String, Client> clients = new ConcurrentHashMap<>();
+    private final MappedRing.Handler handler = this::onRecord;
+    /** Copy of the clients, for the worker thread to iterate without allocating */
+    private Client[] polled = new Client[0];
+    private Client polling;
+    private long nextScan;
+
+    private MUGRESSharedMemoryServer(final Path directory, final WaitStrategy waitStrategy,
+                                     final int backlogCapacity) {
+        super(directory, waitStrategy);
+
+        if (backlogCapacity < 0)
+            throw new IllegalArgumentException("backlogCapacity");
+
+        this.backlogCapacity = backlogCapacity;
+    }
+
+    public static MUGRESSharedMemoryServer of() {
+        return of(defaultDirectory());
+    }
+
+    public static MUGRESSharedMemoryServer of(final Path directory) {
+        return of(directory, WaitStrategy.YIELD);
+    }
+
+    public static MUGRESSharedMemoryServer of(final Path directory, final WaitStrategy waitStrategy) {
+        return of(directory, waitStrategy, DEFAULT_BACKLOG_CAPACITY);
+    }
+
+    /** @param backlogCapacity maximum number of records waiting for room in every client's ring */
+    public static MUGRESSharedMemoryServer of(final Path directory, final WaitStrategy waitStrategy,
+                                              final int backlogCapacity) {
+        return new MUGRESSharedMemoryServer(directory, waitStrategy, backlogCapacity);
+    }
+
+    public boolean isRunning() {
+        return isWorkerRunning();
+    }
+
+    /** Names of the connected clients */
+    public Set<String> clients() {
+        return Collections.unmodifiableSet(clients.keySet());
+    }
+
+    /** Number of records for the client dropped because neither its ring nor its backlog had room */
+    public long dropped(final String client) {
+        final Client found = clients.get(client);
+        if (found == null)
+            return 0;
+
+        synchronized (found) {
+            return found.dropped;
+        }
+    }
+
+    public synchronized void start() throws IOException {
+        if (isRunning())
+            throw new IllegalStateException("Already running!");
+
+        Files.createDirectories(directory());
+        scan();
+        startWorker("MUGRES SHM Server");
+    }
+
+    public synchronized void stop() {
+        stopWorker();
+        for(final Client client : clients.values()) {
+            client.outbound.close();
+            // Otherwise the client removes the directory once it sees the ring closed
+            if (client.inbound.isClosed())
+                delete(client.directory);
+        }
+        clients.clear();
+        polled = new Client[0];
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        final Client client = clients.get(to);
+        if (client == null)
+            throw new IOException("Unknown client: " + to);
+
+        write(client, encode(Envelope.of(Header.of(SERVER, to), message)));
+    }
+
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        for(final Client client : clients.values())
+            write(client, encode(Envelope.of(Header.of(SERVER, client.name), message)));
+    }
+
+    @Override
+    boolean poll() throws IOException {
+        if (System.nanoTime() - nextScan >= 0)
+            scan();
+
+        boolean polledAny = false;
+        for(final Client client : polled) {
+            polledAny |= drainBacklog(client);
+
+            polling = client;
+            try {
+                polledAny |= client.inbound.poll(handler);
+            } catch (final IOException e) {
+                e.printStackTrace();
+                remove(client);
+                continue;
+            }
+
+            if (client.inbound.isClosed() && client.inbound.isEmpty())
+                remove(client);
+        }
+        polling = null;
+        return polledAny;
+    }
+
+    private void onRecord(final ByteBuffer record) throws IOException {
+        final int start = record.position();
+        final Envelope<Message> envelope = decode(record);
+        record.position(start);
+
+        final String to = envelope.header().to();
+        if (!isValidRoute(envelope.payload().type(), to))
+            return;
+
+        if (SERVER.equals(to)) {
+            deliver(envelope);
+        } else if (BROADCAST.equals(to)) {
+            for(final Client client : polled)
+                if (client != polling)
+                    write(client, record);
+            deliver(envelope);
+        } else {
+            final Client client = clients.get(to);
+            if (client != null)
+                write(client, record);
+        }
+    }
+
+    /** Writes the record to the client's ring, or to its backlog if there are records waiting already */
+    private void write(final Client client, final ByteBuffer record) {
+        synchronized (client) {
+            if (client.backlog.isEmpty() && client.outbound.offer(record))
+                return;
+
+            if (client.backlog.size() >= backlogCapacity) {
+                client.dropped++;
+                return;
+            }
+
+            final ByteBuffer copy = ByteBuffer.allocate(record.remaining());
+            copy.put(record.duplicate());
+            copy.flip();
+            client.backlog.add(copy);
+        }
+    }
+
+    /** Moves as much of the client's backlog as fits into its ring. @return whether anything was moved */
+    private boolean drainBacklog(final Client client) {
+        synchronized (client) {
+            boolean drained = false;
+            for(ByteBuffer record = client.backlog.peek(); record != null && client.outbound.offer(record);
+                record = client.backlog.peek()) {
+                client.backlog.poll();
+                drained = true;
+            }
+            return drained;
+        }
+    }
+
+    /** Attaches new clients, and removes what clients that went away before being attached left */
+    private void scan() throws IOException {
+        nextScan = System.nanoTime() + SCAN_INTERVAL_NANOS;
+
+        boolean changed = false;
+        try(final DirectoryStream<Path> directories = Files.newDirectoryStream(directory(), CLIENT_PREFIX + "*")) {
+            for(final Path clientDirectory : directories) {
+                final String name = clientDirectory.getFileName().toString();
+                if (clients.containsKey(name) || !Files.exists(clientDirectory.resolve(READY)))
+                    continue;
+
+                final Client client;
+                try {
+                    client = new Client(name, clientDirectory,
+                            MappedRing.open(clientDirectory.resolve(TO_SERVER)),
+                            MappedRing.open(clientDirectory.resolve(TO_CLIENT)));
+                } catch (final IOException e) {
+                    // Removed in the meantime
+                    continue;
+                }
+
+                if (client.inbound.isClosed() && client.inbound.isEmpty()) {
+                    delete(clientDirectory);
+                } else {
+                    clients.put(name, client);
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed)
+            polled = clients.values().toArray(new Client[0]);
+    }
+
+    private void remove(final Client client) {
+        clients.remove(client.name, client);
+        polled = clients.values().toArray(new Client[0]);
+        client.outbound.close();
+        delete(client.directory);
+    }
+
+    private static final class Client {
+        private final String name;
+        private final Path directory;
+        private final MappedRing inbound;
+        private final MappedRing outbound;
+        /** Records waiting for room in the outbound ring, guarded by the client */
+        private final Queue<ByteBuffer> backlog = new ArrayDeque<>();
+        private long dropped;
+
+        private Client(final String name, final Path directory, final MappedRing inbound,
+                       final MappedRing outbound) {
+            this.name = name;
+            this.directory = directory;
+            this.inbound = inbound;
+            this.outbound = outbound;
+        }
+    }
+
+    public static final int DEFAULT_BACKLOG_CAPACITY = 16 * 1024;
+
+    private static final long SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+}
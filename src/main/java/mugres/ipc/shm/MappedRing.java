@@ -0,0 +1,190 @@
+package mugres.ipc.shm;
+
+import mugres.core.utils.Fences;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+/**
+ * Single-producer single-consumer ring of variable-length records in a memory-mapped file, shared
+ * by two processes.
+ *
+ * The producer and the consumer only communicate through two sequence counters, each of them
+ * written by one side only: the producer copies a record in and then publishes the new write
+ * sequence; the consumer reads the record and then publishes the new read sequence. No locks are
+ * shared between processes.
+ *
+ * File format: a header (magic, capacity, closed flag, then the write and the read sequences on
+ * cache lines of their own) followed by the data area. Every record is an int length followed by
+ * the bytes, padded to 8 bytes. A record that doesn't fit before the end of the data area is
+ * preceded by a padding marker and written at its start.
+ */
+final class MappedRing {
+    private final MappedByteBuffer buffer;
+    private final ByteBuffer writeView;
+    private final ByteBuffer readView;
+    private final int capacity;
+    private final int mask;
+    private long writeSequence;
+    private long readSequence;
+
+    private MappedRing(final MappedByteBuffer buffer) throws IOException {
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC)
+            throw new IOException("Not a MUGRES ring");
+
+        this.buffer = buffer;
+        this.writeView = buffer.duplicate();
+        this.readView = buffer.duplicate();
+        this.capacity = buffer.getInt(CAPACITY_OFFSET);
+        this.mask = capacity - 1;
+        this.writeSequence = buffer.getLong(WRITE_SEQUENCE_OFFSET);
+        this.readSequence = buffer.getLong(READ_SEQUENCE_OFFSET);
+    }
+
+    /** @param capacity size of the data area: a power of two */
+    static MappedRing create(final Path file, final int capacity) throws IOException {
+        if (capacity < MIN_CAPACITY || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity");
+
+        final MappedByteBuffer buffer = map(file, DATA_OFFSET + capacity);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        Fences.storeFence();
+        buffer.putInt(MAGIC_OFFSET, MAGIC);
+        return new MappedRing(buffer);
+    }
+
+    static MappedRing open(final Path file) throws IOException {
+        return new MappedRing(map(file, -1));
+    }
+
+    /**
+     * Copies the remaining bytes of the record into the ring, leaving its position untouched.
+     * @return false if there isn't enough room for it at the moment
+     */
+    synchronized boolean offer(final ByteBuffer record) {
+        final int length = record.remaining();
+        final int size = align(Integer.BYTES + length);
+        if (size > capacity)
+            throw new IllegalArgumentException("record");
+
+        final long read = buffer.getLong(READ_SEQUENCE_OFFSET);
+        Fences.loadFence();
+
+        long write = writeSequence;
+        int index = (int) (write & mask);
+        final int untilEnd = capacity - index;
+        final int padding = untilEnd < size ? untilEnd : 0;
+        if (write + padding + size - read > capacity)
+            return false;
+
+        if (padding > 0) {
+            buffer.putInt(DATA_OFFSET + index, PADDING);
+            write += padding;
+            index = 0;
+        }
+
+        final int start = record.position();
+        writeView.limit(DATA_OFFSET + index + Integer.BYTES + length).position(DATA_OFFSET + index + Integer.BYTES);
+        writeView.put(record);
+        record.position(start);
+        buffer.putInt(DATA_OFFSET + index, length);
+
+        writeSequence = write + size;
+        Fences.storeFence();
+        buffer.putLong(WRITE_SEQUENCE_OFFSET, writeSequence);
+        return true;
+    }
+
+    /**
+     * Hands the next record, if any, to the handler. Only one thread may poll a ring.
+     * @return whether there was a record
+     */
+    boolean poll(final Handler handler) throws IOException {
+        while(true) {
+            final long write = buffer.getLong(WRITE_SEQUENCE_OFFSET);
+            Fences.loadFence();
+            if (readSequence == write)
+                return false;
+
+            final int index = (int) (readSequence & mask);
+            final int length = buffer.getInt(DATA_OFFSET + index);
+            if (length == PADDING) {
+                publishRead(readSequence + capacity - index);
+                continue;
+            }
+            if (length < 0 || Integer.BYTES + length > capacity - index)
+                throw new IOException("Corrupted ring at " + readSequence);
+
+            readView.limit(DATA_OFFSET + index + Integer.BYTES + length).position(DATA_OFFSET + index + Integer.BYTES);
+            try {
+                handler.onRecord(readView);
+            } finally {
+                publishRead(readSequence + align(Integer.BYTES + length));
+            }
+            return true;
+        }
+    }
+
+    boolean isEmpty() {
+        return readSequence == buffer.getLong(WRITE_SEQUENCE_OFFSET);
+    }
+
+    /** Tells the consumer that no more records will be written */
+    void close() {
+        Fences.storeFence();
+        buffer.putInt(CLOSED_OFFSET, 1);
+        // Visible before whatever the caller checks next about the other end
+        Fences.fullFence();
+    }
+
+    boolean isClosed() {
+        final boolean closed = buffer.getInt(CLOSED_OFFSET) != 0;
+        Fences.loadFence();
+        return closed;
+    }
+
+    private void publishRead(final long sequence) {
+        readSequence = sequence;
+        // Done reading the record before the producer can overwrite it
+        Fences.loadFence();
+        Fences.storeFence();
+        buffer.putLong(READ_SEQUENCE_OFFSET, sequence);
+    }
+
+    /** @param size size of the file to create, or -1 to map an existing file */
+    private static MappedByteBuffer map(final Path file, final long size) throws IOException {
+        try(final RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            if (size >= 0)
+                randomAccessFile.setLength(size);
+            else if (randomAccessFile.length() < DATA_OFFSET + MIN_CAPACITY)
+                throw new IOException("Not a MUGRES ring: " + file);
+
+            // The mapping stays valid after the file is closed
+            return randomAccessFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, randomAccessFile.length());
+        }
+    }
+
+    private static int align(final int size) {
+        return (size + ALIGNMENT - 1) & -ALIGNMENT;
+    }
+
+    interface Handler {
+        /** @param record the record's bytes, between position and limit. Only valid during the call. */
+        void onRecord(final ByteBuffer record) throws IOException;
+    }
+
+    private static final int MAGIC = 0x4D524E47;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int CLOSED_OFFSET = 8;
+    private static final int WRITE_SEQUENCE_OFFSET = 64;
+    private static final int READ_SEQUENCE_OFFSET = 128;
+    private static final int DATA_OFFSET = 192;
+    private static final int PADDING = -1;
+    private static final int ALIGNMENT = 8;
+    private static final int MIN_CAPACITY = 1024;
+}
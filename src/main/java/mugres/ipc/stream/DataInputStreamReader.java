@@ -5,10 +5,13 @@ import mugres.ipc.Header;
 import mugres.ipc.Reader;
 import mugres.ipc.protocol.Message;
 import mugres.ipc.protocol.MessageType;
+import mugres.ipc.stream.readers.NackStreamMessageReader;
 import mugres.ipc.stream.readers.PartyListStreamMessageReader;
 import mugres.ipc.stream.readers.PlainStreamMessageReader;
+import mugres.ipc.stream.readers.RepairStreamMessageReader;
 import mugres.ipc.stream.readers.SetPartyStreamMessageReader;
 import mugres.ipc.stream.readers.SignalsStreamMessageReader;
+import mugres.ipc.stream.readers.SignalsV2StreamMessageReader;
 import mugres.ipc.stream.readers.StreamMessageReader;
 import mugres.ipc.stream.readers.TextStreamMessageReader;
 
@@ -52,5 +55,8 @@ public class DataInputStreamReader implements Reader {
         READERS.put(MessageType.TEXT, new TextStreamMessageReader());
         READERS.put(MessageType.SET_PARTY, new SetPartyStreamMessageReader());
         READERS.put(MessageType.PARTY_LIST, new PartyListStreamMessageReader());
+        READERS.put(MessageType.SIGNALS_V2, new SignalsV2StreamMessageReader());
+        READERS.put(MessageType.NACK, new NackStreamMessageReader());
+        READERS.put(MessageType.REPAIR, new RepairStreamMessageReader());
     }
 }
@@ -5,10 +5,13 @@ import mugres.ipc.Header;
 import mugres.ipc.Writer;
 import mugres.ipc.protocol.Message;
 import mugres.ipc.protocol.MessageType;
+import mugres.ipc.stream.writers.NackStreamMessageWriter;
 import mugres.ipc.stream.writers.PartyListStreamMessageWriter;
 import mugres.ipc.stream.writers.PlainStreamMessageWriter;
+import mugres.ipc.stream.writers.RepairStreamMessageWriter;
 import mugres.ipc.stream.writers.SetPartyStreamMessageWriter;
 import mugres.ipc.stream.writers.SignalsStreamMessageWriter;
+import mugres.ipc.stream.writers.SignalsV2StreamMessageWriter;
 import mugres.ipc.stream.writers.StreamMessageWriter;
 import mugres.ipc.stream.writers.TextStreamMessageWriter;
 
@@ -52,5 +55,8 @@ public class DataOutputStreamWriter implements Writer {
         WRITERS.put(MessageType.TEXT, new TextStreamMessageWriter());
         WRITERS.put(MessageType.SET_PARTY, new SetPartyStreamMessageWriter());
         WRITERS.put(MessageType.PARTY_LIST, new PartyListStreamMessageWriter());
+        WRITERS.put(MessageType.SIGNALS_V2, new SignalsV2StreamMessageWriter());
+        WRITERS.put(MessageType.NACK, new NackStreamMessageWriter());
+        WRITERS.put(MessageType.REPAIR, new RepairStreamMessageWriter());
     }
 }
@@ -0,0 +1,23 @@
+package mugres.ipc.stream.readers;
+
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.exceptions.ParseException;
+import mugres.ipc.protocol.messages.NackMessage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+public class NackStreamMessageReader implements StreamMessageReader<NackMessage> {
+    @Override
+    public NackMessage read(final MessageType messageType, final DataInputStream dataInputStream) throws IOException {
+        final long session = dataInputStream.readLong();
+        final long from = dataInputStream.readLong();
+        final long to = dataInputStream.readLong();
+
+        try {
+            return NackMessage.of(session, from, to);
+        } catch (final IllegalArgumentException e) {
+            throw new ParseException("Malformed " + messageType + " message", e);
+        }
+    }
+}
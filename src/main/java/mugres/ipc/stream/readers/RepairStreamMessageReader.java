@@ -0,0 +1,22 @@
+package mugres.ipc.stream.readers;
+
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.messages.RepairMessage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+
+public class RepairStreamMessageReader implements StreamMessageReader<RepairMessage> {
+    @Override
+    public RepairMessage read(final MessageType messageType, final DataInputStream dataInputStream) throws IOException {
+        final int length = dataInputStream.readInt();
+        if (length < 0 || length > MAX_LENGTH)
+            throw new IOException("Invalid length: " + length);
+
+        final byte[] datagram = new byte[length];
+        dataInputStream.readFully(datagram);
+        return RepairMessage.of(datagram);
+    }
+
+    private static final int MAX_LENGTH = 65535;
+}
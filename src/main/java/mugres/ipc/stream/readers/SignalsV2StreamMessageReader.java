@@ -0,0 +1,47 @@
+package mugres.ipc.stream.readers;
+
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.SignalsCodec;
+import mugres.ipc.protocol.exceptions.ParseException;
+import mugres.ipc.protocol.messages.SignalsMessage;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+public class SignalsV2StreamMessageReader implements StreamMessageReader<SignalsMessage> {
+    // Reused for every message read from the same thread
+    private final ThreadLocal<ByteBuffer> buffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_CAPACITY));
+
+    @Override
+    public SignalsMessage read(final MessageType messageType, final DataInputStream dataInputStream) throws IOException {
+        final int length = dataInputStream.readInt();
+        if (length < 0 || length > MAX_LENGTH)
+            throw new IOException("Invalid length: " + length);
+
+        ByteBuffer encoded = buffer.get();
+        if (encoded.capacity() < length) {
+            // Unusually big ones aren't kept for later
+            encoded = ByteBuffer.allocate(Math.min(Integer.highestOneBit(length) << 1, MAX_LENGTH));
+            if (encoded.capacity() <= MAX_RETAINED_CAPACITY)
+                buffer.set(encoded);
+        }
+
+        dataInputStream.readFully(encoded.array(), 0, length);
+        encoded.clear();
+        encoded.limit(length);
+
+        try {
+            return SignalsMessage.timestamped(SignalsCodec.decode(encoded));
+        } catch (final BufferUnderflowException | IllegalArgumentException e) {
+            throw new ParseException("Malformed " + messageType + " message", e);
+        }
+    }
+
+    /** Longest encoding read: the largest frame the NIO transport takes, so no valid one is longer */
+    public static final int MAX_LENGTH = 16 * 1024 * 1024;
+
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+}
@@ -0,0 +1,16 @@
+package mugres.ipc.stream.writers;
+
+import mugres.ipc.protocol.messages.NackMessage;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class NackStreamMessageWriter implements StreamMessageWriter<NackMessage> {
+    @Override
+    public void write(final NackMessage message, final DataOutputStream dataOutputStream) throws IOException {
+        writeMessageType(message.type(), dataOutputStream);
+        dataOutputStream.writeLong(message.session());
+        dataOutputStream.writeLong(message.from());
+        dataOutputStream.writeLong(message.to());
+    }
+}
@@ -0,0 +1,15 @@
+package mugres.ipc.stream.writers;
+
+import mugres.ipc.protocol.messages.RepairMessage;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+public class RepairStreamMessageWriter implements StreamMessageWriter<RepairMessage> {
+    @Override
+    public void write(final RepairMessage message, final DataOutputStream dataOutputStream) throws IOException {
+        writeMessageType(message.type(), dataOutputStream);
+        dataOutputStream.writeInt(message.datagram().length);
+        dataOutputStream.write(message.datagram());
+    }
+}
@@ -0,0 +1,40 @@
+package mugres.ipc.stream.writers;
+
+import mugres.ipc.protocol.SignalsCodec;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.stream.readers.SignalsV2StreamMessageReader;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+public class SignalsV2StreamMessageWriter implements StreamMessageWriter<SignalsMessage> {
+    // Reused for every message written from the same thread
+    private final ThreadLocal<ByteBuffer> buffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(INITIAL_CAPACITY));
+
+    @Override
+    public void write(final SignalsMessage message, final DataOutputStream dataOutputStream) throws IOException {
+        // Format:
+        // 1 int: encoded length
+        // N bytes: signals, as encoded by SignalsCodec
+        ByteBuffer encoded = buffer.get();
+        while(true)
+            try {
+                encoded.clear();
+                SignalsCodec.encode(message.signals(), encoded);
+                break;
+            } catch (final BufferOverflowException e) {
+                if (encoded.capacity() >= SignalsV2StreamMessageReader.MAX_LENGTH)
+                    throw new IOException("Too many signals to encode: " + message.signals().size());
+                encoded = ByteBuffer.allocate(encoded.capacity() * 2);
+                buffer.set(encoded);
+            }
+
+        writeMessageType(message.type(), dataOutputStream);
+        dataOutputStream.writeInt(encoded.position());
+        dataOutputStream.write(encoded.array(), 0, encoded.position());
+    }
+
+    private static final int INITIAL_CAPACITY = 1024;
+}
@@ -0,0 +1,56 @@
+package mugres.ipc.tcpip;
+
+import aquelarre.Node;
+import mugres.ipc.Listener;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.stream.DataInputStreamReader;
+import mugres.ipc.stream.DataOutputStreamWriter;
+
+import java.io.IOException;
+
+/** Node on top of aquelarre's stream-based transport */
+public abstract class AquelarreTCPIPNode extends MUGRESTCPIPNode {
+    private AquelarreMessageListenerAdapter listenerAdapter;
+    private final AquelarreMessageReaderAdapter messageReader;
+    private final AquelarreMessageWriterAdapter messageWriter;
+
+    protected AquelarreTCPIPNode() {
+        messageReader = new AquelarreMessageReaderAdapter(new DataInputStreamReader());
+        messageWriter = new AquelarreMessageWriterAdapter(new DataOutputStreamWriter());
+    }
+
+    public AquelarreMessageReaderAdapter reader() {
+        return messageReader;
+    }
+
+    public AquelarreMessageWriterAdapter writer() {
+        return messageWriter;
+    }
+
+    @Override
+    protected void onListenerChanged(final Listener listener) {
+        if (listener == null)
+            listenerAdapter = null;
+        else
+            listenerAdapter = new AquelarreMessageListenerAdapter(listener);
+
+        getAquelarreNode().setMessageListener(listenerAdapter);
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        getAquelarreNode().send(to, message);
+    }
+
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        getAquelarreNode().broadcast(message);
+    }
+
+    @Override
+    public String serverName() {
+        return Node.SERVER;
+    }
+
+    protected abstract Node<Message> getAquelarreNode();
+}
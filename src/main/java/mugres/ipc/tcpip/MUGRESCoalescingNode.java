@@ -0,0 +1,380 @@
+package mugres.ipc.tcpip;
+
+import mugres.core.common.Signals;
+import mugres.core.utils.metrics.MetricsRegistry;
+import mugres.ipc.Envelope;
+import mugres.ipc.Listener;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.messages.SignalsMessage;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+/**
+ * Node that merges the signals messages sent to the same destination within a short window, so
+ * that e.g. every note of a chord goes out in a single message, then sends them through another
+ * node, of any transport.
+ *
+ * A batch is sent when its window is over, when it reaches the maximum number of signals, or
+ * right before any other message to the same destination, broadcasts included. Whenever a batch
+ * is sent, so are the older ones for the same destinations, and a batch isn't added to once a
+ * newer one for any of its destinations exists. Order is thus kept per destination, broadcasts
+ * included.
+ *
+ * Batches are only taken out, in order, while holding the lock on them; they're sent after
+ * releasing it, so that sending never holds up whoever's adding to a batch. A batch that can't be
+ * sent is counted as failed; the failure is thrown to whoever sent a message that isn't merged
+ * and is waiting for it, or to whoever asked for a flush, and otherwise only printed.
+ *
+ * When the metrics registry is enabled, its "IPC coalescing" stage counts messages in and out of
+ * every batch, and how long the first message of the batch was held.
+ */
+public class MUGRESCoalescingNode extends MUGRESTCPIPNode {
+    private final MUGRESTCPIPNode node;
+    private final long windowNanos;
+    private final int maxSignals;
+    private final MetricsRegistry metrics;
+    /** Batches by destination, or null for broadcasts */
+    private final Map<String, Batch> batches = new HashMap<>();
+    /** Batches and other messages taken out, in the order they must be sent. Guarded by batches. */
+    private final ArrayDeque<Batch> outbox = new ArrayDeque<>();
+    /** Held while sending what's in the outbox, so it goes out in order */
+    private final Object sending = new Object();
+    private final AtomicLong failed = new AtomicLong();
+    /** Order in which batches were started. Guarded by batches. */
+    private long started;
+    private volatile Thread flusher;
+
+    private MUGRESCoalescingNode(final MUGRESTCPIPNode node, final long windowMicros, final int maxSignals,
+                                 final MetricsRegistry metrics) {
+        if (node == null)
+            throw new IllegalArgumentException("node");
+        if (windowMicros <= 0)
+            throw new IllegalArgumentException("windowMicros");
+        if (maxSignals <= 0)
+            throw new IllegalArgumentException("maxSignals");
+        if (metrics == null)
+            throw new IllegalArgumentException("metrics");
+
+        this.node = node;
+        this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+        this.maxSignals = maxSignals;
+        this.metrics = metrics;
+        node.setListener(this::onMessage);
+    }
+
+    public static MUGRESCoalescingNode of(final MUGRESTCPIPNode node) {
+        return of(node, DEFAULT_WINDOW_MICROS, DEFAULT_MAX_SIGNALS);
+    }
+
+    public static MUGRESCoalescingNode of(final MUGRESTCPIPNode node, final long windowMicros, final int maxSignals) {
+        return of(node, windowMicros, maxSignals, MetricsRegistry.shared());
+    }
+
+    public static MUGRESCoalescingNode of(final MUGRESTCPIPNode node, final long windowMicros, final int maxSignals,
+                                          final MetricsRegistry metrics) {
+        return new MUGRESCoalescingNode(node, windowMicros, maxSignals, metrics);
+    }
+
+    public MUGRESTCPIPNode node() {
+        return node;
+    }
+
+    public long windowMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(windowNanos);
+    }
+
+    public int maxSignals() {
+        return maxSignals;
+    }
+
+    /** Number of batches and other messages that couldn't be sent */
+    public long failed() {
+        return failed.get();
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        if (to == null)
+            throw new IllegalArgumentException("to");
+
+        enqueue(to, message);
+    }
+
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        enqueue(null, message);
+    }
+
+    @Override
+    public String serverName() {
+        return node.serverName();
+    }
+
+    /** Sends every pending batch now */
+    public void flush() throws IOException {
+        synchronized (batches) {
+            takeAll();
+        }
+        sendOutbox(batch -> true);
+    }
+
+    /** Sends every pending batch and stops the thread that sends them when their window is over */
+    public void stop() throws IOException {
+        final Thread thread = flusher;
+        flusher = null;
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            try {
+                thread.join();
+            } catch (final InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    private void enqueue(final String to, final Message message) throws IOException {
+        if (!isSignals(message.type())) {
+            final Batch unmerged;
+            synchronized (batches) {
+                takeFor(to);
+                unmerged = new Batch(to, message, started++);
+                outbox.add(unmerged);
+            }
+            sendOutbox(batch -> batch == unmerged);
+            return;
+        }
+
+        boolean newBatch = false;
+        boolean taken = false;
+        synchronized (batches) {
+            Batch batch = batches.get(to);
+            if (batch != null && (batch.type != message.type() || hasNewer(batch))) {
+                takeFor(to);
+                taken = true;
+                batch = null;
+            }
+            if (batch == null) {
+                batch = new Batch(to, message.type(), System.nanoTime(), started++);
+                batches.put(to, batch);
+                newBatch = true;
+            }
+
+            batch.signals.addAll(((SignalsMessage) message).signals());
+            batch.messages++;
+            if (batch.signals.size() >= maxSignals) {
+                takeFor(to);
+                taken = true;
+                newBatch = false;
+            }
+        }
+
+        if (taken)
+            sendOutbox(batch -> false);
+        if (newBatch)
+            wakeFlusher();
+    }
+
+    /** Whether a batch for any of the batch's destinations was started after it. Guarded by batches. */
+    private boolean hasNewer(final Batch batch) {
+        if (batch.to != null) {
+            final Batch broadcast = batches.get(null);
+            return broadcast != null && broadcast.order > batch.order;
+        }
+
+        for(final Batch other : batches.values())
+            if (other.order > batch.order)
+                return true;
+        return false;
+    }
+
+    /**
+     * Moves the batches that share destinations with the given one to the outbox: the destination's
+     * and the broadcast's, or every batch for broadcasts. Guarded by batches.
+     */
+    private void takeFor(final String to) {
+        if (to == null)
+            takeAll();
+        else
+            take(Arrays.asList(to, null));
+    }
+
+    /** Moves the batches for the destinations to the outbox, oldest first. Guarded by batches. */
+    private void take(final Collection<String> destinations) {
+        final List<Batch> taken = new ArrayList<>(destinations.size());
+        for(final String to : destinations) {
+            final Batch batch = batches.remove(to);
+            if (batch != null)
+                taken.add(batch);
+        }
+        taken.sort(OLDEST_FIRST);
+        outbox.addAll(taken);
+    }
+
+    private void takeAll() {
+        take(new ArrayList<>(batches.keySet()));
+    }
+
+    /**
+     * Sends whatever's in the outbox, in order, without holding the lock on the batches. Batches
+     * that fail aren't sent again; the first failure of those the caller owns is thrown once the
+     * rest are sent, the others are printed.
+     */
+    private void sendOutbox(final Predicate<Batch> owned) throws IOException {
+        IOException failure = null;
+        synchronized (sending) {
+            while(true) {
+                final Batch next;
+                synchronized (batches) {
+                    next = outbox.poll();
+                }
+                if (next == null)
+                    break;
+
+                try {
+                    send(next);
+                } catch (final IOException e) {
+                    failed.incrementAndGet();
+                    if (failure == null && owned.test(next))
+                        failure = e;
+                    else
+                        e.printStackTrace();
+                }
+            }
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    private void send(final Batch batch) throws IOException {
+        if (batch.message != null) {
+            sendNow(batch.to, batch.message);
+            return;
+        }
+
+        final long held = System.nanoTime() - batch.startNanos;
+        sendNow(batch.to, batch.type == MessageType.SIGNALS_V2 ?
+                SignalsMessage.timestamped(batch.signals) : SignalsMessage.of(batch.signals));
+
+        if (metrics.isEnabled())
+            metrics.stage(STAGE).record(held, batch.messages, 1);
+    }
+
+    private void sendNow(final String to, final Message message) throws IOException {
+        if (to == null)
+            node.broadcast(message);
+        else
+            node.send(to, message);
+    }
+
+    private void wakeFlusher() {
+        Thread thread = flusher;
+        if (thread == null)
+            synchronized (batches) {
+                thread = flusher;
+                if (thread == null) {
+                    thread = new Thread(this::flushLoop);
+                    thread.setName("MUGRES IPC Coalescer");
+                    thread.setDaemon(true);
+                    flusher = thread;
+                    thread.start();
+                    return;
+                }
+            }
+        LockSupport.unpark(thread);
+    }
+
+    private void flushLoop() {
+        final Thread self = Thread.currentThread();
+        while(flusher == self) {
+            long wait = -1;
+            boolean taken = false;
+            synchronized (batches) {
+                final long now = System.nanoTime();
+                final List<String> due = new ArrayList<>();
+                for(final Batch batch : batches.values()) {
+                    final long remaining = batch.startNanos + windowNanos - now;
+                    if (remaining <= 0)
+                        due.add(batch.to);
+                    else if (wait < 0 || remaining < wait)
+                        wait = remaining;
+                }
+                if (!due.isEmpty()) {
+                    take(due);
+                    taken = true;
+                }
+            }
+
+            if (taken)
+                try {
+                    sendOutbox(batch -> false);
+                } catch (final IOException e) {
+                    // Not thrown: no batch is owned
+                }
+
+            if (wait < 0)
+                LockSupport.park(this);
+            else
+                LockSupport.parkNanos(this, wait);
+        }
+    }
+
+    private void onMessage(final Envelope<Message> envelope) {
+        final Listener listener = getListener();
+        if (listener != null)
+            listener.onMessage(envelope);
+    }
+
+    private static boolean isSignals(final MessageType type) {
+        return type == MessageType.SIGNALS || type == MessageType.SIGNALS_V2;
+    }
+
+    /** Signals being merged, or a message that isn't merged, for a destination */
+    private static final class Batch {
+        private final String to;
+        private final MessageType type;
+        private final long startNanos;
+        private final long order;
+        private final Signals signals = Signals.create();
+        /** Not merged, or null */
+        private final Message message;
+        private int messages;
+
+        private Batch(final String to, final MessageType type, final long startNanos, final long order) {
+            this.to = to;
+            this.type = type;
+            this.startNanos = startNanos;
+            this.order = order;
+            this.message = null;
+        }
+
+        private Batch(final String to, final Message message, final long order) {
+            this.to = to;
+            this.type = message.type();
+            this.startNanos = System.nanoTime();
+            this.order = order;
+            this.message = message;
+        }
+    }
+
+    /** Name of the metrics stage */
+    public static final String STAGE = "IPC coalescing";
+
+    private static final Comparator<Batch> OLDEST_FIRST = Comparator.comparingLong(batch -> batch.order);
+    private static final long DEFAULT_WINDOW_MICROS = 1000;
+    private static final int DEFAULT_MAX_SIGNALS = 64;
+}
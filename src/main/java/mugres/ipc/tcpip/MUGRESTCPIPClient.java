@@ -8,7 +8,7 @@ import java.io.IOException;
 
 import static mugres.ipc.tcpip.MUGRESTCPIPServer.DEFAULT_PORT;
 
-public class MUGRESTCPIPClient extends MUGRESTCPIPNode {
+public class MUGRESTCPIPClient extends AquelarreTCPIPNode {
     private Client<Message> client;
 
     private MUGRESTCPIPClient(final String host, final int port) {
@@ -1,59 +1,99 @@
 package mugres.ipc.tcpip;
 
-import aquelarre.Node;
+import mugres.ipc.Envelope;
 import mugres.ipc.Listener;
 import mugres.ipc.protocol.Message;
-import mugres.ipc.stream.DataInputStreamReader;
-import mugres.ipc.stream.DataOutputStreamWriter;
+import mugres.ipc.protocol.MessageType;
 
 import java.io.IOException;
 
+/** MUGRES IPC node (server or client), independent of the underlying transport */
 public abstract class MUGRESTCPIPNode {
     private Listener listener;
-    private AquelarreMessageListenerAdapter listenerAdapter;
-    private final AquelarreMessageReaderAdapter messageReader;
-    private final AquelarreMessageWriterAdapter messageWriter;
+    private volatile Thread worker;
 
-    protected MUGRESTCPIPNode() {
-        messageReader = new AquelarreMessageReaderAdapter(new DataInputStreamReader());
-        messageWriter = new AquelarreMessageWriterAdapter(new DataOutputStreamWriter());
+    public Listener getListener() {
+        return listener;
     }
 
-    public AquelarreMessageReaderAdapter reader() {
-        return messageReader;
+    public void setListener(final Listener listener) {
+        this.listener = listener;
+        onListenerChanged(listener);
     }
 
-    public AquelarreMessageWriterAdapter writer() {
-        return messageWriter;
+    public abstract void send(final String to, final Message message) throws IOException;
+
+    /** Send a message targeted at the MUGRES server */
+    public void sendToServer(final Message message) throws IOException {
+        send(serverName(), message);
     }
 
-    public Listener getListener() {
-        return listener;
+    public abstract void broadcast(final Message message) throws IOException;
+
+    /** Name the server is addressed by */
+    public abstract String serverName();
+
+    protected void onListenerChanged(final Listener listener) {
+        // Do nothing
     }
 
-    public void setListener(final Listener listener) {
-        this.listener = listener;
+    /** Hands the envelope to the listener, if any; listener failures don't reach the caller */
+    protected void deliver(final Envelope<Message> envelope) {
+        final Listener current = getListener();
+        if (current != null)
+            try {
+                current.onMessage(envelope);
+            } catch (final Throwable t) {
+                t.printStackTrace();
+            }
+    }
+
+    /** For nodes with a thread of their own: starts it, running the loop until {@link #isWorker()} is false */
+    protected void startWorker(final String name, final Runnable loop) {
+        final Thread thread = new Thread(loop);
+        thread.setName(name);
+        thread.setDaemon(true);
+        worker = thread;
+        thread.start();
+    }
 
-        if (listener == null)
-            listenerAdapter = null;
-        else
-            listenerAdapter = new AquelarreMessageListenerAdapter(listener);
+    protected boolean isWorkerRunning() {
+        return worker != null;
+    }
 
-        getAquelarreNode().setMessageListener(listenerAdapter);
+    /** Whether the calling thread is the running worker, i.e. whether its loop should go on */
+    protected boolean isWorker() {
+        return worker == Thread.currentThread();
     }
 
-    public void send(final String to, final Message message) throws IOException {
-        getAquelarreNode().send(to, message);
+    /** Tells the worker to stop and waits for it. @return false if it wasn't running */
+    protected boolean stopWorker() {
+        final Thread thread = worker;
+        if (thread == null)
+            return false;
+
+        worker = null;
+        wakeUpWorker();
+        try {
+            thread.join();
+        } catch (final InterruptedException ignore) {
+            Thread.currentThread().interrupt();
+        }
+        return true;
     }
 
-    /** Send a message targeted at the MUGRES server */
-    public void sendToServer(final Message message) throws IOException {
-        send(Node.SERVER, message);
+    /** Makes the worker check whether it should stop, if it may be blocked */
+    protected void wakeUpWorker() {
+        // Do nothing
     }
 
-    public void broadcast(final Message message) throws IOException {
-        getAquelarreNode().broadcast(message);
+    /** Same rules as the aquelarre transport's routing manager, for messages sent by clients */
+    protected static boolean isValidRoute(final MessageType type, final String to) {
+        return !type.fromServerOnly() && (!type.toServerOnly() || SERVER.equals(to));
     }
 
-    protected abstract Node<Message> getAquelarreNode();
+    /** Name the server is addressed by, on transports other than aquelarre */
+    public static final String SERVER = "SERVER";
+    /** Recipient for messages sent to every node */
+    public static final String BROADCAST = "*";
 }
@@ -6,12 +6,15 @@ import mugres.ipc.protocol.Message;
 
 import java.io.IOException;
 
-public class MUGRESTCPIPServer extends MUGRESTCPIPNode {
+public class MUGRESTCPIPServer extends AquelarreTCPIPNode {
     private final Server<Message> server;
-    private MUGRESTCPIPServer(final int port) {
+    private MUGRESTCPIPServer(final int port, final int maxClients) {
         super();
 
-        server = aquelarre.Server.of(port, MAX_CLIENTS, true, reader(), writer(), routingManager());
+        if (maxClients <= 0)
+            throw new IllegalArgumentException("maxClients");
+
+        server = aquelarre.Server.of(port, maxClients, true, reader(), writer(), routingManager());
     }
 
     public static MUGRESTCPIPServer of() {
@@ -19,7 +22,15 @@ public class MUGRESTCPIPServer extends MUGRESTCPIPNode {
     }
 
     public static MUGRESTCPIPServer of(final int port) {
-        return new MUGRESTCPIPServer(port);
+        return of(port, DEFAULT_MAX_CLIENTS);
+    }
+
+    /**
+     * Writes to clients are synchronous on this transport, so a slow client slows every broadcast
+     * down. For many clients, see {@link mugres.ipc.tcpip.nio.MUGRESNIOServer}.
+     */
+    public static MUGRESTCPIPServer of(final int port, final int maxClients) {
+        return new MUGRESTCPIPServer(port, maxClients);
     }
 
     public boolean isRunning() {
@@ -44,6 +55,9 @@ public class MUGRESTCPIPServer extends MUGRESTCPIPNode {
     }
 
     public static final int DEFAULT_PORT = 6477;
-    public static final int MAX_CLIENTS = 16;
+    public static final int DEFAULT_MAX_CLIENTS = 16;
+    /** @deprecated Use {@link #DEFAULT_MAX_CLIENTS} */
+    @Deprecated
+    public static final int MAX_CLIENTS = DEFAULT_MAX_CLIENTS;
     private static final AquelarreRoutingManager ROUTING_MANAGER = new AquelarreRoutingManager();
 }
@@ -0,0 +1,67 @@
+package mugres.ipc.tcpip.nio;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Pool of direct byte buffers, in power-of-two sizes. Buffers larger than the biggest size class
+ * are allocated (on the heap) every time and never pooled.
+ */
+final class BufferPool {
+    private final Queue<ByteBuffer>[] pools;
+    private final AtomicIntegerArray pooled;
+
+    @SuppressWarnings("unchecked")
+    private BufferPool() {
+        pools = new Queue[MAX_SHIFT - MIN_SHIFT + 1];
+        for(int index = 0; index < pools.length; index++)
+            pools[index] = new ConcurrentLinkedQueue<>();
+        pooled = new AtomicIntegerArray(pools.length);
+    }
+
+    static BufferPool of() {
+        return new BufferPool();
+    }
+
+    /** @return a cleared buffer of at least the given capacity */
+    ByteBuffer acquire(final int capacity) {
+        final int sizeClass = sizeClass(capacity);
+        if (sizeClass >= pools.length)
+            return ByteBuffer.allocate(capacity);
+
+        final ByteBuffer buffer = pools[sizeClass].poll();
+        if (buffer == null)
+            return ByteBuffer.allocateDirect(1 << (sizeClass + MIN_SHIFT));
+
+        pooled.decrementAndGet(sizeClass);
+        buffer.clear();
+        return buffer;
+    }
+
+    void release(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect())
+            return;
+
+        final int sizeClass = sizeClass(buffer.capacity());
+        if (sizeClass >= pools.length || buffer.capacity() != 1 << (sizeClass + MIN_SHIFT))
+            return;
+
+        if (pooled.incrementAndGet(sizeClass) > MAX_POOLED_PER_CLASS) {
+            pooled.decrementAndGet(sizeClass);
+            return;
+        }
+        pools[sizeClass].offer(buffer);
+    }
+
+    private static int sizeClass(final int capacity) {
+        if (capacity <= 1 << MIN_SHIFT)
+            return 0;
+        return Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1) - MIN_SHIFT;
+    }
+
+    private static final int MIN_SHIFT = 8;
+    private static final int MAX_SHIFT = 20;
+    private static final int MAX_POOLED_PER_CLASS = 256;
+}
@@ -0,0 +1,87 @@
+package mugres.ipc.tcpip.nio;
+
+import mugres.core.utils.metrics.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Outbound counters of a client connected to a {@link MUGRESNIOServer} */
+public class ClientMetrics {
+    private final Histogram lag = Histogram.of();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    ClientMetrics() {
+    }
+
+    void sent(final long queuedNanos) {
+        lag.record(queuedNanos);
+        sent.increment();
+    }
+
+    void dropped() {
+        dropped.increment();
+    }
+
+    void coalesced(final int frames) {
+        coalesced.add(frames);
+    }
+
+    Snapshot snapshot(final String name, final int queued) {
+        return new Snapshot(name, queued, sent.sum(), dropped.sum(), coalesced.sum(), lag.snapshot());
+    }
+
+    public static class Snapshot {
+        private final String name;
+        private final int queued;
+        private final long sent;
+        private final long dropped;
+        private final long coalesced;
+        private final Histogram.Snapshot lag;
+
+        private Snapshot(final String name, final int queued, final long sent, final long dropped,
+                         final long coalesced, final Histogram.Snapshot lag) {
+            this.name = name;
+            this.queued = queued;
+            this.sent = sent;
+            this.dropped = dropped;
+            this.coalesced = coalesced;
+            this.lag = lag;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /** Messages waiting to be written */
+        public int queued() {
+            return queued;
+        }
+
+        /** Messages handed to the socket */
+        public long sent() {
+            return sent;
+        }
+
+        /** Messages dropped because the queue was full */
+        public long dropped() {
+            return dropped;
+        }
+
+        /** Messages merged into others because the queue was full */
+        public long coalesced() {
+            return coalesced;
+        }
+
+        /** Time messages spent queued, in nanoseconds */
+        public Histogram.Snapshot lag() {
+            return lag;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: queued=%d sent=%d dropped=%d coalesced=%d lag p99=%.3fms max=%.3fms",
+                    name, queued, sent, dropped, coalesced, lag.percentile(99) / 1e6, lag.max() / 1e6);
+        }
+    }
+}
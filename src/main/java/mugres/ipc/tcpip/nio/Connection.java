@@ -0,0 +1,43 @@
+package mugres.ipc.tcpip.nio;
+
+import mugres.ipc.ByteBufferInputStream;
+
+import java.io.DataInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** State of a socket handled by a {@link MUGRESNIONode} */
+final class Connection {
+    final SocketChannel channel;
+    SelectionKey key;
+    volatile String name;
+
+    // Selector thread only
+    ByteBuffer readBuffer;
+    final ByteBufferInputStream frameInput = new ByteBufferInputStream();
+    final DataInputStream dataInput = new DataInputStream(frameInput);
+    final ArrayDeque<ByteBuffer> inFlight = new ArrayDeque<>();
+    final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+
+    // Frames waiting to be written: added by any thread holding the connection's lock
+    final Deque<Frame> outbound = new ConcurrentLinkedDeque<>();
+    final AtomicInteger queued = new AtomicInteger();
+    final AtomicBoolean writeRequested = new AtomicBoolean();
+    final ClientMetrics metrics = new ClientMetrics();
+    /** To be closed by the selector thread */
+    volatile boolean overflowed;
+
+    Connection(final SocketChannel channel, final ByteBuffer readBuffer) {
+        this.channel = channel;
+        this.readBuffer = readBuffer;
+    }
+
+    /** Maximum number of frames written per gathering write */
+    static final int MAX_GATHER = 64;
+}
@@ -0,0 +1,29 @@
+package mugres.ipc.tcpip.nio;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+
+import java.nio.ByteBuffer;
+
+/** Frame waiting to be written to a {@link Connection} */
+final class Frame {
+    final ByteBuffer buffer;
+    /** What the frame holds, or null for welcome frames */
+    final Envelope<Message> envelope;
+    final long queuedNanos;
+
+    Frame(final ByteBuffer buffer, final Envelope<Message> envelope, final long queuedNanos) {
+        this.buffer = buffer;
+        this.envelope = envelope;
+        this.queuedNanos = queuedNanos;
+    }
+
+    boolean isSignals() {
+        if (envelope == null)
+            return false;
+
+        final MessageType type = envelope.payload().type();
+        return type == MessageType.SIGNALS || type == MessageType.SIGNALS_V2;
+    }
+}
@@ -0,0 +1,54 @@
+package mugres.ipc.tcpip.nio;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/** Output stream that writes into a pooled buffer, growing it as needed */
+final class FrameOutputStream extends OutputStream {
+    private final BufferPool pool;
+    private ByteBuffer buffer;
+
+    FrameOutputStream(final BufferPool pool) {
+        this.pool = pool;
+    }
+
+    /** Starts writing into a fresh buffer */
+    void begin(final int capacity) {
+        buffer = pool.acquire(capacity);
+    }
+
+    /** Hands over the buffer written so far, ready to be read from */
+    ByteBuffer end() {
+        final ByteBuffer result = buffer;
+        buffer = null;
+        result.flip();
+        return result;
+    }
+
+    ByteBuffer buffer() {
+        return buffer;
+    }
+
+    @Override
+    public void write(final int b) {
+        ensureRemaining(1);
+        buffer.put((byte) b);
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int offset, final int length) {
+        ensureRemaining(length);
+        buffer.put(bytes, offset, length);
+    }
+
+    private void ensureRemaining(final int needed) {
+        if (buffer.remaining() >= needed)
+            return;
+
+        final ByteBuffer grown = pool.acquire(Math.max(buffer.capacity() * 2, buffer.position() + needed));
+        buffer.flip();
+        grown.put(buffer);
+        pool.release(buffer);
+        buffer = grown;
+    }
+}
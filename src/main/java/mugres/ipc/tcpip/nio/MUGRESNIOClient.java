@@ -0,0 +1,120 @@
+package mugres.ipc.tcpip.nio;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.protocol.Message;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static mugres.ipc.tcpip.MUGRESTCPIPServer.DEFAULT_PORT;
+
+/** MUGRES client on the NIO transport */
+public class MUGRESNIOClient extends MUGRESNIONode {
+    private final String host;
+    private final int port;
+    private volatile Connection connection;
+    private volatile CountDownLatch welcomed;
+
+    private MUGRESNIOClient(final String host, final int port) {
+        super();
+
+        if (host == null || host.trim().isEmpty())
+            throw new IllegalArgumentException("host");
+
+        this.host = host;
+        this.port = port;
+    }
+
+    public static MUGRESNIOClient of(final String host) {
+        return of(host, DEFAULT_PORT);
+    }
+
+    public static MUGRESNIOClient of(final String host, final int port) {
+        return new MUGRESNIOClient(host, port);
+    }
+
+    public String host() {
+        return host;
+    }
+
+    public int port() {
+        return port;
+    }
+
+    /** Name given by the server to this client */
+    public String name() {
+        final Connection current = connection;
+        return current == null ? null : current.name;
+    }
+
+    public boolean isConnected() {
+        final Connection current = connection;
+        return current != null && current.channel.isOpen() && current.name != null;
+    }
+
+    /** Connects and waits for the server to name this client */
+    public synchronized void connect() throws IOException {
+        if (connection != null)
+            throw new IllegalStateException("Already connected!");
+
+        final SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        channel.configureBlocking(false);
+
+        openSelector();
+        welcomed = new CountDownLatch(1);
+        connection = register(channel);
+        startWorker("MUGRES NIO Client");
+
+        try {
+            if (!welcomed.await(WELCOME_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                throw new IOException("No welcome from " + host + ":" + port);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            disconnect();
+            throw new IOException("Interrupted while connecting", e);
+        } catch (final IOException e) {
+            disconnect();
+            throw e;
+        }
+    }
+
+    public synchronized void disconnect() {
+        stopWorker();
+        connection = null;
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        final Connection current = connection;
+        if (current == null)
+            throw new IOException("Not connected");
+
+        final Envelope<Message> envelope = Envelope.of(Header.of(current.name, to), message);
+        enqueue(current, encode(envelope), envelope);
+    }
+
+    /** Sends the message to the server and every other client */
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        send(BROADCAST, message);
+    }
+
+    @Override
+    void onWelcome(final Connection connection, final String name) {
+        connection.name = name;
+        welcomed.countDown();
+    }
+
+    @Override
+    void onEnvelope(final Connection connection, final Envelope<Message> envelope, final int start, final int end) {
+        deliver(envelope);
+    }
+
+    private static final long WELCOME_TIMEOUT_SECONDS = 5;
+}
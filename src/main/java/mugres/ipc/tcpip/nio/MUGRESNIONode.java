@@ -0,0 +1,449 @@
+package mugres.ipc.tcpip.nio;
+
+import mugres.core.common.Signals;
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.Reader;
+import mugres.ipc.Writer;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.stream.DataInputStreamReader;
+import mugres.ipc.stream.DataOutputStreamWriter;
+import mugres.ipc.tcpip.MUGRESTCPIPNode;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Node on top of a java.nio selector: a single thread handles every socket of the node.
+ *
+ * Envelopes are still encoded by the IPC {@link Writer}/{@link Reader}, into length-prefixed
+ * frames held in pooled direct buffers. Frames queued for the same socket are sent together with
+ * a gathering write. Listeners are called on the selector thread, so they should return quickly.
+ *
+ * Every connection's queue of frames waiting to be written can be bounded, so that a client that
+ * doesn't keep up only affects itself: once full, the {@link OverflowPolicy} decides what to do.
+ *
+ * Frame format: 1 int (length of the rest of the frame), 1 byte (kind), then the envelope, or the
+ * client's name for the welcome frame sent by the server to every new client.
+ */
+public abstract class MUGRESNIONode extends MUGRESTCPIPNode {
+    private final Reader reader;
+    private final Writer writer;
+    private final int queueCapacity;
+    private final OverflowPolicy overflowPolicy;
+    private final BufferPool pool = BufferPool.of();
+    private final ThreadLocal<Encoder> encoders = ThreadLocal.withInitial(Encoder::new);
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+    private Selector selector;
+
+    protected MUGRESNIONode() {
+        this(Integer.MAX_VALUE, OverflowPolicy.DROP_OLDEST_SIGNALS);
+    }
+
+    /** @param queueCapacity maximum number of frames waiting to be written per connection */
+    protected MUGRESNIONode(final int queueCapacity, final OverflowPolicy overflowPolicy) {
+        this(new DataInputStreamReader(), new DataOutputStreamWriter(), queueCapacity, overflowPolicy);
+    }
+
+    protected MUGRESNIONode(final Reader reader, final Writer writer, final int queueCapacity,
+                            final OverflowPolicy overflowPolicy) {
+        if (reader == null)
+            throw new IllegalArgumentException("reader");
+        if (writer == null)
+            throw new IllegalArgumentException("writer");
+        if (queueCapacity <= 0)
+            throw new IllegalArgumentException("queueCapacity");
+        if (overflowPolicy == null)
+            throw new IllegalArgumentException("overflowPolicy");
+
+        this.reader = reader;
+        this.writer = writer;
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public int queueCapacity() {
+        return queueCapacity;
+    }
+
+    public OverflowPolicy overflowPolicy() {
+        return overflowPolicy;
+    }
+
+    @Override
+    public String serverName() {
+        return SERVER;
+    }
+
+    Selector openSelector() throws IOException {
+        selector = Selector.open();
+        return selector;
+    }
+
+    Selector selector() {
+        return selector;
+    }
+
+    void startWorker(final String name) {
+        startWorker(name, this::selectLoop);
+    }
+
+    /** Stops the selector thread, closing every connection */
+    @Override
+    protected boolean stopWorker() {
+        if (!super.stopWorker())
+            return false;
+
+        for(final SelectionKey key : selector.keys())
+            if (key.attachment() instanceof Connection)
+                close((Connection) key.attachment());
+        try {
+            selector.close();
+        } catch (final IOException ignore) {
+            // Do nothing
+        }
+        return true;
+    }
+
+    @Override
+    protected void wakeUpWorker() {
+        selector.wakeup();
+    }
+
+    Connection register(final SocketChannel channel) throws IOException {
+        final Connection connection = new Connection(channel, pool.acquire(READ_BUFFER_SIZE));
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        return connection;
+    }
+
+    /**
+     * Queues a frame to be written to the connection, applying the overflow policy if the queue is
+     * full. Can be called from any thread.
+     * @param envelope what the frame holds, or null for a welcome frame
+     */
+    void enqueue(final Connection connection, final ByteBuffer buffer, final Envelope<Message> envelope) {
+        Frame frame = new Frame(buffer, envelope, System.nanoTime());
+        synchronized (connection) {
+            if (connection.queued.incrementAndGet() > queueCapacity) {
+                frame = overflow(connection, frame);
+                if (frame == null)
+                    return;
+            }
+
+            connection.outbound.add(frame);
+        }
+        requestWrite(connection);
+    }
+
+    /** Sizes of the outbound queues and how long frames wait in them */
+    ClientMetrics.Snapshot metrics(final Connection connection) {
+        return connection.metrics.snapshot(connection.name, connection.queued.get());
+    }
+
+    ByteBuffer encode(final Envelope<Message> envelope) throws IOException {
+        final Encoder encoder = encoders.get();
+        encoder.begin(KIND_ENVELOPE);
+        writer.write(envelope, encoder.data);
+        return encoder.end();
+    }
+
+    ByteBuffer encodeWelcome(final String name) throws IOException {
+        final Encoder encoder = encoders.get();
+        encoder.begin(KIND_WELCOME);
+        encoder.data.writeUTF(name);
+        return encoder.end();
+    }
+
+    /** Copy of a frame from the connection's read buffer */
+    ByteBuffer copyFrame(final Connection connection, final int start, final int end) {
+        final ByteBuffer source = connection.readBuffer.duplicate();
+        source.limit(end).position(start);
+        final ByteBuffer copy = pool.acquire(end - start);
+        copy.put(source);
+        copy.flip();
+        return copy;
+    }
+
+    void close(final Connection connection) {
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (final IOException ignore) {
+            // Do nothing
+        }
+
+        for(ByteBuffer frame = connection.inFlight.poll(); frame != null; frame = connection.inFlight.poll())
+            pool.release(frame);
+        for(Frame frame = connection.outbound.poll(); frame != null; frame = connection.outbound.poll())
+            pool.release(frame.buffer);
+        pool.release(connection.readBuffer);
+
+        onClosed(connection);
+    }
+
+    void onAcceptable() throws IOException {
+        // Do nothing
+    }
+
+    void onWelcome(final Connection connection, final String name) {
+        // Do nothing
+    }
+
+    void onClosed(final Connection connection) {
+        // Do nothing
+    }
+
+    /**
+     * @param start position of the frame in the connection's read buffer
+     * @param end position right after the frame
+     */
+    abstract void onEnvelope(final Connection connection, final Envelope<Message> envelope,
+                             final int start, final int end);
+
+    private void selectLoop() {
+        while(isWorker()) {
+            try {
+                selector.select();
+
+                for(Connection connection = pendingWrites.poll(); connection != null; connection = pendingWrites.poll())
+                    if (!connection.key.isValid())
+                        continue;
+                    else if (connection.overflowed)
+                        close(connection);
+                    else
+                        flush(connection);
+
+                final Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while(keys.hasNext()) {
+                    final SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+
+                    if (key.isAcceptable())
+                        onAcceptable();
+                    else
+                        handle(key);
+                }
+            } catch (final Throwable t) {
+                t.printStackTrace();
+            }
+        }
+    }
+
+    private void handle(final SelectionKey key) {
+        final Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isReadable())
+                read(connection);
+            if (key.isValid() && key.isWritable())
+                flush(connection);
+        } catch (final IOException e) {
+            close(connection);
+        }
+    }
+
+    private void read(final Connection connection) throws IOException {
+        if (connection.channel.read(connection.readBuffer) < 0) {
+            close(connection);
+            return;
+        }
+
+        final ByteBuffer buffer = connection.readBuffer;
+        buffer.flip();
+        int needed = 0;
+        while(buffer.remaining() >= Integer.BYTES) {
+            final int start = buffer.position();
+            final int length = buffer.getInt(start);
+            if (length <= 0 || length > MAX_FRAME_SIZE)
+                throw new IOException("Invalid frame length: " + length);
+
+            final int end = start + Integer.BYTES + length;
+            if (end > buffer.limit()) {
+                needed = Integer.BYTES + length;
+                break;
+            }
+
+            final int limit = buffer.limit();
+            buffer.limit(end).position(start + Integer.BYTES);
+            final byte kind = buffer.get();
+            connection.frameInput.buffer(buffer);
+            try {
+                if (kind == KIND_ENVELOPE)
+                    onEnvelope(connection, reader.read(connection.dataInput), start, end);
+                else if (kind == KIND_WELCOME)
+                    onWelcome(connection, connection.dataInput.readUTF());
+            } catch (final RuntimeException e) {
+                throw new IOException("Malformed frame", e);
+            }
+            buffer.limit(limit).position(end);
+        }
+        buffer.compact();
+
+        // Make room for a frame bigger than the buffer
+        if (needed > buffer.capacity()) {
+            final ByteBuffer grown = pool.acquire(needed);
+            buffer.flip();
+            grown.put(buffer);
+            pool.release(buffer);
+            connection.readBuffer = grown;
+        }
+    }
+
+    private void requestWrite(final Connection connection) {
+        if (connection.writeRequested.compareAndSet(false, true)) {
+            pendingWrites.add(connection);
+            selector.wakeup();
+        }
+    }
+
+    /** Called holding the connection's lock. @return the frame to queue instead of the given one, if any */
+    private Frame overflow(final Connection connection, final Frame frame) {
+        switch (overflowPolicy) {
+            case DISCONNECT:
+                discard(connection, frame);
+                if (!connection.overflowed) {
+                    connection.overflowed = true;
+                    pendingWrites.add(connection);
+                    selector.wakeup();
+                }
+                return null;
+            case COALESCE:
+                final Frame merged = coalesce(connection, frame);
+                if (merged != null)
+                    return merged;
+                // Nothing to merge with
+                return dropOldestSignals(connection, frame);
+            default:
+                return dropOldestSignals(connection, frame);
+        }
+    }
+
+    private Frame dropOldestSignals(final Connection connection, final Frame frame) {
+        for(final Frame queued : connection.outbound)
+            if (queued.isSignals() && connection.outbound.remove(queued)) {
+                discard(connection, queued);
+                return frame;
+            }
+
+        if (frame.isSignals()) {
+            discard(connection, frame);
+            return null;
+        }
+        return frame;
+    }
+
+    /**
+     * @return a frame with the signals of the last queued frame and of the given one, if the last
+     * one is signals for the same recipient, from the same sender, and they're not too big together
+     */
+    private Frame coalesce(final Connection connection, final Frame frame) {
+        if (!frame.isSignals())
+            return null;
+
+        // Other producers wait for the connection's lock, so the tail can only go if it's the head too
+        final Frame tail = connection.outbound.peekLast();
+        final Header header = frame.envelope.header();
+        final MessageType type = frame.envelope.payload().type();
+        if (tail == null || !tail.isSignals() || tail.envelope.payload().type() != type ||
+                !tail.envelope.header().from().equals(header.from()) ||
+                !tail.envelope.header().to().equals(header.to()) ||
+                tail.buffer.remaining() + frame.buffer.remaining() > MAX_COALESCED_FRAME_SIZE ||
+                !connection.outbound.removeLastOccurrence(tail))
+            return null;
+
+        final Signals signals = Signals.create();
+        signals.addAll(((SignalsMessage) tail.envelope.payload()).signals());
+        signals.addAll(((SignalsMessage) frame.envelope.payload()).signals());
+        final Envelope<Message> envelope = Envelope.of(header, type == MessageType.SIGNALS_V2 ?
+                SignalsMessage.timestamped(signals) : SignalsMessage.of(signals));
+        try {
+            final Frame coalesced = new Frame(encode(envelope), envelope, tail.queuedNanos);
+            connection.queued.decrementAndGet();
+            pool.release(tail.buffer);
+            pool.release(frame.buffer);
+            connection.metrics.coalesced(1);
+            return coalesced;
+        } catch (final IOException e) {
+            // Can't happen writing to memory; keep both frames as they were
+            connection.outbound.addLast(tail);
+            return frame;
+        }
+    }
+
+    private void discard(final Connection connection, final Frame frame) {
+        connection.queued.decrementAndGet();
+        connection.metrics.dropped();
+        pool.release(frame.buffer);
+    }
+
+    private void flush(final Connection connection) throws IOException {
+        final SelectionKey key = connection.key;
+        while(true) {
+            for(Frame frame; connection.inFlight.size() < Connection.MAX_GATHER &&
+                    (frame = connection.outbound.poll()) != null; ) {
+                connection.queued.decrementAndGet();
+                connection.metrics.sent(System.nanoTime() - frame.queuedNanos);
+                connection.inFlight.add(frame.buffer);
+            }
+
+            if (connection.inFlight.isEmpty()) {
+                connection.writeRequested.set(false);
+                // Frames queued after the poll above, whose producer saw the write already requested
+                if (!connection.outbound.isEmpty() && connection.writeRequested.compareAndSet(false, true))
+                    continue;
+
+                if ((key.interestOps() & SelectionKey.OP_WRITE) != 0)
+                    key.interestOps(SelectionKey.OP_READ);
+                return;
+            }
+
+            final int count = connection.inFlight.size();
+            connection.channel.write(connection.inFlight.toArray(connection.gather), 0, count);
+            while(!connection.inFlight.isEmpty() && !connection.inFlight.peek().hasRemaining())
+                pool.release(connection.inFlight.poll());
+
+            if (!connection.inFlight.isEmpty()) {
+                // Socket buffer full: carry on once it's writable again
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+    }
+
+    /** Per-thread frame encoding state */
+    private final class Encoder {
+        private final FrameOutputStream output = new FrameOutputStream(pool);
+        private final DataOutputStream data = new DataOutputStream(output);
+
+        private void begin(final byte kind) throws IOException {
+            output.begin(INITIAL_FRAME_SIZE);
+            data.writeInt(0);
+            data.writeByte(kind);
+        }
+
+        private ByteBuffer end() throws IOException {
+            data.flush();
+            final ByteBuffer buffer = output.buffer();
+            buffer.putInt(0, buffer.position() - Integer.BYTES);
+            return output.end();
+        }
+    }
+
+    private static final byte KIND_ENVELOPE = 0;
+    private static final byte KIND_WELCOME = 1;
+    private static final int INITIAL_FRAME_SIZE = 256;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+    /** Frames aren't coalesced beyond this size, well within what receivers accept */
+    private static final int MAX_COALESCED_FRAME_SIZE = 64 * 1024;
+}
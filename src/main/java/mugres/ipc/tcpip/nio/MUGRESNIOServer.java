@@ -0,0 +1,165 @@
+package mugres.ipc.tcpip.nio;
+
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.protocol.Message;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static mugres.ipc.tcpip.MUGRESTCPIPServer.DEFAULT_PORT;
+
+/**
+ * MUGRES server on the NIO transport. Every client gets a name when it connects; messages
+ * between clients are relayed as they were received, without decoding them again. There's no
+ * limit on the number of clients; every one of them has an outbound queue of its own, bounded
+ * by the queue capacity.
+ */
+public class MUGRESNIOServer extends MUGRESNIONode {
+    private final int port;
+    private final Map<String, Connection> clients = new ConcurrentHashMap<>();
+    private final AtomicInteger clientSequence = new AtomicInteger();
+    private ServerSocketChannel serverChannel;
+
+    private MUGRESNIOServer(final int port, final int queueCapacity, final OverflowPolicy overflowPolicy) {
+        super(queueCapacity, overflowPolicy);
+
+        this.port = port;
+    }
+
+    public static MUGRESNIOServer of() {
+        return of(DEFAULT_PORT);
+    }
+
+    /** @param port port to listen on, or 0 for any free port */
+    public static MUGRESNIOServer of(final int port) {
+        return of(port, DEFAULT_QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST_SIGNALS);
+    }
+
+    /**
+     * @param port port to listen on, or 0 for any free port
+     * @param queueCapacity maximum number of messages waiting to be written to every client
+     */
+    public static MUGRESNIOServer of(final int port, final int queueCapacity, final OverflowPolicy overflowPolicy) {
+        return new MUGRESNIOServer(port, queueCapacity, overflowPolicy);
+    }
+
+    public boolean isRunning() {
+        return isWorkerRunning();
+    }
+
+    /** Port actually listened on */
+    public int port() {
+        return serverChannel == null ? port : serverChannel.socket().getLocalPort();
+    }
+
+    /** Names of the connected clients */
+    public Set<String> clients() {
+        return Collections.unmodifiableSet(clients.keySet());
+    }
+
+    /** Outbound metrics of every connected client, by name */
+    public Map<String, ClientMetrics.Snapshot> clientMetrics() {
+        final Map<String, ClientMetrics.Snapshot> metrics = new TreeMap<>();
+        for(final Connection client : clients.values())
+            metrics.put(client.name, metrics(client));
+        return metrics;
+    }
+
+    public synchronized void start() throws IOException {
+        if (isRunning())
+            throw new IllegalStateException("Already running!");
+
+        openSelector();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector(), SelectionKey.OP_ACCEPT);
+
+        startWorker("MUGRES NIO Server");
+    }
+
+    public synchronized void stop() {
+        stopWorker();
+        try {
+            if (serverChannel != null)
+                serverChannel.close();
+        } catch (final IOException ignore) {
+            // Do nothing
+        }
+        clients.clear();
+    }
+
+    @Override
+    public void send(final String to, final Message message) throws IOException {
+        final Connection client = clients.get(to);
+        if (client == null)
+            throw new IOException("Unknown client: " + to);
+
+        final Envelope<Message> envelope = Envelope.of(Header.of(SERVER, to), message);
+        enqueue(client, encode(envelope), envelope);
+    }
+
+    @Override
+    public void broadcast(final Message message) throws IOException {
+        for(final Connection client : clients.values()) {
+            final Envelope<Message> envelope = Envelope.of(Header.of(SERVER, client.name), message);
+            enqueue(client, encode(envelope), envelope);
+        }
+    }
+
+    @Override
+    void onAcceptable() throws IOException {
+        final SocketChannel channel = serverChannel.accept();
+        if (channel == null)
+            return;
+
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        final Connection client = register(channel);
+        client.name = CLIENT_NAME_PREFIX + clientSequence.incrementAndGet();
+        clients.put(client.name, client);
+        enqueue(client, encodeWelcome(client.name), null);
+    }
+
+    @Override
+    void onEnvelope(final Connection connection, final Envelope<Message> envelope, final int start, final int end) {
+        final String to = envelope.header().to();
+        if (!isValidRoute(envelope.payload().type(), to))
+            return;
+
+        if (SERVER.equals(to)) {
+            deliver(envelope);
+        } else if (BROADCAST.equals(to)) {
+            for(final Connection client : clients.values())
+                if (client != connection)
+                    enqueue(client, copyFrame(connection, start, end), envelope);
+            deliver(envelope);
+        } else {
+            final Connection client = clients.get(to);
+            if (client != null)
+                enqueue(client, copyFrame(connection, start, end), envelope);
+        }
+    }
+
+    @Override
+    void onClosed(final Connection connection) {
+        if (connection.name != null)
+            clients.remove(connection.name, connection);
+    }
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 4096;
+
+    private static final String CLIENT_NAME_PREFIX = "client-";
+}
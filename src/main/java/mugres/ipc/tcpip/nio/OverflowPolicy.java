@@ -0,0 +1,18 @@
+package mugres.ipc.tcpip.nio;
+
+/** What the server does when a client's outbound queue is full, because the client is too slow. */
+public enum OverflowPolicy {
+    /**
+     * Drops the oldest signals message waiting for the client, or the new one if it's signals and
+     * there's none waiting. Other messages are always queued.
+     */
+    DROP_OLDEST_SIGNALS,
+    /**
+     * Merges the new signals message into the last one waiting for the client, if that one is
+     * signals too, from the same sender, and the merged message isn't too big. Falls back to
+     * {@link #DROP_OLDEST_SIGNALS} otherwise.
+     */
+    COALESCE,
+    /** Disconnects the client */
+    DISCONNECT
+}
@@ -0,0 +1,116 @@
+package mugres.core;
+
+import mugres.core.common.Pitch;
+import mugres.core.live.processor.ActiveNoteTable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ActiveNoteTableTests {
+    @Test
+    public void activateAndDeactivate() {
+        final ActiveNoteTable table = ActiveNoteTable.of();
+        final List<String> notified = new ArrayList<>();
+        table.addListener(listener(notified));
+
+        table.activate(1, Pitch.MIDDLE_C, 10);
+        assertTrue(table.isSignalActive(1, Pitch.MIDDLE_C));
+        assertFalse(table.isSignalActive(2, Pitch.MIDDLE_C));
+        assertEquals(10, table.activeEvent(1, Pitch.MIDDLE_C));
+        assertTrue(table.isEventActive(10));
+        assertEquals(1, table.sounding());
+        assertEquals(1, table.sounding(1));
+
+        table.deactivate(1, Pitch.MIDDLE_C);
+        assertFalse(table.isSignalActive(1, Pitch.MIDDLE_C));
+        assertEquals(0, table.activeEvent(1, Pitch.MIDDLE_C));
+        assertFalse(table.isEventActive(10));
+        assertEquals(0, table.sounding());
+        assertEquals(0, table.sounding(1));
+
+        // Nothing sounding: nothing to notify
+        table.deactivate(1, Pitch.MIDDLE_C);
+        assertEquals(0, table.sounding());
+
+        assertEquals("+10@1:60 -10@1:60", String.join(" ", notified));
+    }
+
+    @Test
+    public void activatingSoundingNoteReplacesItsEvent() {
+        final ActiveNoteTable table = ActiveNoteTable.of();
+
+        table.activate(1, Pitch.MIDDLE_C, 10);
+        table.activate(1, Pitch.MIDDLE_C, 11);
+        assertFalse(table.isEventActive(10));
+        assertTrue(table.isEventActive(11));
+        assertEquals(1, table.sounding());
+
+        table.deactivate(1, Pitch.MIDDLE_C);
+        assertFalse(table.isEventActive(11));
+        assertEquals(0, table.sounding());
+    }
+
+    @Test
+    public void noEventCantBeActivated() {
+        assertThrows(IllegalArgumentException.class, () -> ActiveNoteTable.of().activate(1, Pitch.MIDDLE_C, 0));
+    }
+
+    @Test
+    public void interleavedUpdatesLeaveNoStaleEvents() throws InterruptedException {
+        final ActiveNoteTable table = ActiveNoteTable.of();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Thread activating = new Thread(() -> {
+            await(start);
+            for(long eventId = 1; eventId <= ROUNDS; eventId++)
+                table.activate(1, Pitch.MIDDLE_C, eventId);
+        });
+        final Thread deactivating = new Thread(() -> {
+            await(start);
+            for(int round = 0; round < ROUNDS; round++)
+                table.deactivate(1, Pitch.MIDDLE_C);
+        });
+        activating.start();
+        deactivating.start();
+        start.countDown();
+        activating.join();
+        deactivating.join();
+
+        // Whatever the interleaving, only the event in the slot, if any, is active
+        final long sounding = table.activeEvent(1, Pitch.MIDDLE_C);
+        for(long eventId = 1; eventId <= ROUNDS; eventId++)
+            assertEquals(eventId == sounding, table.isEventActive(eventId));
+        assertEquals(sounding == 0 ? 0 : 1, table.sounding());
+        assertEquals(sounding == 0 ? 0 : 1, table.sounding(1));
+    }
+
+    private static ActiveNoteTable.Listener listener(final List<String> notified) {
+        return new ActiveNoteTable.Listener() {
+            @Override
+            public void activated(final long activated, final int channel, final Pitch pitch) {
+                notified.add("+" + activated + "@" + channel + ":" + pitch.midi());
+            }
+
+            @Override
+            public void deactivated(final long deactivated, final int channel, final Pitch pitch) {
+                notified.add("-" + deactivated + "@" + channel + ":" + pitch.midi());
+            }
+        };
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final int ROUNDS = 100_000;
+}
@@ -0,0 +1,145 @@
+package mugres.core;
+
+import mugres.core.common.Context;
+import mugres.core.common.Event;
+import mugres.core.common.Instrument;
+import mugres.core.common.Length;
+import mugres.core.common.Party;
+import mugres.core.common.Pitch;
+import mugres.core.function.Call;
+import mugres.core.function.CallCache;
+import mugres.core.function.Function.EventsFunction;
+import mugres.core.notation.Section;
+import mugres.core.notation.Song;
+import mugres.core.notation.performance.Performance;
+import mugres.core.notation.performance.Performer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static mugres.core.common.Context.basicContext;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CallCacheTests {
+    @Test
+    public void deterministicCallsAreReusedAcrossPerformances() {
+        final CallCache cache = CallCache.of();
+        final Counting function = new Counting(true);
+        final Song song = song(function, 4, null);
+
+        final Performance first = Performer.perform(song, cache);
+        assertEquals(1, function.executions.get());
+        final Performance second = Performer.perform(song, cache);
+        assertEquals(1, function.executions.get());
+        assertEquals(first.tracks().iterator().next().events().toString(),
+                second.tracks().iterator().next().events().toString());
+        assertEquals(1, cache.snapshot().hits());
+
+        // Different arguments, different result
+        Performer.perform(song(function, 2, null), cache);
+        assertEquals(2, function.executions.get());
+    }
+
+    @Test
+    public void randomCallsAreOnlyReusedForTheSameSeed() {
+        final CallCache cache = CallCache.of();
+        final Counting function = new Counting(false);
+
+        Performer.perform(song(function, 4, null), cache);
+        Performer.perform(song(function, 4, null), cache);
+        assertEquals(2, function.executions.get());
+        assertEquals(2, cache.snapshot().bypassed());
+
+        Performer.perform(song(function, 4, 42L), cache);
+        Performer.perform(song(function, 4, 42L), cache);
+        assertEquals(3, function.executions.get());
+        Performer.perform(song(function, 4, 43L), cache);
+        assertEquals(4, function.executions.get());
+    }
+
+    @Test
+    public void leastRecentlyUsedResultsAreEvicted() {
+        // Room for two results of 4 events
+        final CallCache cache = CallCache.of(16, 8);
+        final Counting function = new Counting(true);
+        final Context context = basicContext();
+
+        cache.execute(call(function, 1), context);
+        cache.execute(call(function, 2), context);
+        cache.execute(call(function, 1), context);
+        cache.execute(call(function, 3), context);
+        assertEquals(3, function.executions.get());
+        assertEquals(1, cache.snapshot().evictions());
+        assertEquals(8, cache.snapshot().weight());
+
+        // 2 was the least recently used
+        cache.execute(call(function, 1), context);
+        assertEquals(3, function.executions.get());
+        cache.execute(call(function, 2), context);
+        assertEquals(4, function.executions.get());
+    }
+
+    @Test
+    public void resultsAreKeyedByContext() {
+        final CallCache cache = CallCache.of();
+        final Counting function = new Counting(true);
+
+        cache.execute(call(function, 1), basicContext());
+        cache.execute(call(function, 1), basicContext().tempo(90));
+        cache.execute(call(function, 1), basicContext().tempo(90));
+        assertEquals(2, function.executions.get());
+        assertTrue(cache.snapshot().hitRatio() > 0.3);
+    }
+
+    private static Song song(final Counting function, final int pitch, final Long seed) {
+        final Song song = Song.of("Cached", basicContext());
+        if (seed != null)
+            song.context().seed(seed);
+        final Section section = song.createSection("A", 1);
+        song.arrangement().append(section, 2);
+        section.addPart(PARTY, call(function, pitch));
+        return song;
+    }
+
+    private static Call<List<Event>> call(final Counting function, final int pitch) {
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("pitch", pitch);
+        return Call.of(function, 1, arguments);
+    }
+
+    /** Four quarter notes of the given pitch */
+    private static final class Counting extends EventsFunction {
+        private final boolean deterministic;
+        private final AtomicInteger executions = new AtomicInteger();
+
+        private Counting(final boolean deterministic) {
+            super("counting" + INSTANCES.incrementAndGet(), "Counts executions",
+                    Parameter.of("pitch", "Pitch", Parameter.DataType.INTEGER));
+            this.deterministic = deterministic;
+        }
+
+        @Override
+        public boolean isDeterministic(final Map<String, Object> arguments) {
+            return deterministic;
+        }
+
+        @Override
+        protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
+            executions.incrementAndGet();
+            final List<Event> events = new ArrayList<>();
+            for(int index = 0; index < 4; index++)
+                events.add(Event.of(Length.QUARTER.multiply(index), Pitch.of((int) arguments.get("pitch")),
+                        Length.QUARTER, 100));
+            return events;
+        }
+    }
+
+    private static final Party PARTY = new Party("Party", Instrument.Acoustic_Grand_Piano, 0);
+    /** Functions are registered by name */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+}
@@ -0,0 +1,111 @@
+package mugres.core;
+
+import mugres.core.common.Context;
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.clock.Clock;
+import mugres.core.common.clock.VirtualClock;
+import mugres.core.common.frequency.builtin.Synced;
+import mugres.core.common.io.CapturingOutput;
+import mugres.core.common.io.SimpleInput;
+import mugres.core.filter.builtin.arp.Arpeggiate;
+import mugres.core.live.processor.transformer.Transformer;
+import mugres.core.live.processor.transformer.config.Configuration;
+import mugres.core.live.scheduler.SignalScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClockTests {
+    @Test
+    public void schedulerDispatchesAsVirtualClockAdvances() {
+        final VirtualClock clock = VirtualClock.of(1000L);
+        final SignalScheduler scheduler = SignalScheduler.forClock(clock);
+        final List<Signal> dispatched = new ArrayList<>();
+
+        final Signal second = signal(1020L);
+        final Signal first = signal(1010L);
+        scheduler.schedule(second, dispatched::add);
+        scheduler.schedule(first, dispatched::add);
+
+        clock.advance(15, MILLISECONDS);
+        assertEquals(1, dispatched.size());
+        assertEquals(first, dispatched.get(0));
+        assertEquals(1015L, clock.millis());
+
+        clock.advance(5, MILLISECONDS);
+        assertEquals(2, dispatched.size());
+        assertEquals(second, dispatched.get(1));
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    public void oneSchedulerPerVirtualClock() {
+        final VirtualClock clock = VirtualClock.of(0L);
+        assertTrue(SignalScheduler.forClock(clock) == SignalScheduler.forClock(clock));
+        assertFalse(SignalScheduler.forClock(clock) == SignalScheduler.forClock(VirtualClock.of(0L)));
+        assertTrue(SignalScheduler.forClock(Clock.system()) == SignalScheduler.shared());
+    }
+
+    @Test
+    public void syncedTicksOnVirtualClock() {
+        final VirtualClock clock = VirtualClock.of(0L);
+        final Synced frequency = Synced.of(clock, 100);
+        final List<Long> ticks = new ArrayList<>();
+        frequency.addListener(ticks::add);
+
+        frequency.start();
+        clock.advance(1, SECONDS);
+        frequency.stop();
+        clock.advance(1, SECONDS);
+
+        assertEquals(11, ticks.size());
+        for(int index = 0; index < ticks.size(); index++)
+            assertEquals(index * 100L, (long) ticks.get(index));
+        assertEquals(0, frequency.lateness().late());
+    }
+
+    @Test
+    public void transformerOnVirtualClock() {
+        final VirtualClock clock = VirtualClock.of(0L);
+        final Context context = Context.basicContext().clock(clock);
+        final SimpleInput input = new SimpleInput();
+        final CapturingOutput output = CapturingOutput.of();
+
+        final Configuration config = new Configuration();
+        config.appendFilter(Arpeggiate.NAME, "pattern", "1 100ms");
+        final Transformer transformer = new Transformer(context, input, output, config);
+        transformer.start();
+
+        input.send(signal(clock.millis()));
+        assertEquals(0, output.count());
+
+        clock.runDue();
+        assertEquals(1, output.count());
+
+        clock.advance(99, MILLISECONDS);
+        assertEquals(1, output.count());
+
+        clock.advance(1, MILLISECONDS);
+        final List<CapturingOutput.Captured> captured = output.drain();
+        assertEquals(2, captured.size());
+        assertTrue(captured.get(0).signal().isActive());
+        assertFalse(captured.get(1).signal().isActive());
+        assertEquals(100L, captured.get(1).signal().time());
+
+        transformer.stop();
+    }
+
+    private static Signal signal(final long time) {
+        return Signal.on(EventIds.next(), time, 1, Played.of(Pitch.MIDDLE_C, 100));
+    }
+}
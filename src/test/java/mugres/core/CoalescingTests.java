@@ -0,0 +1,205 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.core.utils.metrics.MetricsRegistry;
+import mugres.core.utils.metrics.StageMetrics;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.protocol.messages.TextMessage;
+import mugres.ipc.tcpip.MUGRESCoalescingNode;
+import mugres.ipc.tcpip.MUGRESTCPIPNode;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingTests {
+    @Test
+    public void mergeSignalsWithinWindow() throws IOException, InterruptedException {
+        final CapturingNode captured = new CapturingNode();
+        final MetricsRegistry metrics = MetricsRegistry.of();
+        metrics.enable();
+        final MUGRESCoalescingNode node = MUGRESCoalescingNode.of(captured, 200_000, 64, metrics);
+
+        for(int note = 0; note < 10; note++)
+            node.send("a", signals(note));
+        node.broadcast(signals(100));
+
+        final long deadline = System.currentTimeMillis() + 5000;
+        while(captured.sent.size() < 2 && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+
+        assertEquals(2, captured.sent.size());
+        final Sent toA = captured.sent.get(0).to == null ? captured.sent.get(1) : captured.sent.get(0);
+        assertEquals("a", toA.to);
+        final Signals merged = ((SignalsMessage) toA.message).signals();
+        assertEquals(10, merged.size());
+        for(int note = 0; note < 10; note++)
+            assertEquals(note, merged.signals().get(note).time());
+
+        final StageMetrics.Snapshot snapshot = metrics.stage(MUGRESCoalescingNode.STAGE).snapshot();
+        assertEquals(11, snapshot.in());
+        assertEquals(2, snapshot.out());
+        assertTrue(snapshot.latency().max() > 0);
+
+        node.stop();
+    }
+
+    @Test
+    public void keepOrderAndSizeLimit() throws IOException {
+        final CapturingNode captured = new CapturingNode();
+        final MUGRESCoalescingNode node = MUGRESCoalescingNode.of(captured, 1_000_000, 4);
+
+        for(int note = 0; note < 6; note++)
+            node.send("a", signals(note));
+        // Sent right away: 4 signals
+        assertEquals(1, captured.sent.size());
+        assertEquals(4, ((SignalsMessage) captured.sent.get(0).message).signals().size());
+
+        // Goes after the 2 pending signals
+        node.send("a", TextMessage.of("hello"));
+        assertEquals(3, captured.sent.size());
+        assertEquals(2, ((SignalsMessage) captured.sent.get(1).message).signals().size());
+        assertEquals("hello", ((TextMessage) captured.sent.get(2).message).text());
+
+        node.stop();
+    }
+
+    @Test
+    public void broadcastsGoBeforeDirectedMessages() throws IOException {
+        final CapturingNode captured = new CapturingNode();
+        final MUGRESCoalescingNode node = MUGRESCoalescingNode.of(captured, 1_000_000, 64);
+
+        node.broadcast(signals(0));
+        node.send("b", signals(1));
+        node.send("a", signals(2));
+        // Flushes what "a" would get: the broadcast batch, then its own, but not "b"'s
+        node.send("a", TextMessage.of("hello"));
+        assertEquals(3, captured.sent.size());
+        assertEquals(null, captured.sent.get(0).to);
+        assertEquals(0, ((SignalsMessage) captured.sent.get(0).message).signals().first().time());
+        assertEquals("a", captured.sent.get(1).to);
+        assertEquals(2, ((SignalsMessage) captured.sent.get(1).message).signals().first().time());
+        assertEquals("hello", ((TextMessage) captured.sent.get(2).message).text());
+
+        node.stop();
+        assertEquals(4, captured.sent.size());
+        assertEquals("b", captured.sent.get(3).to);
+    }
+
+    @Test
+    public void olderBatchesGoFirstWhenOneIsFull() throws IOException {
+        final CapturingNode captured = new CapturingNode();
+        final MUGRESCoalescingNode node = MUGRESCoalescingNode.of(captured, 1_000_000, 4);
+
+        // A full batch for "a" takes the older broadcast one with it
+        node.broadcast(signals(0));
+        node.send("b", signals(1));
+        for(int note = 2; note < 6; note++)
+            node.send("a", signals(note));
+        assertEquals(2, captured.sent.size());
+        assertEquals(null, captured.sent.get(0).to);
+        assertEquals("a", captured.sent.get(1).to);
+        assertEquals(4, ((SignalsMessage) captured.sent.get(1).message).signals().size());
+
+        // A full broadcast batch takes every older one with it
+        node.send("a", signals(6));
+        for(int note = 7; note < 11; note++)
+            node.broadcast(signals(note));
+        assertEquals(5, captured.sent.size());
+        assertEquals("b", captured.sent.get(2).to);
+        assertEquals("a", captured.sent.get(3).to);
+        assertEquals(6, ((SignalsMessage) captured.sent.get(3).message).signals().first().time());
+        assertEquals(null, captured.sent.get(4).to);
+        assertEquals(4, ((SignalsMessage) captured.sent.get(4).message).signals().size());
+
+        // Not merged into a batch older than a pending broadcast
+        node.send("a", signals(11));
+        node.broadcast(signals(12));
+        node.send("a", signals(13));
+        assertEquals(7, captured.sent.size());
+        assertEquals(11, ((SignalsMessage) captured.sent.get(5).message).signals().first().time());
+        assertEquals(12, ((SignalsMessage) captured.sent.get(6).message).signals().first().time());
+
+        node.stop();
+        assertEquals(8, captured.sent.size());
+        assertEquals(13, ((SignalsMessage) captured.sent.get(7).message).signals().first().time());
+    }
+
+    @Test
+    public void failuresOnlyReachTheirSender() throws IOException {
+        final CapturingNode captured = new CapturingNode("b");
+        final MUGRESCoalescingNode node = MUGRESCoalescingNode.of(captured, 1_000_000, 2);
+
+        // "b"'s batch goes, and fails, before the broadcast, which is still sent
+        node.send("b", signals(0));
+        node.broadcast(signals(1));
+        node.broadcast(signals(2));
+        assertEquals(1, node.failed());
+        assertEquals(1, captured.sent.size());
+        assertEquals(null, captured.sent.get(0).to);
+
+        try {
+            node.send("b", TextMessage.of("hello"));
+            throw new AssertionError("Sent");
+        } catch (final IOException expected) {
+            assertEquals(2, node.failed());
+        }
+
+        node.stop();
+    }
+
+    private static SignalsMessage signals(final long time) {
+        return SignalsMessage.timestamped(Signals.of(
+                Signal.on(EventIds.next(), time, 1, Played.of(Pitch.of(60), 100))));
+    }
+
+    private static class Sent {
+        private final String to;
+        private final Message message;
+
+        private Sent(final String to, final Message message) {
+            this.to = to;
+            this.message = message;
+        }
+    }
+
+    private static class CapturingNode extends MUGRESTCPIPNode {
+        private final List<Sent> sent = new CopyOnWriteArrayList<>();
+        private final String failing;
+
+        private CapturingNode() {
+            this(null);
+        }
+
+        /** @param failing destination that messages can't be sent to */
+        private CapturingNode(final String failing) {
+            this.failing = failing;
+        }
+
+        @Override
+        public void send(final String to, final Message message) throws IOException {
+            if (to.equals(failing))
+                throw new IOException("Can't send to " + to);
+            sent.add(new Sent(to, message));
+        }
+
+        @Override
+        public void broadcast(final Message message) {
+            sent.add(new Sent(null, message));
+        }
+
+        @Override
+        public String serverName() {
+            return "SERVER";
+        }
+    }
+}
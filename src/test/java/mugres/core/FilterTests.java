@@ -0,0 +1,69 @@
+package mugres.core;
+
+import mugres.core.common.Context;
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.core.common.Tags;
+import mugres.core.filter.Filter;
+import mugres.core.filter.builtin.arp.Arpeggiate;
+import mugres.core.filter.builtin.misc.Transpose;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FilterTests {
+    @Test
+    public void resolveOnContextChange() {
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("pattern", "1q");
+        final Filter arpeggiate = Filter.of(Arpeggiate.NAME, arguments);
+        final Context context = Context.basicContext();
+
+        assertEquals(500, noteLength(arpeggiate.accept(context, input())));
+
+        context.tempo(60);
+        assertEquals(1000, noteLength(arpeggiate.accept(context, input())));
+    }
+
+    @Test
+    public void onlyForTags() {
+        for(int index = 0; index < 70; index++)
+            Tags.id("filler-" + index);
+
+        final Map<String, Object> arguments = new HashMap<>();
+        arguments.put("semitones", 12);
+        arguments.put("onlyForTags", "high,spilled");
+        final Filter transpose = Filter.of(Transpose.NAME, arguments);
+        final Context context = Context.basicContext();
+
+        final Signal untagged = input().first();
+        final Signal tagged = input().first();
+        tagged.addTag("high");
+        final Signal spilled = input().first();
+        spilled.addTag("spilled");
+        assertTrue(Tags.id("spilled") >= 64);
+
+        final Signals result = transpose.accept(context, Signals.of(untagged, tagged, spilled));
+        assertEquals(3, result.size());
+        for(final Signal signal : result.signals())
+            assertEquals(signal.hasTags() ? 72 : 60, signal.played().pitch().midi());
+        assertEquals(new HashSet<>(asList("spilled")), result.signals().get(1).tags());
+    }
+
+    private static Signals input() {
+        return Signals.of(Signal.on(EventIds.next(), 0, 1, Played.of(Pitch.of(60), 100)));
+    }
+
+    private static long noteLength(final Signals signals) {
+        return signals.inactives().first().time() - signals.actives().first().time();
+    }
+}
@@ -0,0 +1,28 @@
+package mugres.core;
+
+import mugres.core.utils.metrics.Histogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramTests {
+    @Test
+    public void percentiles() {
+        final Histogram histogram = Histogram.of();
+        for(long value = 1; value <= 100_000; value++)
+            histogram.record(value * 1000);
+
+        final Histogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(100_000, snapshot.count());
+        assertEquals(100_000_000, snapshot.max());
+        assertWithin(50_000_000, snapshot.percentile(50));
+        assertWithin(99_000_000, snapshot.percentile(99));
+        assertWithin(99_900_000, snapshot.percentile(99.9));
+        assertEquals(1000, snapshot.percentile(0));
+    }
+
+    private static void assertWithin(final long expected, final long actual) {
+        assertTrue(Math.abs(actual - expected) <= expected * 0.03, expected + " ~ " + actual);
+    }
+}
@@ -0,0 +1,145 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Instrument;
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Tags;
+import mugres.core.common.clock.VirtualClock;
+import mugres.core.common.io.Input;
+import mugres.core.common.io.JournalInput;
+import mugres.core.common.io.JournalReader;
+import mugres.core.common.io.JournalRecorder;
+import mugres.core.common.io.SimpleInput;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class JournalTests {
+    @Test
+    public void readWhileRecording() throws IOException {
+        final Path directory = Files.createTempDirectory("mugres-journal");
+        final SimpleInput input = new SimpleInput();
+        final JournalRecorder recorder = JournalRecorder.of(directory, 2).record(input);
+        final JournalReader reader = JournalReader.of(directory);
+
+        final Signal first = signal(1000L, 60, true);
+        first.addTag("lead");
+        input.send(first);
+
+        assertTrue(reader.next());
+        final Signal read = reader.signal();
+        assertEquals(first.eventId(), read.eventId());
+        assertEquals(1000L, read.time());
+        assertEquals(1, read.channel());
+        assertEquals(60, read.played().pitch().midi());
+        assertEquals(100, read.played().velocity());
+        assertTrue(read.isActive());
+        assertTrue(read.hasTag("lead"));
+        assertFalse(reader.next());
+
+        // Rolls into a second and third segment
+        input.send(signal(1100L, 60, false));
+        input.send(InstrumentChange.of(2, Instrument.Acoustic_Grand_Piano));
+        input.send(signal(1200L, 64, true));
+        recorder.close();
+
+        assertTrue(reader.next());
+        assertFalse(reader.signal().isActive());
+        assertTrue(reader.next());
+        assertTrue(reader.isInstrumentChange());
+        assertEquals(Instrument.Acoustic_Grand_Piano, reader.instrumentChange().instrument());
+        assertTrue(reader.next());
+        assertEquals(64, reader.pitch());
+        assertFalse(reader.next());
+        assertEquals(4, reader.read());
+        assertEquals(4, recorder.recorded());
+    }
+
+    @Test
+    public void replayOnVirtualClock() throws IOException {
+        final Path directory = Files.createTempDirectory("mugres-journal");
+        final SimpleInput input = new SimpleInput();
+        try(final JournalRecorder recorder = JournalRecorder.of(directory).record(input)) {
+            input.send(signal(5000L, 60, true));
+            input.send(signal(5250L, 60, false));
+            input.send(signal(6000L, 62, true));
+        }
+
+        final VirtualClock clock = VirtualClock.of(0L);
+        final JournalInput replay = JournalInput.of(directory, clock);
+        final List<Signal> received = new ArrayList<>();
+        replay.addListener(new Input.Listener() {
+            @Override
+            public void receive(final Signal signal) {
+                received.add(signal);
+            }
+
+            @Override
+            public void receive(final InstrumentChange instrumentChange) {
+            }
+        });
+
+        assertEquals(3, replay.replay(JournalInput.AS_FAST_AS_POSSIBLE));
+        assertEquals(3, received.size());
+        assertEquals(0L, received.get(0).time());
+        assertEquals(250L, received.get(1).time());
+        assertEquals(1000L, received.get(2).time());
+        assertEquals(1000L, clock.millis());
+    }
+
+    @Test
+    public void extendedTagsAndInstrumentChangeTimes() throws IOException {
+        final Path directory = Files.createTempDirectory("mugres-journal");
+        final SimpleInput input = new SimpleInput();
+        final VirtualClock clock = VirtualClock.of(5000L);
+        final Signal tagged = signal(5000L, 60, true);
+        tagged.addTag("lead");
+        int tagId = Tags.id("journal-extended");
+        for(int index = 0; tagId < 2 * Long.SIZE; index++)
+            tagId = Tags.id("journal-extended-" + index);
+        tagged.addTag(tagId);
+
+        try(final JournalRecorder recorder = JournalRecorder.of(directory, 2, clock).record(input)) {
+            // Doesn't fit after the first signal: rolls, along with its tags, then rolls again
+            input.send(signal(4000L, 62, true));
+            input.send(tagged);
+            clock.advance(250, TimeUnit.MILLISECONDS);
+            input.send(InstrumentChange.of(2, Instrument.Acoustic_Grand_Piano));
+            assertEquals(3, recorder.recorded());
+        }
+        // The segment mapped ahead of time isn't left behind
+        try(final Stream<Path> segments = Files.list(directory)) {
+            assertEquals(3, segments.count());
+        }
+
+        final JournalReader reader = JournalReader.of(directory);
+        assertTrue(reader.next());
+        assertEquals(62, reader.pitch());
+        assertTrue(reader.next());
+        final Signal read = reader.signal();
+        assertEquals(tagged.tags(), read.tags());
+        assertTrue(read.hasTag(tagId));
+        assertTrue(reader.next());
+        assertTrue(reader.isInstrumentChange());
+        assertEquals(5250L, reader.time());
+        assertFalse(reader.next());
+        assertEquals(3, reader.read());
+    }
+
+    private static Signal signal(final long time, final int pitch, final boolean active) {
+        return Signal.of(EventIds.next(), time, 1, Played.of(Pitch.of(pitch), 100), active);
+    }
+}
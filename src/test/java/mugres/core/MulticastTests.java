@@ -0,0 +1,137 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.ipc.Envelope;
+import mugres.ipc.multicast.MUGRESMulticastClient;
+import mugres.ipc.multicast.MUGRESMulticastServer;
+import mugres.ipc.multicast.MulticastPublisher;
+import mugres.ipc.multicast.MulticastSubscriber;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.messages.NackMessage;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.protocol.messages.TextMessage;
+import mugres.ipc.tcpip.nio.MUGRESNIOClient;
+import mugres.ipc.tcpip.nio.MUGRESNIOServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static mugres.core.utils.Conditions.waitFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class MulticastTests {
+    @Test
+    public void broadcastSignalsAndRepairGaps() throws IOException, InterruptedException {
+        final NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        final InetSocketAddress group = new InetSocketAddress(InetAddress.getByName(GROUP), freePort());
+
+        final MUGRESNIOServer tcpServer = MUGRESNIOServer.of(0);
+        final MulticastPublisher publisher = MulticastPublisher.of(group, loopback, 0);
+        final MUGRESMulticastServer server = MUGRESMulticastServer.of(tcpServer, publisher);
+        tcpServer.start();
+        publisher.open();
+
+        final MUGRESNIOClient tcpClient = MUGRESNIOClient.of("localhost", tcpServer.port());
+        final MulticastSubscriber subscriber = MulticastSubscriber.of(group, loopback, 1000);
+        final MUGRESMulticastClient client = MUGRESMulticastClient.of(tcpClient, subscriber);
+        final List<Envelope<Message>> received = new CopyOnWriteArrayList<>();
+        client.setListener(received::add);
+        tcpClient.connect();
+        subscriber.start();
+
+        try {
+            broadcast(server, 0, BATCH);
+            waitFor(() -> received.size() == BATCH);
+
+            // Missed while not subscribed, then asked for and resent over TCP
+            subscriber.stop();
+            broadcast(server, BATCH, 2 * BATCH);
+            subscriber.start();
+            broadcast(server, 2 * BATCH, 3 * BATCH);
+            waitFor(() -> received.size() == 3 * BATCH);
+
+            for(int index = 0; index < received.size(); index++) {
+                final Envelope<Message> envelope = received.get(index);
+                assertEquals(server.serverName(), envelope.header().from());
+                assertEquals(index, ((SignalsMessage) envelope.payload()).signals().first().time());
+            }
+            assertEquals(0, subscriber.lost());
+            assertEquals(3 * BATCH, publisher.published());
+
+            // Other messages still go over TCP
+            server.broadcast(TextMessage.of("bye"));
+            waitFor(() -> received.size() == 3 * BATCH + 1);
+            assertEquals("bye", ((TextMessage) received.get(3 * BATCH).payload()).text());
+        } finally {
+            subscriber.stop();
+            tcpClient.disconnect();
+            publisher.close();
+            tcpServer.stop();
+        }
+    }
+
+    @Test
+    public void hugeNackOnlyResendsWhatIsKept() throws IOException, InterruptedException {
+        final NetworkInterface loopback = NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress());
+        final InetSocketAddress group = new InetSocketAddress(InetAddress.getByName(GROUP), freePort());
+
+        final MUGRESNIOServer tcpServer = MUGRESNIOServer.of(0);
+        final MulticastPublisher publisher = MulticastPublisher.of(group, loopback, 0);
+        final MUGRESMulticastServer server = MUGRESMulticastServer.of(tcpServer, publisher);
+        final List<Envelope<Message>> serverReceived = new CopyOnWriteArrayList<>();
+        server.setListener(serverReceived::add);
+        tcpServer.start();
+        publisher.open();
+
+        final MUGRESNIOClient tcpClient = MUGRESNIOClient.of("localhost", tcpServer.port());
+        final MulticastSubscriber subscriber = MulticastSubscriber.of(group, loopback, 1000);
+        final MUGRESMulticastClient client = MUGRESMulticastClient.of(tcpClient, subscriber);
+        final List<Envelope<Message>> received = new CopyOnWriteArrayList<>();
+        client.setListener(received::add);
+        tcpClient.connect();
+        subscriber.start();
+
+        try {
+            broadcast(server, 0, BATCH);
+            waitFor(() -> received.size() == BATCH);
+
+            tcpClient.sendToServer(NackMessage.of(publisher.session(), 0, Long.MAX_VALUE));
+            tcpClient.sendToServer(TextMessage.of("still there"));
+            waitFor(() -> serverReceived.size() == 1);
+            assertEquals("still there", ((TextMessage) serverReceived.get(0).payload()).text());
+
+            Thread.sleep(100);
+            assertEquals(BATCH, received.size());
+        } finally {
+            subscriber.stop();
+            tcpClient.disconnect();
+            publisher.close();
+            tcpServer.stop();
+        }
+    }
+
+    private static void broadcast(final MUGRESMulticastServer server, final int from, final int to) throws IOException {
+        for(int index = from; index < to; index++)
+            server.broadcast(SignalsMessage.timestamped(Signals.of(
+                    Signal.on(EventIds.next(), index, 1, Played.of(Pitch.of(60), 100)))));
+    }
+
+    private static int freePort() throws IOException {
+        try(final DatagramSocket socket = new DatagramSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static final String GROUP = "239.255.64.77";
+    private static final int BATCH = 100;
+}
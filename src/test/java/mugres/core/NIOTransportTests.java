@@ -0,0 +1,152 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.ipc.Envelope;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.protocol.messages.TextMessage;
+import mugres.ipc.tcpip.nio.ClientMetrics;
+import mugres.ipc.tcpip.nio.MUGRESNIOClient;
+import mugres.ipc.tcpip.nio.MUGRESNIOServer;
+import mugres.ipc.tcpip.nio.OverflowPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static mugres.core.utils.Conditions.waitFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class NIOTransportTests {
+    @Test
+    public void routeMessages() throws IOException, InterruptedException {
+        final MUGRESNIOServer server = MUGRESNIOServer.of(0);
+        final List<Envelope<Message>> atServer = new CopyOnWriteArrayList<>();
+        server.setListener(atServer::add);
+        server.start();
+
+        final MUGRESNIOClient first = MUGRESNIOClient.of("localhost", server.port());
+        final MUGRESNIOClient second = MUGRESNIOClient.of("localhost", server.port());
+        final List<Envelope<Message>> atSecond = new CopyOnWriteArrayList<>();
+        second.setListener(atSecond::add);
+        first.connect();
+        second.connect();
+
+        try {
+            first.sendToServer(TextMessage.of("hello"));
+            for(int index = 0; index < MESSAGES; index++)
+                first.send(second.name(), SignalsMessage.timestamped(Signals.of(
+                        Signal.on(EventIds.next(), index, 1, Played.of(Pitch.of(60), 100)))));
+            server.broadcast(TextMessage.of("bye"));
+
+            waitFor(() -> atServer.size() == 1 && atSecond.size() == MESSAGES + 1);
+
+            assertEquals("hello", ((TextMessage) atServer.get(0).payload()).text());
+            assertEquals(first.name(), atServer.get(0).header().from());
+
+            // Relayed in order (the server's broadcast can come anywhere in between)
+            int relayed = 0;
+            for(final Envelope<Message> received : atSecond)
+                if (received.payload() instanceof SignalsMessage) {
+                    assertEquals(first.name(), received.header().from());
+                    assertEquals(relayed++, ((SignalsMessage) received.payload()).signals().first().time());
+                } else {
+                    assertEquals("bye", ((TextMessage) received.payload()).text());
+                }
+            assertEquals(MESSAGES, relayed);
+        } finally {
+            first.disconnect();
+            second.disconnect();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void dropOldestSignalsForSlowClient() throws IOException, InterruptedException {
+        final MUGRESNIOServer server = MUGRESNIOServer.of(0, QUEUE_CAPACITY, OverflowPolicy.DROP_OLDEST_SIGNALS);
+        server.start();
+        try(final Socket slow = connectWithoutReading(server)) {
+            final String name = server.clients().iterator().next();
+            flood(server, name, FLOOD_MESSAGES, 500);
+            server.send(name, TextMessage.of("still queued"));
+
+            final ClientMetrics.Snapshot metrics = server.clientMetrics().get(name);
+            assertTrue(metrics.dropped() > 0);
+            // Plus the text message, which isn't dropped
+            assertTrue(metrics.queued() <= QUEUE_CAPACITY + 1);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void coalesceSignalsForSlowClient() throws IOException, InterruptedException {
+        final MUGRESNIOServer server = MUGRESNIOServer.of(0, QUEUE_CAPACITY, OverflowPolicy.COALESCE);
+        server.start();
+        try(final Socket slow = connectWithoutReading(server)) {
+            final String name = server.clients().iterator().next();
+            flood(server, name, FLOOD_MESSAGES, 500);
+
+            // Every message, and the welcome frame, is written, still queued, dropped or merged into another
+            waitFor(() -> {
+                final ClientMetrics.Snapshot metrics = server.clientMetrics().get(name);
+                return metrics.sent() + metrics.queued() + metrics.dropped() + metrics.coalesced() == FLOOD_MESSAGES + 1;
+            });
+            final ClientMetrics.Snapshot metrics = server.clientMetrics().get(name);
+            assertTrue(metrics.coalesced() > 0);
+            assertTrue(metrics.queued() <= QUEUE_CAPACITY);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void disconnectSlowClient() throws IOException, InterruptedException {
+        final MUGRESNIOServer server = MUGRESNIOServer.of(0, QUEUE_CAPACITY, OverflowPolicy.DISCONNECT);
+        server.start();
+        try(final Socket slow = connectWithoutReading(server)) {
+            final String name = server.clients().iterator().next();
+            flood(server, name, FLOOD_MESSAGES, 500);
+
+            waitFor(() -> server.clients().isEmpty());
+        } finally {
+            server.stop();
+        }
+    }
+
+    /** Client whose socket buffers fill up, because it never reads */
+    private static Socket connectWithoutReading(final MUGRESNIOServer server) throws IOException, InterruptedException {
+        final Socket socket = new Socket();
+        socket.setReceiveBufferSize(4096);
+        socket.connect(new InetSocketAddress("localhost", server.port()));
+        waitFor(() -> server.clients().size() == 1);
+        return socket;
+    }
+
+    /** Sends signals messages until done, or the client is gone */
+    private static void flood(final MUGRESNIOServer server, final String to, final int messages,
+                              final int signalsPerMessage) {
+        for(int index = 0; index < messages; index++) {
+            final Signals signals = Signals.create();
+            for(int signal = 0; signal < signalsPerMessage; signal++)
+                signals.add(Signal.on(EventIds.next(), index, 1, Played.of(Pitch.of(36 + signal % 48), 100)));
+            try {
+                server.send(to, SignalsMessage.timestamped(signals));
+            } catch (final IOException e) {
+                return;
+            }
+        }
+    }
+
+    private static final int MESSAGES = 5000;
+    private static final int QUEUE_CAPACITY = 16;
+    private static final int FLOOD_MESSAGES = 5000;
+}
@@ -0,0 +1,378 @@
+package mugres.core;
+
+import mugres.core.common.Context;
+import mugres.core.common.Event;
+import mugres.core.common.Instrument;
+import mugres.core.common.Length;
+import mugres.core.common.Party;
+import mugres.core.common.Pitch;
+import mugres.core.common.clock.VirtualClock;
+import mugres.core.common.io.CapturingOutput;
+import mugres.core.common.io.MidiOutput;
+import mugres.core.function.Call;
+import mugres.core.function.CallCache;
+import mugres.core.function.Function.EventsFunction;
+import mugres.core.live.scheduler.SignalScheduler;
+import mugres.core.notation.Section;
+import mugres.core.notation.Song;
+import mugres.core.notation.SongDiff;
+import mugres.core.notation.performance.Performance;
+import mugres.core.notation.performance.PerformanceStream;
+import mugres.core.notation.performance.Performer;
+import mugres.core.notation.performance.Player;
+import mugres.core.notation.performance.Track;
+import mugres.core.utils.RandomSong;
+import org.junit.jupiter.api.Test;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static mugres.core.common.Context.basicContext;
+import static mugres.core.common.Party.WellKnownParties.BASS;
+import static mugres.core.common.Party.WellKnownParties.GUITAR1;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PerformerTests {
+    @Test
+    public void parallelPerformanceMatchesSerial() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Performance serial = Performer.perform(song(20));
+            final Performance parallel = Performer.perform(song(20), pool);
+
+            assertEquals(serial.length(), parallel.length());
+            assertEquals(serial.controlEvents().size(), parallel.controlEvents().size());
+            assertEquals(serial.tracks().size(), parallel.tracks().size());
+            for(final Track track : serial.tracks()) {
+                final Track other = parallel.tracks().stream()
+                        .filter(t -> t.party().equals(track.party())).findFirst().get();
+                assertEquals(describe(track), describe(other));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void regeneratedSectionsAreGeneratedInOrder() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Performance performance = Performer.perform(song(1), pool);
+            final Track track = performance.tracks().iterator().next();
+
+            // A (generation 0) x2, B (generations 0..2), A (generation 0 again)
+            final List<Integer> pitches = new ArrayList<>();
+            for(final Event event : track.events())
+                pitches.add(event.played().pitch().midi());
+            assertEquals(listOf(60, 60, 60, 60, 70, 70, 71, 71, 72, 72, 60, 60), pitches);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void failingCallFailsPerformance() {
+        final Song song = Song.of("Failing", basicContext());
+        final Section section = song.createSection("A", 1);
+        song.arrangement().append(section, 1);
+        section.addPart(new Party("Party", Instrument.Acoustic_Grand_Piano, 0),
+                Call.of(new Counter(0, true), section.measures()));
+
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            assertThrows(RuntimeException.class, () -> Performer.perform(song, pool));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void seededSongIsPerformedTheSameWay() {
+        final ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            final Performance first = Performer.perform(randomSong(42));
+            assertEquals(42L, first.seed());
+            assertEquals(describe(first), describe(Performer.perform(randomSong(42))));
+            assertEquals(describe(first), describe(Performer.perform(randomSong(42), pool)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void unseededPerformanceCanBeRepeated() {
+        final Song song = randomSong(0);
+        final Performance first = Performer.perform(song);
+
+        song.context().seed(first.seed());
+        assertEquals(describe(first), describe(Performer.perform(song)));
+    }
+
+    @Test
+    public void randomSongsAreReproducible() {
+        assertEquals(describe(Performer.perform(RandomSong.randomSong(7))),
+                describe(Performer.perform(RandomSong.randomSong(7))));
+    }
+
+    @Test
+    public void onlyChangedPartsArePerformedAgain() {
+        final Party first = new Party("First", Instrument.Acoustic_Grand_Piano, 0);
+        final Party second = new Party("Second", Instrument.Acoustic_Bass, 1);
+        final Counter unchanged = new Counter(60, false);
+        final Song before = twoPartSong(first, unchanged, second, new Counter(70, false), 2);
+        final Performance previous = Performer.perform(before);
+
+        // The second part changes, and A is played once more
+        final Song after = twoPartSong(first, unchanged, second, new Counter(80, false), 3);
+        final SongDiff diff = SongDiff.of(before, after);
+        assertEquals(1, diff.changedParts());
+        assertEquals(2, diff.parts());
+
+        final Performance performance = Performer.perform(after, previous, diff);
+        assertEquals(previous.seed(), performance.seed());
+        assertEquals(after.section("A").length().multiply(3), performance.length());
+        for(final Track track : performance.tracks()) {
+            final List<Integer> pitches = new ArrayList<>();
+            for(final Event event : track.events())
+                pitches.add(event.played().pitch().midi());
+            // The first part isn't generated again: it would be one semitone higher
+            assertEquals(track.party().equals(first) ? listOf(60, 60, 60) : listOf(80, 80, 80), pitches);
+        }
+    }
+
+    @Test
+    public void streamMatchesPerformance() {
+        final Performance performance = Performer.perform(randomSong(42));
+        final Map<String, StringBuilder> streamed = new HashMap<>();
+        try (PerformanceStream stream = Performer.stream(randomSong(42), 1, CallCache.of())) {
+            assertEquals(performance.length(), stream.length());
+            final PerformanceStream.Item first = stream.next();
+            assertTrue(first.isControl());
+            Length position = Length.ZERO;
+            while(stream.hasNext()) {
+                final PerformanceStream.Item item = stream.next();
+                assertFalse(item.position().lessThan(position));
+                position = item.position();
+                if (!item.isControl())
+                    streamed.computeIfAbsent(item.party().name(), name -> new StringBuilder())
+                            .append(item.event()).append('\n');
+            }
+        }
+
+        for(final Track track : performance.tracks())
+            assertEquals(describe(track), streamed.get(track.party().name()).toString());
+    }
+
+    @Test
+    public void streamGeneratesWithinLookahead() throws InterruptedException {
+        final Counter counter = new Counter(0, false);
+        final Song song = Song.of("Long", basicContext());
+        final Section section = song.createSection("A", 1);
+        section.setRegenerate(true);
+        song.arrangement().append(section, 100);
+        section.addPart(new Party("Party", Instrument.Acoustic_Grand_Piano, 0), Call.of(counter, section.measures()));
+
+        try (PerformanceStream stream = Performer.stream(song, 2, CallCache.of())) {
+            stream.next();
+            Thread.sleep(200);
+            // The one being read, two in the window, and one waiting for room
+            assertTrue(counter.generation <= 4);
+
+            int events = 0;
+            while(stream.hasNext())
+                if (!stream.next().isControl())
+                    events++;
+            assertEquals(100, events);
+            assertEquals(100, counter.generation);
+        }
+    }
+
+    @Test
+    public void failingCallFailsStream() {
+        final Song song = Song.of("Failing", basicContext());
+        final Section section = song.createSection("A", 1);
+        song.arrangement().append(section, 1);
+        section.addPart(new Party("Party", Instrument.Acoustic_Grand_Piano, 0),
+                Call.of(new Counter(0, true), section.measures()));
+
+        try (PerformanceStream stream = Performer.stream(song)) {
+            assertThrows(RuntimeException.class, () -> {
+                while(stream.hasNext())
+                    stream.next();
+            });
+        }
+    }
+
+    @Test
+    public void playerPlaysStream() throws InterruptedException {
+        final VirtualClock clock = VirtualClock.of();
+        final CapturingOutput output = CapturingOutput.of();
+        final Player player = Player.play(Performer.stream(song(2)), output, SignalScheduler.of("Player", clock));
+        for(int attempt = 0; attempt < 100 && !player.isFinished(); attempt++)
+            Thread.sleep(20);
+        assertTrue(player.isFinished());
+
+        // 12 measures of 2 seconds at 120 BPM: one whole note per measure and party, on and off
+        clock.advance(11, TimeUnit.SECONDS);
+        assertEquals(2 * (6 + 5), output.count());
+        clock.advance(20, TimeUnit.SECONDS);
+        assertEquals(2 * 12 * 2, output.count());
+    }
+
+    @Test
+    public void failingStreamFailsPlayer() throws InterruptedException {
+        final Song song = Song.of("Failing", basicContext());
+        final Section section = song.createSection("A", 1);
+        song.arrangement().append(section, 1);
+        section.addPart(new Party("Party", Instrument.Acoustic_Grand_Piano, 0),
+                Call.of(new Counter(0, true), section.measures()));
+
+        final Player player = Player.play(Performer.stream(song), CapturingOutput.of(),
+                SignalScheduler.of("Player", VirtualClock.of()));
+        for(int attempt = 0; attempt < 100 && !player.isFinished(); attempt++)
+            Thread.sleep(20);
+        assertTrue(player.isFinished());
+        assertTrue(player.failure() instanceof IllegalStateException);
+
+        // Stopping what's over already
+        player.stop();
+    }
+
+    @Test
+    public void midiOutputReportsSongFailure() throws InterruptedException {
+        final Song song = Song.of("Failing", basicContext());
+        final Section section = song.createSection("A", 1);
+        song.arrangement().append(section, 1);
+        section.addPart(new Party("Party", Instrument.Acoustic_Grand_Piano, 0),
+                Call.of(new Counter(0, true), section.measures()));
+
+        final MidiOutput output = MidiOutput.of(new Receiver() {
+            @Override
+            public void send(final MidiMessage message, final long timeStamp) {
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+        assertNull(output.player());
+        output.send(song);
+        for(int attempt = 0; attempt < 100 && !output.player().isFinished(); attempt++)
+            Thread.sleep(20);
+        assertTrue(output.failure() instanceof IllegalStateException);
+        output.stop();
+    }
+
+    private static Song twoPartSong(final Party first, final Counter firstFunction,
+                                    final Party second, final Counter secondFunction, final int repetitions) {
+        final Song song = Song.of("Incremental", basicContext());
+        final Section a = song.createSection("A", 1);
+        song.arrangement().append(a, repetitions);
+        a.addPart(first, Call.of(firstFunction, a.measures()));
+        a.addPart(second, Call.of(secondFunction, a.measures()));
+        return song;
+    }
+
+    /** Two random parties; seeded if the seed isn't 0 */
+    private static Song randomSong(final long seed) {
+        final Song song = Song.of("Random", basicContext());
+        if (seed != 0)
+            song.context().seed(seed);
+        final Section a = song.createSection("A", 4);
+        final Section b = song.createSection("B", 4);
+        b.setRegenerate(true);
+        song.arrangement().append(a, 2);
+        song.arrangement().append(b, 2);
+        for(final Party party : listOf(GUITAR1.party(), BASS.party())) {
+            a.addPart(party, Call.parse(RANDOM_CALL));
+            b.addPart(party, Call.parse(RANDOM_CALL));
+        }
+        return song;
+    }
+
+    /** A, twice, then B, regenerated, three times, then A again. Every party counts generations on its own. */
+    private static Song song(final int parties) {
+        final Song song = Song.of("Parallel", basicContext());
+        final Section a = song.createSection("A", 2);
+        final Section b = song.createSection("B", 2);
+        b.setRegenerate(true);
+        song.arrangement().append(a, 2);
+        song.arrangement().append(b, 3);
+        song.arrangement().append(a, 1);
+
+        for(int index = 0; index < parties; index++) {
+            final Party party = new Party("Party " + index, Instrument.Acoustic_Grand_Piano, index % 16);
+            a.addPart(party, Call.of(new Counter(60, false), a.measures()));
+            b.addPart(party, Call.of(new Counter(70, false), b.measures()));
+        }
+
+        return song;
+    }
+
+    private static String describe(final Performance performance) {
+        final StringBuilder description = new StringBuilder();
+        performance.tracks().stream()
+                .sorted(Comparator.comparing(track -> track.party().name()))
+                .forEach(track -> description.append(track.party().name()).append('\n').append(describe(track)));
+        return description.toString();
+    }
+
+    private static String describe(final Track track) {
+        final StringBuilder description = new StringBuilder();
+        for(final Event event : track.events())
+            description.append(event).append('\n');
+        return description.toString();
+    }
+
+    @SafeVarargs
+    private static <X> List<X> listOf(final X... values) {
+        final List<X> list = new ArrayList<>();
+        for(final X value : values)
+            list.add(value);
+        return list;
+    }
+
+    /** One whole note per measure, one semitone higher on every generation */
+    private static final class Counter extends EventsFunction {
+        private final int firstPitch;
+        private final boolean fail;
+        private int generation;
+
+        private Counter(final int firstPitch, final boolean fail) {
+            super("counter" + INSTANCES.incrementAndGet(), "Counts generations");
+            this.firstPitch = firstPitch;
+            this.fail = fail;
+        }
+
+        @Override
+        protected List<Event> doExecute(final Context context, final Map<String, Object> arguments) {
+            if (fail)
+                throw new IllegalStateException("fail");
+
+            final Length length = lengthFromNumberOfMeasures(context, arguments);
+            final Length measure = context.timeSignature().measuresLength(1);
+            final Pitch pitch = Pitch.of(firstPitch + generation++);
+            final List<Event> events = new ArrayList<>();
+            for(Length position = Length.ZERO; position.length() < length.length(); position = position.plus(measure))
+                events.add(Event.of(position, pitch, measure, 100));
+            return events;
+        }
+    }
+
+    private static final String RANDOM_CALL = "random(len=4,scale='Minor Pentatonic',root=G)";
+    /** Functions are registered by name */
+    private static final AtomicInteger INSTANCES = new AtomicInteger();
+}
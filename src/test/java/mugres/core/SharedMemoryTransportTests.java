@@ -0,0 +1,138 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.core.live.processor.WaitStrategy;
+import mugres.ipc.Envelope;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.protocol.messages.TextMessage;
+import mugres.ipc.shm.MUGRESSharedMemoryClient;
+import mugres.ipc.shm.MUGRESSharedMemoryServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static mugres.core.utils.Conditions.waitFor;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SharedMemoryTransportTests {
+    @Test
+    public void routeMessages() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("mugres-shm");
+        final MUGRESSharedMemoryServer server = MUGRESSharedMemoryServer.of(directory);
+        final List<Envelope<Message>> atServer = new CopyOnWriteArrayList<>();
+        server.setListener(atServer::add);
+
+        // Small rings, so that they wrap around many times
+        final MUGRESSharedMemoryClient first = MUGRESSharedMemoryClient.of(directory, 4096, WaitStrategy.YIELD);
+        final MUGRESSharedMemoryClient second = MUGRESSharedMemoryClient.of(directory, 4096, WaitStrategy.YIELD);
+        final List<Envelope<Message>> atSecond = new CopyOnWriteArrayList<>();
+        second.setListener(atSecond::add);
+        first.connect();
+        second.connect();
+        server.start();
+
+        try {
+            first.sendToServer(TextMessage.of("hello"));
+            for(int index = 0; index < MESSAGES; index++)
+                first.send(second.name(), SignalsMessage.timestamped(Signals.of(
+                        Signal.on(EventIds.next(), index, 1, Played.of(Pitch.of(60), 100)))));
+            server.broadcast(TextMessage.of("bye"));
+
+            waitFor(() -> atServer.size() == 1 && atSecond.size() == MESSAGES + 1);
+
+            assertEquals("hello", ((TextMessage) atServer.get(0).payload()).text());
+            assertEquals(first.name(), atServer.get(0).header().from());
+
+            int relayed = 0;
+            for(final Envelope<Message> received : atSecond)
+                if (received.payload() instanceof SignalsMessage) {
+                    assertEquals(first.name(), received.header().from());
+                    assertEquals(relayed++, ((SignalsMessage) received.payload()).signals().first().time());
+                } else {
+                    assertEquals("bye", ((TextMessage) received.payload()).text());
+                }
+            assertEquals(MESSAGES, relayed);
+
+            // Clients going away are removed, along with their rings
+            first.disconnect();
+            waitFor(() -> server.clients().size() == 1);
+        } finally {
+            first.disconnect();
+            second.disconnect();
+            server.stop();
+        }
+
+        assertFalse(second.isConnected());
+        final File[] left = directory.toFile().listFiles();
+        assertEquals(0, left == null ? 0 : left.length);
+        Files.deleteIfExists(directory);
+    }
+
+    @Test
+    public void slowClientOnlyAffectsItself() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("mugres-shm");
+        final MUGRESSharedMemoryServer server = MUGRESSharedMemoryServer.of(directory, WaitStrategy.YIELD, BACKLOG);
+        final List<Envelope<Message>> atServer = new CopyOnWriteArrayList<>();
+        server.setListener(atServer::add);
+
+        final MUGRESSharedMemoryClient fast = MUGRESSharedMemoryClient.of(directory, 4096, WaitStrategy.YIELD);
+        final MUGRESSharedMemoryClient slow = MUGRESSharedMemoryClient.of(directory, 4096, WaitStrategy.YIELD);
+        final List<Envelope<Message>> atSlow = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+        slow.setListener(envelope -> {
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            atSlow.add(envelope);
+        });
+        fast.connect();
+        slow.connect();
+        server.start();
+
+        try {
+            // Fills the slow client's ring and backlog, and then some
+            for(int index = 0; index < MESSAGES; index++)
+                fast.send(slow.name(), SignalsMessage.timestamped(Signals.of(
+                        Signal.on(EventIds.next(), index, 1, Played.of(Pitch.of(60), 100)))));
+            fast.sendToServer(TextMessage.of("hello"));
+
+            // Relayed without waiting for the slow client
+            waitFor(() -> atServer.size() == 1);
+            final long dropped = server.dropped(slow.name());
+            assertTrue(dropped > 0);
+
+            release.countDown();
+            waitFor(() -> atSlow.size() == MESSAGES - dropped);
+            long previous = -1;
+            for(final Envelope<Message> received : atSlow) {
+                final long time = ((SignalsMessage) received.payload()).signals().first().time();
+                assertTrue(time > previous);
+                previous = time;
+            }
+        } finally {
+            release.countDown();
+            fast.disconnect();
+            slow.disconnect();
+            server.stop();
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    private static final int MESSAGES = 5000;
+    private static final int BACKLOG = 100;
+}
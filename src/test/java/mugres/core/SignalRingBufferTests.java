@@ -0,0 +1,59 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.live.processor.SignalRingBuffer;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SignalRingBufferTests {
+    @Test
+    public void roundTrip() {
+        final SignalRingBuffer buffer = SignalRingBuffer.of(4);
+        final Signal on = Signal.on(EventIds.next(), 1234L, 9, Played.of(Pitch.of(60), 100));
+        on.addTag("drums");
+        final Signal off = Signal.off(on.eventId(), 1500L, 9, on.played());
+
+        assertTrue(buffer.offer(on));
+        assertTrue(buffer.offer(off));
+        assertEquals(2, buffer.size());
+
+        final Signal polledOn = buffer.poll();
+        assertEquals(on.eventId(), polledOn.eventId());
+        assertEquals(1234L, polledOn.time());
+        assertEquals(9, polledOn.channel());
+        assertEquals(60, polledOn.played().pitch().midi());
+        assertEquals(100, polledOn.played().velocity());
+        assertTrue(polledOn.isActive());
+        assertTrue(polledOn.hasTag("drums"));
+
+        final Signal polledOff = buffer.poll();
+        assertEquals(on.eventId(), polledOff.eventId());
+        assertFalse(polledOff.isActive());
+        assertFalse(polledOff.hasTag("drums"));
+
+        assertNull(buffer.poll());
+        assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void countOverflows() {
+        final SignalRingBuffer buffer = SignalRingBuffer.of(2);
+        final Signal signal = Signal.on(EventIds.next(), 0L, 1, Played.of(Pitch.of(60), 100));
+
+        assertTrue(buffer.offer(signal));
+        assertTrue(buffer.offer(signal));
+        assertFalse(buffer.offer(signal));
+        assertEquals(3, buffer.offered());
+        assertEquals(1, buffer.overflows());
+
+        buffer.poll();
+        assertTrue(buffer.offer(signal));
+    }
+}
@@ -0,0 +1,85 @@
+package mugres.core;
+
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.live.scheduler.ScheduleIndex;
+import mugres.core.live.scheduler.SignalScheduler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import mugres.core.common.EventIds;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class SignalSchedulerTests {
+    @Test
+    public void dispatchInDeadlineOrder() throws InterruptedException {
+        final SignalScheduler scheduler = SignalScheduler.of("Test Scheduler");
+        final List<Signal> dispatched = new CopyOnWriteArrayList<>();
+        final long now = System.currentTimeMillis();
+
+        final Signal third = signal(now + 400);
+        final Signal first = signal(now + 200);
+        final Signal second = signal(now + 300);
+        scheduler.schedule(third, dispatched::add);
+        scheduler.schedule(first, dispatched::add);
+        scheduler.schedule(second, dispatched::add);
+
+        Thread.sleep(600);
+
+        assertEquals(3, dispatched.size());
+        assertEquals(first, dispatched.get(0));
+        assertEquals(second, dispatched.get(1));
+        assertEquals(third, dispatched.get(2));
+        assertEquals(3, scheduler.stats().dispatched());
+        assertEquals(0, scheduler.pending());
+    }
+
+    @Test
+    public void cancelPendingSignals() throws InterruptedException {
+        final SignalScheduler scheduler = SignalScheduler.of("Test Scheduler");
+        final List<Signal> dispatched = new CopyOnWriteArrayList<>();
+        final long now = System.currentTimeMillis();
+
+        final Signal kept = signal(now + 200);
+        final Signal cancelled = signal(now + 200);
+        scheduler.schedule(kept, dispatched::add);
+        scheduler.schedule(cancelled, dispatched::add);
+        scheduler.cancel(s -> s.id().equals(cancelled.id()));
+
+        Thread.sleep(500);
+
+        assertEquals(1, dispatched.size());
+        assertEquals(kept, dispatched.get(0));
+    }
+
+    @Test
+    public void cancelByKey() throws InterruptedException {
+        final SignalScheduler scheduler = SignalScheduler.of("Test Scheduler");
+        final ScheduleIndex<String> index = ScheduleIndex.of(scheduler);
+        final List<Signal> dispatched = new CopyOnWriteArrayList<>();
+        final long now = System.currentTimeMillis();
+
+        final Signal kept = signal(now + 200);
+        index.schedule("kept", kept, dispatched::add);
+        index.schedule("cancelled", signal(now + 200), dispatched::add);
+        index.schedule("cancelled", signal(now + 210), dispatched::add);
+
+        assertEquals(2, index.cancel("cancelled"));
+        assertEquals(0, index.cancel("cancelled"));
+        assertEquals(1, scheduler.pending());
+
+        Thread.sleep(500);
+
+        assertEquals(1, dispatched.size());
+        assertEquals(kept, dispatched.get(0));
+        assertEquals(2, scheduler.stats().cancelled());
+        assertEquals(0, index.size());
+    }
+
+    private static Signal signal(final long time) {
+        return Signal.on(EventIds.next(), time, 0, Played.of(Pitch.MIDDLE_C, 100));
+    }
+}
@@ -0,0 +1,35 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class SignalTests {
+    @Test
+    public void copiesDontShareAttributeChanges() {
+        final Signal original = Signal.on(EventIds.next(), 0, 1, Played.of(Pitch.of(60), 100));
+        assertFalse(original.modifiedChannel(2).hasExtendedAttributes());
+
+        original.setAttribute("swing", "swung");
+        final Signal copy = original.modifiedChannel(2);
+        final Signal other = original.modifiedTime(10);
+        assertEquals("swung", copy.<String>getAttribute("swing"));
+
+        copy.setAttribute("swing", "straight");
+        copy.setAttribute("accent", true);
+        other.removeAttribute("swing");
+        assertEquals("swung", original.<String>getAttribute("swing"));
+        assertNull(original.getAttribute("accent"));
+        assertEquals("straight", copy.<String>getAttribute("swing"));
+        assertNull(other.getAttribute("swing"));
+
+        original.setAttribute("swing", "shuffle");
+        assertEquals("straight", copy.<String>getAttribute("swing"));
+    }
+}
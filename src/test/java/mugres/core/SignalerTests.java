@@ -0,0 +1,56 @@
+package mugres.core;
+
+import mugres.core.common.Context;
+import mugres.core.common.clock.VirtualClock;
+import mugres.core.common.io.SimpleInput;
+import mugres.core.live.signaler.Signaler;
+import mugres.core.live.signaler.config.Configuration;
+import org.junit.jupiter.api.Test;
+
+import static mugres.core.common.Context.basicContext;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SignalerTests {
+    @Test
+    public void malformedFrequenciesAreRejected() {
+        assertRejected(Configuration.Frequency.Mode.SWING, "e");
+        assertRejected(Configuration.Frequency.Mode.SWING, "e:0.6:1");
+        assertRejected(Configuration.Frequency.Mode.SWING, "e:lots");
+        assertRejected(Configuration.Frequency.Mode.EUCLIDEAN, "s");
+        assertRejected(Configuration.Frequency.Mode.EUCLIDEAN, "s:3");
+        assertRejected(Configuration.Frequency.Mode.EUCLIDEAN, "s:3/8/1/2");
+        assertRejected(Configuration.Frequency.Mode.EUCLIDEAN, "s:three/8");
+        assertRejected(Configuration.Frequency.Mode.EUCLIDEAN, "z:3/8");
+        assertRejected(Configuration.Frequency.Mode.FIXED, "soon");
+        assertRejected(Configuration.Frequency.Mode.VALUE, "z");
+    }
+
+    @Test
+    public void wellFormedFrequenciesAreAccepted() {
+        start(Configuration.Frequency.Mode.SWING, "e:0.66").stop(null);
+        start(Configuration.Frequency.Mode.EUCLIDEAN, "s:3/8").stop(null);
+        start(Configuration.Frequency.Mode.EUCLIDEAN, " s : 3 / 8 / 1 ").stop(null);
+        start(Configuration.Frequency.Mode.FIXED, "250").stop(null);
+        start(Configuration.Frequency.Mode.FIXED, "q").stop(null);
+    }
+
+    private static void assertRejected(final Configuration.Frequency.Mode mode, final String spec) {
+        final IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> start(mode, spec));
+        assertTrue(e.getMessage().contains("'" + spec.trim() + "'"), e.getMessage());
+    }
+
+    private static Signaler start(final Configuration.Frequency.Mode mode, final String spec) {
+        final Configuration.Frequency frequency = new Configuration.Frequency();
+        frequency.mode(mode);
+        frequency.value(spec);
+        final Configuration config = new Configuration();
+        config.frequency(frequency);
+        config.duration("100");
+
+        final Context context = basicContext().clock(VirtualClock.of());
+        final Signaler signaler = Signaler.forConfig(config);
+        signaler.start(context, new SimpleInput());
+        return signaler;
+    }
+}
@@ -0,0 +1,160 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.Signals;
+import mugres.ipc.Envelope;
+import mugres.ipc.Header;
+import mugres.ipc.protocol.Message;
+import mugres.ipc.protocol.MessageType;
+import mugres.ipc.protocol.SignalsCodec;
+import mugres.ipc.protocol.exceptions.ParseException;
+import mugres.ipc.protocol.messages.SignalsMessage;
+import mugres.ipc.stream.DataInputStreamReader;
+import mugres.ipc.stream.DataOutputStreamWriter;
+import mugres.ipc.stream.readers.SignalsV2StreamMessageReader;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SignalsCodecTests {
+    @Test
+    public void roundTripThroughStreams() throws IOException {
+        final Signals signals = Signals.create();
+        final long eventId = EventIds.next();
+        final Signal on = Signal.on(eventId, 123456789L, 3, Played.of(Pitch.of(60), 90));
+        on.addTag("lead");
+        on.addTag("left-hand");
+        signals.add(on);
+        signals.add(Signal.off(eventId, 123457000L, 3, Played.of(Pitch.of(60), 0)));
+        signals.add(Signal.on(EventIds.next(), 123456000L, 9, Played.of(Pitch.of(36), 127)));
+
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStreamWriter().write(Envelope.of(Header.of("a", "b"), SignalsMessage.timestamped(signals)),
+                new DataOutputStream(bytes));
+        final Envelope<Message> read = new DataInputStreamReader().read(
+                new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(MessageType.SIGNALS_V2, read.payload().type());
+        final Signals decoded = ((SignalsMessage) read.payload()).signals();
+        assertEquals(3, decoded.size());
+        for(int index = 0; index < 3; index++) {
+            final Signal expected = signals.signals().get(index);
+            final Signal actual = decoded.signals().get(index);
+            assertEquals(expected.eventId(), actual.eventId());
+            assertEquals(expected.time(), actual.time());
+            assertEquals(expected.channel(), actual.channel());
+            assertEquals(expected.played().pitch(), actual.played().pitch());
+            assertEquals(expected.played().velocity(), actual.played().velocity());
+            assertEquals(expected.isActive(), actual.isActive());
+            assertEquals(expected.tags(), actual.tags());
+        }
+    }
+
+    @Test
+    public void chordsAreCompact() {
+        final Signals chord = Signals.create();
+        final long time = System.currentTimeMillis();
+        for(int note = 0; note < 16; note++) {
+            final Signal signal = Signal.on(EventIds.next(), time, 1, Played.of(Pitch.of(48 + note), 100));
+            signal.addTag("pad");
+            chord.add(signal);
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        SignalsCodec.encode(chord, buffer);
+        // Smaller than the legacy format (an int per signal), even with times, event ids and tags
+        assertTrue(buffer.position() < 16 * Integer.BYTES, "Encoded in " + buffer.position() + " bytes");
+        buffer.flip();
+        assertEquals(16, SignalsCodec.decode(buffer).size());
+    }
+
+    @Test
+    public void corruptInputIsRejected() {
+        final Signals signals = Signals.create();
+        final Signal signal = Signal.on(EventIds.next(), 123456789L, 3, Played.of(Pitch.of(60), 90));
+        signal.addTag("lead");
+        signals.add(signal);
+        final ByteBuffer buffer = ByteBuffer.allocate(1024);
+        SignalsCodec.encode(signals, buffer);
+        final byte[] valid = Arrays.copyOf(buffer.array(), buffer.position());
+        // 1 signal, 1 tag: "lead", flags, time, event id, channel, velocity, 1 tag: index 0, pitch
+        assertEquals(1, valid[0]);
+        assertEquals(1, valid[1]);
+        final int tagIndex = valid.length - 2;
+        assertEquals(0, valid[tagIndex]);
+
+        // More signals, tags or tag bytes than bytes left
+        assertMalformed(replace(valid, 0, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x07));
+        assertMalformed(replace(valid, 1, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0x07));
+        assertMalformed(replace(valid, 2, 1, 0x7F));
+        // Negative count
+        assertMalformed(replace(valid, 0, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01));
+        // Tag index out of the table
+        assertMalformed(replace(valid, tagIndex, 1, 1));
+        assertMalformed(replace(valid, tagIndex, 1, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0x01));
+        // Truncated
+        assertMalformed(Arrays.copyOf(valid, valid.length - 1));
+    }
+
+    @Test
+    public void oversizedLengthIsRejected() {
+        for(final int length : new int[] { SignalsV2StreamMessageReader.MAX_LENGTH + 1, 1 << 30, Integer.MAX_VALUE }) {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try(final DataOutputStream output = new DataOutputStream(bytes)) {
+                output.writeInt(length);
+            } catch (final IOException e) {
+                throw new AssertionError(e);
+            }
+
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            try {
+                new SignalsV2StreamMessageReader().read(MessageType.SIGNALS_V2, input);
+                throw new AssertionError("Length " + length + " read");
+            } catch (final IOException expected) {
+                assertTrue(expected.getMessage().startsWith("Invalid length"));
+            }
+        }
+    }
+
+    private static void assertMalformed(final byte[] encoded) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try(final DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(encoded.length);
+            output.write(encoded);
+        } catch (final IOException e) {
+            throw new AssertionError(e);
+        }
+
+        final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertThrows(ParseException.class, () -> {
+            try {
+                new SignalsV2StreamMessageReader().read(MessageType.SIGNALS_V2, input);
+            } catch (final IOException e) {
+                throw new AssertionError(e);
+            }
+        });
+    }
+
+    /** Replaces length bytes at the index with the given ones */
+    private static byte[] replace(final byte[] bytes, final int index, final int length, final int... replacement) {
+        final byte[] replaced = new byte[bytes.length - length + replacement.length];
+        System.arraycopy(bytes, 0, replaced, 0, index);
+        for(int offset = 0; offset < replacement.length; offset++)
+            replaced[index + offset] = (byte) replacement[offset];
+        System.arraycopy(bytes, index + length, replaced, index + replacement.length, bytes.length - index - length);
+        return replaced;
+    }
+}
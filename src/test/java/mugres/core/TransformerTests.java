@@ -0,0 +1,61 @@
+package mugres.core;
+
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.io.CapturingOutput;
+import mugres.core.common.io.Input;
+import mugres.core.live.processor.transformer.Transformer;
+import mugres.core.live.processor.transformer.config.Configuration;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static mugres.core.common.Context.basicContext;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TransformerTests {
+    @Test
+    public void stoppingPartitionsProcessesSubmittedSignals() throws InterruptedException {
+        final Input input = new Input() {};
+        final CapturingOutput output = CapturingOutput.of();
+        final Configuration config = new Configuration();
+        config.partitionBy(Configuration.Partitioning.CHANNEL, 4);
+        final Transformer transformer = new Transformer(basicContext(), input, output, config);
+        transformer.start();
+
+        for(int index = 0; index < SIGNALS; index++)
+            input.send(Signal.on(EventIds.next(), System.currentTimeMillis(), index % 16,
+                    Played.of(Pitch.of(36 + index / 16), 100)));
+        transformer.stop();
+
+        // Output is dispatched by the scheduler
+        for(int attempt = 0; attempt < 100 && output.count() < SIGNALS; attempt++)
+            Thread.sleep(20);
+        assertEquals(SIGNALS, output.count());
+    }
+
+    @Test
+    public void tagPartitioningSpreadsUntaggedSignals() {
+        final Set<Integer> byChannel = new HashSet<>();
+        final Set<Integer> byTag = new HashSet<>();
+        for(int channel = 0; channel < 16; channel++) {
+            final Signal signal = Signal.on(EventIds.next(), 0, channel, Played.of(Pitch.of(60), 100));
+            byChannel.add(Math.floorMod(Configuration.Partitioning.TAG.key(signal), PARTITIONS));
+
+            final Signal tagged = signal.modifiedChannel(0);
+            tagged.addTag("partition-" + channel);
+            byTag.add(Math.floorMod(Configuration.Partitioning.TAG.key(tagged), PARTITIONS));
+        }
+
+        assertEquals(PARTITIONS, byChannel.size());
+        assertTrue(byTag.size() > 1);
+    }
+
+    /** Every note of 48 pitches on 16 channels, once */
+    private static final int SIGNALS = 16 * 48;
+    private static final int PARTITIONS = 4;
+}
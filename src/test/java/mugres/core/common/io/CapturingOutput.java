@@ -0,0 +1,78 @@
+package mugres.core.common.io;
+
+import mugres.core.common.InstrumentChange;
+import mugres.core.common.Signal;
+import mugres.core.notation.Song;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/** In-memory output that keeps every signal sent to it, along with when it was sent. */
+public class CapturingOutput implements Output {
+    private final ConcurrentLinkedQueue<Captured> captured = new ConcurrentLinkedQueue<>();
+    private final LongAdder count = new LongAdder();
+
+    private CapturingOutput() {
+    }
+
+    public static CapturingOutput of() {
+        return new CapturingOutput();
+    }
+
+    @Override
+    public void send(final Signal signal) {
+        captured.add(new Captured(signal, System.nanoTime(), System.currentTimeMillis()));
+        count.increment();
+    }
+
+    @Override
+    public void send(final InstrumentChange instrumentChange) {
+        // Do nothing
+    }
+
+    @Override
+    public void send(final Song song) {
+        // Do nothing
+    }
+
+    /** Total number of signals sent to this output */
+    public long count() {
+        return count.sum();
+    }
+
+    /** Removes and returns every signal captured so far */
+    public List<Captured> drain() {
+        final List<Captured> drained = new ArrayList<>();
+        for(Captured next = captured.poll(); next != null; next = captured.poll())
+            drained.add(next);
+        return drained;
+    }
+
+    public static class Captured {
+        private final Signal signal;
+        private final long nanoTime;
+        private final long millis;
+
+        private Captured(final Signal signal, final long nanoTime, final long millis) {
+            this.signal = signal;
+            this.nanoTime = nanoTime;
+            this.millis = millis;
+        }
+
+        public Signal signal() {
+            return signal;
+        }
+
+        /** {@link System#nanoTime()} when the signal was sent */
+        public long nanoTime() {
+            return nanoTime;
+        }
+
+        /** {@link System#currentTimeMillis()} when the signal was sent */
+        public long millis() {
+            return millis;
+        }
+    }
+}
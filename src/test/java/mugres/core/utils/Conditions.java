@@ -0,0 +1,22 @@
+package mugres.core.utils;
+
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/** Waiting on things other threads do, in tests */
+public final class Conditions {
+    private Conditions() {
+    }
+
+    /** Waits until the condition holds, failing if it doesn't within a few seconds */
+    public static void waitFor(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while(!condition.getAsBoolean() && System.currentTimeMillis() < deadline)
+            Thread.sleep(POLL_MILLIS);
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static final long TIMEOUT_MILLIS = 5000;
+    private static final long POLL_MILLIS = 10;
+}
@@ -0,0 +1,305 @@
+package mugres.core.utils;
+
+import mugres.core.common.Context;
+import mugres.core.common.EventIds;
+import mugres.core.common.Pitch;
+import mugres.core.common.Played;
+import mugres.core.common.Signal;
+import mugres.core.common.io.CapturingOutput;
+import mugres.core.common.io.SimpleInput;
+import mugres.core.live.processor.WaitStrategy;
+import mugres.core.live.processor.transformer.Transformer;
+import mugres.core.live.processor.transformer.config.Configuration;
+import mugres.core.utils.metrics.Histogram;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static mugres.core.common.Context.basicContext;
+
+/**
+ * Load test for the live processing path. Drives a {@link Transformer} with synthetic chords at
+ * increasing rates, captures its output in memory (no MIDI device needed), and reports, for
+ * every rate, throughput and how late signals were dispatched.
+ *
+ * Usage:
+ * <pre>
+ * LoadHarness [--rates 100,200,500,1000] [--step-seconds 5] [--chord 3] [--channels 1]
+ *             [--note-millis 100] [--partitions N] [--decoupled capacity]
+ *             [--filter Name:arg=value;arg=value]...
+ * </pre>
+ */
+public class LoadHarness {
+    private final int[] rates;
+    private final int stepSeconds;
+    private final int chord;
+    private final int channels;
+    private final long noteMillis;
+    private final int partitions;
+    private final int decoupledCapacity;
+    private final List<String> filters;
+
+    private LoadHarness(final int[] rates, final int stepSeconds, final int chord, final int channels,
+                        final long noteMillis, final int partitions, final int decoupledCapacity,
+                        final List<String> filters) {
+        this.rates = rates;
+        this.stepSeconds = stepSeconds;
+        this.chord = chord;
+        this.channels = channels;
+        this.noteMillis = noteMillis;
+        this.partitions = partitions;
+        this.decoupledCapacity = decoupledCapacity;
+        this.filters = filters;
+    }
+
+    public static LoadHarness of(final String[] args) {
+        int[] rates = { 100, 200, 500, 1000, 2000 };
+        int stepSeconds = 5;
+        int chord = 3;
+        int channels = 1;
+        long noteMillis = 100;
+        int partitions = 0;
+        int decoupledCapacity = 0;
+        final List<String> filters = new ArrayList<>();
+
+        for(int index = 0; index < args.length - 1; index += 2) {
+            final String value = args[index + 1];
+            switch (args[index]) {
+                case "--rates":
+                    final String[] parts = value.split(",");
+                    rates = new int[parts.length];
+                    for(int part = 0; part < parts.length; part++)
+                        rates[part] = Integer.parseInt(parts[part].trim());
+                    break;
+                case "--step-seconds": stepSeconds = Integer.parseInt(value); break;
+                case "--chord": chord = Integer.parseInt(value); break;
+                case "--channels": channels = Integer.parseInt(value); break;
+                case "--note-millis": noteMillis = Long.parseLong(value); break;
+                case "--partitions": partitions = Integer.parseInt(value); break;
+                case "--decoupled": decoupledCapacity = Integer.parseInt(value); break;
+                case "--filter": filters.add(value); break;
+                default: throw new IllegalArgumentException("Unknown option: " + args[index]);
+            }
+        }
+
+        if (filters.isEmpty()) {
+            filters.add("ScaleEnforcer:correctionMode=UP");
+            filters.add("Transpose:semitones=12");
+        }
+        if (stepSeconds <= 0)
+            throw new IllegalArgumentException("stepSeconds");
+        if (chord <= 0 || chord > 12)
+            throw new IllegalArgumentException("chord");
+        if (channels <= 0 || channels > 16)
+            throw new IllegalArgumentException("channels");
+
+        return new LoadHarness(rates, stepSeconds, chord, channels, noteMillis, partitions,
+                decoupledCapacity, filters);
+    }
+
+    public static void main(final String[] args) throws InterruptedException {
+        final LoadHarness harness = LoadHarness.of(args);
+
+        System.out.println(String.format("%10s %10s %10s %12s | %28s | %28s",
+                "Rate", "Sent", "Captured", "Signals/s", "Dispatch lateness p50/p99/max (ms)",
+                "End-to-end p50/p99/max (ms)"));
+        for(final Step step : harness.run())
+            System.out.println(step);
+
+        System.exit(0);
+    }
+
+    public List<Step> run() throws InterruptedException {
+        final List<Step> steps = new ArrayList<>();
+        for(final int rate : rates)
+            steps.add(runStep(rate));
+        return steps;
+    }
+
+    private Step runStep(final int rate) throws InterruptedException {
+        final Context context = basicContext();
+        final SimpleInput input = new SimpleInput();
+        final CapturingOutput output = CapturingOutput.of();
+        final Transformer transformer = new Transformer(context, input, output, configuration());
+
+        final Histogram lateness = Histogram.of();
+        final Histogram endToEnd = Histogram.of();
+        final Map<Long, Long> sentAt = new ConcurrentHashMap<>();
+        final long originNanos = System.nanoTime();
+        final long originMillis = System.currentTimeMillis();
+
+        transformer.start();
+
+        final ArrayDeque<PendingOff> pendingOffs = new ArrayDeque<>();
+        final long interval = TimeUnit.SECONDS.toNanos(1) / rate;
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(stepSeconds);
+        long deadline = System.nanoTime();
+        long sent = 0;
+        int event = 0;
+        while(deadline < end) {
+            waitUntil(deadline);
+            sent += sendDueOffs(input, pendingOffs, System.nanoTime());
+
+            final int channel = event % channels;
+            final int root = LOWEST_PITCH + (event * 5) % PITCH_SPAN;
+            for(int note = 0; note < chord; note++) {
+                final long eventId = EventIds.next();
+                final Played played = Played.of(Pitch.of(root + note * 4), 100);
+                final long now = System.nanoTime();
+                sentAt.put(eventId, now);
+                input.send(Signal.on(eventId, System.currentTimeMillis(), channel, played));
+                pendingOffs.add(new PendingOff(eventId, channel, played,
+                        now + TimeUnit.MILLISECONDS.toNanos(noteMillis)));
+                sent++;
+            }
+
+            event++;
+            deadline += interval;
+        }
+        while(!pendingOffs.isEmpty()) {
+            waitUntil(pendingOffs.peek().due);
+            sent += sendDueOffs(input, pendingOffs, System.nanoTime());
+        }
+
+        // Wait for the output to settle
+        long lastCount = -1;
+        while(output.count() != lastCount) {
+            lastCount = output.count();
+            Thread.sleep(SETTLE_MILLIS);
+        }
+        transformer.stop();
+
+        final List<CapturingOutput.Captured> captured = output.drain();
+        for(final CapturingOutput.Captured capture : captured) {
+            final Signal signal = capture.signal();
+            final long due = originNanos + TimeUnit.MILLISECONDS.toNanos(signal.time() - originMillis);
+            lateness.record(capture.nanoTime() - due);
+
+            final Long sentNanos = signal.isActive() ? sentAt.get(signal.eventId()) : null;
+            if (sentNanos != null)
+                endToEnd.record(capture.nanoTime() - sentNanos);
+        }
+
+        final long elapsedNanos = TimeUnit.SECONDS.toNanos(stepSeconds) + TimeUnit.MILLISECONDS.toNanos(noteMillis);
+        return new Step(rate, sent, captured.size(),
+                captured.size() / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1)),
+                lateness.snapshot(), endToEnd.snapshot());
+    }
+
+    private Configuration configuration() {
+        final Configuration config = new Configuration();
+        for(final String filter : filters) {
+            final String[] nameAndArguments = filter.split(":", 2);
+            final Map<String, Object> arguments = new HashMap<>();
+            if (nameAndArguments.length > 1)
+                for(final String argument : nameAndArguments[1].split(";")) {
+                    final String[] nameAndValue = argument.split("=", 2);
+                    arguments.put(nameAndValue[0].trim(), nameAndValue.length > 1 ? nameAndValue[1].trim() : "");
+                }
+            config.appendFilter(nameAndArguments[0].trim(), arguments);
+        }
+
+        if (partitions > 0)
+            config.partitionBy(Configuration.Partitioning.CHANNEL, partitions);
+        if (decoupledCapacity > 0)
+            config.decoupleInput(decoupledCapacity, WaitStrategy.PARK);
+
+        return config;
+    }
+
+    private static int sendDueOffs(final SimpleInput input, final ArrayDeque<PendingOff> pendingOffs,
+                                   final long now) {
+        int sent = 0;
+        while(!pendingOffs.isEmpty() && pendingOffs.peek().due <= now) {
+            final PendingOff off = pendingOffs.poll();
+            input.send(Signal.off(off.eventId, System.currentTimeMillis(), off.channel, off.played));
+            sent++;
+        }
+        return sent;
+    }
+
+    private static void waitUntil(final long deadline) {
+        long remaining;
+        while((remaining = deadline - System.nanoTime()) > 0)
+            LockSupport.parkNanos(remaining);
+    }
+
+    private static class PendingOff {
+        private final long eventId;
+        private final int channel;
+        private final Played played;
+        private final long due;
+
+        private PendingOff(final long eventId, final int channel, final Played played, final long due) {
+            this.eventId = eventId;
+            this.channel = channel;
+            this.played = played;
+            this.due = due;
+        }
+    }
+
+    public static class Step {
+        private final int rate;
+        private final long sent;
+        private final long captured;
+        private final double throughput;
+        private final Histogram.Snapshot lateness;
+        private final Histogram.Snapshot endToEnd;
+
+        private Step(final int rate, final long sent, final long captured, final double throughput,
+                     final Histogram.Snapshot lateness, final Histogram.Snapshot endToEnd) {
+            this.rate = rate;
+            this.sent = sent;
+            this.captured = captured;
+            this.throughput = throughput;
+            this.lateness = lateness;
+            this.endToEnd = endToEnd;
+        }
+
+        /** Chords per second */
+        public int rate() {
+            return rate;
+        }
+
+        public long sent() {
+            return sent;
+        }
+
+        public long captured() {
+            return captured;
+        }
+
+        /** Captured signals per second */
+        public double throughput() {
+            return throughput;
+        }
+
+        /** Actual vs scheduled dispatch time, in nanoseconds */
+        public Histogram.Snapshot lateness() {
+            return lateness;
+        }
+
+        /** Time from input to output of note-ons, in nanoseconds */
+        public Histogram.Snapshot endToEnd() {
+            return endToEnd;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%10d %10d %10d %12.0f | %8.3f %8.3f %10.3f | %8.3f %8.3f %10.3f",
+                    rate, sent, captured, throughput,
+                    lateness.percentile(50) / 1e6, lateness.percentile(99) / 1e6, lateness.max() / 1e6,
+                    endToEnd.percentile(50) / 1e6, endToEnd.percentile(99) / 1e6, endToEnd.max() / 1e6);
+        }
+    }
+
+    private static final int LOWEST_PITCH = 36;
+    private static final int PITCH_SPAN = 48;
+    private static final long SETTLE_MILLIS = 200;
+}